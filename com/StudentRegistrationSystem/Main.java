@@ -2,10 +2,21 @@ package com.StudentRegistrationSystem;
 
 import javax.swing.*;
 
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+
 import com.StudentRegistrationSystem.controller.AppController;
 import com.StudentRegistrationSystem.model.AdminService;
-import com.StudentRegistrationSystem.model.DataAccessService;
+import com.StudentRegistrationSystem.model.DataRepository;
+import com.StudentRegistrationSystem.model.EligibilityService;
+import com.StudentRegistrationSystem.model.GradeAnalyticsService;
+import com.StudentRegistrationSystem.model.PersistenceWriter;
 import com.StudentRegistrationSystem.model.RegistrationService;
+import com.StudentRegistrationSystem.model.ShardedRegistrationEngine;
+import com.StudentRegistrationSystem.model.StorageEngine;
+import com.StudentRegistrationSystem.model.WaitlistService;
+import com.StudentRegistrationSystem.server.RegistrationServer;
 import com.StudentRegistrationSystem.view.MainFrame;
 
 /**
@@ -17,24 +28,68 @@ public class Main {
     /**
      * เมธอด main ซึ่งเป็นจุดแรกที่ Java Virtual Machine (JVM) จะเรียกใช้งานเมื่อโปรแกรมเริ่มทำงาน
      *
-     * @param args อาร์กิวเมนต์ที่รับมาจาก Command Line (ในโปรแกรมนี้ไม่ได้ใช้งาน)
+     * @param args อาร์กิวเมนต์ที่รับมาจาก Command Line: {@code --server [พอร์ต]} เพื่อเริ่มเซิร์ฟเวอร์ HTTP แทนหน้าต่าง GUI
+     *             {@code --storage csv|memory|mapped|shared} เพื่อเลือกรูปแบบการจัดเก็บข้อมูล (ค่าเริ่มต้นคือ csv)
+     *             และ {@code --shards [จำนวน]} เพื่อลงทะเบียนผ่านกลไกแบบแบ่งส่วนตามรายวิชา (ค่าเริ่มต้นคือจำนวนคอร์)
+     *             โหมดเซิร์ฟเวอร์รับ {@code --bind ที่อยู่} เพื่อรับคำขอจากเครือข่าย (ค่าเริ่มต้นคือเฉพาะเครื่องเดียวกัน)
+     *             และใช้โทเคนผู้ดูแลระบบจากตัวแปรสภาพแวดล้อม {@code REGISTRATION_ADMIN_TOKEN} (หากไม่กำหนดจะสุ่มให้และแสดงตอนเริ่ม)
      */
     public static void main(String[] args) {
+        StorageEngine storage = StorageEngine.CSV;
+        Integer serverPort = null;
+        String bindAddress = null;
+        int shardCount = 0;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--server")) {
+                serverPort = i + 1 < args.length && !args[i + 1].startsWith("--")
+                        ? Integer.parseInt(args[++i]) : RegistrationServer.DEFAULT_PORT;
+            } else if (args[i].equals("--storage") && i + 1 < args.length) {
+                storage = StorageEngine.valueOf(args[++i].toUpperCase());
+            } else if (args[i].equals("--bind") && i + 1 < args.length) {
+                bindAddress = args[++i];
+            } else if (args[i].equals("--shards")) {
+                shardCount = i + 1 < args.length && !args[i + 1].startsWith("--")
+                        ? Integer.parseInt(args[++i]) : Runtime.getRuntime().availableProcessors();
+            }
+        }
+        ShardedRegistrationEngine shardedEngine = shardCount > 0 ? new ShardedRegistrationEngine(shardCount) : null;
+        if (serverPort != null) {
+            startServer(storage, shardedEngine, bindAddress, serverPort);
+            return;
+        }
+        
+        // --- 1. การสร้างส่วนประกอบของ Model ---
+        // Model ในที่นี้คือกลุ่มของคลาส Service ที่จัดการข้อมูลและตรรกะทางธุรกิจ
+        // สร้างบนเธรดหลัก (ไม่ใช่ EDT) เพราะการโหลดไฟล์ข้อมูลขนาดใหญ่จะทำให้หน้าจอค้าง
         
+        // สร้างที่เก็บข้อมูลตามรูปแบบที่เลือก (ค่าเริ่มต้นคือไฟล์ CSV ในโหมด Journal
+        // ซึ่งต่อท้ายการเปลี่ยนแปลงแทนการเขียนไฟล์ enrollments.csv ใหม่ทั้งไฟล์)
+        DataRepository dataAccess = storage.open(".");
+        // สร้างเธรดบันทึกข้อมูลแบบรวมกลุ่ม (Group Commit) ที่ Service ทั้งสองใช้ร่วมกัน
+        PersistenceWriter persistenceWriter = new PersistenceWriter(dataAccess);
+        // เมื่อโปรแกรมถูกปิด: บันทึกการเปลี่ยนแปลงที่ค้างอยู่ แล้วรวม Journal ที่เหลือกลับเข้าไฟล์ CSV
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            if (shardedEngine != null) {
+                shardedEngine.shutdown();
+            }
+            persistenceWriter.shutdown();
+            dataAccess.close();
+        }));
+        // สร้าง Service สำหรับจัดการตรรกะการลงทะเบียน โดยส่ง DataAccessService เข้าไป
+        RegistrationService registrationService = new RegistrationService(dataAccess, persistenceWriter, shardedEngine);
+        // สร้าง Service สำหรับจัดการตรรกะของแอดมิน โดยส่ง DataAccessService เข้าไป
+        AdminService adminService = new AdminService(dataAccess, persistenceWriter);
+        // สร้าง Service สำหรับตรวจสอบสิทธิ์การลงทะเบียนของทุกรายวิชา (เก็บผลไว้ต่อนักเรียนและอัปเดตเมื่อข้อมูลเปลี่ยน)
+        EligibilityService eligibilityService = new EligibilityService(dataAccess, registrationService);
+        // สร้าง Service สถิติเกรด (คำนวณครั้งแรกแบบขนาน แล้วอัปเดตเฉพาะส่วนที่เปลี่ยนเมื่อมีการลงทะเบียนหรือแก้ไขเกรด)
+        GradeAnalyticsService gradeAnalyticsService = new GradeAnalyticsService(dataAccess);
+        // เปิดใช้รายชื่อรอ: การลงทะเบียนในวิชาที่เต็มจะเข้าคิว และถูกลงทะเบียนอัตโนมัติเมื่อมีที่นั่งว่าง
+        new WaitlistService(dataAccess, registrationService);
+
         // ใช้ SwingUtilities.invokeLater เพื่อให้แน่ใจว่าการสร้างและจัดการส่วนประกอบ UI ทั้งหมด
         // จะเกิดขึ้นบน Event Dispatch Thread (EDT) ซึ่งเป็นกฎสำคัญของการเขียนโปรแกรม Swing
         SwingUtilities.invokeLater(() -> {
 
-            // --- 1. การสร้างส่วนประกอบของ Model ---
-            // Model ในที่นี้คือกลุ่มของคลาส Service ที่จัดการข้อมูลและตรรกะทางธุรกิจ
-            
-            // สร้าง Service สำหรับจัดการการเข้าถึงข้อมูล (อ่าน/เขียนไฟล์ CSV)
-            DataAccessService dataAccess = new DataAccessService();
-            // สร้าง Service สำหรับจัดการตรรกะการลงทะเบียน โดยส่ง DataAccessService เข้าไป
-            RegistrationService registrationService = new RegistrationService(dataAccess);
-            // สร้าง Service สำหรับจัดการตรรกะของแอดมิน โดยส่ง DataAccessService เข้าไป
-            AdminService adminService = new AdminService(dataAccess);
-            
             // --- 2. การสร้างส่วนประกอบของ View ---
             // View คือส่วนที่ผู้ใช้มองเห็นและโต้ตอบด้วย
             MainFrame view = new MainFrame();
@@ -44,11 +99,68 @@ public class Main {
             
             // สร้าง Controller และส่ง "Model" (Services) และ "View" (MainFrame) เข้าไป
             // เพื่อให้ Controller สามารถทำหน้าที่เป็นตัวกลางประสานงานได้
-            new AppController(view, dataAccess, registrationService, adminService);
+            new AppController(view, dataAccess, registrationService, adminService, eligibilityService,
+                    gradeAnalyticsService);
             
             // --- 4. แสดงหน้าต่างโปรแกรม ---
             // ทำให้หน้าต่าง GUI ปรากฏขึ้นบนหน้าจอของผู้ใช้
             view.setVisible(true);
         });
     }
-}
\ No newline at end of file
+
+    /**
+     * เริ่มโปรแกรมในโหมดเซิร์ฟเวอร์ (ไม่มีหน้าต่าง GUI) เพื่อรองรับผู้ใช้จำนวนมากพร้อมกันผ่าน HTTP
+     * ใช้ Model ชุดเดียวกับโหมด GUI ทุกประการ
+     *
+     * @param storage       รูปแบบการจัดเก็บข้อมูล
+     * @param shardedEngine กลไกการลงทะเบียนแบบแบ่งส่วน (หรือ null เพื่อใช้ Lock ของนักเรียน)
+     * @param bindAddress   ที่อยู่ที่ใช้รับคำขอ (หรือ null เพื่อรับเฉพาะจากเครื่องเดียวกัน)
+     * @param port          พอร์ตที่ใช้รับคำขอ
+     */
+    private static void startServer(StorageEngine storage, ShardedRegistrationEngine shardedEngine, String bindAddress,
+                                    int port) {
+        DataRepository dataAccess = storage.open(".");
+        PersistenceWriter persistenceWriter = new PersistenceWriter(dataAccess);
+        RegistrationService registrationService = new RegistrationService(dataAccess, persistenceWriter, shardedEngine);
+        AdminService adminService = new AdminService(dataAccess, persistenceWriter);
+        GradeAnalyticsService gradeAnalyticsService = new GradeAnalyticsService(dataAccess);
+        new WaitlistService(dataAccess, registrationService);
+
+        String adminToken = System.getenv("REGISTRATION_ADMIN_TOKEN");
+        boolean generatedToken = adminToken == null || adminToken.isEmpty();
+        if (generatedToken) {
+            adminToken = RegistrationServer.newAccessToken();
+        }
+
+        try {
+            InetSocketAddress address = bindAddress == null
+                    ? new InetSocketAddress(InetAddress.getLoopbackAddress(), port)
+                    : new InetSocketAddress(InetAddress.getByName(bindAddress), port);
+            RegistrationServer server = new RegistrationServer(dataAccess, registrationService, adminService,
+                    gradeAnalyticsService, address, adminToken);
+            // เมื่อโปรแกรมถูกปิด: หยุดรับคำขอใหม่ก่อน แล้วจึงบันทึกข้อมูลที่ค้างอยู่
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                server.stop(1);
+                if (shardedEngine != null) {
+                    shardedEngine.shutdown();
+                }
+                persistenceWriter.shutdown();
+                dataAccess.close();
+            }));
+            server.start();
+            System.out.println("Registration server listening on " + address.getAddress().getHostAddress()
+                    + ":" + server.getPort());
+            if (generatedToken) {
+                System.out.println("Admin token: " + adminToken);
+            }
+        } catch (IOException e) {
+            System.err.println("Error starting server on port " + port);
+            e.printStackTrace();
+            if (shardedEngine != null) {
+                shardedEngine.shutdown();
+            }
+            persistenceWriter.shutdown();
+            dataAccess.close();
+        }
+    }
+}
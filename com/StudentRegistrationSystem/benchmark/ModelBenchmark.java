@@ -0,0 +1,235 @@
+package com.StudentRegistrationSystem.benchmark;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import com.StudentRegistrationSystem.model.AdminService;
+import com.StudentRegistrationSystem.model.ColumnarEnrollmentStore;
+import com.StudentRegistrationSystem.model.DataAccessService;
+import com.StudentRegistrationSystem.model.DataAccessService.PersistenceMode;
+import com.StudentRegistrationSystem.model.DataRepository;
+import com.StudentRegistrationSystem.model.Enrollment;
+import com.StudentRegistrationSystem.model.RegistrationService;
+import com.StudentRegistrationSystem.model.StorageEngine;
+import com.StudentRegistrationSystem.model.Student;
+import com.StudentRegistrationSystem.model.Subject;
+
+/**
+ * ชุดวัดประสิทธิภาพ (Micro-benchmark) ของส่วน Model
+ * สร้างชุดข้อมูลจำลองตามขนาดที่กำหนด (จำนวนรายการลงทะเบียน) ในโฟลเดอร์ชั่วคราว
+ * แล้ววัดเวลาของแต่ละการทำงาน โดยแต่ละรายการจะมีช่วงอุ่นเครื่อง (Warm-up) ก่อนเริ่มวัดจริง
+ *
+ * วิธีใช้งาน:
+ * <pre>
+ *     java com.StudentRegistrationSystem.benchmark.ModelBenchmark [ขนาด,ขนาด,...] [CSV|JOURNAL|EVENT_LOG|SHARED|MEMORY|MAPPED]
+ *     java com.StudentRegistrationSystem.benchmark.ModelBenchmark 1000,100000,1000000,10000000 JOURNAL
+ * </pre>
+ */
+public class ModelBenchmark {
+
+    private static final long WARMUP_MILLIS = 500;
+    private static final long MEASURE_MILLIS = 1_000;
+
+    /**
+     * จำนวนรายวิชาที่ไม่มีผู้ลงทะเบียน และไม่จำกัดจำนวนคน สำหรับใช้วัดการลงทะเบียนใหม่
+     */
+    private static final int OPEN_SUBJECTS = 50;
+
+    /**
+     * ตัวแปรสำหรับเก็บผลลัพธ์ เพื่อป้องกันไม่ให้ JIT Compiler ตัดโค้ดที่ถูกวัดทิ้ง (Dead-code Elimination)
+     */
+    private static volatile Object sink;
+
+    public static void main(String[] args) throws IOException {
+        String sizesArg = args.length > 0 ? args[0] : "1000,100000,1000000";
+        String storage = args.length > 1 ? args[1] : PersistenceMode.CSV.name();
+
+        System.out.printf("%-28s %12s %14s %14s%n", "benchmark", "enrollments", "ops/s", "us/op");
+        for (String size : sizesArg.split(",")) {
+            runSuite(Integer.parseInt(size.trim()), storage);
+        }
+    }
+
+    /**
+     * สร้างชุดข้อมูลขนาดที่กำหนด และวัดทุกการทำงานกับชุดข้อมูลนั้น
+     */
+    private static void runSuite(int enrollmentCount, String storage) throws IOException {
+        Path dir = Files.createTempDirectory("srs-bench-");
+        int studentCount = Math.max(100, enrollmentCount / 20);
+        int subjectCount = Math.max(40, (enrollmentCount + studentCount - 1) / studentCount * 2);
+        generateDataset(dir, studentCount, subjectCount, enrollmentCount);
+
+        measure("loadData", enrollmentCount, () -> new DataAccessService(dir.toString(), PersistenceMode.CSV));
+
+        DataRepository dataAccess = openRepository(dir.toString(), storage);
+        RegistrationService registrationService = new RegistrationService(dataAccess);
+        AdminService adminService = new AdminService(dataAccess);
+
+        // สร้างรหัสไว้ล่วงหน้า เพื่อไม่ให้เวลาการจัดรูปแบบ String ถูกนับรวมในผลการวัด
+        String[] studentIds = new String[studentCount];
+        String[] subjectIds = new String[subjectCount];
+        for (int i = 0; i < studentCount; i++) {
+            studentIds[i] = studentId(i);
+        }
+        for (int i = 0; i < subjectCount; i++) {
+            subjectIds[i] = subjectId(i);
+        }
+
+        int[] cursor = {0};
+        measure("findStudentById", enrollmentCount,
+                () -> dataAccess.findStudentById(studentIds[cursor[0]++ % studentCount]));
+        measure("findSubjectById", enrollmentCount,
+                () -> dataAccess.findSubjectById(subjectIds[cursor[0]++ % subjectCount]));
+        measure("getEnrollmentsByStudentId", enrollmentCount,
+                () -> dataAccess.getEnrollmentsByStudentId(studentIds[cursor[0]++ % studentCount]));
+
+        // ลงทะเบียนนักเรียนแต่ละคนในรายวิชาที่ยังไม่มีผู้ลงทะเบียน เพื่อให้ทุกครั้งเป็นการลงทะเบียนใหม่ที่สำเร็จ
+        List<Student> students = dataAccess.getAllStudents();
+        List<Subject> openSubjects = new ArrayList<>();
+        for (int i = 0; i < OPEN_SUBJECTS; i++) {
+            dataAccess.findSubjectById(openSubjectId(i)).ifPresent(openSubjects::add);
+        }
+        int[] registration = {0};
+        measure("registerStudent", enrollmentCount, () -> {
+            int n = registration[0]++;
+            return registrationService.registerStudent(students.get(n % students.size()),
+                    openSubjects.get((n / students.size()) % openSubjects.size()));
+        });
+
+        String[] grades = {"A", "B+", "B", "C+", "C", "D+", "D", "F"};
+        measure("updateGrade", enrollmentCount, () -> {
+            int n = cursor[0]++ % enrollmentCount;
+            return adminService.updateGrade(studentIds[n % studentCount], subjectIds[n / studentCount],
+                    grades[n % grades.length]);
+        });
+
+        measure("saveEnrollments", enrollmentCount, () -> {
+            dataAccess.saveEnrollments();
+            return null;
+        });
+
+        // สแกนทั้งตารางเพื่อนับเกรดของรายวิชา: เปรียบเทียบระหว่าง List ของ Object และที่เก็บแบบคอลัมน์
+        List<Enrollment> allEnrollments = dataAccess.getAllEnrollments();
+        measure("gradeHistogram (objects)", enrollmentCount, () -> {
+            String subjectId = subjectIds[cursor[0]++ % subjectCount];
+            int[] histogram = new int[9];
+            for (Enrollment e : allEnrollments) {
+                if (e.getSubjectId().equals(subjectId)) {
+                    // ใช้ความยาวของเกรดแทนการแปลงเป็นรหัส เพื่อให้ผลการวัดสะท้อนต้นทุนของการสแกน Object เป็นหลัก
+                    histogram[e.getGrade() == null ? 0 : e.getGrade().length()]++;
+                }
+            }
+            return histogram;
+        });
+        ColumnarEnrollmentStore columnar = ColumnarEnrollmentStore.from(allEnrollments);
+        measure("gradeHistogram (columnar)", enrollmentCount,
+                () -> columnar.gradeHistogram(subjectIds[cursor[0]++ % subjectCount]));
+
+        dataAccess.close();
+        deleteRecursively(dir.toFile());
+    }
+
+    /**
+     * เปิดที่เก็บข้อมูลตามชื่อที่ระบุ: MEMORY หรือ MAPPED ตาม {@link StorageEngine}
+     * หรือชื่อโหมดการบันทึก ({@link PersistenceMode}) ของที่เก็บข้อมูลแบบไฟล์ CSV
+     */
+    private static DataRepository openRepository(String dataDirectory, String storage) {
+        if (storage.equals(StorageEngine.MEMORY.name()) || storage.equals(StorageEngine.MAPPED.name())) {
+            return StorageEngine.valueOf(storage).open(dataDirectory);
+        }
+        return new DataAccessService(dataDirectory, PersistenceMode.valueOf(storage));
+    }
+
+    /**
+     * วัดประสิทธิภาพของการทำงานหนึ่งรายการ: เรียกซ้ำในช่วงอุ่นเครื่อง แล้วนับจำนวนครั้งที่ทำได้ในช่วงเวลาที่วัด
+     */
+    private static void measure(String name, int enrollmentCount, Operation operation) {
+        runFor(WARMUP_MILLIS, operation);
+        long[] result = runFor(MEASURE_MILLIS, operation);
+        double seconds = result[1] / 1e9;
+        System.out.printf(Locale.ROOT, "%-28s %12d %14.1f %14.3f%n",
+                name, enrollmentCount, result[0] / seconds, result[1] / 1e3 / result[0]);
+    }
+
+    /**
+     * @return [จำนวนครั้งที่ทำงาน, เวลาที่ใช้ทั้งหมดเป็นนาโนวินาที] (ทำงานอย่างน้อย 1 ครั้งเสมอ)
+     */
+    private static long[] runFor(long millis, Operation operation) {
+        long start = System.nanoTime();
+        long deadline = start + millis * 1_000_000;
+        long ops = 0;
+        long now;
+        do {
+            sink = operation.run();
+            ops++;
+            now = System.nanoTime();
+        } while (now < deadline);
+        return new long[]{ops, now - start};
+    }
+
+    @FunctionalInterface
+    private interface Operation {
+        Object run();
+    }
+
+    // --- กลุ่มเมธอดสำหรับสร้างชุดข้อมูลจำลอง ---
+
+    private static String studentId(int index) {
+        return String.format("%08d", 70_000_000 + index);
+    }
+
+    private static String subjectId(int index) {
+        return String.format("%08d", 10_000_000 + index);
+    }
+
+    private static String openSubjectId(int index) {
+        return String.format("%08d", 20_000_000 + index);
+    }
+
+    /**
+     * เขียนไฟล์ CSV ทั้งสามไฟล์ โดยรายการลงทะเบียนที่ i เป็นของนักเรียน (i % studentCount)
+     * ในรายวิชา (i / studentCount) ซึ่งทำให้คู่ นักเรียน-วิชา ไม่ซ้ำกัน
+     */
+    private static void generateDataset(Path dir, int studentCount, int subjectCount, int enrollmentCount)
+            throws IOException {
+        try (PrintWriter writer = new PrintWriter(new BufferedWriter(new FileWriter(dir.resolve("students.csv").toFile())))) {
+            writer.println("student_id,prefix,first_name,last_name,date_of_birth,school,email");
+            LocalDate dateOfBirth = LocalDate.of(2005, 1, 1);
+            for (int i = 0; i < studentCount; i++) {
+                writer.println(String.join(",", studentId(i), "Mr.", "First" + i, "Last" + i,
+                        dateOfBirth.plusDays(i % 1000).toString(), "Benchmark School", "student" + i + "@email.com"));
+            }
+        }
+        try (PrintWriter writer = new PrintWriter(new BufferedWriter(new FileWriter(dir.resolve("subjects.csv").toFile())))) {
+            writer.println("subject_id,subject_name,credits,instructor_name,prerequisite_id,max_capacity,current_enrollment");
+            for (int i = 0; i < subjectCount; i++) {
+                writer.println(String.join(",", subjectId(i), "Subject " + i, "3", "Instructor " + i, "", "-1", "0"));
+            }
+            for (int i = 0; i < OPEN_SUBJECTS; i++) {
+                writer.println(String.join(",", openSubjectId(i), "Open Subject " + i, "3", "Instructor", "", "-1", "0"));
+            }
+        }
+        try (PrintWriter writer = new PrintWriter(new BufferedWriter(new FileWriter(dir.resolve("enrollments.csv").toFile())))) {
+            writer.println("enrollment_id,student_id,subject_id,enrollment_date,grade");
+            for (int i = 0; i < enrollmentCount; i++) {
+                writer.println(String.join(",", String.valueOf(i + 1), studentId(i % studentCount),
+                        subjectId(i / studentCount), "2025-09-19T10:00:00", ""));
+            }
+        }
+    }
+
+    private static void deleteRecursively(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        file.delete();
+    }
+}
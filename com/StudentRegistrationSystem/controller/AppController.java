@@ -3,32 +3,44 @@ package com.StudentRegistrationSystem.controller;
 import javax.swing.*;
 import com.StudentRegistrationSystem.model.*;
 import com.StudentRegistrationSystem.view.MainFrame;
-import java.util.List;
-import java.util.stream.Collectors;
+import java.awt.Cursor;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
 
 /**
  * คลาส Controller หลักของแอปพลิเคชัน
  * ทำหน้าที่เป็นตัวกลางเชื่อมระหว่าง View (ส่วนติดต่อผู้ใช้) และ Model (ส่วนจัดการข้อมูลและตรรกะ)
  * จัดการกับการกระทำทั้งหมดของผู้ใช้ เช่น การล็อกอิน, การลงทะเบียน, และการจัดการเกรด
+ *
+ * การเรียกใช้ Model ทุกครั้ง (ซึ่งอาจอ่าน/เขียนไฟล์หรือค้นหาข้อมูลจำนวนมาก) จะทำงานบนเธรดเบื้องหลังผ่าน {@link SwingWorker}
+ * เพื่อไม่ให้ Event Dispatch Thread (EDT) ถูกบล็อกจนหน้าจอค้าง ส่วนการอัปเดต UI จะกลับมาทำบน EDT เสมอ
  */
 public class AppController {
     
     // ส่วนประกอบหลักที่ Controller ต้องใช้
     private MainFrame view;
-    private DataAccessService dataAccessService;
+    private DataRepository dataAccessService;
     private RegistrationService registrationService;
     private AdminService adminService;
+    private EligibilityService eligibilityService;
+    private GradeAnalyticsService gradeAnalyticsService;
     private Student currentUser;
+    private StudentDashboard dashboard; // สถานะหน้าจอของนักเรียนที่ล็อกอินอยู่ (คำนวณครั้งเดียวตอนล็อกอิน)
+    private String rosterSubjectId;     // รหัสวิชาของรายชื่อที่แสดงอยู่ในตารางของแอดมิน (null หากตารางว่าง) อ่านเขียนบน EDT เท่านั้น
 
     /**
      * Constructor ของ Controller
      * รับค่า View และ Services ต่างๆ เข้ามาเพื่อเชื่อมการทำงานทั้งหมดเข้าด้วยกัน
      */
-    public AppController(MainFrame view, DataAccessService data, RegistrationService registration, AdminService admin) {
+    public AppController(MainFrame view, DataRepository data, RegistrationService registration, AdminService admin,
+                         EligibilityService eligibility, GradeAnalyticsService gradeAnalytics) {
         this.view = view;
         this.dataAccessService = data;
         this.registrationService = registration;
         this.adminService = admin;
+        this.eligibilityService = eligibility;
+        this.gradeAnalyticsService = gradeAnalytics;
         initController();
     }
 
@@ -48,6 +60,51 @@ public class AppController {
         view.getAdminPanel().getSubjectComboBox().addActionListener(e -> handleSubjectSelection());
         view.getAdminPanel().getSaveGradeButton().addActionListener(e -> saveGradeForSelectedStudent());
         view.getAdminPanel().getLogoutButton().addActionListener(e -> logout());
+
+        // --- อัปเดตตารางเฉพาะแถวที่เปลี่ยน เมื่อข้อมูลถูกแก้ไข (รวมถึงจากผู้ใช้คนอื่นผ่าน API) ---
+        dataAccessService.addChangeListener(new TableUpdater());
+    }
+
+    /**
+     * ตัวรับฟังการเปลี่ยนแปลงของข้อมูลที่ส่งต่อไปยัง Table Model ทีละแถว
+     * ถูกเรียกบนเธรดที่แก้ไขข้อมูล จึงย้ายการอัปเดตตารางไปทำบน EDT ด้วย {@link SwingUtilities#invokeLater(Runnable)}
+     */
+    private final class TableUpdater implements DataChangeListener {
+
+        @Override
+        public void enrollmentAdded(Enrollment enrollment) {
+            SwingUtilities.invokeLater(() -> {
+                if (enrollment.getSubjectId().equals(rosterSubjectId)) {
+                    view.getAdminPanel().getTableModel().enrollmentAdded(enrollment);
+                }
+            });
+        }
+
+        @Override
+        public void enrollmentRemoved(Enrollment enrollment) {
+            SwingUtilities.invokeLater(() -> {
+                if (enrollment.getSubjectId().equals(rosterSubjectId)) {
+                    view.getAdminPanel().getTableModel().enrollmentRemoved(enrollment.getStudentId());
+                }
+            });
+        }
+
+        @Override
+        public void subjectChanged(Subject subject) {
+            // จำนวนผู้ลงทะเบียนหรือความจุเปลี่ยน: วาดใหม่เฉพาะแถวของวิชานี้ในตาราง "Available Subjects"
+            SwingUtilities.invokeLater(() ->
+                    view.getRegistrationPanel().getAvailableSubjectsTableModel().subjectUpdated(subject.getSubjectId()));
+        }
+
+        @Override
+        public void gradeChanged(Enrollment enrollment, String previousGrade) {
+            // เกรดถูกแก้ไขใน Object เดิมที่ตารางอ้างอิงอยู่ จึงวาดใหม่เฉพาะแถวของนักเรียนคนนี้ ไม่ต้องโหลดทั้งตาราง
+            SwingUtilities.invokeLater(() -> {
+                if (enrollment.getSubjectId().equals(rosterSubjectId)) {
+                    view.getAdminPanel().getTableModel().enrollmentUpdated(enrollment.getStudentId());
+                }
+            });
+        }
     }
 
     /**
@@ -67,23 +124,30 @@ public class AppController {
             return;
         }
 
-        currentUser = dataAccessService.findStudentById(inputId).orElse(null);
-        
-        if (currentUser != null) {
-            refreshStudentDashboard();
-            view.showRegistrationPanel();
-        } else {
-            JOptionPane.showMessageDialog(view, "Student ID not found.", "Login Error", JOptionPane.ERROR_MESSAGE);
-        }
+        runInBackground(() -> dataAccessService.findStudentById(inputId)
+                .map(student -> StudentDashboard.load(dataAccessService, eligibilityService, student))
+                .orElse(null), loaded -> {
+            dashboard = loaded;
+            currentUser = loaded == null ? null : loaded.getStudent();
+            if (currentUser != null) {
+                showStudentDashboard();
+                view.showRegistrationPanel();
+            } else {
+                JOptionPane.showMessageDialog(view, "Student ID not found.", "Login Error", JOptionPane.ERROR_MESSAGE);
+            }
+        }, view.getLoginPanel().getLoginButton());
     }
     
     /**
      * เตรียมและแสดงหน้าจอสำหรับผู้ดูแลระบบ (Admin)
      */
     private void loginAsAdmin() {
-        view.getAdminPanel().populateSubjectList(dataAccessService.getAllSubjects());
-        view.getAdminPanel().getTableModel().setRowCount(0);
-        view.showAdminPanel();
+        runInBackground(dataAccessService::getAllSubjects, subjects -> {
+            view.getAdminPanel().populateSubjectList(subjects);
+            rosterSubjectId = null;
+            view.getAdminPanel().getTableModel().clear();
+            view.showAdminPanel();
+        }, view.getLoginPanel().getLoginButton());
     }
 
     /**
@@ -94,16 +158,23 @@ public class AppController {
         JComboBox<String> combo = view.getAdminPanel().getSubjectComboBox();
         
         if (combo.getSelectedIndex() <= 0) {
-            view.getAdminPanel().getTableModel().setRowCount(0);
+            rosterSubjectId = null;
+            view.getAdminPanel().getTableModel().clear();
+            view.getAdminPanel().showGradeDistribution(null);
             return;
         }
         
         String selectedItem = (String) combo.getSelectedItem();
         String subjectId = selectedItem.split(" - ")[0];
         
-        List<Enrollment> enrollments = dataAccessService.getEnrollmentsBySubjectId(subjectId);
-        
-        view.getAdminPanel().updateStudentsTable(enrollments, dataAccessService);
+        runInBackground(() -> dataAccessService.getEnrollmentsBySubjectId(subjectId), enrollments -> {
+            // ข้ามผลลัพธ์ที่มาถึงช้า หากแอดมินเปลี่ยนไปเลือกวิชาอื่นแล้วระหว่างรอ
+            if (selectedItem.equals(combo.getSelectedItem())) {
+                rosterSubjectId = subjectId;
+                view.getAdminPanel().updateStudentsTable(enrollments, dataAccessService);
+                view.getAdminPanel().showGradeDistribution(gradeAnalyticsService.getGradeHistogram(subjectId));
+            }
+        }, view.getAdminPanel().getSaveGradeButton());
     }
     
     /**
@@ -118,17 +189,19 @@ public class AppController {
         }
         
         String subjectId = ((String) view.getAdminPanel().getSubjectComboBox().getSelectedItem()).split(" - ")[0];
-        String studentId = (String) view.getAdminPanel().getTableModel().getValueAt(selectedRow, 0);
+        String studentId = view.getAdminPanel().getTableModel().getEnrollmentAt(selectedRow).getStudentId();
         String grade = view.getAdminPanel().getGrade();
 
-        String result = adminService.updateGrade(studentId, subjectId, grade);
-
-        if (result.startsWith("Success")) {
-            JOptionPane.showMessageDialog(view, result, "Success", JOptionPane.INFORMATION_MESSAGE);
-            handleSubjectSelection(); // รีเฟรชตารางเพื่อแสดงเกรดใหม่
-        } else {
-            JOptionPane.showMessageDialog(view, result, "Validation Error", JOptionPane.ERROR_MESSAGE);
-        }
+        runInBackground(() -> adminService.updateGrade(studentId, subjectId, grade), result -> {
+            if (result.startsWith("Success")) {
+                JOptionPane.showMessageDialog(view, result, "Success", JOptionPane.INFORMATION_MESSAGE);
+                // แถวของนักเรียนคนนี้ถูกวาดใหม่แล้วผ่าน TableUpdater
+                // สถิติเกรดถูกปรับไปแล้วระหว่างการบันทึก จึงอ่านค่าสะสมได้ทันทีโดยไม่ต้องคำนวณใหม่
+                view.getAdminPanel().showGradeDistribution(gradeAnalyticsService.getGradeHistogram(subjectId));
+            } else {
+                JOptionPane.showMessageDialog(view, result, "Validation Error", JOptionPane.ERROR_MESSAGE);
+            }
+        }, view.getAdminPanel().getSaveGradeButton(), view.getAdminPanel().getSubjectComboBox());
     }
     
     /**
@@ -142,50 +215,131 @@ public class AppController {
             return;
         }
 
-        String subjectId = (String) view.getRegistrationPanel().getAvailableSubjectsTableModel().getValueAt(selectedRow, 0);
-        Subject selectedSubject = dataAccessService.findSubjectById(subjectId).orElse(null);
+        String subjectId = view.getRegistrationPanel().getAvailableSubjectsTableModel().getSubjectAt(selectedRow).getSubjectId();
+        Student student = currentUser;
+        if (student == null) {
+            return;
+        }
 
-        if (currentUser != null && selectedSubject != null) {
-            String result = registrationService.registerStudent(currentUser, selectedSubject);
-            
-            if (result.startsWith("Success")) {
-                 JOptionPane.showMessageDialog(view, result, "Success", JOptionPane.INFORMATION_MESSAGE);
-                 refreshStudentDashboard();
+        runInBackground(() -> dataAccessService.findSubjectById(subjectId)
+                .map(subject -> {
+                    String result = registrationService.registerStudent(student, subject);
+                    // ค้นหาการลงทะเบียนรายการใหม่ผ่านดัชนี เพื่อนำไปอัปเดตหน้าจอเฉพาะส่วนที่เปลี่ยน
+                    Enrollment enrollment = result.startsWith("Success")
+                            ? dataAccessService.findEnrollment(student.getStudentId(), subjectId).orElse(null)
+                            : null;
+                    // ผลการตรวจสอบสิทธิ์ของนักเรียนคนนี้ถูกล้างเมื่อลงทะเบียนสำเร็จ จึงคำนวณใหม่บนเธรดเบื้องหลังนี้เลย
+                    return new RegistrationOutcome(result, enrollment, eligibilityService.getEligibility(student));
+                })
+                .orElse(null), outcome -> {
+            if (outcome == null) {
+                return;
+            }
+            if (outcome.result.startsWith("Success")) {
+                 JOptionPane.showMessageDialog(view, outcome.result, "Success", JOptionPane.INFORMATION_MESSAGE);
+                 if (student == currentUser && outcome.enrollment != null) {
+                     applyRegistration(outcome.enrollment, outcome.eligibility);
+                 }
             } else {
-                 JOptionPane.showMessageDialog(view, result, "Registration Failed", JOptionPane.ERROR_MESSAGE);
+                 JOptionPane.showMessageDialog(view, outcome.result, "Registration Failed", JOptionPane.ERROR_MESSAGE);
+                 if (student == currentUser) {
+                     // สถานะของวิชาอาจเปลี่ยนไปแล้ว (เช่น มีคนอื่นลงทะเบียนจนเต็ม) จึงแสดงผลล่าสุด
+                     view.getRegistrationPanel().getAvailableSubjectsTableModel().setEligibility(outcome.eligibility);
+                 }
             }
-        }
+        }, view.getRegistrationPanel().getRegisterButton(), view.getRegistrationPanel().getLogoutButton());
     }
     
     /**
      * จัดการการออกจากระบบของผู้ใช้
      */
     private void logout() {
+        if (currentUser != null) {
+            eligibilityService.invalidate(currentUser.getStudentId());
+        }
         currentUser = null;
+        dashboard = null;
         view.getLoginPanel().clearFields();
         view.showLoginPanel();
     }
 
     /**
-     * รีเฟรชข้อมูลทั้งหมดที่แสดงบนหน้าจอของนักเรียน (Dashboard)
-     * เมธอดนี้จะถูกเรียกใช้หลังจากการล็อกอินสำเร็จ และหลังจากการกระทำที่ทำให้ข้อมูลของนักเรียนเปลี่ยนแปลง
+     * แสดงข้อมูลทั้งหมดบนหน้าจอของนักเรียน (Dashboard) จากสถานะที่คำนวณไว้ตอนล็อกอิน
      */
-    private void refreshStudentDashboard() {
-        if (currentUser == null) return;
-        
-        view.getRegistrationPanel().updateStudentInformation(currentUser);
+    private void showStudentDashboard() {
+        if (dashboard == null) return;
         
-        List<Enrollment> studentEnrollments = dataAccessService.getEnrollmentsByStudentId(currentUser.getStudentId());
-        view.getRegistrationPanel().updateRegisteredCoursesTable(studentEnrollments, dataAccessService);
+        view.getRegistrationPanel().updateStudentInformation(dashboard.getStudent());
+        view.getRegistrationPanel().updateRegisteredCoursesTable(dashboard.getRegisteredEnrollments(), dataAccessService);
+        view.getRegistrationPanel().updateAvailableSubjectsTable(dashboard.getAvailableSubjects());
+        view.getRegistrationPanel().getAvailableSubjectsTableModel().setEligibility(dashboard.getEligibility());
+    }
 
-        List<String> enrolledSubjectIds = studentEnrollments.stream()
-                .map(Enrollment::getSubjectId)
-                .collect(Collectors.toList());
-        
-        List<Subject> availableSubjects = dataAccessService.getAllSubjects().stream()
-                .filter(subject -> !enrolledSubjectIds.contains(subject.getSubjectId()))
-                .collect(Collectors.toList());
+    /**
+     * อัปเดตหน้าจอของนักเรียนหลังลงทะเบียนสำเร็จ โดยเปลี่ยนเฉพาะส่วนที่ได้รับผลกระทบ:
+     * ลบหนึ่งแถวออกจากตาราง "Available Subjects", แสดงสถานะสิทธิ์การลงทะเบียนใหม่ และเพิ่มหนึ่งแถวในตาราง "My Registered Courses"
+     */
+    private void applyRegistration(Enrollment enrollment, StudentEligibility eligibility) {
+        dashboard.applyRegistration(enrollment, eligibility);
+        view.getRegistrationPanel().getAvailableSubjectsTableModel().removeSubject(enrollment.getSubjectId());
+        view.getRegistrationPanel().getAvailableSubjectsTableModel().setEligibility(eligibility);
+        view.getRegistrationPanel().getRegisteredCoursesTableModel().addEnrollment(enrollment);
+    }
 
-        view.getRegistrationPanel().updateAvailableSubjectsTable(availableSubjects);
+    /**
+     * ผลลัพธ์ของการลงทะเบียนที่ทำบนเธรดเบื้องหลัง: ข้อความผลลัพธ์, ข้อมูลการลงทะเบียนรายการใหม่ (หากสำเร็จ)
+     * และผลการตรวจสอบสิทธิ์การลงทะเบียนล่าสุดของนักเรียน
+     */
+    private static final class RegistrationOutcome {
+        final String result;
+        final Enrollment enrollment;
+        final StudentEligibility eligibility;
+
+        RegistrationOutcome(String result, Enrollment enrollment, StudentEligibility eligibility) {
+            this.result = result;
+            this.enrollment = enrollment;
+            this.eligibility = eligibility;
+        }
+    }
+
+    /**
+     * รันงานของ Model บนเธรดเบื้องหลังด้วย {@link SwingWorker} แล้วส่งผลลัพธ์กลับมาทำงานต่อบน EDT
+     * ระหว่างที่งานทำอยู่ จะปิดการใช้งาน Component ที่ระบุ (ป้องกันการกดซ้ำ) และแสดงเคอร์เซอร์แบบรอ
+     * ต้องถูกเรียกจาก EDT เท่านั้น
+     *
+     * @param task           งานที่จะรันบนเธรดเบื้องหลัง (ห้ามแตะต้อง Component ของ Swing)
+     * @param onSuccess      การทำงานต่อบน EDT โดยรับผลลัพธ์ของงาน
+     * @param busyComponents Component ที่ต้องปิดการใช้งานระหว่างรอ
+     */
+    private <T> void runInBackground(Callable<T> task, Consumer<T> onSuccess, JComponent... busyComponents) {
+        for (JComponent component : busyComponents) {
+            component.setEnabled(false);
+        }
+        view.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+
+        new SwingWorker<T, Void>() {
+            @Override
+            protected T doInBackground() throws Exception {
+                return task.call();
+            }
+
+            @Override
+            protected void done() {
+                // done() ถูกเรียกบน EDT เสมอ
+                for (JComponent component : busyComponents) {
+                    component.setEnabled(true);
+                }
+                view.setCursor(Cursor.getDefaultCursor());
+                try {
+                    onSuccess.accept(get());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException e) {
+                    e.getCause().printStackTrace();
+                    JOptionPane.showMessageDialog(view, "Unexpected error: " + e.getCause().getMessage(),
+                            "Error", JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        }.execute();
     }
 }
\ No newline at end of file
@@ -0,0 +1,90 @@
+package com.StudentRegistrationSystem.controller;
+
+import com.StudentRegistrationSystem.model.DataRepository;
+import com.StudentRegistrationSystem.model.EligibilityService;
+import com.StudentRegistrationSystem.model.Enrollment;
+import com.StudentRegistrationSystem.model.Student;
+import com.StudentRegistrationSystem.model.StudentEligibility;
+import com.StudentRegistrationSystem.model.Subject;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * สถานะของหน้าจอนักเรียน (Dashboard) สำหรับหนึ่งช่วงการใช้งาน (Session) ตั้งแต่ล็อกอินจนออกจากระบบ
+ *
+ * คำนวณเพียงครั้งเดียวตอนล็อกอินโดยใช้ Set ในการตรวจสอบวิชาที่ลงทะเบียนแล้ว
+ * หลังจากนั้นเมื่อลงทะเบียนสำเร็จ จะอัปเดตเฉพาะส่วนที่เปลี่ยน (ย้ายหนึ่งวิชาจาก "ลงทะเบียนได้" ไปเป็น "ลงทะเบียนแล้ว")
+ * แทนการคำนวณรายวิชาทั้งหมดใหม่ ต้องถูกใช้งานบน Event Dispatch Thread เท่านั้น (หลังจากสร้างเสร็จ)
+ */
+public class StudentDashboard {
+
+    private final Student student;
+    private final Map<String, Subject> availableSubjects = new LinkedHashMap<>();
+    private final List<Enrollment> registeredEnrollments;
+    private StudentEligibility eligibility;
+
+    private StudentDashboard(Student student, List<Enrollment> registeredEnrollments, StudentEligibility eligibility) {
+        this.student = student;
+        this.registeredEnrollments = registeredEnrollments;
+        this.eligibility = eligibility;
+    }
+
+    /**
+     * คำนวณสถานะเริ่มต้นของหน้าจอนักเรียน (เรียกได้จากเธรดเบื้องหลัง)
+     *
+     * @param dataAccess  Service สำหรับการเข้าถึงข้อมูล
+     * @param eligibility Service สำหรับตรวจสอบสิทธิ์การลงทะเบียนของทุกรายวิชา
+     * @param student     นักเรียนที่ล็อกอิน
+     */
+    public static StudentDashboard load(DataRepository dataAccess, EligibilityService eligibility, Student student) {
+        StudentDashboard dashboard = new StudentDashboard(student,
+                new ArrayList<>(dataAccess.getEnrollmentsByStudentId(student.getStudentId())),
+                eligibility.getEligibility(student));
+
+        Set<String> enrolledSubjectIds = new HashSet<>();
+        for (Enrollment e : dashboard.registeredEnrollments) {
+            enrolledSubjectIds.add(e.getSubjectId());
+        }
+        for (Subject subject : dataAccess.getAllSubjects()) {
+            if (!enrolledSubjectIds.contains(subject.getSubjectId())) {
+                dashboard.availableSubjects.put(subject.getSubjectId(), subject);
+            }
+        }
+        return dashboard;
+    }
+
+    public Student getStudent() {
+        return student;
+    }
+
+    public List<Subject> getAvailableSubjects() {
+        return new ArrayList<>(availableSubjects.values());
+    }
+
+    public List<Enrollment> getRegisteredEnrollments() {
+        return new ArrayList<>(registeredEnrollments);
+    }
+
+    public StudentEligibility getEligibility() {
+        return eligibility;
+    }
+
+    /**
+     * อัปเดตสถานะหลังลงทะเบียนสำเร็จ: ย้ายรายวิชาจาก "ลงทะเบียนได้" ไปเป็น "ลงทะเบียนแล้ว"
+     *
+     * พร้อมผลการตรวจสอบสิทธิ์ที่คำนวณใหม่ (วิชาที่เพิ่งลงทะเบียนอาจเป็นวิชาบังคับก่อนของวิชาอื่น)
+     *
+     * @param enrollment  ข้อมูลการลงทะเบียนรายการใหม่
+     * @param eligibility ผลการตรวจสอบสิทธิ์หลังลงทะเบียน
+     */
+    public void applyRegistration(Enrollment enrollment, StudentEligibility eligibility) {
+        availableSubjects.remove(enrollment.getSubjectId());
+        registeredEnrollments.add(enrollment);
+        this.eligibility = eligibility;
+    }
+}
@@ -0,0 +1,29 @@
+package com.StudentRegistrationSystem.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ตัวนับที่เพิ่มค่าได้จากหลายเธรดพร้อมกันโดยไม่ใช้ Lock (ใช้ {@link LongAdder} ซึ่งแยกค่าตามเธรดเพื่อลดการแย่งกัน)
+ */
+public class Counter implements CounterMBean {
+
+    private final LongAdder count = new LongAdder();
+
+    public void increment() {
+        count.increment();
+    }
+
+    public void add(long amount) {
+        count.add(amount);
+    }
+
+    @Override
+    public long getCount() {
+        return count.sum();
+    }
+
+    @Override
+    public void reset() {
+        count.reset();
+    }
+}
@@ -0,0 +1,11 @@
+package com.StudentRegistrationSystem.metrics;
+
+/**
+ * อินเทอร์เฟซ JMX ของ {@link Counter}
+ */
+public interface CounterMBean {
+
+    long getCount();
+
+    void reset();
+}
@@ -0,0 +1,30 @@
+package com.StudentRegistrationSystem.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Event ของ JDK Flight Recorder สำหรับการโหลดไฟล์ CSV หนึ่งไฟล์ด้วย CsvLoader
+ */
+@Name("com.StudentRegistrationSystem.CsvLoad")
+@Label("CSV Load")
+@Category({"Student Registration System", "Persistence"})
+@Description("Loading and parsing one CSV data file")
+@StackTrace(false)
+public class CsvLoadEvent extends Event {
+
+    @Label("File")
+    public String file;
+
+    @Label("Rows")
+    public long rows;
+
+    @Label("Bytes Read")
+    @DataAmount
+    public long bytesRead;
+}
@@ -0,0 +1,30 @@
+package com.StudentRegistrationSystem.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Event ของ JDK Flight Recorder สำหรับการเขียนไฟล์ CSV ทั้งไฟล์หนึ่งครั้ง
+ */
+@Name("com.StudentRegistrationSystem.CsvSave")
+@Label("CSV Save")
+@Category({"Student Registration System", "Persistence"})
+@Description("A full rewrite of one CSV data file")
+@StackTrace(false)
+public class CsvSaveEvent extends Event {
+
+    @Label("File")
+    public String file;
+
+    @Label("Rows")
+    public long rows;
+
+    @Label("Bytes Written")
+    @DataAmount
+    public long bytesWritten;
+}
@@ -0,0 +1,31 @@
+package com.StudentRegistrationSystem.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Event ของ JDK Flight Recorder สำหรับการแก้ไขเกรดหนึ่งครั้ง (ตั้งแต่ตรวจสอบเกรดจนบันทึกลงดิสก์เสร็จ)
+ */
+@Name("com.StudentRegistrationSystem.GradeUpdate")
+@Label("Grade Update")
+@Category({"Student Registration System", "Model"})
+@Description("One grade update, from validation until the change is persisted")
+@StackTrace(false)
+public class GradeUpdateEvent extends Event {
+
+    @Label("Student ID")
+    public String studentId;
+
+    @Label("Subject ID")
+    public String subjectId;
+
+    @Label("Grade")
+    public String grade;
+
+    @Label("Success")
+    public boolean success;
+}
@@ -0,0 +1,83 @@
+package com.StudentRegistrationSystem.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogram ของค่า Latency แบบ Log-linear (แนวเดียวกับ HdrHistogram) ที่บันทึกได้จากหลายเธรดโดยไม่ใช้ Lock
+ *
+ * ค่าถูกแบ่งเป็นช่วงตามเลขยกกำลังของ 2 และแต่ละช่วงถูกแบ่งย่อยเป็น {@value #SUB_BUCKETS} ช่องเท่าๆ กัน
+ * ความคลาดเคลื่อนของค่าเปอร์เซ็นไทล์จึงไม่เกินประมาณ 1/{@value #SUB_BUCKETS} ของค่าจริง
+ * ไม่ว่าค่าจะอยู่ในระดับนาโนวินาทีหรือหลายวินาที โดยใช้หน่วยความจำคงที่
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+
+    /**
+     * บันทึกค่าหนึ่งค่า (ค่าติดลบถูกนับเป็น 0)
+     */
+    public void record(long value) {
+        counts.incrementAndGet(indexOf(Math.max(0, value)));
+    }
+
+    /**
+     * คำนวณค่าที่เปอร์เซ็นไทล์ที่กำหนด จากค่าที่บันทึกไว้ ณ ขณะนั้น
+     *
+     * @param percentile ค่าระหว่าง 0.0 ถึง 1.0 เช่น 0.99
+     * @return ขอบเขตบนของช่องที่ครอบคลุมเปอร์เซ็นไทล์นั้น หรือ 0 หากยังไม่มีข้อมูล
+     */
+    public long percentile(double percentile) {
+        long[] snapshot = new long[BUCKET_COUNT];
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long threshold = Math.max(1, (long) Math.ceil(total * percentile));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += snapshot[i];
+            if (seen >= threshold) {
+                return upperBoundOf(i);
+            }
+        }
+        return upperBoundOf(BUCKET_COUNT - 1);
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts.set(i, 0);
+        }
+    }
+
+    /**
+     * ค่าที่น้อยกว่า SUB_BUCKETS ใช้ช่องตรงตัว ส่วนค่าที่มากกว่าใช้ตำแหน่งบิตสูงสุดเป็นช่วง
+     * และบิตถัดลงมา SUB_BUCKET_BITS บิตเป็นช่องย่อยภายในช่วงนั้น
+     */
+    static int indexOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int highestBit = 63 - Long.numberOfLeadingZeros(value);
+        int shift = highestBit - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+        return (shift + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    static long upperBoundOf(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long subBucket = index % SUB_BUCKETS;
+        long lowerBound = (SUB_BUCKETS + subBucket) << shift;
+        return lowerBound + (1L << shift) - 1;
+    }
+}
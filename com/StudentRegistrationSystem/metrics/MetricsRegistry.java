@@ -0,0 +1,77 @@
+package com.StudentRegistrationSystem.metrics;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * ที่รวบรวมตัววัด (Metrics) ทั้งหมดของโปรแกรม
+ * ตัววัดแต่ละตัวถูกสร้างครั้งแรกที่ขอด้วยชื่อ และถูกลงทะเบียนเป็น JMX MBean ทันที
+ * ชื่อ {@code com.StudentRegistrationSystem:type=Timer,name=registerStudent} หรือ {@code type=Counter}
+ * จึงอ่านค่าได้ด้วยเครื่องมือมาตรฐาน เช่น JConsole, VisualVM หรือ JMX Exporter
+ *
+ * ชื่อของตัววัดควรใช้เฉพาะตัวอักษร ตัวเลข และจุด (ไม่มีเครื่องหมาย , = : หรือ ")
+ * Service ต่างๆ ควรเก็บตัววัดไว้ในฟิลด์ {@code static final} เพื่อไม่ต้องค้นหาด้วยชื่อในทุกการเรียก
+ */
+public final class MetricsRegistry {
+
+    private static final String JMX_DOMAIN = "com.StudentRegistrationSystem";
+    private static final MetricsRegistry DEFAULT = new MetricsRegistry();
+
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    private MetricsRegistry() {
+    }
+
+    public static MetricsRegistry getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * คืนค่าตัวจับเวลาตามชื่อ (สร้างและลงทะเบียนกับ JMX หากยังไม่มี)
+     */
+    public Timer timer(String name) {
+        return timers.computeIfAbsent(name, n -> register("Timer", n, new Timer()));
+    }
+
+    /**
+     * คืนค่าตัวนับตามชื่อ (สร้างและลงทะเบียนกับ JMX หากยังไม่มี)
+     */
+    public Counter counter(String name) {
+        return counters.computeIfAbsent(name, n -> register("Counter", n, new Counter()));
+    }
+
+    /**
+     * สรุปค่าของตัววัดทั้งหมดเป็นข้อความ (เรียงตามชื่อ) สำหรับพิมพ์ออกหน้าจอ เช่น ตอนจบการวัดประสิทธิภาพ
+     */
+    public String summary() {
+        StringBuilder sb = new StringBuilder();
+        new TreeMap<>(timers).forEach((name, t) -> sb.append(String.format(Locale.ROOT,
+                "%-24s count=%d errors=%d mean=%.1fus p50=%dus p99=%dus p999=%dus max=%dus%n",
+                name, t.getCount(), t.getErrorCount(), t.getMeanMicros(), t.getP50Micros(),
+                t.getP99Micros(), t.getP999Micros(), t.getMaxMicros())));
+        new TreeMap<>(counters).forEach((name, c) -> sb.append(String.format(Locale.ROOT,
+                "%-24s count=%d%n", name, c.getCount())));
+        return sb.toString();
+    }
+
+    private static <T> T register(String type, String name, T mbean) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(JMX_DOMAIN + ":type=" + type + ",name=" + name);
+            if (!server.isRegistered(objectName)) {
+                server.registerMBean(mbean, objectName);
+            }
+        } catch (JMException e) {
+            System.err.println("Error registering metric with JMX: " + name);
+            e.printStackTrace();
+        }
+        return mbean;
+    }
+}
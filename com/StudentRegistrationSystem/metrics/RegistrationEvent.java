@@ -0,0 +1,34 @@
+package com.StudentRegistrationSystem.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Event ของ JDK Flight Recorder สำหรับการลงทะเบียนหนึ่งครั้ง (ตั้งแต่ตรวจสอบกฎจนบันทึกลงดิสก์เสร็จ)
+ * ใช้หาความสัมพันธ์ระหว่างการลงทะเบียนที่ช้ากับ GC หรือ File I/O ในไฟล์บันทึกเดียวกัน
+ */
+@Name("com.StudentRegistrationSystem.Registration")
+@Label("Registration")
+@Category({"Student Registration System", "Model"})
+@Description("One registration attempt, from rule checks until the change is persisted")
+@StackTrace(false)
+public class RegistrationEvent extends Event {
+
+    @Label("Student ID")
+    public String studentId;
+
+    @Label("Subject ID")
+    public String subjectId;
+
+    @Label("Outcome")
+    @Description("Registered, Waitlisted, Rejected or Failed")
+    public String outcome;
+
+    @Label("Rejecting Rule")
+    @Description("Message of the first rule that rejected the request, if any")
+    public String rule;
+}
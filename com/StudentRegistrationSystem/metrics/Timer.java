@@ -0,0 +1,101 @@
+package com.StudentRegistrationSystem.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ตัวจับเวลาของการทำงานหนึ่งประเภท: นับจำนวนครั้ง (Throughput), จำนวนครั้งที่ผิดพลาด และเก็บ Histogram ของ Latency
+ * ทุกเมธอดทำงานได้จากหลายเธรดพร้อมกันโดยไม่ใช้ Lock
+ *
+ * รูปแบบการใช้งาน:
+ * <pre>
+ *     long start = System.nanoTime();
+ *     try {
+ *         ...
+ *     } finally {
+ *         timer.recordSince(start);
+ *     }
+ * </pre>
+ */
+public class Timer implements TimerMBean {
+
+    private final LongAdder count = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+    private final LatencyHistogram histogram = new LatencyHistogram();
+
+    /**
+     * บันทึกเวลาที่ใช้ไปนับตั้งแต่ค่า {@link System#nanoTime()} ที่กำหนด
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    public void record(long nanos) {
+        count.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+        histogram.record(nanos);
+    }
+
+    /**
+     * นับการทำงานที่ผิดพลาด (นับแยกจากเวลาที่บันทึกด้วย {@link #record(long)})
+     */
+    public void recordError() {
+        errors.increment();
+    }
+
+    @Override
+    public long getCount() {
+        return count.sum();
+    }
+
+    @Override
+    public long getErrorCount() {
+        return errors.sum();
+    }
+
+    @Override
+    public double getMeanMicros() {
+        long n = count.sum();
+        return n == 0 ? 0 : totalNanos.sum() / (double) n / 1_000;
+    }
+
+    @Override
+    public long getMaxMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(maxNanos.get());
+    }
+
+    @Override
+    public long getP50Micros() {
+        return percentileMicros(0.50);
+    }
+
+    @Override
+    public long getP99Micros() {
+        return percentileMicros(0.99);
+    }
+
+    @Override
+    public long getP999Micros() {
+        return percentileMicros(0.999);
+    }
+
+    /**
+     * @return ค่าเปอร์เซ็นไทล์จาก Histogram (ไม่เกินค่าสูงสุดที่บันทึกได้จริง)
+     */
+    public long percentileMicros(double percentile) {
+        return TimeUnit.NANOSECONDS.toMicros(Math.min(histogram.percentile(percentile), maxNanos.get()));
+    }
+
+    @Override
+    public void reset() {
+        count.reset();
+        errors.reset();
+        totalNanos.reset();
+        maxNanos.reset();
+        histogram.reset();
+    }
+}
@@ -0,0 +1,23 @@
+package com.StudentRegistrationSystem.metrics;
+
+/**
+ * อินเทอร์เฟซ JMX ของ {@link Timer} (ค่าเวลาทั้งหมดเป็นไมโครวินาที)
+ */
+public interface TimerMBean {
+
+    long getCount();
+
+    long getErrorCount();
+
+    double getMeanMicros();
+
+    long getMaxMicros();
+
+    long getP50Micros();
+
+    long getP99Micros();
+
+    long getP999Micros();
+
+    void reset();
+}
@@ -1,7 +1,17 @@
 package com.StudentRegistrationSystem.model;
 
+import com.StudentRegistrationSystem.metrics.GradeUpdateEvent;
+import com.StudentRegistrationSystem.metrics.MetricsRegistry;
+import com.StudentRegistrationSystem.metrics.Timer;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Service Class สำหรับจัดการตรรกะทางธุรกิจ (Business Logic) ที่เกี่ยวข้องกับผู้ดูแลระบบ (Admin)
@@ -13,7 +23,12 @@ public class AdminService {
      * อ้างอิงไปยัง Service ที่จัดการการเข้าถึงข้อมูล
      * ใช้ final เพื่อให้แน่ใจว่าจะถูกกำหนดค่าเพียงครั้งเดียวใน Constructor
      */
-    private final DataAccessService dataAccess;
+    private final DataRepository dataAccess;
+
+    /**
+     * เธรดบันทึกข้อมูลแบบรวมกลุ่ม (Group Commit) หากเป็น null จะบันทึกลงไฟล์ทันทีในทุกการแก้ไขเกรด
+     */
+    private final PersistenceWriter persistenceWriter;
 
     /**
      * กลุ่มของค่าเกรดที่ระบบอนุญาตให้ใช้งานได้
@@ -25,13 +40,29 @@ public class AdminService {
         "A", "B+", "B", "C+", "C", "D+", "D", "F", ""
     );
 
+    /**
+     * ตัวจับเวลาของการแก้ไขเกรด (ดูได้ผ่าน JMX)
+     */
+    private static final Timer UPDATE_GRADE_TIMER = MetricsRegistry.getDefault().timer("updateGrade");
+
     /**
      * Constructor ของ AdminService
      *
      * @param dataAccess Service สำหรับการเข้าถึงข้อมูล (Data Access Layer) ที่จะถูกฉีด (inject) เข้ามา
      */
-    public AdminService(DataAccessService dataAccess) {
+    public AdminService(DataRepository dataAccess) {
+        this(dataAccess, null);
+    }
+
+    /**
+     * Constructor ของ AdminService ที่บันทึกข้อมูลผ่านเธรดบันทึกแบบรวมกลุ่ม
+     *
+     * @param dataAccess        Service สำหรับการเข้าถึงข้อมูล (Data Access Layer) ที่จะถูกฉีด (inject) เข้ามา
+     * @param persistenceWriter เธรดบันทึกข้อมูลแบบรวมกลุ่ม (หรือ null เพื่อบันทึกทันที)
+     */
+    public AdminService(DataRepository dataAccess, PersistenceWriter persistenceWriter) {
         this.dataAccess = dataAccess;
+        this.persistenceWriter = persistenceWriter;
     }
 
     /**
@@ -43,6 +74,38 @@ public class AdminService {
      * @return ข้อความ (String) ที่บ่งบอกผลลัพธ์การทำงาน: สำเร็จ, เกรดไม่ถูกต้อง, หรือเกิดข้อผิดพลาด
      */
     public String updateGrade(String studentId, String subjectId, String grade) {
+        // รอจนกว่าข้อมูลจะถูกบันทึกลงดิสก์ก่อนแจ้งผลสำเร็จ
+        return updateGradeAsync(studentId, subjectId, grade).join();
+    }
+
+    /**
+     * อัปเดตเกรดเช่นเดียวกับ {@link #updateGrade(String, String, String)} แต่ไม่รอการบันทึกข้อมูลลงดิสก์
+     * ผู้เรียกสามารถเลือกรอ Future ที่ได้รับคืนไปเพื่อให้แน่ใจว่าข้อมูลถูกบันทึกแล้ว
+     *
+     * @return Future ของข้อความผลลัพธ์ ซึ่งจะเสร็จสมบูรณ์เมื่อการบันทึกข้อมูลเสร็จ
+     */
+    public CompletableFuture<String> updateGradeAsync(String studentId, String subjectId, String grade) {
+        long start = System.nanoTime();
+        GradeUpdateEvent event = new GradeUpdateEvent();
+        event.begin();
+        return applyGrade(studentId, subjectId, grade).whenComplete((result, failure) -> {
+            boolean success = failure == null && !result.startsWith("Error");
+            UPDATE_GRADE_TIMER.recordSince(start);
+            if (!success) {
+                UPDATE_GRADE_TIMER.recordError();
+            }
+            event.end();
+            if (event.shouldCommit()) {
+                event.studentId = studentId;
+                event.subjectId = subjectId;
+                event.grade = grade;
+                event.success = success;
+                event.commit();
+            }
+        });
+    }
+
+    private CompletableFuture<String> applyGrade(String studentId, String subjectId, String grade) {
         
         // --- 1. การตรวจสอบและจัดรูปแบบข้อมูล (Validation & Formatting) ---
         // จัดรูปแบบเกรดที่รับเข้ามา: ตัดช่องว่างที่ไม่จำเป็นออก และแปลงเป็นตัวพิมพ์ใหญ่ทั้งหมด
@@ -52,7 +115,7 @@ public class AdminService {
         // ตรวจสอบว่าเกรดที่จัดรูปแบบแล้วนั้น อยู่ในกลุ่มของเกรดที่ถูกต้อง (VALID_GRADES) หรือไม่
         if (!VALID_GRADES.contains(formattedGrade)) {
             // หากไม่อยู่ ให้ส่งคืนข้อความแจ้งเตือนและจบการทำงานทันที
-            return "Error: Invalid grade. Please use A, B+, B, C+, C, D+, D, F.";
+            return CompletableFuture.completedFuture("Error: Invalid grade. Please use A, B+, B, C+, C, D+, D, F.");
         }
         
         // --- 2. การดำเนินการกับข้อมูล (Data Manipulation) ---
@@ -63,13 +126,136 @@ public class AdminService {
         if (enrollmentOpt.isPresent()) {
             // หากเจอข้อมูล
             Enrollment enrollment = enrollmentOpt.get();
-            enrollment.setGrade(formattedGrade); // อัปเดตค่าเกรดใน object
-            dataAccess.saveEnrollments();        // เรียกใช้ DataAccessService เพื่อบันทึกการเปลี่ยนแปลงทั้งหมดลงไฟล์ CSV
+            try {
+                setGrade(enrollment, formattedGrade); // อัปเดตค่าเกรดใน object
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
             
-            return "Success: Grade has been updated successfully!"; // ส่งคืนข้อความว่าทำรายการสำเร็จ
+            // บันทึกการเปลี่ยนแปลงลงไฟล์ แล้วส่งคืนข้อความว่าทำรายการสำเร็จ
+            return persistChanges().thenApply(v -> "Success: Grade has been updated successfully!");
         } else {
             // หากไม่เจอข้อมูลการลงทะเบียน (กรณีนี้ไม่ควรเกิดขึ้นหาก UI ทำงานถูกต้อง แต่เป็นการป้องกันข้อผิดพลาดไว้)
-            return "Error: Could not find the enrollment record.";
+            return CompletableFuture.completedFuture("Error: Could not find the enrollment record.");
+        }
+    }
+
+    /**
+     * แก้ไขเกรดของการลงทะเบียน บันทึกการเปลี่ยนแปลง และแจ้งตัวรับฟัง (เช่น สถิติเกรด) พร้อมเกรดเดิม
+     * การอ่านเกรดเดิมและเขียนเกรดใหม่ทำภายใต้ Lock ของการลงทะเบียน เพื่อให้ผู้แก้ไขพร้อมกันได้เกรดเดิมที่ถูกต้อง
+     */
+    private void setGrade(Enrollment enrollment, String grade) {
+        String previousGrade;
+        synchronized (enrollment) {
+            previousGrade = enrollment.getGrade();
+            enrollment.setGrade(grade);
+            try {
+                dataAccess.recordGradeChange(enrollment);
+            } catch (RuntimeException e) {
+                // บันทึกไม่สำเร็จ (เช่น ไฟล์เต็ม): คืนเกรดเดิม เพื่อไม่ให้หน่วยความจำต่างจากข้อมูลบนดิสก์
+                enrollment.setGrade(previousGrade);
+                throw e;
+            }
+        }
+        dataAccess.notifyGradeChanged(enrollment, previousGrade);
+    }
+
+    /**
+     * นำเข้าเกรดจากไฟล์ CSV (คอลัมน์ student_id, subject_id, grade) ดู {@link #importGrades(Reader)}
+     *
+     * @param filePath ที่อยู่ของไฟล์เกรด
+     */
+    public GradeImportReport importGrades(String filePath) throws IOException {
+        try (Reader reader = new FileReader(filePath, StandardCharsets.UTF_8)) {
+            return importGrades(reader);
+        }
+    }
+
+    /**
+     * นำเข้าเกรดจำนวนมากแบบสตรีม (อ่านทีละบรรทัด ไม่โหลดทั้งไฟล์เข้าหน่วยความจำ) สำหรับการส่งเกรดปลายภาค
+     * แต่ละบรรทัดถูกตรวจสอบค่าเกรดกับ VALID_GRADES และค้นหาการลงทะเบียนผ่านดัชนี
+     * บรรทัดที่ไม่ถูกต้องจะถูกข้ามและบันทึกไว้ในรายงาน ส่วนการบันทึกลงดิสก์จะทำเพียงครั้งเดียวเมื่ออ่านครบทั้งไฟล์
+     * บรรทัดแรกจะถูกข้ามหากเป็นหัวตาราง (ขึ้นต้นด้วย student_id)
+     *
+     * @param reader แหล่งข้อมูลเกรดในรูปแบบ CSV
+     * @return รายงานจำนวนเกรดที่อัปเดต และบรรทัดที่ถูกปฏิเสธ
+     */
+    public GradeImportReport importGrades(Reader reader) throws IOException {
+        GradeImportReport report = new GradeImportReport();
+        BufferedReader lines = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+        String line;
+        int lineNumber = 0;
+        while ((line = lines.readLine()) != null) {
+            lineNumber++;
+            String[] fields = CsvLoader.parseLine(line);
+            if (fields.length == 0) {
+                continue; // ข้ามบรรทัดว่าง
+            }
+            if (lineNumber == 1 && fields[0].equalsIgnoreCase("student_id")) {
+                continue; // ข้ามหัวตาราง
+            }
+            if (fields.length < 3) {
+                report.recordRejected(lineNumber, line, "Expected student_id, subject_id, grade.");
+                continue;
+            }
+
+            String formattedGrade = fields[2].trim().toUpperCase();
+            if (!VALID_GRADES.contains(formattedGrade)) {
+                report.recordRejected(lineNumber, line, "Invalid grade '" + fields[2] + "'.");
+                continue;
+            }
+            Optional<Enrollment> enrollmentOpt = dataAccess.findEnrollment(fields[0], fields[1]);
+            if (enrollmentOpt.isEmpty()) {
+                report.recordRejected(lineNumber, line, "Could not find the enrollment record.");
+                continue;
+            }
+            setGrade(enrollmentOpt.get(), formattedGrade);
+            report.recordUpdated();
+        }
+
+        // บันทึกการเปลี่ยนแปลงทั้งหมดลงดิสก์ครั้งเดียว
+        if (report.getUpdatedCount() > 0) {
+            persistChanges().join();
+        }
+        return report;
+    }
+
+    /**
+     * แก้ไขจำนวนที่นั่งสูงสุดของรายวิชา หากจำนวนที่นั่งเพิ่มขึ้นและมีรายชื่อรอ (Waitlist)
+     * นักเรียนที่อยู่หัวคิวจะถูกลงทะเบียนให้อัตโนมัติ (ผ่านการแจ้งเตือน {@link DataChangeListener#subjectChanged})
+     *
+     * @param subjectId   รหัสวิชา
+     * @param maxCapacity จำนวนที่นั่งใหม่ (-1 คือไม่จำกัดจำนวน)
+     * @return ข้อความ (String) ที่บ่งบอกผลลัพธ์การทำงาน
+     */
+    public String updateCapacity(String subjectId, int maxCapacity) {
+        Optional<Subject> subjectOpt = dataAccess.findSubjectById(subjectId);
+        if (subjectOpt.isEmpty()) {
+            return "Error: Subject not found.";
+        }
+        if (maxCapacity != -1 && maxCapacity < 1) {
+            return "Error: Capacity must be a positive number, or -1 for unlimited.";
+        }
+        Subject subject = subjectOpt.get();
+        subject.setMaxCapacity(maxCapacity);
+        dataAccess.recordCapacityChange(subject);
+        if (persistenceWriter != null) {
+            persistenceWriter.markDirty(false, true).join();
+        } else {
+            dataAccess.saveSubjects();
+        }
+        dataAccess.notifySubjectChanged(subject);
+        return "Success: Capacity has been updated.";
+    }
+
+    /**
+     * บันทึกข้อมูลการลงทะเบียนลงดิสก์ ผ่านเธรดบันทึกแบบรวมกลุ่มหากมี หรือบันทึกทันทีหากไม่มี
+     */
+    private CompletableFuture<Void> persistChanges() {
+        if (persistenceWriter != null) {
+            return persistenceWriter.markDirty(true, false);
         }
+        dataAccess.flushEnrollments();
+        return CompletableFuture.completedFuture(null);
     }
 }
\ No newline at end of file
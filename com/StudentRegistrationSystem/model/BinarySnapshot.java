@@ -0,0 +1,235 @@
+package com.StudentRegistrationSystem.model;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * ไฟล์ภาพรวมข้อมูลแบบไบนารี (Binary Snapshot) ของนักเรียน รายวิชา และการลงทะเบียนทั้งหมด
+ * ใช้สำหรับเริ่มโปรแกรมได้อย่างรวดเร็ว โดยไม่ต้องแยกข้อความ CSV และแปลงวันที่ทีละแถว
+ *
+ * โครงสร้างไฟล์:
+ * <pre>
+ *     MAGIC (int) | VERSION (int) | LAST_SEQUENCE (long) | students | subjects | enrollments | CRC32 (long)
+ * </pre>
+ * LAST_SEQUENCE คือลำดับของเหตุการณ์สุดท้ายใน {@link EventLog} ที่รวมอยู่ใน Snapshot แล้ว (0 หากไม่ได้ใช้ Event Log)
+ * ไฟล์เวอร์ชัน 1 ซึ่งไม่มีค่านี้ยังอ่านได้ โดยถือว่าเป็น 0
+ * แต่ละส่วนขึ้นต้นด้วยจำนวนแถว (int) ตามด้วยข้อมูลของแต่ละแถว
+ * ค่า CRC32 ครอบคลุมข้อมูลทั้งหมดก่อนหน้า ใช้ตรวจสอบว่าไฟล์ไม่เสียหายก่อนนำมาใช้
+ */
+public class BinarySnapshot {
+
+    private static final int MAGIC = 0x53525353; // "SRSS"
+    private static final int VERSION = 2;
+    private static final int VERSION_WITHOUT_SEQUENCE = 1;
+
+    /**
+     * ขนาดเริ่มต้นสูงสุดของ List ที่จองไว้ล่วงหน้า ป้องกันการจองหน่วยความจำมหาศาลจากค่าจำนวนแถวในไฟล์ที่เสียหาย
+     */
+    private static final int MAX_INITIAL_CAPACITY = 1 << 20;
+
+    private BinarySnapshot() {
+    }
+
+    /**
+     * ข้อมูลทั้งหมดที่อ่านได้จากไฟล์ Snapshot
+     */
+    public static final class Contents {
+        private final List<Student> students;
+        private final List<Subject> subjects;
+        private final List<Enrollment> enrollments;
+        private final long lastSequence;
+
+        Contents(List<Student> students, List<Subject> subjects, List<Enrollment> enrollments, long lastSequence) {
+            this.students = students;
+            this.subjects = subjects;
+            this.enrollments = enrollments;
+            this.lastSequence = lastSequence;
+        }
+
+        public List<Student> getStudents() {
+            return students;
+        }
+
+        public List<Subject> getSubjects() {
+            return subjects;
+        }
+
+        public List<Enrollment> getEnrollments() {
+            return enrollments;
+        }
+
+        public long getLastSequence() {
+            return lastSequence;
+        }
+    }
+
+    /**
+     * เขียนไฟล์ Snapshot โดยเขียนลงไฟล์ชั่วคราวก่อน แล้วจึงสลับแทนที่ไฟล์เดิม
+     * เพื่อไม่ให้ไฟล์ Snapshot เสียหายหากโปรแกรมหยุดทำงานระหว่างเขียน
+     */
+    public static void write(String filePath, List<Student> students, List<Subject> subjects,
+                             List<Enrollment> enrollments) throws IOException {
+        write(filePath, students, subjects, enrollments, 0);
+    }
+
+    /**
+     * เขียนไฟล์ Snapshot พร้อมระบุลำดับของเหตุการณ์สุดท้ายใน {@link EventLog} ที่รวมอยู่ในข้อมูลนี้แล้ว
+     */
+    public static void write(String filePath, List<Student> students, List<Subject> subjects,
+                             List<Enrollment> enrollments, long lastSequence) throws IOException {
+        File target = new File(filePath);
+        File temp = new File(filePath + ".tmp");
+        CRC32 crc = new CRC32();
+        try (FileOutputStream file = new FileOutputStream(temp);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new CheckedOutputStream(file, crc)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(lastSequence);
+
+            out.writeInt(students.size());
+            for (Student s : students) {
+                writeString(out, s.getStudentId());
+                writeString(out, s.getPrefix());
+                writeString(out, s.getFirstName());
+                writeString(out, s.getLastName());
+                out.writeLong(s.getDateOfBirth() == null ? Long.MIN_VALUE : s.getDateOfBirth().toEpochDay());
+                writeString(out, s.getSchool());
+                writeString(out, s.getEmail());
+            }
+
+            out.writeInt(subjects.size());
+            for (Subject s : subjects) {
+                writeString(out, s.getSubjectId());
+                writeString(out, s.getSubjectName());
+                out.writeInt(s.getCredits());
+                writeString(out, s.getInstructorName());
+                writeString(out, s.getPrerequisiteId());
+                out.writeInt(s.getMaxCapacity());
+                out.writeInt(s.getCurrentEnrollment());
+            }
+
+            out.writeInt(enrollments.size());
+            for (Enrollment e : enrollments) {
+                out.writeInt(e.getEnrollmentId());
+                writeString(out, e.getStudentId());
+                writeString(out, e.getSubjectId());
+                out.writeLong(e.getEnrollmentDate().toEpochSecond(ZoneOffset.UTC));
+                out.writeInt(e.getEnrollmentDate().getNano());
+                writeString(out, e.getGrade());
+            }
+
+            // ค่า Checksum ต้องเขียนหลังจากข้อมูลทั้งหมดผ่าน CheckedOutputStream แล้ว และไม่ถูกนับรวมในตัวเอง
+            out.flush();
+            new DataOutputStream(file).writeLong(crc.getValue());
+        }
+        Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * อ่านไฟล์ Snapshot ทั้งหมด และตรวจสอบรูปแบบ, เวอร์ชัน และ Checksum
+     *
+     * @throws IOException หากอ่านไฟล์ไม่ได้ เวอร์ชันไม่ตรง หรือข้อมูลเสียหาย
+     */
+    public static Contents read(String filePath) throws IOException {
+        CRC32 crc = new CRC32();
+        try (FileInputStream file = new FileInputStream(filePath);
+             DataInputStream in = new DataInputStream(new CheckedInputStream(new BufferedInputStream(file), crc))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a snapshot file: " + filePath);
+            }
+            int version = in.readInt();
+            if (version != VERSION && version != VERSION_WITHOUT_SEQUENCE) {
+                throw new IOException("Unsupported snapshot version " + version + ": " + filePath);
+            }
+            long lastSequence = version == VERSION ? in.readLong() : 0;
+
+            int studentCount = readCount(in, filePath);
+            List<Student> students = new ArrayList<>(Math.min(studentCount, MAX_INITIAL_CAPACITY));
+            for (int i = 0; i < studentCount; i++) {
+                Student s = new Student();
+                s.setStudentId(readString(in));
+                s.setPrefix(readString(in));
+                s.setFirstName(readString(in));
+                s.setLastName(readString(in));
+                long epochDay = in.readLong();
+                s.setDateOfBirth(epochDay == Long.MIN_VALUE ? null : LocalDate.ofEpochDay(epochDay));
+                s.setSchool(readString(in));
+                s.setEmail(readString(in));
+                students.add(s);
+            }
+
+            int subjectCount = readCount(in, filePath);
+            List<Subject> subjects = new ArrayList<>(Math.min(subjectCount, MAX_INITIAL_CAPACITY));
+            for (int i = 0; i < subjectCount; i++) {
+                Subject s = new Subject();
+                s.setSubjectId(readString(in));
+                s.setSubjectName(readString(in));
+                s.setCredits(in.readInt());
+                s.setInstructorName(readString(in));
+                s.setPrerequisiteId(readString(in));
+                s.setMaxCapacity(in.readInt());
+                s.setCurrentEnrollment(in.readInt());
+                subjects.add(s);
+            }
+
+            int enrollmentCount = readCount(in, filePath);
+            List<Enrollment> enrollments = new ArrayList<>(Math.min(enrollmentCount, MAX_INITIAL_CAPACITY));
+            for (int i = 0; i < enrollmentCount; i++) {
+                Enrollment e = new Enrollment();
+                e.setEnrollmentId(in.readInt());
+                e.setStudentId(readString(in));
+                e.setSubjectId(readString(in));
+                long epochSecond = in.readLong();
+                e.setEnrollmentDate(LocalDateTime.ofEpochSecond(epochSecond, in.readInt(), ZoneOffset.UTC));
+                e.setGrade(readString(in));
+                enrollments.add(e);
+            }
+
+            // ค่า Checksum ที่คำนวณได้ต้องตรงกับค่าที่บันทึกไว้ท้ายไฟล์
+            // (CheckedInputStream อยู่เหนือ Buffer จึงนับเฉพาะไบต์ที่อ่านไปแล้ว และต้องเก็บค่าไว้ก่อนอ่าน 8 ไบต์สุดท้าย)
+            long expected = crc.getValue();
+            byte[] trailer = in.readNBytes(Long.BYTES);
+            if (trailer.length != Long.BYTES || in.read() != -1) {
+                throw new IOException("Corrupted snapshot (bad length): " + filePath);
+            }
+            long stored = new DataInputStream(new ByteArrayInputStream(trailer)).readLong();
+            if (stored != expected) {
+                throw new IOException("Corrupted snapshot (checksum mismatch): " + filePath);
+            }
+            return new Contents(students, subjects, enrollments, lastSequence);
+        }
+    }
+
+    /**
+     * อ่านจำนวนแถวของแต่ละส่วน (ค่าติดลบหมายถึงไฟล์เสียหาย)
+     */
+    private static int readCount(DataInputStream in, String filePath) throws IOException {
+        int count = in.readInt();
+        if (count < 0) {
+            throw new IOException("Corrupted snapshot (negative count): " + filePath);
+        }
+        return count;
+    }
+
+    // --- เมธอดช่วยสำหรับ String ที่อาจเป็น null ---
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
@@ -0,0 +1,281 @@
+package com.StudentRegistrationSystem.model;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntConsumer;
+
+/**
+ * ที่เก็บข้อมูลการลงทะเบียนแบบคอลัมน์ (Columnar Store) ที่ใช้หน่วยความจำน้อย
+ *
+ * แทนที่จะเก็บ Object ของ {@link Enrollment} หนึ่งตัวต่อแถว (ซึ่งมี String 2 ตัว, LocalDateTime และ String ของเกรด)
+ * ข้อมูลแต่ละคอลัมน์จะถูกเก็บในอาร์เรย์ของ Primitive แยกกัน:
+ * <ul>
+ *     <li>รหัสนักเรียนและรหัสวิชา: เก็บเป็นรหัสตัวเลข (int) ผ่านพจนานุกรม (Dictionary Encoding)
+ *         เพื่อคงเลข 0 นำหน้า เช่น 05501001 ไว้ได้ครบถ้วน</li>
+ *     <li>วันที่ลงทะเบียน: เก็บเป็นวินาทีนับจาก Epoch (long) ส่วนที่ละเอียดกว่าวินาทีจะถูกตัดทิ้ง</li>
+ *     <li>เกรด: เก็บเป็นรหัส 1 ไบต์ จากชุดค่าเกรดที่แน่นอน 9 ค่า</li>
+ * </ul>
+ * การอ่านข้อมูลทีละแถวทำผ่าน {@link #get(int)} ซึ่งคืนค่า Flyweight View ที่อ่าน/เขียนตรงไปยังอาร์เรย์
+ * คลาสนี้ไม่ Thread-safe ผู้เรียกต้องป้องกันการเขียนจากหลายเธรดเอง
+ */
+public class ColumnarEnrollmentStore {
+
+    /**
+     * ค่าเกรดทั้งหมดที่เป็นไปได้ ตำแหน่งในอาร์เรย์คือรหัสเกรดที่ถูกเก็บ (ค่าว่างคือ "ยังไม่มีเกรด")
+     */
+    private static final String[] GRADES = {"", "A", "B+", "B", "C+", "C", "D+", "D", "F"};
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final IdDictionary studentIds = new IdDictionary();
+    private final IdDictionary subjectIds = new IdDictionary();
+
+    // --- คอลัมน์ของข้อมูล (แถวที่ i ของทุกอาร์เรย์คือการลงทะเบียนรายการเดียวกัน) ---
+    private int[] enrollmentIds = new int[INITIAL_CAPACITY];
+    private int[] studentCodes = new int[INITIAL_CAPACITY];
+    private int[] subjectCodes = new int[INITIAL_CAPACITY];
+    private long[] enrolledAt = new long[INITIAL_CAPACITY];
+    private byte[] gradeCodes = new byte[INITIAL_CAPACITY];
+    private int size;
+
+    /**
+     * สร้างที่เก็บแบบคอลัมน์จาก List ของการลงทะเบียนที่มีอยู่
+     */
+    public static ColumnarEnrollmentStore from(List<Enrollment> enrollments) {
+        ColumnarEnrollmentStore store = new ColumnarEnrollmentStore();
+        store.ensureCapacity(enrollments.size());
+        enrollments.forEach(store::add);
+        return store;
+    }
+
+    /**
+     * เพิ่มการลงทะเบียนหนึ่งรายการต่อท้ายที่เก็บ
+     *
+     * @return หมายเลขแถวของรายการที่เพิ่ม
+     */
+    public int add(Enrollment enrollment) {
+        ensureCapacity(size + 1);
+        int row = size++;
+        enrollmentIds[row] = enrollment.getEnrollmentId();
+        studentCodes[row] = studentIds.encode(enrollment.getStudentId());
+        subjectCodes[row] = subjectIds.encode(enrollment.getSubjectId());
+        enrolledAt[row] = toEpochSecond(enrollment.getEnrollmentDate());
+        gradeCodes[row] = gradeCode(enrollment.getGrade());
+        return row;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * คืนค่า View ของแถวที่กำหนด ซึ่งใช้งานได้เหมือน {@link Enrollment} ปกติ
+     * แต่ไม่ได้เก็บข้อมูลเอง ทุก getter/setter จะอ่าน/เขียนตรงไปยังคอลัมน์ของที่เก็บนี้
+     */
+    public Enrollment get(int row) {
+        checkRow(row);
+        return new EnrollmentView(row);
+    }
+
+    public String getGrade(int row) {
+        checkRow(row);
+        return GRADES[gradeCodes[row]];
+    }
+
+    public void setGrade(int row, String grade) {
+        checkRow(row);
+        gradeCodes[row] = gradeCode(grade);
+    }
+
+    /**
+     * วนทุกแถวที่เป็นของนักเรียนคนนี้ (สแกนคอลัมน์ int ต่อเนื่องในหน่วยความจำ ซึ่งเป็นมิตรกับ CPU Cache)
+     */
+    public void forEachRowOfStudent(String studentId, IntConsumer action) {
+        int code = studentIds.lookup(studentId);
+        if (code < 0) {
+            return;
+        }
+        for (int row = 0; row < size; row++) {
+            if (studentCodes[row] == code) {
+                action.accept(row);
+            }
+        }
+    }
+
+    /**
+     * วนทุกแถวที่เป็นของรายวิชานี้
+     */
+    public void forEachRowOfSubject(String subjectId, IntConsumer action) {
+        int code = subjectIds.lookup(subjectId);
+        if (code < 0) {
+            return;
+        }
+        for (int row = 0; row < size; row++) {
+            if (subjectCodes[row] == code) {
+                action.accept(row);
+            }
+        }
+    }
+
+    /**
+     * นับจำนวนการลงทะเบียนในแต่ละเกรดของรายวิชานี้
+     *
+     * @return อาร์เรย์จำนวนนับ โดยตำแหน่งที่ i ตรงกับเกรดใน {@link #gradeOf(int)}
+     */
+    public int[] gradeHistogram(String subjectId) {
+        int[] histogram = new int[GRADES.length];
+        forEachRowOfSubject(subjectId, row -> histogram[gradeCodes[row]]++);
+        return histogram;
+    }
+
+    /**
+     * แปลงรหัสเกรดเป็นค่าเกรด
+     */
+    public static String gradeOf(int code) {
+        return GRADES[code];
+    }
+
+    /**
+     * ประมาณขนาดหน่วยความจำที่ใช้โดยคอลัมน์ข้อมูล (ไม่รวมพจนานุกรมของรหัส)
+     */
+    public long estimatedColumnBytes() {
+        long perRow = Integer.BYTES * 3L + Long.BYTES + Byte.BYTES;
+        return perRow * enrollmentIds.length;
+    }
+
+    // --- เมธอดช่วยภายในคลาส ---
+
+    private void ensureCapacity(int required) {
+        if (required <= enrollmentIds.length) {
+            return;
+        }
+        int capacity = Math.max(required, enrollmentIds.length + (enrollmentIds.length >> 1));
+        enrollmentIds = Arrays.copyOf(enrollmentIds, capacity);
+        studentCodes = Arrays.copyOf(studentCodes, capacity);
+        subjectCodes = Arrays.copyOf(subjectCodes, capacity);
+        enrolledAt = Arrays.copyOf(enrolledAt, capacity);
+        gradeCodes = Arrays.copyOf(gradeCodes, capacity);
+    }
+
+    private void checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " out of bounds for size " + size);
+        }
+    }
+
+    private static byte gradeCode(String grade) {
+        if (grade == null) {
+            return 0;
+        }
+        for (byte code = 0; code < GRADES.length; code++) {
+            if (GRADES[code].equals(grade)) {
+                return code;
+            }
+        }
+        throw new IllegalArgumentException("Invalid grade: " + grade);
+    }
+
+    private static long toEpochSecond(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static LocalDateTime fromEpochSecond(long epochSecond) {
+        return LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC);
+    }
+
+    /**
+     * พจนานุกรมสำหรับแปลงรหัส (String) เป็นตัวเลขลำดับ (int) และแปลงกลับ
+     * รหัสเดียวกันจะถูกเก็บเป็น String เพียงครั้งเดียว ไม่ว่าจะปรากฏกี่แถวก็ตาม
+     */
+    private static final class IdDictionary {
+
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        int encode(String value) {
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = values.size();
+                codes.put(value, code);
+                values.add(value);
+            }
+            return code;
+        }
+
+        int lookup(String value) {
+            return codes.getOrDefault(value, -1);
+        }
+
+        String decode(int code) {
+            return values.get(code);
+        }
+    }
+
+    /**
+     * Flyweight View ของการลงทะเบียนหนึ่งแถว: สืบทอดจาก {@link Enrollment}
+     * เพื่อให้ส่งต่อไปยังโค้ดเดิม (เช่น View หรือ Service) ได้โดยไม่ต้องสร้าง Object ของข้อมูลจริง
+     */
+    private final class EnrollmentView extends Enrollment {
+
+        private final int row;
+
+        EnrollmentView(int row) {
+            this.row = row;
+        }
+
+        @Override
+        public int getEnrollmentId() {
+            return enrollmentIds[row];
+        }
+
+        @Override
+        public void setEnrollmentId(int enrollmentId) {
+            enrollmentIds[row] = enrollmentId;
+        }
+
+        @Override
+        public String getStudentId() {
+            return studentIds.decode(studentCodes[row]);
+        }
+
+        @Override
+        public void setStudentId(String studentId) {
+            studentCodes[row] = studentIds.encode(studentId);
+        }
+
+        @Override
+        public String getSubjectId() {
+            return subjectIds.decode(subjectCodes[row]);
+        }
+
+        @Override
+        public void setSubjectId(String subjectId) {
+            subjectCodes[row] = subjectIds.encode(subjectId);
+        }
+
+        @Override
+        public LocalDateTime getEnrollmentDate() {
+            return fromEpochSecond(enrolledAt[row]);
+        }
+
+        @Override
+        public void setEnrollmentDate(LocalDateTime enrollmentDate) {
+            enrolledAt[row] = toEpochSecond(enrollmentDate);
+        }
+
+        @Override
+        public String getGrade() {
+            return GRADES[gradeCodes[row]];
+        }
+
+        @Override
+        public void setGrade(String grade) {
+            gradeCodes[row] = gradeCode(grade);
+        }
+    }
+}
@@ -0,0 +1,352 @@
+package com.StudentRegistrationSystem.model;
+
+import com.StudentRegistrationSystem.metrics.Counter;
+import com.StudentRegistrationSystem.metrics.CsvLoadEvent;
+import com.StudentRegistrationSystem.metrics.MetricsRegistry;
+import com.StudentRegistrationSystem.metrics.Timer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * ตัวอ่านไฟล์ CSV ประสิทธิภาพสูงสำหรับไฟล์ข้อมูลขนาดใหญ่
+ *
+ * ขั้นตอนการทำงาน:
+ * <ol>
+ *     <li>Map ไฟล์เข้าหน่วยความจำ (Memory-mapped File) แทนการอ่านผ่าน Reader ทีละบรรทัด</li>
+ *     <li>แบ่งไฟล์เป็นช่วง (Chunk) ที่ตัดตรงจุดสิ้นสุดบรรทัดพอดี โดยไม่ตัดกลางข้อความที่อยู่ในเครื่องหมายคำพูด
+ *     (สแกนสถานะของเครื่องหมายคำพูดแบบขนานเช่นกัน)</li>
+ *     <li>แยกฟิลด์ของแต่ละช่วงแบบขนานบน Fork-Join Pool โดยอ่านทีละไบต์ ไม่ใช้ Regex และไม่สร้าง String ของทั้งบรรทัด</li>
+ * </ol>
+ * รองรับรูปแบบเครื่องหมายคำพูดตามมาตรฐาน RFC 4180 เช่น {@code "Programming, Advanced"} และ {@code "He said ""Hi"""}
+ * ช่องว่างหน้า-หลังของฟิลด์ที่ไม่มีเครื่องหมายคำพูดจะถูกตัดออกตั้งแต่ขั้นตอนการแยกฟิลด์
+ */
+public class CsvLoader {
+
+    /**
+     * ขนาดสูงสุดของแต่ละช่วงที่ถูก Map และแยกฟิลด์ในงานย่อยหนึ่งงาน
+     */
+    private static final long MAX_CHUNK_BYTES = 64L * 1024 * 1024;
+
+    /**
+     * ไฟล์ที่เล็กกว่าขนาดนี้จะถูกอ่านเป็นช่วงเดียว เพราะการแบ่งงานแบบขนานไม่คุ้มค่า
+     */
+    private static final long MIN_PARALLEL_BYTES = 1024 * 1024;
+
+    // --- ตัววัดประสิทธิภาพ (ดูได้ผ่าน JMX) ---
+    private static final Timer LOAD_TIMER = MetricsRegistry.getDefault().timer("csvLoader.load");
+    private static final Counter ROWS_LOADED = MetricsRegistry.getDefault().counter("csvLoader.rows");
+    private static final Counter BYTES_LOADED = MetricsRegistry.getDefault().counter("csvLoader.bytes");
+
+    private CsvLoader() {
+    }
+
+    /**
+     * โหลดไฟล์ CSV ทั้งไฟล์ (ข้ามบรรทัดหัวตาราง) และแปลงแต่ละแถวด้วย mapper โดยรักษาลำดับแถวเดิมไว้
+     *
+     * @param filePath ที่อยู่ของไฟล์ CSV
+     * @param mapper   ฟังก์ชันแปลงฟิลด์ของหนึ่งแถวเป็น Object
+     * @return List ของ Object ตามลำดับในไฟล์
+     */
+    public static <T> List<T> load(String filePath, Function<String[], T> mapper) throws IOException {
+        long start = System.nanoTime();
+        CsvLoadEvent event = new CsvLoadEvent();
+        event.begin();
+        try {
+            List<T> rows = loadRows(filePath, mapper);
+            ROWS_LOADED.add(rows.size());
+            event.end();
+            if (event.shouldCommit()) {
+                event.file = filePath;
+                event.rows = rows.size();
+                event.bytesRead = Files.size(Paths.get(filePath));
+                event.commit();
+            }
+            return rows;
+        } catch (IOException | RuntimeException e) {
+            LOAD_TIMER.recordError();
+            throw e;
+        } finally {
+            LOAD_TIMER.recordSince(start);
+        }
+    }
+
+    private static <T> List<T> loadRows(String filePath, Function<String[], T> mapper) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+            long size = channel.size();
+            BYTES_LOADED.add(size);
+            List<long[]> chunks = splitIntoChunks(channel, size);
+            if (chunks.size() == 1) {
+                return parseChunk(channel, chunks.get(0), mapper);
+            }
+            // parallelStream ทำงานบน Fork-Join Pool ส่วนกลาง และ collect จะรักษาลำดับของช่วงไว้
+            List<List<T>> parts = chunks.parallelStream()
+                    .map(chunk -> {
+                        try {
+                            return parseChunk(channel, chunk, mapper);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    })
+                    .collect(Collectors.toList());
+            List<T> result = new ArrayList<>(parts.stream().mapToInt(List::size).sum());
+            parts.forEach(result::addAll);
+            return result;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * แบ่งไฟล์เป็นช่วง [start, end) โดยเริ่มหลังบรรทัดหัวตาราง และให้ทุกช่วงจบที่ตัวขึ้นบรรทัดใหม่
+     * ที่ไม่ได้อยู่ภายในเครื่องหมายคำพูด (ตรวจสอบด้วยการนับจำนวนเครื่องหมายคำพูดแบบคู่/คี่)
+     *
+     * การหาจุดตัดต้องอ่านทุกไบต์ของไฟล์ จึงทำแบบขนานเป็น 2 ขั้น:
+     * <ol>
+     *     <li>แบ่งไฟล์เป็นส่วน (Segment) ขนาดเท่ากันและสแกนแต่ละส่วนพร้อมกัน โดยยังไม่รู้ว่าส่วนนั้นเริ่มต้นในเครื่องหมายคำพูดหรือไม่
+     *     จึงเก็บทั้งจำนวนเครื่องหมายคำพูดแบบคู่/คี่ของทั้งส่วน และตัวขึ้นบรรทัดใหม่ตัวแรกที่อยู่นอกเครื่องหมายคำพูดไว้ทั้งสองกรณี</li>
+     *     <li>รวมผลตามลำดับ (Prefix) ซึ่งใช้เวลาตามจำนวนส่วนเท่านั้น: สถานะตอนเริ่มของแต่ละส่วนคือผล XOR ของส่วนก่อนหน้าทั้งหมด
+     *     แล้วเลือกจุดตัดของกรณีที่ตรงกับสถานะนั้น</li>
+     * </ol>
+     */
+    private static List<long[]> splitIntoChunks(FileChannel channel, long size) throws IOException {
+        int parallelism = ForkJoinPool.commonPool().getParallelism();
+        long target = size < MIN_PARALLEL_BYTES ? Math.max(size, 1)
+                : Math.min(MAX_CHUNK_BYTES, Math.max(MIN_PARALLEL_BYTES, size / (parallelism * 4L)));
+
+        List<long[]> segments = new ArrayList<>();
+        for (long segmentStart = 0; segmentStart < size; segmentStart += target) {
+            segments.add(new long[]{segmentStart, Math.min(size, segmentStart + target)});
+        }
+        List<SegmentScan> scans;
+        if (segments.size() == 1) {
+            scans = List.of(scanSegment(channel, segments.get(0)));
+        } else {
+            scans = segments.parallelStream()
+                    .map(segment -> {
+                        try {
+                            return scanSegment(channel, segment);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    })
+                    .collect(Collectors.toList());
+        }
+
+        List<long[]> chunks = new ArrayList<>();
+        long headerEnd = -1;
+        long chunkStart = -1;
+        boolean inQuotes = false;
+        for (SegmentScan scan : scans) {
+            long lineEnd = inQuotes ? scan.firstLineEndIfQuoted : scan.firstLineEndIfUnquoted;
+            if (lineEnd >= 0) {
+                if (headerEnd < 0) {
+                    headerEnd = lineEnd;
+                    chunkStart = lineEnd;
+                } else {
+                    chunks.add(new long[]{chunkStart, lineEnd});
+                    chunkStart = lineEnd;
+                }
+            }
+            inQuotes ^= scan.oddQuotes;
+        }
+        if (headerEnd < 0) {
+            // ไฟล์มีเพียงบรรทัดหัวตาราง (หรือว่างเปล่า)
+            chunks.add(new long[]{size, size});
+        } else if (chunkStart < size || chunks.isEmpty()) {
+            chunks.add(new long[]{chunkStart, size});
+        }
+        return chunks;
+    }
+
+    /**
+     * สแกนส่วนหนึ่งของไฟล์ครั้งเดียว สำหรับทั้งกรณีที่ส่วนนี้เริ่มนอกและในเครื่องหมายคำพูด
+     * (ตัวขึ้นบรรทัดใหม่อยู่นอกเครื่องหมายคำพูดเมื่อจำนวนเครื่องหมายคำพูดที่ผ่านมาในส่วนนี้เป็นคู่ในกรณีแรก และคี่ในกรณีหลัง)
+     */
+    private static SegmentScan scanSegment(FileChannel channel, long[] segment) throws IOException {
+        int length = (int) (segment[1] - segment[0]);
+        MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, segment[0], length);
+        SegmentScan scan = new SegmentScan();
+        boolean odd = false;
+        for (int i = 0; i < length; i++) {
+            byte b = window.get(i);
+            if (b == '"') {
+                odd = !odd;
+            } else if (b == '\n') {
+                long lineEnd = segment[0] + i + 1;
+                if (!odd && scan.firstLineEndIfUnquoted < 0) {
+                    scan.firstLineEndIfUnquoted = lineEnd;
+                } else if (odd && scan.firstLineEndIfQuoted < 0) {
+                    scan.firstLineEndIfQuoted = lineEnd;
+                }
+            }
+        }
+        scan.oddQuotes = odd;
+        return scan;
+    }
+
+    /**
+     * ผลการสแกนส่วนหนึ่งของไฟล์ (ตำแหน่งเป็น -1 หากไม่พบตัวขึ้นบรรทัดใหม่ที่อยู่นอกเครื่องหมายคำพูดในกรณีนั้น)
+     */
+    private static final class SegmentScan {
+        long firstLineEndIfUnquoted = -1;
+        long firstLineEndIfQuoted = -1;
+        boolean oddQuotes;
+    }
+
+    /**
+     * แยกฟิลด์ของทุกแถวในช่วงที่กำหนด แล้วแปลงเป็น Object ด้วย mapper
+     */
+    private static <T> List<T> parseChunk(FileChannel channel, long[] chunk, Function<String[], T> mapper)
+            throws IOException {
+        int length = (int) (chunk[1] - chunk[0]);
+        List<T> rows = new ArrayList<>();
+        if (length == 0) {
+            return rows;
+        }
+        byte[] bytes = new byte[length];
+        channel.map(FileChannel.MapMode.READ_ONLY, chunk[0], length).get(bytes);
+
+        Tokenizer tokenizer = new Tokenizer(bytes, 0, length);
+        String[] fields;
+        while ((fields = tokenizer.nextRow()) != null) {
+            rows.add(mapper.apply(fields));
+        }
+        return rows;
+    }
+
+    /**
+     * แยกฟิลด์ของข้อความ CSV หนึ่งบรรทัด (ใช้กับไฟล์ที่อ่านทีละบรรทัด เช่น ไฟล์นำเข้าเกรด)
+     *
+     * @param line ข้อความหนึ่งบรรทัด (ไม่รวมตัวขึ้นบรรทัดใหม่)
+     * @return ฟิลด์ทั้งหมดของบรรทัดนั้น หรืออาร์เรย์ว่างหากเป็นบรรทัดว่าง
+     */
+    public static String[] parseLine(String line) {
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        String[] fields = new Tokenizer(bytes, 0, bytes.length).nextRow();
+        return fields == null ? new String[0] : fields;
+    }
+
+    /**
+     * จัดรูปแบบค่าของฟิลด์สำหรับเขียนลงไฟล์ CSV: ครอบด้วยเครื่องหมายคำพูดเมื่อมีจุลภาค, เครื่องหมายคำพูด หรือการขึ้นบรรทัดใหม่
+     */
+    public static String escape(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    /**
+     * ตัวแยกฟิลด์ที่อ่านไบต์ของช่วงข้อมูลทีละตัว และสร้าง String เฉพาะค่าของฟิลด์เท่านั้น
+     */
+    private static final class Tokenizer {
+
+        private final byte[] bytes;
+        private final int end;
+        private int pos;
+        private String[] scratch = new String[8];
+
+        Tokenizer(byte[] bytes, int start, int end) {
+            this.bytes = bytes;
+            this.pos = start;
+            this.end = end;
+        }
+
+        /**
+         * @return ฟิลด์ของแถวถัดไป หรือ null เมื่ออ่านครบแล้ว (บรรทัดว่างจะถูกข้าม)
+         */
+        String[] nextRow() {
+            while (pos < end) {
+                if (bytes[pos] == '\n' || bytes[pos] == '\r') {
+                    pos++;
+                    continue;
+                }
+                int count = 0;
+                while (true) {
+                    if (count == scratch.length) {
+                        scratch = Arrays.copyOf(scratch, count * 2);
+                    }
+                    scratch[count++] = nextField();
+                    if (pos < end && bytes[pos] == ',') {
+                        pos++;
+                        continue;
+                    }
+                    // จบแถว: ข้ามตัวขึ้นบรรทัดใหม่ (รองรับทั้ง \n และ \r\n)
+                    if (pos < end && bytes[pos] == '\r') {
+                        pos++;
+                    }
+                    if (pos < end && bytes[pos] == '\n') {
+                        pos++;
+                    }
+                    return Arrays.copyOf(scratch, count);
+                }
+            }
+            return null;
+        }
+
+        /**
+         * อ่านค่าของฟิลด์หนึ่งฟิลด์ และหยุดที่จุลภาคหรือจุดสิ้นสุดบรรทัดที่ตามมา
+         */
+        private String nextField() {
+            int start = pos;
+            while (start < end && (bytes[start] == ' ' || bytes[start] == '\t')) {
+                start++;
+            }
+            if (start < end && bytes[start] == '"') {
+                return quotedField(start + 1);
+            }
+            int stop = start;
+            while (stop < end && bytes[stop] != ',' && bytes[stop] != '\n' && bytes[stop] != '\r') {
+                stop++;
+            }
+            pos = stop;
+            int last = stop;
+            while (last > start && (bytes[last - 1] == ' ' || bytes[last - 1] == '\t')) {
+                last--;
+            }
+            return last == start ? "" : new String(bytes, start, last - start, StandardCharsets.UTF_8);
+        }
+
+        private String quotedField(int start) {
+            int i = start;
+            boolean escaped = false;
+            while (i < end) {
+                if (bytes[i] == '"') {
+                    if (i + 1 < end && bytes[i + 1] == '"') {
+                        escaped = true;
+                        i += 2;
+                        continue;
+                    }
+                    break;
+                }
+                i++;
+            }
+            String value = new String(bytes, start, i - start, StandardCharsets.UTF_8);
+            if (escaped) {
+                value = value.replace("\"\"", "\"");
+            }
+            // ข้ามเครื่องหมายคำพูดปิด และอักขระที่เหลือก่อนถึงจุลภาคหรือจุดสิ้นสุดบรรทัด
+            pos = Math.min(i + 1, end);
+            while (pos < end && bytes[pos] != ',' && bytes[pos] != '\n' && bytes[pos] != '\r') {
+                pos++;
+            }
+            return value;
+        }
+    }
+}
@@ -1,12 +1,25 @@
 package com.StudentRegistrationSystem.model;
 
+import com.StudentRegistrationSystem.metrics.CsvSaveEvent;
+import com.StudentRegistrationSystem.metrics.MetricsRegistry;
+import com.StudentRegistrationSystem.metrics.Timer;
+
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
-import java.util.Optional;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -14,43 +27,312 @@ import java.util.stream.Collectors;
  * Service Class สำหรับจัดการการเข้าถึงข้อมูล (Data Access Layer)
  * ทำหน้าที่เป็นตัวกลางในการอ่านและเขียนข้อมูลจากไฟล์ CSV
  * เปรียบเสมือนการจำลองฐานข้อมูล โดยเก็บข้อมูลทั้งหมดไว้ในหน่วยความจำ (In-memory) ระหว่างที่โปรแกรมทำงาน
+ * (List และดัชนีในหน่วยความจำอยู่ใน {@link InMemoryRepository} คลาสนี้เพิ่มเฉพาะการอ่านและบันทึกไฟล์)
  */
-public class DataAccessService {
+public class DataAccessService extends InMemoryRepository {
 
     // --- ค่าคงที่สำหรับระบุชื่อไฟล์ CSV ---
     private static final String STUDENTS_CSV = "students.csv";
     private static final String SUBJECTS_CSV = "subjects.csv";
     private static final String ENROLLMENTS_CSV = "enrollments.csv";
+    private static final String ENROLLMENTS_JOURNAL = "enrollments.journal";
+    private static final String SNAPSHOT_FILE = "data.snapshot";
+    private static final String EVENT_LOG_FILE = "events.log";
+    private static final String EVENT_SNAPSHOT_FILE = "events.snapshot";
+
+    /**
+     * จำนวนระเบียนใน Journal ที่จะทำให้เริ่มการรวมกลับ (Compaction) เข้าไฟล์ CSV
+     */
+    public static final int DEFAULT_COMPACTION_THRESHOLD = 10_000;
+
+    /**
+     * จำนวนเหตุการณ์ใน Event Log นับจาก Snapshot ล่าสุด ที่จะทำให้เริ่มสร้าง Snapshot ใหม่ในเบื้องหลัง
+     */
+    public static final int DEFAULT_SNAPSHOT_INTERVAL = 100_000;
+
+    // --- ตัววัดประสิทธิภาพของการอ่าน/เขียนไฟล์ (ดูได้ผ่าน JMX) ---
+    private static final Timer LOAD_DATA_TIMER = MetricsRegistry.getDefault().timer("loadData");
+    private static final Timer SAVE_SUBJECTS_TIMER = MetricsRegistry.getDefault().timer("saveSubjects");
+    private static final Timer SAVE_ENROLLMENTS_TIMER = MetricsRegistry.getDefault().timer("saveEnrollments");
+
+    /**
+     * รูปแบบการบันทึกข้อมูลการลงทะเบียนลงดิสก์
+     */
+    public enum PersistenceMode {
+        /** เขียนไฟล์ enrollments.csv ใหม่ทั้งไฟล์ทุกครั้งที่มีการเปลี่ยนแปลง (รูปแบบเดิม) */
+        CSV,
+        /** ต่อท้ายการเปลี่ยนแปลงลงไฟล์ Journal และรวมกลับเข้าไฟล์ CSV เป็นระยะในเบื้องหลัง */
+        JOURNAL,
+        /**
+         * บันทึกทุกการเปลี่ยนแปลงเป็นเหตุการณ์ลง Event Log แบบไบนารีโดยไม่เขียนไฟล์ CSV ทับ
+         * ข้อมูลปัจจุบันถูกสร้างจาก Snapshot ล่าสุด (หรือไฟล์ CSV ตั้งต้น) แล้วเล่นซ้ำเหตุการณ์ที่ใหม่กว่า
+         */
+        EVENT_LOG,
+        /**
+         * เขียนไฟล์ CSV ทั้งไฟล์เช่นเดียวกับ {@link #CSV} โดยรองรับหลายโปรเซสที่ใช้โฟลเดอร์ข้อมูลเดียวกัน (เช่น ไดรฟ์ที่แชร์)
+         * การเปลี่ยนแปลงของโปรเซสอื่นถูกโหลดเฉพาะแถวที่เปลี่ยนเมื่อเวอร์ชันของไฟล์เปลี่ยน และถูกรวมก่อนการเขียนทุกครั้ง
+         */
+        SHARED
+    }
 
-    // --- ที่เก็บข้อมูลในหน่วยความจำ (In-memory Storage) ---
-    private List<Student> students;
-    private List<Subject> subjects;
-    private List<Enrollment> enrollments;
+    // --- ที่อยู่ของไฟล์ข้อมูล (อ้างอิงจากโฟลเดอร์ข้อมูลที่กำหนด) ---
+    private final String dataDirectory;
+    private final String studentsFile;
+    private final String subjectsFile;
+    private final String enrollmentsFile;
+    private final String journalFile;
+    private final String snapshotFile;
+
+    // --- ส่วนประกอบของโหมด Journal ---
+    private final PersistenceMode persistenceMode;
+    private EnrollmentJournal journal;
+    private ExecutorService compactionExecutor;
+    private final AtomicBoolean compacting = new AtomicBoolean(false);
+    private int compactionThreshold = DEFAULT_COMPACTION_THRESHOLD;
+
+    // --- ส่วนประกอบของโหมด Event Log ---
+    private final String eventLogFile;
+    private final String eventSnapshotFile;
+    private EventLog eventLog;
+    private volatile long lastSnapshotSequence;
+    private int snapshotInterval = DEFAULT_SNAPSHOT_INTERVAL;
+
+    // --- การใช้ไฟล์ข้อมูลร่วมกันระหว่างโปรเซส (Lock ของโฟลเดอร์ และเวอร์ชันของไฟล์ที่โปรแกรมเขียน) ---
+    private final DataFileLock dataLock;
+    private final SharedCsvFile subjectsCsv;
+    private final SharedCsvFile enrollmentsCsv;
+    private DataDirectoryWatcher watcher;
+    // รายวิชาที่ถูกรวมการเปลี่ยนแปลงจากโปรเซสอื่นแล้ว แต่ยังไม่ได้แจ้งตัวรับฟัง (แจ้งหลังปลด Lock ของโฟลเดอร์)
+    private final Set<Subject> mergedSubjects = ConcurrentHashMap.newKeySet();
+    // รายวิชาที่โปรเซสอื่นใช้ที่นั่งเพิ่มขึ้นระหว่างการรวมครั้งนี้ (ต้องตรวจว่าที่นั่งเกินจำนวนสูงสุดหรือไม่)
+    private final Set<String> contendedSubjectIds = ConcurrentHashMap.newKeySet();
+    // การลงทะเบียนของโปรเซสนี้ที่จำนวนที่นั่งยังไม่ถูกเขียนลง subjects.csv (ยังไม่ได้แจ้งผลสำเร็จ จึงยกเลิกได้หากที่นั่งเกิน)
+    private final Set<Enrollment> unpublishedSeats = ConcurrentHashMap.newKeySet();
 
     /**
      * Constructor ของ DataAccessService
      * เมื่อ Service นี้ถูกสร้างขึ้น จะทำการโหลดข้อมูลทั้งหมดจากไฟล์ CSV เข้ามาเก็บใน List ทันที
+     * และสร้างดัชนีคีย์หลักของนักเรียนและรายวิชาไปพร้อมกัน
      */
     public DataAccessService() {
-        this.students = loadData(STUDENTS_CSV, this::mapToStudent);
-        this.subjects = loadData(SUBJECTS_CSV, this::mapToSubject);
-        this.enrollments = loadData(ENROLLMENTS_CSV, this::mapToEnrollment);
+        this(PersistenceMode.CSV);
+    }
+
+    /**
+     * Constructor ของ DataAccessService ที่กำหนดรูปแบบการบันทึกข้อมูลได้
+     * ในโหมด {@link PersistenceMode#JOURNAL} จะนำระเบียนใน Journal ที่ค้างอยู่มาเล่นซ้ำทับข้อมูลจาก CSV หลังโหลดเสร็จ
+     *
+     * @param persistenceMode รูปแบบการบันทึกข้อมูลการลงทะเบียน
+     */
+    public DataAccessService(PersistenceMode persistenceMode) {
+        this(".", persistenceMode);
+    }
+
+    /**
+     * Constructor ของ DataAccessService ที่กำหนดโฟลเดอร์ของไฟล์ข้อมูลได้
+     * (เช่น ใช้ชุดข้อมูลทดสอบขนาดใหญ่ในการวัดประสิทธิภาพ)
+     *
+     * @param dataDirectory   โฟลเดอร์ที่เก็บไฟล์ students.csv, subjects.csv และ enrollments.csv
+     * @param persistenceMode รูปแบบการบันทึกข้อมูลการลงทะเบียน
+     */
+    public DataAccessService(String dataDirectory, PersistenceMode persistenceMode) {
+        this.persistenceMode = persistenceMode;
+        this.dataDirectory = dataDirectory;
+        this.studentsFile = new File(dataDirectory, STUDENTS_CSV).getPath();
+        this.subjectsFile = new File(dataDirectory, SUBJECTS_CSV).getPath();
+        this.enrollmentsFile = new File(dataDirectory, ENROLLMENTS_CSV).getPath();
+        this.journalFile = new File(dataDirectory, ENROLLMENTS_JOURNAL).getPath();
+        this.snapshotFile = new File(dataDirectory, SNAPSHOT_FILE).getPath();
+        this.eventLogFile = new File(dataDirectory, EVENT_LOG_FILE).getPath();
+        this.eventSnapshotFile = new File(dataDirectory, EVENT_SNAPSHOT_FILE).getPath();
+        this.dataLock = DataFileLock.forDirectory(dataDirectory);
+        this.subjectsCsv = new SharedCsvFile(subjectsFile, fields -> fields.length > 0 ? fields[0].trim() : null,
+                this::mergeSubjectRow);
+        this.enrollmentsCsv = new SharedCsvFile(enrollmentsFile,
+                fields -> fields.length > 2 ? enrollmentKey(fields[1].trim(), fields[2].trim()) : null,
+                this::mergeEnrollmentRow);
+        EventLog.ReplayResult replayed = null;
+        if (persistenceMode == PersistenceMode.EVENT_LOG) {
+            // สร้างข้อมูลปัจจุบันจาก Snapshot ของ Event Log (หรือไฟล์ CSV ตั้งต้น) แล้วเล่นซ้ำเหตุการณ์ที่ใหม่กว่า
+            EventProjection projection = loadProjection();
+            this.lastSnapshotSequence = projection.getLastSequence();
+            try {
+                replayed = EventLog.replay(eventLogFile, projection.getLastSequence(), Long.MAX_VALUE, projection);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Error replaying event log: " + eventLogFile, e);
+            }
+            initialize(new ArrayList<>(projection.getStudents()), projection.getSubjects(), projection.getEnrollments());
+        } else {
+            // อ่านภายใต้ Lock ของโฟลเดอร์ข้อมูล เพื่อไม่ให้อ่านไฟล์ที่โปรเซสอื่นกำลังเขียนอยู่ครึ่งทาง
+            boolean locked = lockDataFiles();
+            try {
+                // โหลดจาก Snapshot แบบไบนารีหากใหม่กว่าไฟล์ CSV ทุกไฟล์ ไม่เช่นนั้นจึงอ่านจากไฟล์ CSV
+                // (โหมด SHARED ไม่ใช้ Snapshot เพราะโปรเซสอื่นอาจเขียน Snapshot จากข้อมูลที่ยังไม่รวมการเปลี่ยนแปลงล่าสุด)
+                BinarySnapshot.Contents snapshot = persistenceMode == PersistenceMode.SHARED ? null : loadSnapshot();
+                if (snapshot != null) {
+                    initialize(snapshot.getStudents(), snapshot.getSubjects(), snapshot.getEnrollments());
+                } else {
+                    initialize(loadData(studentsFile, this::mapToStudent), loadData(subjectsFile, this::mapToSubject),
+                            loadData(enrollmentsFile, this::mapToEnrollment));
+                }
+                if (persistenceMode == PersistenceMode.SHARED) {
+                    subjectsCsv.track();
+                    enrollmentsCsv.track();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Error reading data files in: " + dataDirectory, e);
+            } finally {
+                if (locked) {
+                    dataLock.unlock();
+                }
+            }
+        }
+        if (persistenceMode == PersistenceMode.JOURNAL) {
+            openJournal();
+        } else if (persistenceMode == PersistenceMode.EVENT_LOG) {
+            openEventLog(replayed);
+        } else if (persistenceMode == PersistenceMode.SHARED) {
+            startWatching();
+        }
+    }
+
+    /**
+     * เริ่มเฝ้าดูโฟลเดอร์ข้อมูล เพื่อโหลดการเปลี่ยนแปลงของโปรเซสอื่นทันทีที่ไฟล์เวอร์ชันเปลี่ยน
+     * หากเริ่มไม่ได้ การเปลี่ยนแปลงของโปรเซสอื่นจะยังถูกรวมก่อนการเขียนทุกครั้ง
+     */
+    private void startWatching() {
+        try {
+            this.watcher = new DataDirectoryWatcher(dataDirectory, this::reloadChangedFiles);
+        } catch (IOException e) {
+            System.err.println("Error watching data directory: " + dataDirectory);
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * ล็อกโฟลเดอร์ข้อมูลเพื่อไม่ให้โปรเซสอื่นเขียนไฟล์ CSV ระหว่างที่อ่านหรือเขียน
+     *
+     * @return true หากได้ Lock (ผู้เรียกต้องปลด Lock เอง), false หากล็อกไม่ได้ (ทำงานต่อโดยไม่มี Lock)
+     */
+    private boolean lockDataFiles() {
+        try {
+            dataLock.lock();
+            return true;
+        } catch (IOException e) {
+            System.err.println("Error locking data directory: " + dataDirectory);
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * โหลดข้อมูลจากไฟล์ Snapshot หากไฟล์นั้นใหม่กว่าไฟล์ CSV ทุกไฟล์ (แปลว่ายังไม่มีการแก้ไขข้อมูลหลังเขียน Snapshot)
+     *
+     * @return ข้อมูลที่โหลดได้ หรือ null หากไม่มี Snapshot, Snapshot เก่ากว่า CSV หรือไฟล์เสียหาย
+     */
+    private BinarySnapshot.Contents loadSnapshot() {
+        File snapshot = new File(snapshotFile);
+        if (!snapshot.exists()) {
+            return null;
+        }
+        for (String csv : List.of(studentsFile, subjectsFile, enrollmentsFile)) {
+            if (new File(csv).lastModified() >= snapshot.lastModified()) {
+                return null;
+            }
+        }
+        try {
+            return BinarySnapshot.read(snapshotFile);
+        } catch (IOException e) {
+            System.err.println("Error loading snapshot, falling back to CSV: " + snapshotFile);
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * เขียนข้อมูลทั้งหมดในหน่วยความจำลงไฟล์ Snapshot แบบไบนารี เพื่อให้การเริ่มโปรแกรมครั้งถัดไปรวดเร็ว
+     * ถูกเรียกอัตโนมัติใน {@link #close()} และสามารถเรียกเองได้ตามต้องการ
+     * (ควรเรียกหลังจากบันทึกไฟล์ CSV แล้ว เพราะ Snapshot จะถูกใช้ก็ต่อเมื่อใหม่กว่าไฟล์ CSV เท่านั้น)
+     */
+    public void writeSnapshot() {
+        try {
+            BinarySnapshot.write(snapshotFile, getAllStudents(), getAllSubjects(), snapshotEnrollments());
+        } catch (IOException e) {
+            System.err.println("Error writing snapshot: " + snapshotFile);
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * เล่นซ้ำ Journal ที่ค้างอยู่ (รวมถึงไฟล์ที่ Compaction ไม่เสร็จจากการทำงานครั้งก่อน)
+     * แล้วเปิด Journal สำหรับการต่อท้ายและเตรียมเธรดเบื้องหลังสำหรับ Compaction
+     */
+    private void openJournal() {
+        int pendingRecords = EnrollmentJournal.replay(journalFile + EnrollmentJournal.COMPACTING_SUFFIX, this)
+                + EnrollmentJournal.replay(journalFile, this);
+        try {
+            this.journal = new EnrollmentJournal(journalFile, pendingRecords);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error opening journal: " + journalFile, e);
+        }
+        this.compactionExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "enrollment-journal-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * โหลดข้อมูลตั้งต้นของ Projection: Snapshot ของ Event Log หากมีและอ่านได้ ไม่เช่นนั้นใช้ไฟล์ CSV ตั้งต้น
+     * (ในโหมด Event Log ไฟล์ CSV ไม่เคยถูกเขียนทับ จึงเล่นซ้ำ Event Log ทั้งหมดทับไฟล์ CSV ได้เสมอ
+     * เช่น เมื่อต้องการสร้างข้อมูลใหม่หลังจาก Snapshot เสียหาย ให้ลบไฟล์ events.snapshot)
+     */
+    private EventProjection loadProjection() {
+        if (new File(eventSnapshotFile).exists()) {
+            try {
+                BinarySnapshot.Contents contents = BinarySnapshot.read(eventSnapshotFile);
+                return new EventProjection(contents.getStudents(), contents.getSubjects(), contents.getEnrollments(),
+                        contents.getLastSequence());
+            } catch (IOException e) {
+                System.err.println("Error loading snapshot, replaying the full event log: " + eventSnapshotFile);
+                e.printStackTrace();
+            }
+        }
+        return new EventProjection(loadData(studentsFile, this::mapToStudent), loadData(subjectsFile, this::mapToSubject),
+                loadData(enrollmentsFile, this::mapToEnrollment), 0);
+    }
+
+    /**
+     * เปิด Event Log สำหรับการต่อท้ายต่อจากเหตุการณ์สุดท้ายที่เล่นซ้ำได้ และเตรียมเธรดเบื้องหลังสำหรับสร้าง Snapshot
+     */
+    private void openEventLog(EventLog.ReplayResult replayed) {
+        try {
+            this.eventLog = new EventLog(eventLogFile, replayed);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error opening event log: " + eventLogFile, e);
+        }
+        this.compactionExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "event-log-snapshotter");
+            thread.setDaemon(true);
+            return thread;
+        });
     }
 
     /**
      * เมธอดทั่วไป (Generic Method) สำหรับโหลดข้อมูลจากไฟล์ CSV
+     * การอ่านและแยกฟิลด์ทำโดย {@link CsvLoader} ซึ่ง Map ไฟล์เข้าหน่วยความจำและแยกฟิลด์แบบขนาน
      */
     private <T> List<T> loadData(String filePath, Function<String[], T> mapper) {
-        try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
-            return reader.lines()
-                         .skip(1)
-                         .map(line -> line.split(","))
-                         .map(mapper)
-                         .collect(Collectors.toList());
+        long start = System.nanoTime();
+        try {
+            return CsvLoader.load(filePath, mapper);
         } catch (IOException e) {
+            LOAD_DATA_TIMER.recordError();
             System.err.println("Error loading file: " + filePath);
             e.printStackTrace();
             return new ArrayList<>();
+        } finally {
+            LOAD_DATA_TIMER.recordSince(start);
         }
     }
 
@@ -92,89 +374,546 @@ public class DataAccessService {
 
     /**
      * เมธอดทั่วไป (Generic Method) สำหรับบันทึกข้อมูลลงไฟล์ CSV
+     * ใช้ synchronized เพื่อไม่ให้หลายเธรดเขียนไฟล์ทับกันพร้อมกัน
+     *
+     * @throws UncheckedIOException หากเขียนไฟล์ไม่สำเร็จ
      */
-    private <T> void saveData(String filePath, List<T> data, String header, Function<T, String> formatter) {
-        try (PrintWriter writer = new PrintWriter(new FileWriter(filePath))) {
+    private synchronized <T> void saveData(String filePath, List<T> data, String header, Function<T, String> formatter,
+                                           Timer timer) {
+        long start = System.nanoTime();
+        CsvSaveEvent event = new CsvSaveEvent();
+        event.begin();
+        try (FileOutputStream out = new FileOutputStream(filePath);
+             PrintWriter writer = new PrintWriter(new BufferedWriter(new OutputStreamWriter(out)))) {
             writer.println(header);
             data.stream()
                 .map(formatter)
                 .forEach(writer::println);
+            writer.flush();
+            if (writer.checkError()) {
+                throw new IOException("Error writing file: " + filePath);
+            }
+            // บังคับให้ข้อมูลลงดิสก์ก่อนคืนค่า ผู้รอ Future ของการบันทึกจึงได้รับผลสำเร็จเมื่อข้อมูลคงทนแล้วเท่านั้น
+            out.getFD().sync();
         } catch (IOException e) {
-            System.err.println("Error saving file: " + filePath);
-            e.printStackTrace();
+            timer.recordError();
+            throw new UncheckedIOException("Error saving file: " + filePath, e);
+        } finally {
+            timer.recordSince(start);
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.file = filePath;
+            event.rows = data.size();
+            event.bytesWritten = new File(filePath).length();
+            event.commit();
         }
     }
 
     /**
      * บันทึกข้อมูลวิชาทั้งหมดจากหน่วยความจำลงไฟล์ subjects.csv
      */
+    @Override
     public void saveSubjects() {
+        if (eventLog != null) {
+            // ในโหมด Event Log จำนวนที่นั่งเป็นผลจากการเล่นซ้ำเหตุการณ์ จึงเพียงเขียนเหตุการณ์ที่ค้างอยู่ลงไฟล์
+            flushEventLog();
+            return;
+        }
         String header = "subject_id,subject_name,credits,instructor_name,prerequisite_id,max_capacity,current_enrollment";
-        saveData(SUBJECTS_CSV, subjects, header, s -> String.join(",",
-                s.getSubjectId(), s.getSubjectName(), String.valueOf(s.getCredits()),
-                s.getInstructorName(), s.getPrerequisiteId() == null ? "" : s.getPrerequisiteId(),
-                String.valueOf(s.getMaxCapacity()), String.valueOf(s.getCurrentEnrollment())
-        ));
+        writeShared(subjectsCsv, () -> {
+            // ที่นั่งของการลงทะเบียนที่บันทึกไว้ก่อนเริ่มเขียนถูกนับรวมในไฟล์นี้แล้ว จึงไม่ต้องยกเลิกได้อีกหลังเขียนเสร็จ
+            List<Enrollment> published = new ArrayList<>(unpublishedSeats);
+            saveData(subjectsFile, getAllSubjects(), header, s -> String.join(",",
+                    s.getSubjectId(), CsvLoader.escape(s.getSubjectName()), String.valueOf(s.getCredits()),
+                    CsvLoader.escape(s.getInstructorName()), s.getPrerequisiteId() == null ? "" : s.getPrerequisiteId(),
+                    String.valueOf(s.getMaxCapacity()), String.valueOf(s.getCurrentEnrollment())
+            ), SAVE_SUBJECTS_TIMER);
+            published.forEach(unpublishedSeats::remove);
+        });
     }
 
     /**
      * บันทึกข้อมูลการลงทะเบียนทั้งหมดจากหน่วยความจำลงไฟล์ enrollments.csv
      */
+    @Override
     public void saveEnrollments() {
+        writeShared(enrollmentsCsv, () -> saveEnrollments(enrollmentsFile, snapshotEnrollments()));
+    }
+
+    private void saveEnrollments(String filePath, List<Enrollment> data) {
         String header = "enrollment_id,student_id,subject_id,enrollment_date,grade";
-        saveData(ENROLLMENTS_CSV, enrollments, header, e -> String.join(",",
+        saveData(filePath, data, header, e -> String.join(",",
                 String.valueOf(e.getEnrollmentId()), e.getStudentId(), e.getSubjectId(),
                 e.getEnrollmentDate().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME),
                 e.getGrade() == null ? "" : e.getGrade()
-        ));
+        ), SAVE_ENROLLMENTS_TIMER);
     }
 
-    // --- กลุ่มเมธอดสาธารณะสำหรับให้ Service อื่นๆ เรียกใช้ข้อมูล ---
+    /**
+     * เขียนไฟล์ CSV ใหม่ภายใต้ Lock ของโฟลเดอร์ข้อมูล แล้วเพิ่มเวอร์ชันของไฟล์ให้โปรเซสอื่นรู้ว่าไฟล์เปลี่ยน
+     * ในโหมด {@link PersistenceMode#SHARED} หากโปรเซสอื่นเขียนไฟล์หลังจากที่โปรเซสนี้อ่านครั้งล่าสุด
+     * จะรวมแถวที่เปลี่ยนแปลงเข้าหน่วยความจำก่อน การเขียนจึงไม่ทับการเปลี่ยนแปลงของโปรเซสอื่น (Lost Update)
+     */
+    private void writeShared(SharedCsvFile file, Runnable write) {
+        boolean locked = lockDataFiles();
+        try {
+            if (file.isTracking() && file.isChangedOnDisk()) {
+                try {
+                    file.reload();
+                    resolveOverbooking();
+                } catch (IOException | RuntimeException e) {
+                    System.err.println("Error merging changes from: " + file.getFilePath());
+                    e.printStackTrace();
+                }
+            }
+            write.run();
+            file.committed();
+        } catch (IOException e) {
+            System.err.println("Error updating version of: " + file.getFilePath());
+            e.printStackTrace();
+        } finally {
+            if (locked) {
+                dataLock.unlock();
+            }
+        }
+        notifyMergedSubjects();
+    }
 
-    public Optional<Student> findStudentById(String id) {
-        return students.stream().filter(s -> s.getStudentId().equals(id)).findFirst();
+    /**
+     * โหลดเฉพาะแถวที่โปรเซสอื่นเปลี่ยนแปลงในไฟล์ subjects.csv และ enrollments.csv เข้าหน่วยความจำ
+     * (โหมด {@link PersistenceMode#SHARED} เท่านั้น ถูกเรียกอัตโนมัติเมื่อไฟล์เวอร์ชันเปลี่ยน)
+     *
+     * @return จำนวนแถวที่เปลี่ยนแปลง
+     */
+    public int reloadChangedFiles() {
+        int changed = 0;
+        for (SharedCsvFile file : List.of(subjectsCsv, enrollmentsCsv)) {
+            // ตรวจเวอร์ชันก่อนโดยไม่ล็อก เพื่อให้การตรวจเป็นระยะไม่รบกวนโปรเซสที่กำลังเขียน
+            if (!file.isTracking() || !file.isChangedOnDisk()) {
+                continue;
+            }
+            boolean locked = lockDataFiles();
+            try {
+                if (file.isChangedOnDisk()) {
+                    changed += file.reload();
+                    resolveOverbooking();
+                }
+            } catch (IOException e) {
+                System.err.println("Error reloading file: " + file.getFilePath());
+                e.printStackTrace();
+            } finally {
+                if (locked) {
+                    dataLock.unlock();
+                }
+            }
+        }
+        notifyMergedSubjects();
+        return changed;
     }
-    
-    public Optional<Subject> findSubjectById(String id) {
-        return subjects.stream().filter(s -> s.getSubjectId().equals(id)).findFirst();
+
+    /**
+     * แก้ความขัดแย้งของที่นั่ง: แต่ละโปรเซสจองที่นั่งในหน่วยความจำของตัวเอง สองโปรเซสจึงอาจให้ที่นั่งสุดท้ายไปพร้อมกัน
+     * การเขียน subjects.csv ทำทีละโปรเซสภายใต้ Lock และรวมจำนวนที่นั่งของโปรเซสอื่นก่อนเสมอ
+     * หากหลังรวมแล้วรายวิชาเกินจำนวนสูงสุด จะยกเลิกการลงทะเบียนของโปรเซสนี้ที่ที่นั่งยังไม่ถูกเขียนลงไฟล์
+     * (รายการที่ใหม่ที่สุดก่อน) จนไม่เกิน คืนที่นั่ง และเขียน enrollments.csv ใหม่ทันทีหากรายการนั้นถูกเขียนไปแล้ว
+     * ผู้ลงทะเบียนรายการนั้นยังไม่ได้รับผลสำเร็จ {@link RegistrationService} จะตรวจพบหลังบันทึกเสร็จ
+     * และนำเข้ารายชื่อรอ (หรือแจ้งว่ารายวิชาเต็ม) แทน ต้องเรียกขณะถือ Lock ของโฟลเดอร์ข้อมูลหลัง {@link SharedCsvFile#reload()}
+     */
+    private void resolveOverbooking() {
+        boolean rolledBack = false;
+        for (String subjectId : contendedSubjectIds) {
+            contendedSubjectIds.remove(subjectId);
+            Subject subject = findSubjectById(subjectId).orElse(null);
+            if (subject == null || subject.getMaxCapacity() == -1) {
+                continue;
+            }
+            int excess = subject.getCurrentEnrollment() - subject.getMaxCapacity();
+            if (excess <= 0) {
+                continue;
+            }
+            List<Enrollment> unpublished = unpublishedSeats.stream()
+                    .filter(e -> subjectId.equals(e.getSubjectId()))
+                    .sorted(Comparator.comparing(Enrollment::getEnrollmentDate).reversed())
+                    .limit(excess)
+                    .collect(Collectors.toList());
+            for (Enrollment enrollment : unpublished) {
+                if (unpublishedSeats.remove(enrollment) && removeEnrollment(enrollment)) {
+                    subject.releaseSeat();
+                    rolledBack = true;
+                    System.err.println("Registration conflict: " + enrollment.getStudentId() + " in " + subjectId
+                            + " was rolled back because another process took the last seat.");
+                }
+            }
+            mergedSubjects.add(subject);
+        }
+        if (rolledBack) {
+            rewriteEnrollments();
+        }
     }
 
-    public List<Subject> getAllSubjects() {
-        return new ArrayList<>(subjects);
+    /**
+     * เขียน enrollments.csv ใหม่ขณะถือ Lock ของโฟลเดอร์ข้อมูลอยู่แล้ว (หลังยกเลิกการลงทะเบียนที่อาจถูกเขียนลงไฟล์ไปแล้ว)
+     */
+    private void rewriteEnrollments() {
+        try {
+            if (enrollmentsCsv.isChangedOnDisk()) {
+                enrollmentsCsv.reload();
+            }
+            saveEnrollments(enrollmentsFile, snapshotEnrollments());
+            enrollmentsCsv.committed();
+        } catch (IOException | UncheckedIOException e) {
+            System.err.println("Error rewriting file: " + enrollmentsFile);
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * แจ้งตัวรับฟังถึงรายวิชาที่ถูกรวมการเปลี่ยนแปลงจากโปรเซสอื่น ต้องเรียกหลังปลด Lock ของโฟลเดอร์แล้วเท่านั้น
+     * เพราะตัวรับฟัง (เช่น การเลื่อนคิวรายชื่อรอ) อาจลงทะเบียนและบันทึกข้อมูล ซึ่งต้องใช้ Lock เดียวกัน
+     */
+    private void notifyMergedSubjects() {
+        for (Subject subject : mergedSubjects) {
+            if (mergedSubjects.remove(subject)) {
+                notifySubjectChanged(subject);
+            }
+        }
+    }
+
+    // --- การรวมแถวที่โปรเซสอื่นเปลี่ยนแปลง (Three-way Merge ระหว่างฐาน, ดิสก์ และหน่วยความจำ) ---
+    // ค่าในหน่วยความจำที่ยังเท่ากับฐานแปลว่าโปรเซสนี้ไม่ได้แก้ไข จึงรับค่าจากดิสก์
+    // ส่วนค่าที่โปรเซสนี้แก้ไขแล้วจะถูกคงไว้ และถูกเขียนลงไฟล์ในการบันทึกครั้งถัดไป
+
+    private void mergeSubjectRow(String subjectId, String[] baseRow, String[] diskRow) {
+        if (diskRow == null) {
+            // โปรแกรมไม่มีการลบรายวิชา จึงคงรายวิชาไว้ในหน่วยความจำ
+            return;
+        }
+        Subject disk = mapToSubject(diskRow);
+        Subject local = findSubjectById(subjectId).orElse(null);
+        if (local == null) {
+            putSubject(disk);
+            mergedSubjects.add(disk);
+            return;
+        }
+        if (baseRow == null) {
+            // ทั้งสองโปรเซสเพิ่มรายวิชารหัสเดียวกัน: คงข้อมูลของโปรเซสนี้ไว้
+            return;
+        }
+        Subject base = mapToSubject(baseRow);
+        if (Objects.equals(local.getSubjectName(), base.getSubjectName())) {
+            local.setSubjectName(disk.getSubjectName());
+        }
+        if (local.getCredits() == base.getCredits()) {
+            local.setCredits(disk.getCredits());
+        }
+        if (Objects.equals(local.getInstructorName(), base.getInstructorName())) {
+            local.setInstructorName(disk.getInstructorName());
+        }
+        if (Objects.equals(local.getPrerequisiteId(), base.getPrerequisiteId())) {
+            local.setPrerequisiteId(disk.getPrerequisiteId());
+        }
+        if (local.getMaxCapacity() == base.getMaxCapacity()) {
+            local.setMaxCapacity(disk.getMaxCapacity());
+        }
+        // จำนวนผู้ลงทะเบียนถูกเพิ่ม/ลดได้จากทุกโปรเซสพร้อมกัน จึงบวกผลต่างของโปรเซสอื่นแทนการแทนที่ค่า
+        int delta = disk.getCurrentEnrollment() - base.getCurrentEnrollment();
+        local.adjustCurrentEnrollment(delta);
+        if (delta > 0) {
+            contendedSubjectIds.add(subjectId);
+        }
+        mergedSubjects.add(local);
     }
 
-    public List<Enrollment> getAllEnrollments() {
-        return new ArrayList<>(enrollments);
+    private void mergeEnrollmentRow(String key, String[] baseRow, String[] diskRow) {
+        String[] row = diskRow != null ? diskRow : baseRow;
+        Enrollment local = findEnrollment(row[1].trim(), row[2].trim()).orElse(null);
+        if (baseRow == null) {
+            // การลงทะเบียนใหม่จากโปรเซสอื่น (หากโปรเซสนี้ลงทะเบียนคู่เดียวกันไว้แล้ว จะคงรายการของโปรเซสนี้ไว้)
+            if (local == null) {
+                addEnrollment(mapToEnrollment(diskRow));
+            }
+            return;
+        }
+        Enrollment base = mapToEnrollment(baseRow);
+        if (local == null || local.getEnrollmentId() != base.getEnrollmentId()
+                || !Objects.equals(gradeOf(local), gradeOf(base))) {
+            // โปรเซสนี้ยกเลิก ลงทะเบียนใหม่ หรือแก้ไขเกรดของรายการนี้แล้ว: คงค่าของโปรเซสนี้ไว้
+            return;
+        }
+        if (diskRow == null) {
+            removeEnrollment(local);
+        } else {
+            String previousGrade = local.getGrade();
+            local.setGrade(mapToEnrollment(diskRow).getGrade());
+            notifyGradeChanged(local, previousGrade);
+        }
     }
-    
-    public List<Enrollment> getEnrollmentsByStudentId(String studentId) {
-        return enrollments.stream()
-                .filter(e -> e.getStudentId().equals(studentId))
-                .collect(Collectors.toList());
+
+    private static String gradeOf(Enrollment enrollment) {
+        return enrollment.getGrade() == null ? "" : enrollment.getGrade();
     }
 
+    // --- กลุ่มเมธอดสำหรับบันทึกการเปลี่ยนแปลงทีละรายการ (ใช้ได้ทุกโหมด) ---
+
     /**
-     * ค้นหาและคืนค่า List ของการลงทะเบียนทั้งหมดที่เกี่ยวข้องกับรหัสวิชาที่กำหนด
-     * @param subjectId รหัสวิชาที่ต้องการค้นหา
-     * @return List ของ Enrollment
+     * แจ้งว่ามีการลงทะเบียนใหม่ที่ต้องบันทึก ในโหมด Journal จะต่อท้ายระเบียนลง Journal
+     * ในโหมด Event Log จะต่อท้ายเหตุการณ์ EnrollmentCreated
+     * ส่วนในโหมด CSV ไม่ต้องทำอะไร เพราะข้อมูลจะถูกเขียนทั้งไฟล์ตอน {@link #flushEnrollments()}
+     * (โหมด {@link PersistenceMode#SHARED} จำไว้ว่าที่นั่งยังไม่ถูกเขียนลงไฟล์ เพื่อยกเลิกได้หากชนกับโปรเซสอื่น)
      */
-    public List<Enrollment> getEnrollmentsBySubjectId(String subjectId) {
-        return enrollments.stream()
-                .filter(e -> e.getSubjectId().equals(subjectId))
-                .collect(Collectors.toList());
+    @Override
+    public void recordNewEnrollment(Enrollment enrollment) {
+        if (journal != null) {
+            journal.appendInsert(enrollment);
+        } else if (eventLog != null) {
+            eventLog.appendEnrollmentCreated(enrollment);
+        } else if (persistenceMode == PersistenceMode.SHARED) {
+            unpublishedSeats.add(enrollment);
+        }
     }
 
-    public void addEnrollment(Enrollment enrollment) {
-        this.enrollments.add(enrollment);
+    /**
+     * แจ้งว่ามีการยกเลิกการลงทะเบียนที่ต้องบันทึก (ทำงานเช่นเดียวกับ {@link #recordNewEnrollment(Enrollment)})
+     */
+    @Override
+    public void recordDroppedEnrollment(Enrollment enrollment) {
+        if (journal != null) {
+            journal.appendDrop(enrollment);
+        } else if (eventLog != null) {
+            eventLog.appendEnrollmentDropped(enrollment);
+        } else {
+            unpublishedSeats.remove(enrollment);
+        }
+    }
+
+    /**
+     * แจ้งว่ามีการแก้ไขเกรดที่ต้องบันทึก (ทำงานเช่นเดียวกับ {@link #recordNewEnrollment(Enrollment)})
+     */
+    @Override
+    public void recordGradeChange(Enrollment enrollment) {
+        if (journal != null) {
+            journal.appendGradeChange(enrollment);
+        } else if (eventLog != null) {
+            eventLog.appendGradeChanged(enrollment);
+        }
     }
 
-    public Optional<Enrollment> findEnrollment(String studentId, String subjectId) {
-        return enrollments.stream()
-            .filter(e -> e.getStudentId().equals(studentId) && e.getSubjectId().equals(subjectId))
-            .findFirst();
+    /**
+     * แจ้งว่ามีการแก้ไขจำนวนที่นั่งสูงสุดของรายวิชา ในโหมด Event Log จะต่อท้ายเหตุการณ์ CapacityChanged
+     * ส่วนโหมดอื่นไม่ต้องทำอะไร เพราะข้อมูลจะถูกเขียนทั้งไฟล์ตอน {@link #saveSubjects()}
+     */
+    @Override
+    public void recordCapacityChange(Subject subject) {
+        if (eventLog != null) {
+            eventLog.appendCapacityChanged(subject);
+        }
     }
 
-    public List<Student> getAllStudents() {
-        return new ArrayList<>(students);
+    /**
+     * บันทึกการเปลี่ยนแปลงของข้อมูลการลงทะเบียนลงดิสก์
+     * โหมด CSV: เขียนไฟล์ enrollments.csv ใหม่ทั้งไฟล์
+     * โหมด Journal: เขียนเฉพาะระเบียนที่ต่อท้ายไว้ และเริ่ม Compaction ในเบื้องหลังเมื่อ Journal ยาวเกินเกณฑ์
+     * โหมด Event Log: เขียนเฉพาะเหตุการณ์ที่ต่อท้ายไว้ และเริ่มสร้าง Snapshot ในเบื้องหลังทุกๆ {@link #DEFAULT_SNAPSHOT_INTERVAL} เหตุการณ์
+     */
+    @Override
+    public void flushEnrollments() {
+        if (eventLog != null) {
+            flushEventLog();
+            long sequence = eventLog.getLastSequence();
+            if (sequence - lastSnapshotSequence >= snapshotInterval && compacting.compareAndSet(false, true)) {
+                startEventSnapshot(sequence);
+            }
+            return;
+        }
+        if (journal == null) {
+            saveEnrollments();
+            return;
+        }
+        try {
+            journal.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error writing journal: " + journalFile, e);
+        }
+        if (journal.getRecordCount() >= compactionThreshold && compacting.compareAndSet(false, true)) {
+            startCompaction();
+        }
+    }
+
+    private void flushEventLog() {
+        try {
+            eventLog.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error writing event log: " + eventLogFile, e);
+        }
+    }
+
+    /**
+     * แยก Journal ปัจจุบันออกมา แล้วเขียนสำเนาข้อมูล ณ ขณะนั้นลงไฟล์ CSV ในเธรดเบื้องหลัง
+     * ไฟล์ CSV ใหม่จะถูกเขียนลงไฟล์ชั่วคราวก่อนแล้วจึงสลับแทนที่ เพื่อไม่ให้ไฟล์เสียหายหากโปรแกรมหยุดกลางคัน
+     */
+    private void startCompaction() {
+        List<Enrollment> snapshot;
+        File rotated;
+        // คัดลอกข้อมูลและแยก Journal ภายใต้ Lock เดียวกับการต่อท้ายระเบียน: การเปลี่ยนแปลงที่ไม่อยู่ในสำเนา
+        // (เกิดในหน่วยความจำหลังคัดลอก) จะต่อท้ายได้หลังจากแยกไฟล์แล้วเท่านั้น จึงลงใน Journal ใหม่
+        // ไม่ใช่ในไฟล์ที่ถูกแยกออกมาซึ่งจะถูกลบเมื่อ Compaction เสร็จ
+        synchronized (journal) {
+            snapshot = snapshotEnrollments();
+            try {
+                rotated = journal.rotate();
+            } catch (IOException e) {
+                rotated = null;
+                System.err.println("Error rotating journal: " + journalFile);
+                e.printStackTrace();
+            }
+        }
+        if (rotated == null) {
+            compacting.set(false);
+            return;
+        }
+        File rotatedJournal = rotated;
+        compactionExecutor.execute(() -> {
+            try {
+                compact(snapshot, rotatedJournal);
+            } finally {
+                compacting.set(false);
+            }
+        });
+    }
+
+    private void compact(List<Enrollment> snapshot, File rotatedJournal) {
+        String tempFile = enrollmentsFile + ".tmp";
+        writeShared(enrollmentsCsv, () -> {
+            try {
+                saveEnrollments(tempFile, snapshot);
+                Files.move(new File(tempFile).toPath(), new File(enrollmentsFile).toPath(),
+                        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                // ลบ Journal ที่แยกออกมาหลังจากไฟล์ CSV ใหม่ลงดิสก์แล้วเท่านั้น หากล้มเหลวจะเล่นซ้ำได้ตอนเปิดโปรแกรม
+                Files.deleteIfExists(rotatedJournal.toPath());
+            } catch (IOException | UncheckedIOException e) {
+                System.err.println("Error compacting journal into: " + enrollmentsFile);
+                e.printStackTrace();
+            }
+        });
+    }
+
+    /**
+     * สร้าง Snapshot ของ Event Log ในเธรดเบื้องหลัง จากไฟล์บนดิสก์เท่านั้น: โหลด Snapshot ก่อนหน้า
+     * แล้วเล่นซ้ำเหตุการณ์จนถึงลำดับที่กำหนด (ซึ่งถูกเขียนลงไฟล์แล้ว)
+     * วิธีนี้ได้ข้อมูลที่ตรงกับลำดับนั้นพอดี โดยไม่ต้องหยุดการลงทะเบียนที่กำลังเกิดขึ้นในหน่วยความจำ
+     */
+    private void startEventSnapshot(long upToSequence) {
+        compactionExecutor.execute(() -> {
+            try {
+                EventProjection projection = loadProjection();
+                EventLog.replay(eventLogFile, projection.getLastSequence(), upToSequence, projection);
+                BinarySnapshot.write(eventSnapshotFile, projection.getStudents(), projection.getSubjects(),
+                        projection.getEnrollments(), projection.getLastSequence());
+                lastSnapshotSequence = projection.getLastSequence();
+            } catch (IOException e) {
+                System.err.println("Error writing snapshot: " + eventSnapshotFile);
+                e.printStackTrace();
+            } finally {
+                compacting.set(false);
+            }
+        });
+    }
+
+    /**
+     * กำหนดจำนวนเหตุการณ์นับจาก Snapshot ล่าสุดที่จะทำให้เริ่มสร้าง Snapshot ใหม่ (โหมด Event Log)
+     */
+    public void setSnapshotInterval(int snapshotInterval) {
+        this.snapshotInterval = snapshotInterval;
+    }
+
+    /**
+     * กำหนดจำนวนระเบียนใน Journal ที่จะทำให้เริ่ม Compaction
+     */
+    public void setCompactionThreshold(int compactionThreshold) {
+        this.compactionThreshold = compactionThreshold;
+    }
+
+    /**
+     * @return โฟลเดอร์ที่เก็บไฟล์ข้อมูล (ให้ Service อื่นเก็บไฟล์ของตนไว้ที่เดียวกัน)
+     */
+    @Override
+    public String getDataDirectory() {
+        return dataDirectory;
+    }
+
+    public PersistenceMode getPersistenceMode() {
+        return persistenceMode;
+    }
+
+    /**
+     * ปิดการทำงานของ Service อย่างถูกต้องเมื่อโปรแกรมจบการทำงาน
+     * ในโหมด Journal จะรอให้ Compaction ที่กำลังทำอยู่เสร็จ แล้วรวม Journal ที่เหลือกลับเข้าไฟล์ CSV
+     * จากนั้นเขียนไฟล์ Snapshot สำหรับการเริ่มโปรแกรมครั้งถัดไป
+     * ในโหมด Event Log จะเขียนเหตุการณ์ที่ค้างอยู่ แล้วเขียน Snapshot ของ Event Log แทน
+     * ในโหมด Shared จะหยุดเฝ้าดูโฟลเดอร์ข้อมูลเท่านั้น (ข้อมูลถูกบันทึกแล้วในทุกการเปลี่ยนแปลง)
+     */
+    @Override
+    public void close() {
+        if (watcher != null) {
+            watcher.close();
+        }
+        if (persistenceMode == PersistenceMode.SHARED) {
+            return;
+        }
+        if (eventLog != null) {
+            closeEventLog();
+            return;
+        }
+        if (journal != null) {
+            closeJournal();
+        }
+        writeSnapshot();
+    }
+
+    /**
+     * ณ จุดนี้ไม่มีการเปลี่ยนแปลงข้อมูลแล้ว ข้อมูลในหน่วยความจำจึงตรงกับเหตุการณ์สุดท้ายใน Event Log พอดี
+     */
+    private void closeEventLog() {
+        eventLog.close();
+        compactionExecutor.shutdown();
+        try {
+            compactionExecutor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        long sequence = eventLog.getLastSequence();
+        if (sequence != lastSnapshotSequence) {
+            try {
+                BinarySnapshot.write(eventSnapshotFile, getAllStudents(), getAllSubjects(), snapshotEnrollments(), sequence);
+            } catch (IOException e) {
+                System.err.println("Error writing snapshot: " + eventSnapshotFile);
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private void closeJournal() {
+        try {
+            journal.flush();
+        } catch (IOException e) {
+            System.err.println("Error writing journal: " + journalFile);
+            e.printStackTrace();
+        }
+        compactionExecutor.shutdown();
+        try {
+            compactionExecutor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (journal.getRecordCount() > 0) {
+            try {
+                compact(snapshotEnrollments(), journal.rotate());
+            } catch (IOException e) {
+                System.err.println("Error rotating journal: " + journalFile);
+                e.printStackTrace();
+            }
+        }
+        journal.close();
     }
-}
\ No newline at end of file
+}
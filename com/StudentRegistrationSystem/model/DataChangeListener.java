@@ -0,0 +1,35 @@
+package com.StudentRegistrationSystem.model;
+
+/**
+ * ตัวรับฟังการเปลี่ยนแปลงของข้อมูลใน {@link DataRepository}
+ * ใช้สำหรับส่วนที่เก็บผลการคำนวณไว้ล่วงหน้า (Cache) เพื่อให้อัปเดตเฉพาะส่วนที่ได้รับผลกระทบ
+ * เมธอดจะถูกเรียกบนเธรดที่ทำการเปลี่ยนแปลงข้อมูล จึงควรทำงานให้เสร็จเร็วและไม่บล็อก
+ */
+public interface DataChangeListener {
+
+    /**
+     * ถูกเรียกหลังจากมีการลงทะเบียนรายการใหม่ (จำนวนผู้ลงทะเบียนของรายวิชานั้นเปลี่ยนไปแล้วด้วย)
+     */
+    default void enrollmentAdded(Enrollment enrollment) {
+    }
+
+    /**
+     * ถูกเรียกหลังจากการลงทะเบียนถูกยกเลิก (Drop) และคืนที่นั่งแล้ว
+     */
+    default void enrollmentRemoved(Enrollment enrollment) {
+    }
+
+    /**
+     * ถูกเรียกหลังจากข้อมูลของรายวิชาเปลี่ยนแปลง เช่น จำนวนที่นั่งหรือจำนวนผู้ลงทะเบียน
+     */
+    default void subjectChanged(Subject subject) {
+    }
+
+    /**
+     * ถูกเรียกหลังจากเกรดของการลงทะเบียนถูกแก้ไข
+     *
+     * @param previousGrade เกรดก่อนการแก้ไข (ค่าว่างหรือ null หากยังไม่เคยมีเกรด)
+     */
+    default void gradeChanged(Enrollment enrollment, String previousGrade) {
+    }
+}
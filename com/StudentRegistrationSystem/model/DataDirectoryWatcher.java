@@ -0,0 +1,90 @@
+package com.StudentRegistrationSystem.model;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * เธรดเฝ้าดูโฟลเดอร์ข้อมูลด้วย {@link WatchService} และเรียก Callback เมื่อไฟล์เวอร์ชัน ({@code *.version})
+ * ถูกสร้างหรือแก้ไข ซึ่งหมายความว่ามีโปรเซสใดเขียนไฟล์ CSV เสร็จแล้ว
+ *
+ * ระบบไฟล์บางชนิด (เช่น ไดรฟ์ที่แชร์ผ่านเครือข่าย) ไม่ส่งการแจ้งเตือนการเปลี่ยนแปลงของโปรเซสบนเครื่องอื่น
+ * จึงเรียก Callback ซ้ำทุกๆ {@link #POLL_INTERVAL_MILLIS} มิลลิวินาทีด้วย (Callback ควรตรวจเวอร์ชันก่อนโหลดข้อมูล)
+ */
+class DataDirectoryWatcher {
+
+    static final long POLL_INTERVAL_MILLIS = 2000;
+
+    private final Path directory;
+    private final Runnable onChange;
+    private final WatchService watchService;
+    private final Thread thread;
+
+    /**
+     * @param dataDirectory โฟลเดอร์ที่เก็บไฟล์ข้อมูล
+     * @param onChange      งานที่จะทำเมื่อไฟล์ข้อมูลอาจเปลี่ยนแปลง (ทำงานบนเธรดของตัวเฝ้าดู)
+     */
+    DataDirectoryWatcher(String dataDirectory, Runnable onChange) throws IOException {
+        this.directory = Paths.get(dataDirectory);
+        this.onChange = onChange;
+        this.watchService = FileSystems.getDefault().newWatchService();
+        directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        this.thread = new Thread(this::run, "data-directory-watcher");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    private void run() {
+        while (true) {
+            WatchKey key;
+            try {
+                key = watchService.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+            boolean changed = key == null;
+            if (key != null) {
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    Object context = event.context();
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW
+                            || context != null && context.toString().endsWith(SharedCsvFile.VERSION_SUFFIX)) {
+                        changed = true;
+                    }
+                }
+                key.reset();
+            }
+            if (changed) {
+                try {
+                    onChange.run();
+                } catch (RuntimeException e) {
+                    System.err.println("Error reloading data files in: " + directory);
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    /**
+     * หยุดเฝ้าดูโฟลเดอร์ และรอให้การโหลดที่กำลังทำอยู่เสร็จ
+     */
+    void close() {
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            System.err.println("Error closing watch service: " + directory);
+            e.printStackTrace();
+        }
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.StudentRegistrationSystem.model;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Lock ของโฟลเดอร์ข้อมูลที่ใช้ได้ทั้งระหว่างเธรดและระหว่างโปรเซส (เช่น โปรแกรมสองชุดที่เปิดไฟล์บนไดรฟ์เดียวกัน)
+ * ใช้ {@link FileChannel#lock()} กับไฟล์ data.lock ในโฟลเดอร์ข้อมูล แทนการล็อกไฟล์ CSV โดยตรง
+ * เพราะไฟล์ CSV อาจถูกเขียนใหม่หรือถูกสลับแทนที่ระหว่างที่ถือ Lock
+ *
+ * Lock ของ {@link FileChannel} เป็นของทั้ง JVM จึงมี Object เดียวต่อโฟลเดอร์ใน JVM
+ * และใช้ {@link ReentrantLock} กำหนดว่าเธรดใดถือ Lock ของไฟล์อยู่ (เธรดเดิมล็อกซ้ำได้)
+ */
+final class DataFileLock {
+
+    private static final String LOCK_FILE = "data.lock";
+    private static final Map<String, DataFileLock> LOCKS = new HashMap<>();
+
+    private final File lockFile;
+    private final ReentrantLock localLock = new ReentrantLock();
+    private FileChannel channel;
+    private FileLock fileLock;
+
+    private DataFileLock(File lockFile) {
+        this.lockFile = lockFile;
+    }
+
+    /**
+     * @return Lock ของโฟลเดอร์ข้อมูลนี้ (Object เดียวกันสำหรับทุกที่เก็บข้อมูลใน JVM ที่ใช้โฟลเดอร์เดียวกัน)
+     */
+    static synchronized DataFileLock forDirectory(String dataDirectory) {
+        File lockFile;
+        try {
+            lockFile = new File(dataDirectory, LOCK_FILE).getCanonicalFile();
+        } catch (IOException e) {
+            lockFile = new File(dataDirectory, LOCK_FILE).getAbsoluteFile();
+        }
+        return LOCKS.computeIfAbsent(lockFile.getPath(), path -> new DataFileLock(new File(path)));
+    }
+
+    /**
+     * รอจนได้ Lock ทั้งภายใน JVM และระหว่างโปรเซส
+     */
+    void lock() throws IOException {
+        localLock.lock();
+        if (localLock.getHoldCount() > 1) {
+            return;
+        }
+        try {
+            if (channel == null) {
+                channel = FileChannel.open(lockFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            }
+            fileLock = channel.lock();
+        } catch (IOException | RuntimeException e) {
+            localLock.unlock();
+            throw e;
+        }
+    }
+
+    void unlock() {
+        try {
+            if (localLock.getHoldCount() == 1 && fileLock != null) {
+                fileLock.release();
+                fileLock = null;
+            }
+        } catch (IOException e) {
+            System.err.println("Error releasing lock: " + lockFile);
+            e.printStackTrace();
+        } finally {
+            localLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.StudentRegistrationSystem.model;
+
+/**
+ * ที่เก็บข้อมูลทั้งหมดของระบบ (นักเรียน รายวิชา และการลงทะเบียน) ที่ Service, Controller และ View ใช้งาน
+ * มีหลายรูปแบบการจัดเก็บให้เลือก (ดู {@link StorageEngine}):
+ * <ul>
+ *     <li>{@link DataAccessService} - ไฟล์ CSV (พร้อมโหมด Journal และ Event Log)</li>
+ *     <li>{@link InMemoryRepository} - เก็บในหน่วยความจำอย่างเดียว ไม่บันทึกลงดิสก์</li>
+ *     <li>{@link MappedBinaryRepository} - ไฟล์ไบนารีที่ Map เข้าหน่วยความจำ และแก้ไขแต่ละระเบียนในที่เดิม</li>
+ * </ul>
+ */
+public interface DataRepository extends StudentRepository, SubjectRepository, EnrollmentRepository {
+
+    void addChangeListener(DataChangeListener listener);
+
+    void removeChangeListener(DataChangeListener listener);
+
+    /**
+     * แจ้งตัวรับฟังว่าข้อมูลของรายวิชาเปลี่ยนแปลง (เช่น หลังจากแก้ไขจำนวนที่นั่ง)
+     */
+    void notifySubjectChanged(Subject subject);
+
+    /**
+     * แจ้งตัวรับฟังว่าเกรดของการลงทะเบียนถูกแก้ไข (เรียกหลังจาก {@link Enrollment#setGrade(String)})
+     */
+    void notifyGradeChanged(Enrollment enrollment, String previousGrade);
+
+    /**
+     * @return โฟลเดอร์ที่เก็บไฟล์ข้อมูล (ให้ Service อื่นเก็บไฟล์ของตนไว้ที่เดียวกัน)
+     *         หรือ null หากที่เก็บข้อมูลนี้ไม่บันทึกลงดิสก์
+     */
+    String getDataDirectory();
+
+    /**
+     * ปิดการทำงานของที่เก็บข้อมูลอย่างถูกต้องเมื่อโปรแกรมจบการทำงาน (บันทึกข้อมูลที่ค้างอยู่ทั้งหมด)
+     */
+    void close();
+}
@@ -0,0 +1,157 @@
+package com.StudentRegistrationSystem.model;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Service สำหรับคำนวณว่านักเรียนสามารถลงทะเบียนรายวิชาใดได้บ้าง พร้อมเหตุผลของรายวิชาที่ลงทะเบียนไม่ได้
+ * (อายุ, วิชาเต็ม, วิชาบังคับก่อน) เพื่อให้หน้าจอแสดงได้ก่อนที่นักเรียนจะกดลงทะเบียน
+ *
+ * คำนวณรายวิชาทั้งหมดในรอบเดียวด้วยกฎของ {@link RegistrationService} แล้วเก็บผลไว้ต่อนักเรียน (Cache)
+ * และรับฟังการเปลี่ยนแปลงจาก {@link DataRepository} เพื่ออัปเดตเฉพาะส่วนที่ได้รับผลกระทบ:
+ * <ul>
+ *     <li>นักเรียนลงทะเบียนวิชาใหม่หรือยกเลิกการลงทะเบียน : ล้างผลของนักเรียนคนนั้น (ชุดวิชาที่ลงทะเบียนแล้วเปลี่ยน จึงกระทบวิชาบังคับก่อน)
+ *         และตรวจสอบรายวิชานั้นใหม่ให้นักเรียนคนอื่นเฉพาะเมื่อรายวิชาเปลี่ยนระหว่าง "เต็ม" กับ "ไม่เต็ม"
+ *         (จำนวนที่นั่งมีผลต่อนักเรียนคนอื่นผ่านกฎวิชาเต็มเท่านั้น การลงทะเบียนส่วนใหญ่จึงไม่ต้องวนผลใน Cache)</li>
+ *     <li>ข้อมูลรายวิชาเปลี่ยน (เช่น แก้ไขจำนวนที่นั่ง) : ตรวจสอบเฉพาะรายวิชานั้นใหม่ให้นักเรียนทุกคนใน Cache</li>
+ * </ul>
+ * ผลลัพธ์เป็นเพียงการแสดงผลล่วงหน้า การลงทะเบียนจริงยังคงตรวจสอบกฎทุกข้ออีกครั้งภายใต้ Lock
+ */
+public class EligibilityService implements DataChangeListener {
+
+    private final DataRepository dataAccess;
+    private final RegistrationService registrationService;
+    private final Map<String, StudentEligibility> cache = new ConcurrentHashMap<>();
+
+    // นับจำนวนการเปลี่ยนแปลง ใช้ตรวจว่ามีข้อมูลเปลี่ยนระหว่างการคำนวณหรือไม่ (หากมี จะไม่เก็บผลนั้นลง Cache)
+    private final AtomicLong changeCount = new AtomicLong();
+
+    // สถานะ "เต็ม" ล่าสุดของแต่ละรายวิชาที่ผลใน Cache สะท้อนอยู่
+    private final Map<String, FullState> fullStates = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor ของ EligibilityService และลงทะเบียนเป็นตัวรับฟังการเปลี่ยนแปลงของข้อมูล
+     */
+    public EligibilityService(DataRepository dataAccess, RegistrationService registrationService) {
+        this.dataAccess = dataAccess;
+        this.registrationService = registrationService;
+        dataAccess.addChangeListener(this);
+        for (Subject subject : dataAccess.getAllSubjects()) {
+            refreshFullState(subject, false);
+        }
+    }
+
+    /**
+     * คืนค่าสิทธิ์การลงทะเบียนของนักเรียนเทียบกับรายวิชาทั้งหมด (จาก Cache หากมี)
+     *
+     * @param student นักเรียนที่ต้องการตรวจสอบ
+     * @return ผลการตรวจสอบของทุกรายวิชา ซึ่งจะถูกอัปเดตต่อไปเมื่อจำนวนที่นั่งเปลี่ยน
+     */
+    public StudentEligibility getEligibility(Student student) {
+        StudentEligibility cached = cache.get(student.getStudentId());
+        if (cached != null) {
+            return cached;
+        }
+        long version = changeCount.get();
+        StudentEligibility computed = compute(student);
+        if (changeCount.get() != version) {
+            // ข้อมูลเปลี่ยนระหว่างคำนวณ: คืนผลนี้ไปใช้ได้ แต่ไม่เก็บลง Cache เพื่อไม่ให้ค้างค่าเก่า
+            return computed;
+        }
+        StudentEligibility existing = cache.putIfAbsent(student.getStudentId(), computed);
+        return existing != null ? existing : computed;
+    }
+
+    /**
+     * ล้างผลที่เก็บไว้ของนักเรียนคนนี้ (เช่น เมื่อออกจากระบบ) เพื่อไม่ให้ Cache โตไม่จำกัด
+     */
+    public void invalidate(String studentId) {
+        cache.remove(studentId);
+    }
+
+    /**
+     * ตรวจสอบรายวิชาทั้งหมดในรอบเดียว โดยใช้ Set ของวิชาที่ลงทะเบียนแล้วแทนการค้นหาดัชนีทีละวิชา
+     * และตรวจวิชาบังคับก่อนของทั้งแคตตาล็อกครั้งเดียวด้วยบิตเซ็ตของ {@link PrerequisiteGraph}
+     */
+    private StudentEligibility compute(Student student) {
+        Set<String> enrolledSubjectIds = new HashSet<>();
+        for (Enrollment e : dataAccess.getEnrollmentsByStudentId(student.getStudentId())) {
+            enrolledSubjectIds.add(e.getSubjectId());
+        }
+        PrerequisiteGraph graph = registrationService.getPrerequisiteGraph();
+        long[] satisfiedSubjects = graph.satisfiedSubjects(graph.toBitset(enrolledSubjectIds));
+        StudentEligibility eligibility = new StudentEligibility(student, enrolledSubjectIds);
+        for (Subject subject : dataAccess.getAllSubjects()) {
+            eligibility.update(subject.getSubjectId(), registrationService.checkEligibility(
+                    student, subject, enrolledSubjectIds, graph, satisfiedSubjects));
+        }
+        return eligibility;
+    }
+
+    /**
+     * ตรวจสอบรายวิชาเดียวใหม่ให้นักเรียนทุกคนที่อยู่ใน Cache
+     */
+    private void recheck(Subject subject) {
+        for (StudentEligibility eligibility : cache.values()) {
+            eligibility.update(subject.getSubjectId(), registrationService.checkEligibility(
+                    eligibility.getStudent(), subject, eligibility.getEnrolledSubjectIds()));
+        }
+    }
+
+    @Override
+    public void enrollmentAdded(Enrollment enrollment) {
+        enrollmentChanged(enrollment);
+    }
+
+    @Override
+    public void enrollmentRemoved(Enrollment enrollment) {
+        enrollmentChanged(enrollment);
+    }
+
+    private void enrollmentChanged(Enrollment enrollment) {
+        changeCount.incrementAndGet();
+        cache.remove(enrollment.getStudentId());
+        Subject subject = dataAccess.findSubjectById(enrollment.getSubjectId()).orElse(null);
+        // ผลของนักเรียนคนอื่นเปลี่ยนเฉพาะเมื่อรายวิชาเพิ่งเต็มหรือเพิ่งมีที่ว่าง (วิชาที่ไม่จำกัดจำนวนคนจะไม่มีวันเต็ม)
+        if (subject != null && subject.getMaxCapacity() != -1) {
+            refreshFullState(subject, false);
+        }
+    }
+
+    /**
+     * อ่านสถานะ "เต็ม" ปัจจุบันของรายวิชา เทียบกับค่าที่เก็บไว้ และตรวจสอบรายวิชานั้นใหม่เมื่อสถานะเปลี่ยน (หรือเมื่อ always)
+     * ทั้งหมดทำภายใต้ Lock ของรายวิชา การแจ้งเตือนที่ตามหลังการเปลี่ยนที่นั่งครั้งสุดท้ายจึงอ่านและเก็บสถานะล่าสุดเสมอ
+     * (หากอ่านและเก็บแยกกัน เธรดที่อ่านค่าเก่าอาจเก็บทับค่าใหม่ ทำให้ค่าที่เก็บไว้ไม่ตรงกับรายวิชาและไม่ตรวจใหม่อีกเลย)
+     */
+    private void refreshFullState(Subject subject, boolean always) {
+        FullState state = fullStateOf(subject.getSubjectId());
+        synchronized (state) {
+            boolean full = subject.isFull();
+            boolean changed = state.full == null || state.full != full;
+            state.full = full;
+            if (changed || always) {
+                recheck(subject);
+            }
+        }
+    }
+
+    private FullState fullStateOf(String subjectId) {
+        return fullStates.computeIfAbsent(subjectId, id -> new FullState());
+    }
+
+    @Override
+    public void subjectChanged(Subject subject) {
+        changeCount.incrementAndGet();
+        refreshFullState(subject, true);
+    }
+
+    /**
+     * สถานะ "เต็ม" ที่เก็บไว้ของรายวิชาหนึ่ง (null คือยังไม่เคยอ่าน) อ่านและแก้ไขภายใต้ Lock ของ Object นี้เท่านั้น
+     */
+    private static final class FullState {
+        private Boolean full;
+    }
+}
@@ -0,0 +1,180 @@
+package com.StudentRegistrationSystem.model;
+
+import java.io.*;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * คลาสสำหรับจัดการไฟล์บันทึกแบบต่อท้าย (Append-only Journal) ของข้อมูลการลงทะเบียน
+ * แทนที่จะเขียนไฟล์ enrollments.csv ใหม่ทั้งไฟล์ทุกครั้งที่มีการเปลี่ยนแปลง
+ * การเปลี่ยนแปลงแต่ละครั้งจะถูกต่อท้ายเป็นระเบียนขนาดเล็ก 1 บรรทัด ดังนี้
+ * <ul>
+ *     <li>{@code I,enrollment_id,student_id,subject_id,enrollment_date,grade} - การลงทะเบียนใหม่</li>
+ *     <li>{@code G,student_id,subject_id,grade} - การแก้ไขเกรด</li>
+ *     <li>{@code D,student_id,subject_id} - การยกเลิกการลงทะเบียน (Drop)</li>
+ * </ul>
+ * ระเบียนทุกประเภทสามารถนำมาเล่นซ้ำ (Replay) ได้หลายครั้งโดยให้ผลลัพธ์เหมือนเดิม (Idempotent)
+ */
+public class EnrollmentJournal {
+
+    /**
+     * นามสกุลของไฟล์ Journal ที่ถูกแยกออกมาเพื่อรอการรวมกลับ (Compaction) เข้าไฟล์ CSV
+     */
+    public static final String COMPACTING_SUFFIX = ".compacting";
+
+    private final File file;
+    private FileOutputStream out;
+    private PrintWriter writer;
+
+    /**
+     * จำนวนระเบียนที่ถูกต่อท้ายนับตั้งแต่การเปิดไฟล์หรือการ Compaction ครั้งล่าสุด
+     */
+    private int recordCount;
+
+    /**
+     * Constructor ของ EnrollmentJournal
+     * เปิดไฟล์ Journal ในโหมดต่อท้าย (Append) หากยังไม่มีไฟล์จะถูกสร้างขึ้นใหม่
+     *
+     * @param filePath        ที่อยู่ของไฟล์ Journal
+     * @param existingRecords จำนวนระเบียนที่ค้างอยู่จากการทำงานครั้งก่อน (ยังไม่ถูกรวมกลับเข้าไฟล์ CSV)
+     */
+    public EnrollmentJournal(String filePath, int existingRecords) throws IOException {
+        this.file = new File(filePath);
+        this.writer = openWriter();
+        this.recordCount = existingRecords;
+    }
+
+    private PrintWriter openWriter() throws IOException {
+        out = new FileOutputStream(file, true);
+        return new PrintWriter(new BufferedWriter(new OutputStreamWriter(out)));
+    }
+
+    /**
+     * ต่อท้ายระเบียนของการลงทะเบียนใหม่ (ยังไม่ถูกเขียนลงดิสก์จนกว่าจะเรียก {@link #flush()})
+     */
+    public synchronized void appendInsert(Enrollment e) {
+        writer.println(String.join(",", "I",
+                String.valueOf(e.getEnrollmentId()), e.getStudentId(), e.getSubjectId(),
+                e.getEnrollmentDate().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME),
+                e.getGrade() == null ? "" : e.getGrade()));
+        recordCount++;
+    }
+
+    /**
+     * ต่อท้ายระเบียนของการแก้ไขเกรด (ยังไม่ถูกเขียนลงดิสก์จนกว่าจะเรียก {@link #flush()})
+     */
+    public synchronized void appendGradeChange(Enrollment e) {
+        writer.println(String.join(",", "G",
+                e.getStudentId(), e.getSubjectId(),
+                e.getGrade() == null ? "" : e.getGrade()));
+        recordCount++;
+    }
+
+    /**
+     * ต่อท้ายระเบียนของการยกเลิกการลงทะเบียน (ยังไม่ถูกเขียนลงดิสก์จนกว่าจะเรียก {@link #flush()})
+     */
+    public synchronized void appendDrop(Enrollment e) {
+        writer.println(String.join(",", "D", e.getStudentId(), e.getSubjectId()));
+        recordCount++;
+    }
+
+    /**
+     * เขียนระเบียนที่ค้างอยู่ในบัฟเฟอร์ลงไฟล์ และบังคับให้ข้อมูลลงดิสก์จริง ({@link java.nio.channels.FileChannel#force(boolean)})
+     *
+     * @throws IOException หากการเขียนล้มเหลว (ระเบียนที่ต่อท้ายไว้อาจไม่ถูกบันทึก)
+     */
+    public synchronized void flush() throws IOException {
+        writer.flush();
+        if (writer.checkError()) {
+            // PrintWriter ไม่ล้างสถานะข้อผิดพลาด: การ flush ครั้งถัดไปของไฟล์นี้จะล้มเหลวเช่นกันจนกว่าจะแยกไฟล์ใหม่
+            throw new IOException("Error writing journal: " + file.getPath());
+        }
+        out.getChannel().force(false);
+    }
+
+    public synchronized int getRecordCount() {
+        return recordCount;
+    }
+
+    /**
+     * แยกไฟล์ Journal ปัจจุบันออกไปเป็นไฟล์ ".compacting" เพื่อรอการรวมกลับเข้าไฟล์ CSV
+     * แล้วเปิดไฟล์ Journal ใหม่ที่ว่างเปล่าสำหรับการต่อท้ายครั้งถัดไป
+     *
+     * @return ไฟล์ที่ถูกแยกออกมา ซึ่งควรถูกลบหลังจาก Compaction สำเร็จ
+     */
+    public synchronized File rotate() throws IOException {
+        writer.close();
+        File rotated = new File(file.getPath() + COMPACTING_SUFFIX);
+        if (rotated.exists()) {
+            // ไฟล์จากการ Compaction ครั้งก่อนที่ยังไม่เสร็จ: ต่อท้ายเนื้อหาเดิมเพื่อไม่ให้ข้อมูลสูญหาย
+            try (InputStream in = new FileInputStream(file);
+                 OutputStream out = new FileOutputStream(rotated, true)) {
+                in.transferTo(out);
+            }
+            if (!file.delete()) {
+                throw new IOException("Could not delete journal: " + file.getPath());
+            }
+        } else if (!file.renameTo(rotated)) {
+            writer = openWriter();
+            throw new IOException("Could not rotate journal: " + file.getPath());
+        }
+        writer = openWriter();
+        recordCount = 0;
+        return rotated;
+    }
+
+    public synchronized void close() {
+        writer.close();
+    }
+
+    /**
+     * อ่านไฟล์ Journal และนำแต่ละระเบียนมาใช้กับข้อมูลในหน่วยความจำตามลำดับ
+     * บรรทัดที่อ่านไม่ได้ (เช่น บรรทัดสุดท้ายที่เขียนไม่สมบูรณ์) จะถูกข้ามไป
+     *
+     * @param filePath   ไฟล์ Journal ที่ต้องการเล่นซ้ำ
+     * @param dataAccess ที่เก็บข้อมูลที่จะนำระเบียนไปใช้
+     * @return จำนวนระเบียนที่ถูกนำไปใช้
+     */
+    static int replay(String filePath, DataAccessService dataAccess) {
+        File journalFile = new File(filePath);
+        if (!journalFile.exists()) {
+            return 0;
+        }
+        int applied = 0;
+        try (BufferedReader reader = new BufferedReader(new FileReader(journalFile))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] data = line.split(",", -1);
+                try {
+                    if (data[0].equals("I") && data.length == 6) {
+                        Enrollment enrollment = new Enrollment();
+                        enrollment.setEnrollmentId(Integer.parseInt(data[1]));
+                        enrollment.setStudentId(data[2]);
+                        enrollment.setSubjectId(data[3]);
+                        enrollment.setEnrollmentDate(LocalDateTime.parse(data[4]));
+                        enrollment.setGrade(data[5]);
+                        if (dataAccess.findEnrollment(data[2], data[3]).isEmpty()) {
+                            dataAccess.addEnrollment(enrollment);
+                        }
+                        applied++;
+                    } else if (data[0].equals("G") && data.length == 4) {
+                        dataAccess.findEnrollment(data[1], data[2]).ifPresent(e -> e.setGrade(data[3]));
+                        applied++;
+                    } else if (data[0].equals("D") && data.length == 3) {
+                        // จำนวนผู้ลงทะเบียนของรายวิชาถูกบันทึกแยกไว้ในไฟล์ subjects.csv แล้ว จึงลบเฉพาะข้อมูลการลงทะเบียน
+                        dataAccess.findEnrollment(data[1], data[2]).ifPresent(dataAccess::removeEnrollment);
+                        applied++;
+                    } else {
+                        System.err.println("Skipping malformed journal record: " + line);
+                    }
+                } catch (RuntimeException ex) {
+                    System.err.println("Skipping malformed journal record: " + line);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Error replaying journal: " + filePath);
+            e.printStackTrace();
+        }
+        return applied;
+    }
+}
@@ -0,0 +1,59 @@
+package com.StudentRegistrationSystem.model;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * ที่เก็บข้อมูลการลงทะเบียน (Repository) ซึ่งไม่ผูกกับรูปแบบการจัดเก็บ
+ * การแก้ไขข้อมูลในหน่วยความจำ (add/remove) แยกจากการแจ้งให้บันทึก (record*) และการเขียนลงที่เก็บถาวร (flush)
+ * เพื่อให้แต่ละรูปแบบการจัดเก็บเลือกวิธีบันทึกที่เหมาะกับตัวเองได้ เช่น ต่อท้ายทีละรายการ หรือเขียนทั้งไฟล์
+ */
+public interface EnrollmentRepository {
+
+    Optional<Enrollment> findEnrollment(String studentId, String subjectId);
+
+    List<Enrollment> getAllEnrollments();
+
+    List<Enrollment> getEnrollmentsByStudentId(String studentId);
+
+    List<Enrollment> getEnrollmentsBySubjectId(String subjectId);
+
+    void addEnrollment(Enrollment enrollment);
+
+    /**
+     * เพิ่มข้อมูลการลงทะเบียนหลายรายการในครั้งเดียว (ผู้อ่านพร้อมกันอาจเห็นรายการในกลุ่มทีละรายการ)
+     */
+    void addEnrollments(List<Enrollment> enrollments);
+
+    /**
+     * ลบข้อมูลการลงทะเบียน (ไม่คืนที่นั่งของรายวิชา ผู้เรียกต้องจัดการเอง)
+     *
+     * @return true หากพบและลบรายการนี้
+     */
+    boolean removeEnrollment(Enrollment enrollment);
+
+    /**
+     * แจ้งว่ามีการลงทะเบียนใหม่ที่ต้องบันทึก
+     */
+    void recordNewEnrollment(Enrollment enrollment);
+
+    /**
+     * แจ้งว่ามีการยกเลิกการลงทะเบียนที่ต้องบันทึก
+     */
+    void recordDroppedEnrollment(Enrollment enrollment);
+
+    /**
+     * แจ้งว่ามีการแก้ไขเกรดที่ต้องบันทึก
+     */
+    void recordGradeChange(Enrollment enrollment);
+
+    /**
+     * เขียนการเปลี่ยนแปลงของข้อมูลการลงทะเบียนที่แจ้งไว้ลงที่เก็บข้อมูลถาวร
+     */
+    void flushEnrollments();
+
+    /**
+     * บันทึกข้อมูลการลงทะเบียนทั้งหมดลงที่เก็บข้อมูลถาวร
+     */
+    void saveEnrollments();
+}
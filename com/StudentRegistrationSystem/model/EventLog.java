@@ -0,0 +1,401 @@
+package com.StudentRegistrationSystem.model;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+/**
+ * บันทึกเหตุการณ์ (Event Log) แบบไบนารีที่ต่อท้ายอย่างเดียว สำหรับโหมด {@link DataAccessService.PersistenceMode#EVENT_LOG}
+ * ทุกการเปลี่ยนแปลงของข้อมูลการลงทะเบียนถูกเก็บเป็นเหตุการณ์ (Domain Event) พร้อมลำดับ (Sequence) และเวลาที่เกิดขึ้น
+ * จึงตรวจสอบย้อนหลังได้ว่าใครลงทะเบียนเมื่อใด และสร้างข้อมูลปัจจุบันใหม่ได้ทั้งหมดด้วยการเล่นซ้ำ (Replay)
+ *
+ * โครงสร้างไฟล์:
+ * <pre>
+ *     MAGIC (int) | VERSION (int) | record | record | ...
+ *     record = LENGTH (int) | CRC32C (int) | SEQUENCE (long) | TIMESTAMP (long) | TYPE (byte) | payload
+ * </pre>
+ * LENGTH คือจำนวนไบต์ตั้งแต่ SEQUENCE จนจบ payload และ CRC32C ครอบคลุมไบต์ช่วงเดียวกัน
+ * ระเบียนท้ายไฟล์ที่เขียนไม่สมบูรณ์ (เช่น โปรแกรมหยุดกลางคัน) จะถูกตรวจพบและตัดทิ้งเมื่อเปิดไฟล์ครั้งถัดไป
+ */
+public class EventLog {
+
+    private static final int MAGIC = 0x53524556; // "SREV"
+    private static final int VERSION = 1;
+    private static final int FILE_HEADER_BYTES = 8;
+
+    /** ขนาดของ LENGTH และ CRC32C ที่นำหน้าทุกระเบียน */
+    private static final int RECORD_PREFIX_BYTES = 8;
+    /** ขนาดของ SEQUENCE, TIMESTAMP และ TYPE */
+    private static final int RECORD_HEADER_BYTES = 17;
+    /** ขนาดสูงสุดของระเบียนหนึ่งรายการ (String แต่ละค่ายาวได้ไม่เกิน 65,535 ไบต์) */
+    private static final int MAX_RECORD_BYTES = 1 << 18;
+
+    private static final int WRITE_BUFFER_BYTES = 1 << 16;
+    private static final int READ_BUFFER_BYTES = 1 << 22;
+
+    // --- ประเภทของเหตุการณ์ ---
+    static final byte ENROLLMENT_CREATED = 1;
+    static final byte GRADE_CHANGED = 2;
+    static final byte CAPACITY_CHANGED = 3;
+    static final byte ENROLLMENT_DROPPED = 4;
+
+    /**
+     * ผู้รับเหตุการณ์ระหว่างการเล่นซ้ำ ได้รับเหตุการณ์ตามลำดับที่ถูกบันทึก
+     */
+    public interface Handler {
+        void enrollmentCreated(long sequence, long timestamp, Enrollment enrollment);
+
+        void gradeChanged(long sequence, long timestamp, String studentId, String subjectId, String grade);
+
+        void capacityChanged(long sequence, long timestamp, String subjectId, int maxCapacity);
+
+        void enrollmentDropped(long sequence, long timestamp, String studentId, String subjectId);
+    }
+
+    /**
+     * ผลลัพธ์ของการเล่นซ้ำ ใช้สำหรับเปิดไฟล์เพื่อต่อท้ายต่อจากระเบียนสุดท้ายที่สมบูรณ์
+     */
+    public static final class ReplayResult {
+        private final long lastSequence;
+        private final long validLength;
+        private final long appliedCount;
+
+        ReplayResult(long lastSequence, long validLength, long appliedCount) {
+            this.lastSequence = lastSequence;
+            this.validLength = validLength;
+            this.appliedCount = appliedCount;
+        }
+
+        /** ลำดับของเหตุการณ์สุดท้ายที่อ่านได้ (หรือลำดับเริ่มต้นที่ระบุ หากไม่มีเหตุการณ์ใหม่กว่า) */
+        public long getLastSequence() {
+            return lastSequence;
+        }
+
+        /** ความยาวของไฟล์ถึงท้ายระเบียนสุดท้ายที่สมบูรณ์ */
+        public long getValidLength() {
+            return validLength;
+        }
+
+        /** จำนวนเหตุการณ์ที่ถูกส่งให้ {@link Handler} */
+        public long getAppliedCount() {
+            return appliedCount;
+        }
+    }
+
+    private final File file;
+    private final FileChannel channel;
+    private final ByteBuffer writeBuffer = ByteBuffer.allocate(WRITE_BUFFER_BYTES);
+    private final ByteBuffer recordBuffer = ByteBuffer.allocate(MAX_RECORD_BYTES);
+    private final CRC32C crc = new CRC32C();
+    private long lastSequence;
+    // ข้อผิดพลาดในการเขียนครั้งแรก: ไฟล์อาจมีระเบียนที่เขียนไม่สมบูรณ์ซึ่งทำให้ระเบียนถัดไปอ่านกลับไม่ได้
+    // จึงให้ทุกการ flush() หลังจากนั้นล้มเหลวด้วยข้อผิดพลาดนี้ แทนการรายงานว่าบันทึกสำเร็จ
+    private IOException writeError;
+
+    /**
+     * เปิดไฟล์ Event Log เพื่อต่อท้าย โดยตัดส่วนท้ายที่เสียหายออกตามผลของการเล่นซ้ำครั้งล่าสุด
+     *
+     * @param filePath ที่อยู่ของไฟล์ Event Log
+     * @param replayed ผลลัพธ์จาก {@link #replay(String, long, long, Handler)} ของไฟล์เดียวกัน
+     */
+    public EventLog(String filePath, ReplayResult replayed) throws IOException {
+        this.file = new File(filePath);
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        if (replayed.getValidLength() < FILE_HEADER_BYTES) {
+            channel.truncate(0);
+            ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_BYTES).putInt(MAGIC).putInt(VERSION);
+            header.flip();
+            writeFully(header);
+        } else {
+            channel.truncate(replayed.getValidLength());
+            channel.position(replayed.getValidLength());
+        }
+        this.lastSequence = replayed.getLastSequence();
+    }
+
+    // --- กลุ่มเมธอดสำหรับต่อท้ายเหตุการณ์ (ยังไม่ถูกเขียนลงดิสก์จนกว่าจะเรียก flush()) ---
+
+    public void appendEnrollmentCreated(Enrollment e) {
+        append(ENROLLMENT_CREATED, r -> {
+            r.putInt(e.getEnrollmentId());
+            putString(r, e.getStudentId());
+            putString(r, e.getSubjectId());
+            r.putLong(e.getEnrollmentDate().toEpochSecond(ZoneOffset.UTC));
+            r.putInt(e.getEnrollmentDate().getNano());
+            putString(r, e.getGrade());
+        });
+    }
+
+    public void appendGradeChanged(Enrollment e) {
+        append(GRADE_CHANGED, r -> {
+            putString(r, e.getStudentId());
+            putString(r, e.getSubjectId());
+            putString(r, e.getGrade());
+        });
+    }
+
+    public void appendCapacityChanged(Subject subject) {
+        append(CAPACITY_CHANGED, r -> {
+            putString(r, subject.getSubjectId());
+            r.putInt(subject.getMaxCapacity());
+        });
+    }
+
+    public void appendEnrollmentDropped(Enrollment e) {
+        append(ENROLLMENT_DROPPED, r -> {
+            putString(r, e.getStudentId());
+            putString(r, e.getSubjectId());
+        });
+    }
+
+    /**
+     * สร้างระเบียนใน recordBuffer แล้วคัดลอกเข้าบัฟเฟอร์สำหรับเขียน ลำดับของเหตุการณ์ถูกกำหนดภายใต้ Lock เดียวกัน
+     * จึงเรียงตามลำดับในไฟล์เสมอ
+     */
+    private synchronized void append(byte type, Consumer<ByteBuffer> payload) {
+        ByteBuffer r = recordBuffer;
+        r.clear();
+        r.position(RECORD_PREFIX_BYTES);
+        r.putLong(lastSequence + 1).putLong(System.currentTimeMillis()).put(type);
+        payload.accept(r);
+        int end = r.position();
+        crc.reset();
+        crc.update(r.array(), RECORD_PREFIX_BYTES, end - RECORD_PREFIX_BYTES);
+        r.putInt(0, end - RECORD_PREFIX_BYTES).putInt(4, (int) crc.getValue());
+        try {
+            if (writeBuffer.remaining() < end) {
+                drain();
+            }
+            if (end > writeBuffer.capacity()) {
+                r.flip();
+                write(r);
+            } else {
+                writeBuffer.put(r.array(), 0, end);
+            }
+        } catch (IOException e) {
+            // ถูกเก็บไว้ใน writeError แล้ว ผู้รอการบันทึกจะได้รับข้อผิดพลาดนี้จาก flush()
+        }
+        lastSequence++;
+    }
+
+    /**
+     * เขียนเหตุการณ์ที่ค้างอยู่ในบัฟเฟอร์ลงไฟล์ และบังคับให้ข้อมูลลงดิสก์จริง ({@link FileChannel#force(boolean)})
+     *
+     * @throws IOException หากการเขียนครั้งนี้หรือครั้งก่อนหน้าล้มเหลว (เหตุการณ์ที่ต่อท้ายไว้อาจไม่ถูกบันทึก)
+     */
+    public synchronized void flush() throws IOException {
+        drain();
+        try {
+            channel.force(false);
+        } catch (IOException e) {
+            throw failed(e);
+        }
+    }
+
+    private void drain() throws IOException {
+        writeBuffer.flip();
+        try {
+            write(writeBuffer);
+        } finally {
+            writeBuffer.clear();
+        }
+    }
+
+    private void write(ByteBuffer buffer) throws IOException {
+        if (writeError != null) {
+            throw writeError;
+        }
+        try {
+            writeFully(buffer);
+        } catch (IOException e) {
+            throw failed(e);
+        }
+    }
+
+    private IOException failed(IOException e) {
+        if (writeError == null) {
+            writeError = e;
+        }
+        return writeError;
+    }
+
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * @return ลำดับของเหตุการณ์ล่าสุดที่ถูกต่อท้าย (รวมถึงที่ยังค้างอยู่ในบัฟเฟอร์)
+     */
+    public synchronized long getLastSequence() {
+        return lastSequence;
+    }
+
+    public synchronized void close() {
+        try {
+            flush();
+        } catch (IOException e) {
+            System.err.println("Error writing event log: " + file.getPath());
+            e.printStackTrace();
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            System.err.println("Error closing event log: " + file.getPath());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * อ่านไฟล์ Event Log ตามลำดับ และส่งเหตุการณ์ที่มีลำดับมากกว่า {@code afterSequence}
+     * แต่ไม่เกิน {@code upToSequence} ให้กับ handler
+     * การอ่านหยุดที่ระเบียนแรกที่เสียหายหรือเขียนไม่สมบูรณ์ ซึ่งจะถูกตัดทิ้งเมื่อเปิดไฟล์เพื่อต่อท้าย
+     *
+     * อ่านผ่าน FileChannel ทีละก้อนขนาดใหญ่และแยกข้อมูลจาก ByteBuffer โดยตรง
+     * เหตุการณ์ที่เก่ากว่า Snapshot จะถูกข้ามโดยไม่สร้าง Object ใดๆ
+     *
+     * @param filePath      ไฟล์ Event Log (หากไม่มีไฟล์ ถือว่าไม่มีเหตุการณ์)
+     * @param afterSequence ลำดับของเหตุการณ์สุดท้ายที่รวมอยู่ในข้อมูลตั้งต้นแล้ว (เช่น จาก Snapshot)
+     * @param upToSequence  ลำดับสูงสุดที่ต้องการ ({@link Long#MAX_VALUE} เพื่ออ่านจนจบไฟล์)
+     * @param handler       ผู้รับเหตุการณ์
+     */
+    public static ReplayResult replay(String filePath, long afterSequence, long upToSequence, Handler handler)
+            throws IOException {
+        File logFile = new File(filePath);
+        if (!logFile.exists()) {
+            return new ReplayResult(afterSequence, 0, 0);
+        }
+        try (FileChannel in = FileChannel.open(logFile.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_BYTES);
+            buffer.flip();
+            if (!fill(in, buffer, FILE_HEADER_BYTES)) {
+                return new ReplayResult(afterSequence, 0, 0);
+            }
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Not an event log file: " + filePath);
+            }
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported event log version " + version + ": " + filePath);
+            }
+
+            CRC32C checksum = new CRC32C();
+            long validLength = FILE_HEADER_BYTES;
+            long lastSequence = afterSequence;
+            long applied = 0;
+            while (fill(in, buffer, RECORD_PREFIX_BYTES)) {
+                int start = buffer.position();
+                int length = buffer.getInt(start);
+                if (length < RECORD_HEADER_BYTES || length > MAX_RECORD_BYTES - RECORD_PREFIX_BYTES
+                        || !fill(in, buffer, RECORD_PREFIX_BYTES + length)) {
+                    break;
+                }
+                start = buffer.position();
+                int body = start + RECORD_PREFIX_BYTES;
+                checksum.reset();
+                checksum.update(buffer.array(), body, length);
+                if ((int) checksum.getValue() != buffer.getInt(start + 4)) {
+                    break;
+                }
+                long sequence = buffer.getLong(body);
+                if (sequence > upToSequence) {
+                    break;
+                }
+                if (sequence > afterSequence) {
+                    buffer.position(body + 8);
+                    long timestamp = buffer.getLong();
+                    dispatch(buffer.get(), sequence, timestamp, buffer, handler);
+                    applied++;
+                }
+                buffer.position(body + length);
+                validLength += RECORD_PREFIX_BYTES + length;
+                lastSequence = Math.max(lastSequence, sequence);
+            }
+            return new ReplayResult(lastSequence, validLength, applied);
+        }
+    }
+
+    private static void dispatch(byte type, long sequence, long timestamp, ByteBuffer r, Handler handler)
+            throws IOException {
+        switch (type) {
+            case ENROLLMENT_CREATED: {
+                Enrollment e = new Enrollment();
+                e.setEnrollmentId(r.getInt());
+                e.setStudentId(getString(r));
+                e.setSubjectId(getString(r));
+                long epochSecond = r.getLong();
+                e.setEnrollmentDate(LocalDateTime.ofEpochSecond(epochSecond, r.getInt(), ZoneOffset.UTC));
+                e.setGrade(getString(r));
+                handler.enrollmentCreated(sequence, timestamp, e);
+                break;
+            }
+            case GRADE_CHANGED:
+                handler.gradeChanged(sequence, timestamp, getString(r), getString(r), getString(r));
+                break;
+            case CAPACITY_CHANGED:
+                handler.capacityChanged(sequence, timestamp, getString(r), r.getInt());
+                break;
+            case ENROLLMENT_DROPPED:
+                handler.enrollmentDropped(sequence, timestamp, getString(r), getString(r));
+                break;
+            default:
+                throw new IOException("Unknown event type " + type + " at sequence " + sequence);
+        }
+    }
+
+    /**
+     * ทำให้บัฟเฟอร์มีข้อมูลที่ยังไม่ได้อ่านอย่างน้อย {@code required} ไบต์ โดยย้ายส่วนที่เหลือไปต้นบัฟเฟอร์แล้วอ่านเพิ่ม
+     *
+     * @return false หากไฟล์หมดก่อนได้ข้อมูลครบ
+     */
+    private static boolean fill(FileChannel in, ByteBuffer buffer, int required) throws IOException {
+        if (buffer.remaining() >= required) {
+            return true;
+        }
+        buffer.compact();
+        while (buffer.position() < required) {
+            if (in.read(buffer) < 0) {
+                buffer.flip();
+                return false;
+            }
+        }
+        buffer.flip();
+        return true;
+    }
+
+    // --- เมธอดช่วยสำหรับ String ที่อาจเป็น null (ความยาว 0xFFFF หมายถึง null) ---
+
+    private static final int NULL_STRING = 0xFFFF;
+
+    private static void putString(ByteBuffer r, String value) {
+        if (value == null) {
+            r.putShort((short) NULL_STRING);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length >= NULL_STRING) {
+            throw new IllegalArgumentException("Value too long for event log: " + bytes.length + " bytes");
+        }
+        r.putShort((short) bytes.length);
+        r.put(bytes);
+    }
+
+    private static String getString(ByteBuffer r) {
+        int length = Short.toUnsignedInt(r.getShort());
+        if (length == NULL_STRING) {
+            return null;
+        }
+        String value = new String(r.array(), r.position(), length, StandardCharsets.UTF_8);
+        r.position(r.position() + length);
+        return value;
+    }
+}
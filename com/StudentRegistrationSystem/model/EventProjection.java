@@ -0,0 +1,97 @@
+package com.StudentRegistrationSystem.model;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ข้อมูลปัจจุบัน (Projection) ที่สร้างจากข้อมูลตั้งต้นแล้วเล่นซ้ำเหตุการณ์จาก {@link EventLog} ทับลงไป
+ * ใช้ทั้งตอนเริ่มโปรแกรมในโหมด {@link DataAccessService.PersistenceMode#EVENT_LOG}
+ * และตอนสร้าง Snapshot เป็นระยะในเบื้องหลัง (โดยไม่ต้องแตะข้อมูลในหน่วยความจำที่กำลังถูกใช้งาน)
+ *
+ * การนำเหตุการณ์มาใช้เป็นแบบ Idempotent: การลงทะเบียนที่มีอยู่แล้วหรือการยกเลิกรายการที่ไม่มีอยู่จะถูกข้ามไป
+ * และจำนวนผู้ลงทะเบียนของรายวิชาจะเปลี่ยนเฉพาะเมื่อรายการลงทะเบียนเปลี่ยนจริงเท่านั้น
+ */
+class EventProjection implements EventLog.Handler {
+
+    private final List<Student> students;
+    private final Map<String, Subject> subjectsById = new LinkedHashMap<>();
+    // ใช้ LinkedHashMap เพื่อคงลำดับการลงทะเบียนไว้ และลบรายการได้แบบ O(1) เมื่อเล่นซ้ำการยกเลิก
+    private final Map<String, Enrollment> enrollmentsByKey = new LinkedHashMap<>();
+    private long lastSequence;
+
+    /**
+     * @param students     นักเรียนทั้งหมดของข้อมูลตั้งต้น
+     * @param subjects     รายวิชาทั้งหมดของข้อมูลตั้งต้น
+     * @param enrollments  การลงทะเบียนทั้งหมดของข้อมูลตั้งต้น
+     * @param lastSequence ลำดับของเหตุการณ์สุดท้ายที่รวมอยู่ในข้อมูลตั้งต้นแล้ว (0 สำหรับไฟล์ CSV)
+     */
+    EventProjection(List<Student> students, List<Subject> subjects, List<Enrollment> enrollments, long lastSequence) {
+        this.students = students;
+        subjects.forEach(s -> subjectsById.put(s.getSubjectId(), s));
+        enrollments.forEach(e -> enrollmentsByKey.putIfAbsent(key(e.getStudentId(), e.getSubjectId()), e));
+        this.lastSequence = lastSequence;
+    }
+
+    private static String key(String studentId, String subjectId) {
+        return studentId + "|" + subjectId;
+    }
+
+    @Override
+    public void enrollmentCreated(long sequence, long timestamp, Enrollment enrollment) {
+        if (enrollmentsByKey.putIfAbsent(key(enrollment.getStudentId(), enrollment.getSubjectId()), enrollment) == null) {
+            Subject subject = subjectsById.get(enrollment.getSubjectId());
+            if (subject != null) {
+                // ที่นั่งถูกจองไว้แล้วตอนลงทะเบียนจริง จึงเพิ่มจำนวนโดยไม่ตรวจสอบจำนวนสูงสุดซ้ำ
+                subject.setCurrentEnrollment(subject.getCurrentEnrollment() + 1);
+            }
+        }
+        lastSequence = sequence;
+    }
+
+    @Override
+    public void gradeChanged(long sequence, long timestamp, String studentId, String subjectId, String grade) {
+        Enrollment enrollment = enrollmentsByKey.get(key(studentId, subjectId));
+        if (enrollment != null) {
+            enrollment.setGrade(grade);
+        }
+        lastSequence = sequence;
+    }
+
+    @Override
+    public void capacityChanged(long sequence, long timestamp, String subjectId, int maxCapacity) {
+        Subject subject = subjectsById.get(subjectId);
+        if (subject != null) {
+            subject.setMaxCapacity(maxCapacity);
+        }
+        lastSequence = sequence;
+    }
+
+    @Override
+    public void enrollmentDropped(long sequence, long timestamp, String studentId, String subjectId) {
+        if (enrollmentsByKey.remove(key(studentId, subjectId)) != null) {
+            Subject subject = subjectsById.get(subjectId);
+            if (subject != null) {
+                subject.releaseSeat();
+            }
+        }
+        lastSequence = sequence;
+    }
+
+    List<Student> getStudents() {
+        return students;
+    }
+
+    List<Subject> getSubjects() {
+        return new ArrayList<>(subjectsById.values());
+    }
+
+    List<Enrollment> getEnrollments() {
+        return new ArrayList<>(enrollmentsByKey.values());
+    }
+
+    long getLastSequence() {
+        return lastSequence;
+    }
+}
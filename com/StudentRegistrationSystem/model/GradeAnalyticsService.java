@@ -0,0 +1,199 @@
+package com.StudentRegistrationSystem.model;
+
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalDouble;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Service สถิติเกรดสำหรับผู้ดูแลระบบ: การกระจายเกรด (Histogram) ของแต่ละรายวิชา
+ * และเกรดเฉลี่ย (GPA) ของนักเรียนแต่ละคนแบบถ่วงน้ำหนักด้วยหน่วยกิตของรายวิชา
+ *
+ * ค่าทั้งหมดเป็นผลรวมสะสม (Running Aggregate) ที่คำนวณจากการลงทะเบียนทั้งหมดแบบขนานเพียงครั้งเดียวตอนสร้าง Service
+ * จากนั้นรับฟังการเปลี่ยนแปลงจาก {@link DataRepository} และปรับเฉพาะค่าของรายวิชาและนักเรียนที่เกี่ยวข้อง:
+ * <ul>
+ *     <li>ลงทะเบียนหรือยกเลิกการลงทะเบียน : เพิ่มหรือลดเกรดของรายการนั้นออกจากผลรวม (O(1))</li>
+ *     <li>แก้ไขเกรด : ลดเกรดเดิมและเพิ่มเกรดใหม่ (O(1))</li>
+ *     <li>หน่วยกิตของรายวิชาเปลี่ยน : ปรับน้ำหนักของผู้ลงทะเบียนในรายวิชานั้น</li>
+ * </ul>
+ * การอ่านสถิติจึงไม่ต้องสแกนข้อมูลการลงทะเบียนทั้งหมดทุกครั้งที่ผู้ดูแลระบบเปิดดู
+ *
+ * Service จำเกรดที่นับไว้แล้วของการลงทะเบียนแต่ละรายการ การนับจากการสแกนตอนสร้างและจากตัวรับฟังจึงไม่ซ้ำกัน
+ * แม้จะเกิดขึ้นพร้อมกัน (การลงทะเบียนที่ถูกยกเลิกระหว่างสแกนจะถูกจำไว้ไม่ให้สแกนนับกลับเข้าไป)
+ */
+public class GradeAnalyticsService implements DataChangeListener {
+
+    /**
+     * ค่าเกรดตามลำดับของช่องใน Histogram (ช่องแรกคือยังไม่มีเกรด)
+     */
+    public static final List<String> GRADES = List.of("", "A", "B+", "B", "C+", "C", "D+", "D", "F");
+
+    // แต้มของแต่ละเกรดคูณ 2 (A = 8 คือ 4.0) เพื่อให้ผลรวมเป็นจำนวนเต็มและไม่สะสมความคลาดเคลื่อนของทศนิยม
+    // ค่า -1 คือไม่นำมาคิดเกรดเฉลี่ย (ยังไม่มีเกรด)
+    private static final int[] HALF_POINTS = {-1, 8, 7, 6, 5, 4, 3, 2, 0};
+
+    // ค่าใน countedGrades ของการลงทะเบียนที่ถูกยกเลิกระหว่างการสแกนตอนสร้าง Service
+    private static final int REMOVED = -1;
+
+    private final DataRepository dataAccess;
+    private final Map<String, AtomicIntegerArray> histograms = new ConcurrentHashMap<>();
+    private final Map<String, StudentTotals> studentTotals = new ConcurrentHashMap<>();
+    // หน่วยกิตที่ใช้ถ่วงน้ำหนักอยู่ของแต่ละรายวิชา (ใช้ตรวจว่าหน่วยกิตเปลี่ยนเมื่อได้รับ subjectChanged)
+    private final Map<String, Integer> creditsBySubject = new ConcurrentHashMap<>();
+    // การลงทะเบียน -> ตำแหน่งเกรดที่นับอยู่ในผลรวม (Enrollment เปรียบเทียบด้วยตัว Object)
+    private final Map<Enrollment, Integer> countedGrades = new ConcurrentHashMap<>();
+    private volatile boolean scanning = true;
+
+    /**
+     * Constructor ของ GradeAnalyticsService: ลงทะเบียนเป็นตัวรับฟังการเปลี่ยนแปลงของข้อมูลก่อน
+     * แล้วจึงคำนวณสถิติจากข้อมูลปัจจุบันทั้งหมดแบบขนาน การเปลี่ยนแปลงระหว่างสแกนจึงไม่ตกหล่น
+     */
+    public GradeAnalyticsService(DataRepository dataAccess) {
+        this.dataAccess = dataAccess;
+        dataAccess.addChangeListener(this);
+        // ทุกการปรับค่าเป็น Atomic จึงใช้เมธอดเดียวกับการอัปเดตทีละรายการจากหลายเธรดได้โดยตรง
+        dataAccess.getAllEnrollments().parallelStream().forEach(this::enrollmentAdded);
+        scanning = false;
+        countedGrades.values().removeIf(index -> index == REMOVED);
+    }
+
+    /**
+     * @return จำนวนผู้ลงทะเบียนในแต่ละเกรดของรายวิชา เรียงตาม {@link #GRADES} (สำเนา แก้ไขได้โดยไม่กระทบสถิติ)
+     */
+    public int[] getGradeHistogram(String subjectId) {
+        AtomicIntegerArray histogram = histograms.get(subjectId);
+        int[] counts = new int[GRADES.size()];
+        if (histogram != null) {
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = histogram.get(i);
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * @return เกรดเฉลี่ยสะสมของนักเรียนแบบถ่วงน้ำหนักด้วยหน่วยกิต หรือค่าว่างหากยังไม่มีรายวิชาที่ได้เกรด
+     */
+    public OptionalDouble getGpa(String studentId) {
+        StudentTotals totals = studentTotals.get(studentId);
+        return totals == null ? OptionalDouble.empty() : totals.gpa();
+    }
+
+    /**
+     * @return จำนวนหน่วยกิตรวมของรายวิชาที่นักเรียนได้เกรดแล้ว
+     */
+    public int getGradedCredits(String studentId) {
+        StudentTotals totals = studentTotals.get(studentId);
+        return totals == null ? 0 : totals.gradedCredits();
+    }
+
+    // --- การปรับผลรวมเมื่อข้อมูลเปลี่ยน ---
+
+    @Override
+    public void enrollmentAdded(Enrollment enrollment) {
+        countedGrades.computeIfAbsent(enrollment, e -> {
+            int current = gradeIndex(e.getGrade());
+            count(e, current, 1);
+            return current;
+        });
+    }
+
+    @Override
+    public void enrollmentRemoved(Enrollment enrollment) {
+        countedGrades.compute(enrollment, (e, counted) -> {
+            if (counted != null && counted != REMOVED) {
+                count(e, counted, -1);
+            }
+            // ระหว่างสแกนต้องจำไว้ว่าถูกยกเลิกแล้ว เพราะสแกนอาจยังมีรายการนี้อยู่ในสำเนาที่อ่านมา
+            return scanning ? REMOVED : null;
+        });
+    }
+
+    @Override
+    public void gradeChanged(Enrollment enrollment, String previousGrade) {
+        // ใช้เกรดที่นับไว้แทน previousGrade เพราะการสแกนอาจนับเกรดใหม่ไปแล้ว (หากยังไม่ถูกนับ สแกนจะนับเกรดใหม่เอง)
+        countedGrades.computeIfPresent(enrollment, (e, counted) -> {
+            int current = gradeIndex(e.getGrade());
+            if (counted != REMOVED && counted != current) {
+                count(e, counted, -1);
+                count(e, current, 1);
+            }
+            return counted == REMOVED ? REMOVED : current;
+        });
+    }
+
+    @Override
+    public void subjectChanged(Subject subject) {
+        Integer oldCredits = creditsBySubject.get(subject.getSubjectId());
+        if (oldCredits == null || oldCredits == subject.getCredits()) {
+            return;
+        }
+        int delta = subject.getCredits() - oldCredits;
+        creditsBySubject.put(subject.getSubjectId(), subject.getCredits());
+        for (Enrollment enrollment : dataAccess.getEnrollmentsBySubjectId(subject.getSubjectId())) {
+            Integer counted = countedGrades.get(enrollment);
+            if (counted == null || counted == REMOVED) {
+                continue;
+            }
+            int points = HALF_POINTS[counted];
+            if (points >= 0) {
+                totalsOf(enrollment.getStudentId()).add(delta, delta * points);
+            }
+        }
+    }
+
+    /**
+     * เพิ่ม (sign = 1) หรือลด (sign = -1) เกรดของการลงทะเบียนหนึ่งรายการในผลรวมของรายวิชาและของนักเรียน
+     */
+    private void count(Enrollment enrollment, int gradeIndex, int sign) {
+        histograms.computeIfAbsent(enrollment.getSubjectId(), id -> new AtomicIntegerArray(GRADES.size()))
+                .addAndGet(gradeIndex, sign);
+        int points = HALF_POINTS[gradeIndex];
+        if (points >= 0) {
+            int credits = sign * creditsOf(enrollment.getSubjectId());
+            totalsOf(enrollment.getStudentId()).add(credits, credits * points);
+        }
+    }
+
+    private int creditsOf(String subjectId) {
+        return creditsBySubject.computeIfAbsent(subjectId,
+                id -> dataAccess.findSubjectById(id).map(Subject::getCredits).orElse(0));
+    }
+
+    private StudentTotals totalsOf(String studentId) {
+        return studentTotals.computeIfAbsent(studentId, id -> new StudentTotals());
+    }
+
+    /**
+     * @return ตำแหน่งของเกรดใน {@link #GRADES} (เกรดว่าง, null หรือไม่รู้จัก ถือเป็นยังไม่มีเกรด)
+     */
+    private static int gradeIndex(String grade) {
+        int index = grade == null ? -1 : GRADES.indexOf(grade);
+        return Math.max(index, 0);
+    }
+
+    /**
+     * ผลรวมหน่วยกิตและแต้มถ่วงน้ำหนักของนักเรียนหนึ่งคน (ปรับทั้งสองค่าพร้อมกันภายใต้ Lock ของ Object)
+     */
+    private static final class StudentTotals {
+        private int gradedCredits;
+        private long weightedHalfPoints;
+
+        synchronized void add(int credits, long halfPoints) {
+            gradedCredits += credits;
+            weightedHalfPoints += halfPoints;
+        }
+
+        synchronized int gradedCredits() {
+            return gradedCredits;
+        }
+
+        synchronized OptionalDouble gpa() {
+            if (gradedCredits <= 0) {
+                return OptionalDouble.empty();
+            }
+            return OptionalDouble.of(weightedHalfPoints / 2.0 / gradedCredits);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.StudentRegistrationSystem.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * รายงานผลการนำเข้าเกรดจากไฟล์ผ่าน {@link AdminService#importGrades(java.io.Reader)}
+ * เก็บจำนวนรายการที่อัปเดตสำเร็จ และรายละเอียดของบรรทัดที่ถูกปฏิเสธพร้อมเหตุผล
+ */
+public class GradeImportReport {
+
+    /**
+     * จำนวนสูงสุดของบรรทัดที่ถูกปฏิเสธที่จะเก็บรายละเอียดไว้ (เกินจากนี้จะนับจำนวนอย่างเดียว)
+     * เพื่อไม่ให้ไฟล์ที่ผิดรูปแบบทั้งไฟล์ใช้หน่วยความจำมากเกินไป
+     */
+    public static final int MAX_REJECTED_DETAILS = 1_000;
+
+    private int updatedCount;
+    private int rejectedCount;
+    private final List<String> rejectedLines = new ArrayList<>();
+
+    void recordUpdated() {
+        updatedCount++;
+    }
+
+    void recordRejected(int lineNumber, String line, String reason) {
+        if (rejectedCount++ < MAX_REJECTED_DETAILS) {
+            rejectedLines.add("Line " + lineNumber + ": " + reason + " [" + line + "]");
+        }
+    }
+
+    public int getUpdatedCount() {
+        return updatedCount;
+    }
+
+    public int getRejectedCount() {
+        return rejectedCount;
+    }
+
+    /**
+     * @return รายละเอียดของบรรทัดที่ถูกปฏิเสธ (สูงสุด {@link #MAX_REJECTED_DETAILS} รายการแรก)
+     */
+    public List<String> getRejectedLines() {
+        return Collections.unmodifiableList(rejectedLines);
+    }
+
+    @Override
+    public String toString() {
+        return "Updated " + updatedCount + " grade(s), rejected " + rejectedCount + " line(s).";
+    }
+}
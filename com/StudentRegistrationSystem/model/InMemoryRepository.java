@@ -0,0 +1,341 @@
+package com.StudentRegistrationSystem.model;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ที่เก็บข้อมูลที่อยู่ในหน่วยความจำ (In-memory) อย่างเดียว ไม่บันทึกการเปลี่ยนแปลงลงดิสก์
+ * เหมาะสำหรับการวัดประสิทธิภาพและการทดลองใช้งาน ข้อมูลทั้งหมดหายไปเมื่อปิดโปรแกรม
+ *
+ * คลาสนี้ยังเป็นฐานของที่เก็บข้อมูลแบบบันทึกลงดิสก์ ({@link DataAccessService}, {@link MappedBinaryRepository})
+ * ซึ่งใช้ List และดัชนีในหน่วยความจำชุดเดียวกัน และ Override เฉพาะเมธอดสำหรับการบันทึก
+ */
+public class InMemoryRepository implements DataRepository {
+
+    // --- ที่เก็บข้อมูลในหน่วยความจำ (In-memory Storage) ---
+    private List<Student> students;
+    private List<Subject> subjects;
+    // การลงทะเบียนทั้งหมดเรียงตามลำดับการเพิ่ม (คีย์คือเลขลำดับที่เพิ่มขึ้นเรื่อยๆ) โดยไม่ใช้ Lock รวม
+    // เธรดของ Shard ที่เพิ่มหรือลบการลงทะเบียนของรายวิชาต่างกันจึงไม่ต้องรอกันที่ List กลางนี้
+    private final ConcurrentNavigableMap<Long, Enrollment> enrollments = new ConcurrentSkipListMap<>();
+    // เลขลำดับของแต่ละรายการ (Enrollment เปรียบเทียบด้วยตัว Object) เพื่อให้การยกเลิกลบได้แบบ O(log n) โดยไม่ต้องวนหา
+    private final Map<Enrollment, Long> enrollmentSequences = new ConcurrentHashMap<>();
+    private final AtomicLong nextEnrollmentSequence = new AtomicLong();
+
+    // --- ดัชนีคีย์หลัก (Primary-key Index) สำหรับค้นหาด้วยรหัสแบบ O(1) ---
+    // ใช้ ConcurrentHashMap เพื่อให้อ่านได้อย่างปลอดภัยระหว่างที่มีการลงทะเบียนจากหลายเธรด
+    private final Map<String, Student> studentsById = new ConcurrentHashMap<>();
+    private final Map<String, Subject> subjectsById = new ConcurrentHashMap<>();
+
+    // --- ดัชนีรอง (Secondary Index) ของการลงทะเบียน ปรับปรุงทีละรายการเมื่อมีการเพิ่มข้อมูล ---
+    private final Map<String, Set<Enrollment>> enrollmentsByStudentId = new ConcurrentHashMap<>();
+    private final Map<String, Set<Enrollment>> enrollmentsBySubjectId = new ConcurrentHashMap<>();
+    private final Map<String, Enrollment> enrollmentsByKey = new ConcurrentHashMap<>();
+
+    // --- ตัวรับฟังการเปลี่ยนแปลงของข้อมูล (อ่านบ่อย เพิ่มน้อยครั้ง จึงใช้ CopyOnWriteArrayList) ---
+    private final List<DataChangeListener> changeListeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * สร้างที่เก็บข้อมูลจากข้อมูลตั้งต้นที่กำหนด (List ที่ส่งเข้ามาจะถูกคัดลอก)
+     */
+    public InMemoryRepository(List<Student> students, List<Subject> subjects, List<Enrollment> enrollments) {
+        initialize(new ArrayList<>(students), new ArrayList<>(subjects), enrollments);
+    }
+
+    /**
+     * สร้างที่เก็บข้อมูลในหน่วยความจำจากสำเนาของข้อมูลทั้งหมดในที่เก็บข้อมูลอื่น
+     * (เช่น โหลดจากไฟล์ CSV ครั้งเดียว แล้วทำงานในหน่วยความจำอย่างเดียว)
+     */
+    public static InMemoryRepository copyOf(DataRepository source) {
+        return new InMemoryRepository(source.getAllStudents(), source.getAllSubjects(), source.getAllEnrollments());
+    }
+
+    /**
+     * สำหรับคลาสลูกที่ต้องโหลดข้อมูลก่อน แล้วจึงเรียก {@link #initialize(List, List, List)}
+     */
+    protected InMemoryRepository() {
+    }
+
+    /**
+     * กำหนดข้อมูลตั้งต้นและสร้างดัชนีทั้งหมด (List ของนักเรียนและรายวิชาจะถูกใช้เป็นที่เก็บข้อมูลโดยตรง
+     * ส่วนการลงทะเบียนจะถูกคัดลอกเข้าที่เก็บตามลำดับเดิม)
+     */
+    protected final void initialize(List<Student> students, List<Subject> subjects, List<Enrollment> enrollments) {
+        this.students = students;
+        this.subjects = subjects;
+        students.forEach(this::indexStudent);
+        subjects.forEach(this::indexSubject);
+        enrollments.forEach(this::putEnrollment);
+    }
+
+    // --- กลุ่มเมธอดสำหรับดูแลดัชนีคีย์หลัก ---
+
+    private void indexStudent(Student student) {
+        studentsById.put(student.getStudentId(), student);
+    }
+
+    private void indexSubject(Subject subject) {
+        subjectsById.put(subject.getSubjectId(), subject);
+    }
+
+    private void indexEnrollment(Enrollment enrollment) {
+        enrollmentsByStudentId.computeIfAbsent(enrollment.getStudentId(), InMemoryRepository::newIndexSet).add(enrollment);
+        enrollmentsBySubjectId.computeIfAbsent(enrollment.getSubjectId(), InMemoryRepository::newIndexSet).add(enrollment);
+        enrollmentsByKey.putIfAbsent(enrollmentKey(enrollment.getStudentId(), enrollment.getSubjectId()), enrollment);
+    }
+
+    /**
+     * เพิ่มการลงทะเบียนต่อท้ายลำดับและเข้าดัชนีทั้งหมด (รายการที่มีอยู่แล้วจะถูกข้าม)
+     */
+    private void putEnrollment(Enrollment enrollment) {
+        long sequence = nextEnrollmentSequence.getAndIncrement();
+        if (enrollmentSequences.putIfAbsent(enrollment, sequence) != null) {
+            return;
+        }
+        enrollments.put(sequence, enrollment);
+        indexEnrollment(enrollment);
+    }
+
+    private void unindexEnrollment(Enrollment enrollment) {
+        Set<Enrollment> byStudent = enrollmentsByStudentId.get(enrollment.getStudentId());
+        if (byStudent != null) {
+            byStudent.remove(enrollment);
+        }
+        Set<Enrollment> bySubject = enrollmentsBySubjectId.get(enrollment.getSubjectId());
+        if (bySubject != null) {
+            bySubject.remove(enrollment);
+        }
+        enrollmentsByKey.remove(enrollmentKey(enrollment.getStudentId(), enrollment.getSubjectId()), enrollment);
+    }
+
+    private static Set<Enrollment> newIndexSet(String key) {
+        return Collections.synchronizedSet(new LinkedHashSet<>());
+    }
+
+    /**
+     * คัดลอกรายการในดัชนีออกมา โดยถือ Lock ของรายการนั้นไว้ระหว่างคัดลอก
+     */
+    private static List<Enrollment> copyIndexList(Collection<Enrollment> list) {
+        if (list == null) {
+            return new ArrayList<>();
+        }
+        synchronized (list) {
+            return new ArrayList<>(list);
+        }
+    }
+
+    /**
+     * สร้างคีย์ผสม (Composite Key) ของคู่ รหัสนักเรียน-รหัสวิชา สำหรับดัชนี enrollmentsByKey
+     */
+    static String enrollmentKey(String studentId, String subjectId) {
+        return studentId + "|" + subjectId;
+    }
+
+    // --- กลุ่มเมธอดสำหรับบันทึกการเปลี่ยนแปลง: ที่เก็บข้อมูลในหน่วยความจำไม่ต้องทำอะไร คลาสลูกจะ Override ตามรูปแบบการจัดเก็บ ---
+
+    @Override
+    public void recordNewEnrollment(Enrollment enrollment) {
+    }
+
+    @Override
+    public void recordDroppedEnrollment(Enrollment enrollment) {
+    }
+
+    @Override
+    public void recordGradeChange(Enrollment enrollment) {
+    }
+
+    @Override
+    public void recordCapacityChange(Subject subject) {
+    }
+
+    @Override
+    public void flushEnrollments() {
+    }
+
+    @Override
+    public void saveEnrollments() {
+    }
+
+    @Override
+    public void saveSubjects() {
+    }
+
+    /**
+     * ที่เก็บข้อมูลในหน่วยความจำไม่มีโฟลเดอร์ข้อมูล Service อื่นจึงไม่บันทึกไฟล์ของตนเช่นกัน
+     */
+    @Override
+    public String getDataDirectory() {
+        return null;
+    }
+
+    @Override
+    public void close() {
+    }
+
+    // --- กลุ่มเมธอดสาธารณะสำหรับให้ Service อื่นๆ เรียกใช้ข้อมูล ---
+
+    @Override
+    public Optional<Student> findStudentById(String id) {
+        return Optional.ofNullable(studentsById.get(id));
+    }
+
+    @Override
+    public Optional<Subject> findSubjectById(String id) {
+        return Optional.ofNullable(subjectsById.get(id));
+    }
+
+    @Override
+    public List<Subject> getAllSubjects() {
+        synchronized (subjects) {
+            return new ArrayList<>(subjects);
+        }
+    }
+
+    @Override
+    public List<Enrollment> getAllEnrollments() {
+        return snapshotEnrollments();
+    }
+
+    /**
+     * คัดลอกรายการลงทะเบียนทั้งหมดตามลำดับการเพิ่ม เพื่อให้เธรดบันทึกข้อมูลเบื้องหลังอ่านได้อย่างปลอดภัยโดยไม่หยุดผู้เขียน
+     * สำเนาอาจรวมหรือไม่รวมรายการที่กำลังถูกเพิ่มหรือลบอยู่พร้อมกัน แต่รวมทุกรายการที่เพิ่มเสร็จก่อนเรียกเมธอดนี้
+     * (การบันทึกลง Journal ทำหลังเพิ่มเสร็จเสมอ สำเนาที่ถ่ายก่อนหมุน Journal จึงไม่ตกหล่นรายการที่บันทึกไว้แล้ว)
+     */
+    protected List<Enrollment> snapshotEnrollments() {
+        return new ArrayList<>(enrollments.values());
+    }
+
+    @Override
+    public List<Enrollment> getEnrollmentsByStudentId(String studentId) {
+        return copyIndexList(enrollmentsByStudentId.get(studentId));
+    }
+
+    /**
+     * ค้นหาและคืนค่า List ของการลงทะเบียนทั้งหมดที่เกี่ยวข้องกับรหัสวิชาที่กำหนด
+     * @param subjectId รหัสวิชาที่ต้องการค้นหา
+     * @return List ของ Enrollment
+     */
+    @Override
+    public List<Enrollment> getEnrollmentsBySubjectId(String subjectId) {
+        return copyIndexList(enrollmentsBySubjectId.get(subjectId));
+    }
+
+    @Override
+    public void addEnrollment(Enrollment enrollment) {
+        putEnrollment(enrollment);
+        changeListeners.forEach(listener -> listener.enrollmentAdded(enrollment));
+    }
+
+    /**
+     * เพิ่มข้อมูลการลงทะเบียนหลายรายการในครั้งเดียว แล้วจึงแจ้งตัวรับฟังทีละรายการ
+     */
+    @Override
+    public void addEnrollments(List<Enrollment> newEnrollments) {
+        newEnrollments.forEach(this::putEnrollment);
+        for (Enrollment enrollment : newEnrollments) {
+            changeListeners.forEach(listener -> listener.enrollmentAdded(enrollment));
+        }
+    }
+
+    /**
+     * ลบข้อมูลการลงทะเบียนออกจากหน่วยความจำและดัชนีทั้งหมด (ไม่คืนที่นั่งของรายวิชา ผู้เรียกต้องจัดการเอง)
+     * หาตำแหน่งในลำดับได้จากเลขลำดับของรายการ จึงลบได้โดยไม่ต้องวนหาและไม่ต้องใช้ Lock รวม
+     *
+     * @return true หากพบและลบรายการนี้
+     */
+    @Override
+    public boolean removeEnrollment(Enrollment enrollment) {
+        Long sequence = enrollmentSequences.remove(enrollment);
+        if (sequence == null) {
+            return false;
+        }
+        enrollments.remove(sequence);
+        unindexEnrollment(enrollment);
+        changeListeners.forEach(listener -> listener.enrollmentRemoved(enrollment));
+        return true;
+    }
+
+    @Override
+    public void notifySubjectChanged(Subject subject) {
+        changeListeners.forEach(listener -> listener.subjectChanged(subject));
+    }
+
+    @Override
+    public void notifyGradeChanged(Enrollment enrollment, String previousGrade) {
+        changeListeners.forEach(listener -> listener.gradeChanged(enrollment, previousGrade));
+    }
+
+    @Override
+    public void addChangeListener(DataChangeListener listener) {
+        changeListeners.add(listener);
+    }
+
+    @Override
+    public void removeChangeListener(DataChangeListener listener) {
+        changeListeners.remove(listener);
+    }
+
+    @Override
+    public Optional<Enrollment> findEnrollment(String studentId, String subjectId) {
+        return Optional.ofNullable(enrollmentsByKey.get(enrollmentKey(studentId, subjectId)));
+    }
+
+    @Override
+    public List<Student> getAllStudents() {
+        synchronized (students) {
+            return new ArrayList<>(students);
+        }
+    }
+
+    /**
+     * เพิ่มนักเรียนใหม่เข้าสู่หน่วยความจำ พร้อมอัปเดตดัชนีคีย์หลัก
+     * หากมีรหัสนักเรียนซ้ำ ข้อมูลเดิมจะถูกแทนที่
+     * @param student นักเรียนที่ต้องการเพิ่ม
+     */
+    @Override
+    public void addStudent(Student student) {
+        synchronized (students) {
+            Student previous = studentsById.put(student.getStudentId(), student);
+            if (previous != null) {
+                students.remove(previous);
+            }
+            students.add(student);
+        }
+    }
+
+    /**
+     * เพิ่มรายวิชาใหม่เข้าสู่หน่วยความจำ พร้อมอัปเดตดัชนีคีย์หลัก
+     * หากมีรหัสวิชาซ้ำ ข้อมูลเดิมจะถูกแทนที่
+     * @param subject รายวิชาที่ต้องการเพิ่ม
+     */
+    @Override
+    public void addSubject(Subject subject) {
+        putSubject(subject);
+        notifySubjectChanged(subject);
+    }
+
+    /**
+     * เพิ่มรายวิชาเช่นเดียวกับ {@link #addSubject(Subject)} แต่ไม่แจ้งตัวรับฟัง (ผู้เรียกต้องแจ้งเองภายหลัง)
+     */
+    protected void putSubject(Subject subject) {
+        synchronized (subjects) {
+            Subject previous = subjectsById.put(subject.getSubjectId(), subject);
+            if (previous != null) {
+                subjects.remove(previous);
+            }
+            subjects.add(subject);
+        }
+    }
+}
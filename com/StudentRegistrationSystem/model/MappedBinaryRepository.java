@@ -0,0 +1,342 @@
+package com.StudentRegistrationSystem.model;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * ที่เก็บข้อมูลแบบไฟล์ไบนารีที่ Map เข้าหน่วยความจำ ({@link MappedRecordFile}) แยกเป็นไฟล์
+ * students.bin, subjects.bin และ enrollments.bin ในโฟลเดอร์ข้อมูล
+ *
+ * การเปลี่ยนแปลงแต่ละครั้งแก้ไขเฉพาะระเบียนที่เกี่ยวข้อง แทนการเขียนทั้งไฟล์:
+ * <ul>
+ *     <li>การลงทะเบียนใหม่ - ต่อท้ายระเบียนใหม่</li>
+ *     <li>การยกเลิกการลงทะเบียน - เปลี่ยนสถานะของระเบียนเป็นถูกลบ</li>
+ *     <li>การแก้ไขเกรด, จำนวนที่นั่ง และจำนวนผู้ลงทะเบียน - เขียนทับฟิลด์ขนาดคงที่ในที่เดิม</li>
+ * </ul>
+ * ครั้งแรกที่เปิดโฟลเดอร์ที่ยังไม่มีไฟล์ .bin ข้อมูลจะถูกนำเข้าจากไฟล์ CSV ในโฟลเดอร์เดียวกัน
+ */
+public class MappedBinaryRepository extends InMemoryRepository {
+
+    private static final String STUDENTS_BIN = "students.bin";
+    private static final String SUBJECTS_BIN = "subjects.bin";
+    private static final String ENROLLMENTS_BIN = "enrollments.bin";
+
+    // --- ตำแหน่งของฟิลด์ขนาดคงที่ใน payload ที่แก้ไขในที่เดิมได้ ---
+    private static final int SUBJECT_MAX_CAPACITY = 0;
+    private static final int SUBJECT_CURRENT_ENROLLMENT = 4;
+    private static final int ENROLLMENT_GRADE = 16;
+
+    /**
+     * ช่องเกรดขนาดคงที่: ความยาว 1 ไบต์ ตามด้วยข้อความสูงสุด 7 ไบต์
+     * เกรดที่ยาวกว่านี้ถูกเก็บเป็น String ต่อท้ายระเบียน และการแก้ไขจะต่อท้ายระเบียนใหม่แทนการเขียนทับ
+     */
+    private static final int GRADE_SLOT_BYTES = 8;
+    private static final int NULL_GRADE = 0xFF;
+    private static final int OVERFLOW_GRADE = 0xFE;
+
+    private final String dataDirectory;
+    private final MappedRecordFile studentsFile;
+    private final MappedRecordFile subjectsFile;
+    private final MappedRecordFile enrollmentsFile;
+
+    // --- ตำแหน่งของระเบียนในไฟล์ สำหรับแก้ไขหรือลบภายหลัง ---
+    private final Map<String, Long> studentOffsets = new ConcurrentHashMap<>();
+    private final Map<String, Long> subjectOffsets = new ConcurrentHashMap<>();
+    private final Map<String, Long> enrollmentOffsets = new ConcurrentHashMap<>();
+
+    /**
+     * เปิดไฟล์ข้อมูลในโฟลเดอร์ที่กำหนด และโหลดทุกระเบียนที่ยังไม่ถูกลบเข้าหน่วยความจำ
+     *
+     * @param dataDirectory โฟลเดอร์ที่เก็บไฟล์ .bin (และไฟล์ CSV สำหรับการนำเข้าครั้งแรก)
+     */
+    public MappedBinaryRepository(String dataDirectory) {
+        this.dataDirectory = dataDirectory;
+        try {
+            this.studentsFile = new MappedRecordFile(new File(dataDirectory, STUDENTS_BIN).getPath());
+            this.subjectsFile = new MappedRecordFile(new File(dataDirectory, SUBJECTS_BIN).getPath());
+            this.enrollmentsFile = new MappedRecordFile(new File(dataDirectory, ENROLLMENTS_BIN).getPath());
+            if (studentsFile.isEmpty() && subjectsFile.isEmpty() && enrollmentsFile.isEmpty()) {
+                importCsv();
+            } else {
+                initialize(readStudents(), readSubjects(), readEnrollments());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error opening mapped data files in: " + dataDirectory, e);
+        }
+    }
+
+    /**
+     * นำเข้าข้อมูลจากไฟล์ CSV ในโฟลเดอร์เดียวกัน แล้วเขียนเป็นระเบียนในไฟล์ .bin
+     */
+    private void importCsv() {
+        DataAccessService csv = new DataAccessService(dataDirectory, DataAccessService.PersistenceMode.CSV);
+        List<Student> students = csv.getAllStudents();
+        List<Subject> subjects = csv.getAllSubjects();
+        List<Enrollment> enrollments = csv.getAllEnrollments();
+        initialize(students, subjects, enrollments);
+        students.forEach(this::appendStudent);
+        subjects.forEach(this::appendSubject);
+        enrollments.forEach(e -> appendEnrollment(e, false));
+        studentsFile.force();
+        subjectsFile.force();
+        enrollmentsFile.force();
+    }
+
+    // --- การอ่านระเบียน ---
+
+    private List<Student> readStudents() throws IOException {
+        List<Student> students = new ArrayList<>();
+        studentsFile.forEachLive((offset, r) -> {
+            Student s = new Student();
+            long epochDay = r.getLong();
+            s.setDateOfBirth(epochDay == Long.MIN_VALUE ? null : LocalDate.ofEpochDay(epochDay));
+            s.setStudentId(MappedRecordFile.getString(r));
+            s.setPrefix(MappedRecordFile.getString(r));
+            s.setFirstName(MappedRecordFile.getString(r));
+            s.setLastName(MappedRecordFile.getString(r));
+            s.setSchool(MappedRecordFile.getString(r));
+            s.setEmail(MappedRecordFile.getString(r));
+            students.add(s);
+            studentOffsets.put(s.getStudentId(), offset);
+        });
+        return students;
+    }
+
+    private List<Subject> readSubjects() throws IOException {
+        List<Subject> subjects = new ArrayList<>();
+        subjectsFile.forEachLive((offset, r) -> {
+            Subject s = new Subject();
+            s.setMaxCapacity(r.getInt());
+            s.setCurrentEnrollment(r.getInt());
+            s.setCredits(r.getInt());
+            s.setSubjectId(MappedRecordFile.getString(r));
+            s.setSubjectName(MappedRecordFile.getString(r));
+            s.setInstructorName(MappedRecordFile.getString(r));
+            s.setPrerequisiteId(MappedRecordFile.getString(r));
+            subjects.add(s);
+            subjectOffsets.put(s.getSubjectId(), offset);
+        });
+        return subjects;
+    }
+
+    private List<Enrollment> readEnrollments() throws IOException {
+        List<Enrollment> enrollments = new ArrayList<>();
+        enrollmentsFile.forEachLive((offset, r) -> {
+            Enrollment e = new Enrollment();
+            e.setEnrollmentId(r.getInt());
+            long epochSecond = r.getLong();
+            e.setEnrollmentDate(LocalDateTime.ofEpochSecond(epochSecond, r.getInt(), ZoneOffset.UTC));
+            int gradeLength = Byte.toUnsignedInt(r.get());
+            byte[] slot = new byte[GRADE_SLOT_BYTES - 1];
+            r.get(slot);
+            e.setStudentId(MappedRecordFile.getString(r));
+            e.setSubjectId(MappedRecordFile.getString(r));
+            if (gradeLength == OVERFLOW_GRADE) {
+                e.setGrade(MappedRecordFile.getString(r));
+            } else if (gradeLength != NULL_GRADE) {
+                e.setGrade(new String(slot, 0, gradeLength, StandardCharsets.UTF_8));
+            }
+            enrollments.add(e);
+            enrollmentOffsets.putIfAbsent(enrollmentKey(e.getStudentId(), e.getSubjectId()), offset);
+        });
+        return enrollments;
+    }
+
+    // --- การเขียนระเบียน ---
+
+    /**
+     * ต่อท้ายระเบียนใหม่
+     *
+     * @throws UncheckedIOException หากต่อท้ายระเบียนไม่สำเร็จ (เช่น ไฟล์เต็ม)
+     * @param replace true: ระเบียนใหม่แทนที่ระเบียนเดิมที่มีคีย์เดียวกัน (ระเบียนเดิมถูกเปลี่ยนสถานะเป็นถูกลบ)
+     *                false: เก็บระเบียนเดิมไว้ และอ้างอิงระเบียนแรกของคีย์นั้นเช่นเดียวกับดัชนีในหน่วยความจำ
+     *                (ข้อมูลการลงทะเบียนที่ซ้ำกันใน CSV จึงไม่หายไป)
+     */
+    private void appendRecord(MappedRecordFile file, Map<String, Long> offsets, String key, boolean replace,
+                              Consumer<ByteBuffer> payload) {
+        try {
+            long offset = file.append(payload);
+            if (!replace) {
+                offsets.putIfAbsent(key, offset);
+                return;
+            }
+            Long previous = offsets.put(key, offset);
+            if (previous != null) {
+                file.markDeleted(previous);
+            }
+        } catch (IOException e) {
+            // เช่น ไฟล์เต็ม: ต้องแจ้งผู้เรียก เพื่อไม่ให้แจ้งผลสำเร็จทั้งที่ข้อมูลไม่ได้ถูกเขียนลงไฟล์
+            throw new UncheckedIOException("Error appending record for: " + key, e);
+        }
+    }
+
+    private void appendStudent(Student s) {
+        appendRecord(studentsFile, studentOffsets, s.getStudentId(), true, r -> {
+            r.putLong(s.getDateOfBirth() == null ? Long.MIN_VALUE : s.getDateOfBirth().toEpochDay());
+            MappedRecordFile.putString(r, s.getStudentId());
+            MappedRecordFile.putString(r, s.getPrefix());
+            MappedRecordFile.putString(r, s.getFirstName());
+            MappedRecordFile.putString(r, s.getLastName());
+            MappedRecordFile.putString(r, s.getSchool());
+            MappedRecordFile.putString(r, s.getEmail());
+        });
+    }
+
+    private void appendSubject(Subject s) {
+        appendRecord(subjectsFile, subjectOffsets, s.getSubjectId(), true, r -> {
+            r.putInt(s.getMaxCapacity());
+            r.putInt(s.getCurrentEnrollment());
+            r.putInt(s.getCredits());
+            MappedRecordFile.putString(r, s.getSubjectId());
+            MappedRecordFile.putString(r, s.getSubjectName());
+            MappedRecordFile.putString(r, s.getInstructorName());
+            MappedRecordFile.putString(r, s.getPrerequisiteId());
+        });
+    }
+
+    private void appendEnrollment(Enrollment e, boolean replace) {
+        byte[] gradeSlot = gradeSlot(e.getGrade());
+        String key = enrollmentKey(e.getStudentId(), e.getSubjectId());
+        appendRecord(enrollmentsFile, enrollmentOffsets, key, replace, r -> {
+            r.putInt(e.getEnrollmentId());
+            r.putLong(e.getEnrollmentDate().toEpochSecond(ZoneOffset.UTC));
+            r.putInt(e.getEnrollmentDate().getNano());
+            if (gradeSlot != null) {
+                r.put(gradeSlot);
+            } else {
+                r.put((byte) OVERFLOW_GRADE).put(new byte[GRADE_SLOT_BYTES - 1]);
+            }
+            MappedRecordFile.putString(r, e.getStudentId());
+            MappedRecordFile.putString(r, e.getSubjectId());
+            if (gradeSlot == null) {
+                MappedRecordFile.putString(r, e.getGrade());
+            }
+        });
+    }
+
+    /**
+     * @return ช่องเกรดขนาดคงที่ หรือ null หากเกรดยาวเกินกว่าช่อง
+     */
+    private static byte[] gradeSlot(String grade) {
+        byte[] slot = new byte[GRADE_SLOT_BYTES];
+        if (grade == null) {
+            slot[0] = (byte) NULL_GRADE;
+            return slot;
+        }
+        byte[] bytes = grade.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length >= GRADE_SLOT_BYTES) {
+            return null;
+        }
+        slot[0] = (byte) bytes.length;
+        System.arraycopy(bytes, 0, slot, 1, bytes.length);
+        return slot;
+    }
+
+    /**
+     * @return ตำแหน่งในไฟล์ของฟิลด์ขนาดคงที่ในระเบียนที่กำหนด
+     */
+    private static long field(long recordOffset, int fieldOffset) {
+        return recordOffset + MappedRecordFile.RECORD_HEADER_BYTES + fieldOffset;
+    }
+
+    // --- การบันทึกการเปลี่ยนแปลง ---
+
+    @Override
+    public void addStudent(Student student) {
+        appendStudent(student);
+        super.addStudent(student);
+    }
+
+    @Override
+    public void addSubject(Subject subject) {
+        appendSubject(subject);
+        super.addSubject(subject);
+    }
+
+    @Override
+    public synchronized void recordNewEnrollment(Enrollment enrollment) {
+        appendEnrollment(enrollment, false);
+    }
+
+    @Override
+    public synchronized void recordDroppedEnrollment(Enrollment enrollment) {
+        Long offset = enrollmentOffsets.remove(enrollmentKey(enrollment.getStudentId(), enrollment.getSubjectId()));
+        if (offset != null) {
+            enrollmentsFile.markDeleted(offset);
+        }
+    }
+
+    /**
+     * เขียนทับช่องเกรดในที่เดิม หากเกรดใหม่ยาวเกินกว่าช่อง จะต่อท้ายระเบียนใหม่แทน
+     */
+    @Override
+    public synchronized void recordGradeChange(Enrollment enrollment) {
+        Long offset = enrollmentOffsets.get(enrollmentKey(enrollment.getStudentId(), enrollment.getSubjectId()));
+        byte[] slot = gradeSlot(enrollment.getGrade());
+        if (offset != null && slot != null) {
+            enrollmentsFile.putBytes(field(offset, ENROLLMENT_GRADE), slot);
+        } else {
+            appendEnrollment(enrollment, true);
+        }
+    }
+
+    @Override
+    public void recordCapacityChange(Subject subject) {
+        Long offset = subjectOffsets.get(subject.getSubjectId());
+        if (offset != null) {
+            subjectsFile.putInt(field(offset, SUBJECT_MAX_CAPACITY), subject.getMaxCapacity());
+        }
+    }
+
+    @Override
+    public void flushEnrollments() {
+        enrollmentsFile.force();
+    }
+
+    /**
+     * ระเบียนการลงทะเบียนถูกเขียนทีละรายการอยู่แล้ว จึงเพียงบังคับเขียนลงดิสก์
+     */
+    @Override
+    public void saveEnrollments() {
+        flushEnrollments();
+    }
+
+    /**
+     * เขียนทับจำนวนที่นั่งและจำนวนผู้ลงทะเบียนของทุกรายวิชาในที่เดิม แล้วบังคับเขียนลงดิสก์
+     */
+    @Override
+    public void saveSubjects() {
+        for (Subject subject : getAllSubjects()) {
+            Long offset = subjectOffsets.get(subject.getSubjectId());
+            if (offset != null) {
+                subjectsFile.putInt(field(offset, SUBJECT_MAX_CAPACITY), subject.getMaxCapacity());
+                subjectsFile.putInt(field(offset, SUBJECT_CURRENT_ENROLLMENT), subject.getCurrentEnrollment());
+            }
+        }
+        subjectsFile.force();
+    }
+
+    @Override
+    public String getDataDirectory() {
+        return dataDirectory;
+    }
+
+    @Override
+    public void close() {
+        saveSubjects();
+        studentsFile.close();
+        subjectsFile.close();
+        enrollmentsFile.close();
+    }
+}
@@ -0,0 +1,215 @@
+package com.StudentRegistrationSystem.model;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+/**
+ * ไฟล์ระเบียนแบบไบนารีที่ Map เข้าหน่วยความจำ (Memory-mapped File) สำหรับ {@link MappedBinaryRepository}
+ * การเขียนแต่ละระเบียนเป็นเพียงการคัดลอกไบต์ลงหน่วยความจำ ระบบปฏิบัติการจะเขียนหน้าที่เปลี่ยนลงดิสก์เอง
+ * หรือบังคับเขียนทันทีด้วย {@link #force()}
+ *
+ * โครงสร้างไฟล์:
+ * <pre>
+ *     MAGIC (int) | VERSION (int) | USED_LENGTH (long) | record | record | ...
+ *     record = LENGTH (int) | STATUS (byte) | payload
+ * </pre>
+ * USED_LENGTH คือตำแหน่งท้ายระเบียนสุดท้าย (ส่วนที่เหลือของไฟล์เป็นพื้นที่ว่างที่จองไว้สำหรับต่อท้าย)
+ * ระเบียนที่ถูกลบหรือถูกแทนที่จะถูกเปลี่ยน STATUS เป็น {@link #DELETED} แทนการย้ายข้อมูล
+ * ฟิลด์ขนาดคงที่ใน payload สามารถแก้ไขในที่เดิมได้ผ่าน {@link #putInt(long, int)} และ {@link #putBytes(long, byte[])}
+ *
+ * ขนาดไฟล์สูงสุดคือ 2 GB ตามข้อจำกัดของ {@link MappedByteBuffer}
+ */
+class MappedRecordFile {
+
+    private static final int MAGIC = 0x53524D42; // "SRMB"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+    private static final int USED_LENGTH_OFFSET = 8;
+    private static final int INITIAL_SIZE = 1 << 20;
+    /** ขนาดสูงสุดของระเบียนหนึ่งรายการ (String แต่ละค่ายาวได้ไม่เกิน 65,535 ไบต์) */
+    private static final int MAX_RECORD_BYTES = 1 << 19;
+
+    /** ขนาดของ LENGTH และ STATUS ที่นำหน้า payload ของทุกระเบียน */
+    static final int RECORD_HEADER_BYTES = 5;
+    static final byte LIVE = 1;
+    static final byte DELETED = 0;
+
+    private static final int NULL_STRING = 0xFFFF;
+
+    /**
+     * ผู้อ่านระเบียนระหว่าง {@link #forEachLive(RecordVisitor)}
+     */
+    interface RecordVisitor {
+        /**
+         * @param recordOffset ตำแหน่งของระเบียนในไฟล์ (ใช้อ้างอิงเพื่อแก้ไขหรือลบภายหลัง)
+         * @param payload      ByteBuffer ที่ตำแหน่งปัจจุบันอยู่ที่ต้น payload
+         */
+        void visit(long recordOffset, ByteBuffer payload);
+    }
+
+    private final File file;
+    private final FileChannel channel;
+    private final ByteBuffer scratch = ByteBuffer.allocate(MAX_RECORD_BYTES);
+    private MappedByteBuffer buffer;
+    private int usedLength;
+
+    /**
+     * เปิดไฟล์ระเบียน หากยังไม่มีไฟล์จะถูกสร้างขึ้นใหม่พร้อมพื้นที่ว่างเริ่มต้น
+     */
+    MappedRecordFile(String filePath) throws IOException {
+        this.file = new File(filePath);
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        long size = channel.size();
+        if (size == 0) {
+            map(INITIAL_SIZE);
+            buffer.putInt(0, MAGIC).putInt(4, VERSION);
+            setUsedLength(HEADER_BYTES);
+            return;
+        }
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Mapped file too large: " + filePath);
+        }
+        map((int) size);
+        if (buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a mapped record file: " + filePath);
+        }
+        int version = buffer.getInt(4);
+        if (version != VERSION) {
+            throw new IOException("Unsupported mapped record file version " + version + ": " + filePath);
+        }
+        long used = buffer.getLong(USED_LENGTH_OFFSET);
+        if (used < HEADER_BYTES || used > size) {
+            throw new IOException("Corrupted mapped record file (bad length): " + filePath);
+        }
+        this.usedLength = (int) used;
+    }
+
+    private void map(int size) throws IOException {
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+    }
+
+    private void setUsedLength(int usedLength) {
+        this.usedLength = usedLength;
+        buffer.putLong(USED_LENGTH_OFFSET, usedLength);
+    }
+
+    /**
+     * @return true หากไฟล์ยังไม่มีระเบียนใดๆ (เพิ่งถูกสร้าง)
+     */
+    synchronized boolean isEmpty() {
+        return usedLength == HEADER_BYTES;
+    }
+
+    /**
+     * อ่านทุกระเบียนที่ยังไม่ถูกลบตามลำดับในไฟล์ โดยอ่านจากหน่วยความจำที่ Map ไว้โดยตรง
+     */
+    synchronized void forEachLive(RecordVisitor visitor) throws IOException {
+        int offset = HEADER_BYTES;
+        while (offset < usedLength) {
+            int length = buffer.getInt(offset);
+            if (length < RECORD_HEADER_BYTES || offset + length > usedLength) {
+                throw new IOException("Corrupted mapped record file at offset " + offset + ": " + file.getPath());
+            }
+            if (buffer.get(offset + 4) == LIVE) {
+                ByteBuffer payload = buffer.duplicate();
+                payload.position(offset + RECORD_HEADER_BYTES).limit(offset + length);
+                visitor.visit(offset, payload);
+            }
+            offset += length;
+        }
+    }
+
+    /**
+     * ต่อท้ายระเบียนใหม่ หากพื้นที่ที่ Map ไว้ไม่พอจะขยายไฟล์เป็นสองเท่าแล้ว Map ใหม่
+     *
+     * @return ตำแหน่งของระเบียนที่ต่อท้าย
+     */
+    synchronized long append(Consumer<ByteBuffer> payload) throws IOException {
+        scratch.clear();
+        scratch.position(RECORD_HEADER_BYTES);
+        payload.accept(scratch);
+        int length = scratch.position();
+        scratch.putInt(0, length).put(4, LIVE);
+        long required = (long) usedLength + length;
+        if (required > buffer.capacity()) {
+            long newSize = Math.max(required, (long) buffer.capacity() * 2);
+            if (newSize > Integer.MAX_VALUE) {
+                if (required > Integer.MAX_VALUE) {
+                    throw new IOException("Mapped file is full: " + file.getPath());
+                }
+                newSize = Integer.MAX_VALUE;
+            }
+            map((int) newSize);
+        }
+        int offset = usedLength;
+        buffer.put(offset, scratch.array(), 0, length);
+        setUsedLength(offset + length);
+        return offset;
+    }
+
+    synchronized void markDeleted(long recordOffset) {
+        buffer.put((int) recordOffset + 4, DELETED);
+    }
+
+    /**
+     * แก้ไขค่า int ในที่เดิม
+     *
+     * @param payloadOffset ตำแหน่งของระเบียน + {@link #RECORD_HEADER_BYTES} + ตำแหน่งของฟิลด์ใน payload
+     */
+    synchronized void putInt(long payloadOffset, int value) {
+        buffer.putInt((int) payloadOffset, value);
+    }
+
+    synchronized void putBytes(long payloadOffset, byte[] value) {
+        buffer.put((int) payloadOffset, value);
+    }
+
+    /**
+     * บังคับเขียนหน้าที่เปลี่ยนแปลงทั้งหมดลงดิสก์
+     */
+    synchronized void force() {
+        buffer.force();
+    }
+
+    synchronized void close() {
+        buffer.force();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            System.err.println("Error closing mapped file: " + file.getPath());
+            e.printStackTrace();
+        }
+    }
+
+    // --- เมธอดช่วยสำหรับ String ที่อาจเป็น null (ความยาว 0xFFFF หมายถึง null) ---
+
+    static void putString(ByteBuffer r, String value) {
+        if (value == null) {
+            r.putShort((short) NULL_STRING);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length >= NULL_STRING) {
+            throw new IllegalArgumentException("Value too long for mapped file: " + bytes.length + " bytes");
+        }
+        r.putShort((short) bytes.length);
+        r.put(bytes);
+    }
+
+    static String getString(ByteBuffer r) {
+        int length = Short.toUnsignedInt(r.getShort());
+        if (length == NULL_STRING) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        r.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
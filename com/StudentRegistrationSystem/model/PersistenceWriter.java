@@ -0,0 +1,152 @@
+package com.StudentRegistrationSystem.model;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * เธรดสำหรับบันทึกข้อมูลลงดิสก์แบบรวมกลุ่ม (Group Commit)
+ * แทนที่ทุกการลงทะเบียนหรือการแก้ไขเกรดจะเรียก saveEnrollments() / saveSubjects() ทันที
+ * Service ต่างๆ จะเพียงแจ้งว่าข้อมูลส่วนใดเปลี่ยนแปลง (Dirty) แล้วเธรดนี้จะบันทึกรวมกันครั้งเดียว
+ * เมื่อครบช่วงเวลาที่กำหนด หรือเมื่อจำนวนการเปลี่ยนแปลงที่รออยู่ครบตามขนาดกลุ่ม (Batch Size)
+ *
+ * ผู้เรียกที่ต้องการรับประกันว่าข้อมูลถูกเขียนลงดิสก์แล้ว สามารถรอ {@link CompletableFuture} ที่ได้รับคืนไป
+ * Future จะเสร็จสมบูรณ์หลังจากข้อมูลถูกบังคับลงดิสก์ (fsync) แล้วเท่านั้น และเสร็จแบบ Exception หากการบันทึกล้มเหลว
+ */
+public class PersistenceWriter {
+
+    public static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 50;
+    public static final int DEFAULT_MAX_BATCH_SIZE = 256;
+
+    private final DataRepository dataAccess;
+    private final long flushIntervalMillis;
+    private final int maxBatchSize;
+    private final Thread thread;
+
+    // --- สถานะของกลุ่มการเปลี่ยนแปลงที่รอการบันทึก (ป้องกันด้วย lock) ---
+    private final Object lock = new Object();
+    private boolean enrollmentsDirty;
+    private boolean subjectsDirty;
+    private int pendingCount;
+    private long firstPendingAt;
+    private CompletableFuture<Void> pendingFlush = new CompletableFuture<>();
+    private boolean running = true;
+
+    /**
+     * Constructor ของ PersistenceWriter โดยใช้ค่าช่วงเวลาและขนาดกลุ่มเริ่มต้น
+     */
+    public PersistenceWriter(DataRepository dataAccess) {
+        this(dataAccess, DEFAULT_FLUSH_INTERVAL_MILLIS, DEFAULT_MAX_BATCH_SIZE);
+    }
+
+    /**
+     * Constructor ของ PersistenceWriter
+     *
+     * @param dataAccess          Service ที่ใช้บันทึกข้อมูลลงไฟล์
+     * @param flushIntervalMillis ระยะเวลาสูงสุด (มิลลิวินาที) ที่การเปลี่ยนแปลงจะรออยู่ก่อนถูกบันทึก
+     * @param maxBatchSize        จำนวนการเปลี่ยนแปลงที่จะทำให้บันทึกทันทีโดยไม่ต้องรอครบเวลา
+     */
+    public PersistenceWriter(DataRepository dataAccess, long flushIntervalMillis, int maxBatchSize) {
+        this.dataAccess = dataAccess;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.maxBatchSize = maxBatchSize;
+        this.thread = new Thread(this::run, "persistence-writer");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * แจ้งว่าข้อมูลส่วนใดมีการเปลี่ยนแปลงและต้องถูกบันทึก
+     *
+     * @param enrollments ข้อมูลการลงทะเบียนเปลี่ยนแปลงหรือไม่
+     * @param subjects    ข้อมูลรายวิชา (เช่น จำนวนผู้ลงทะเบียน) เปลี่ยนแปลงหรือไม่
+     * @return Future ที่จะเสร็จสมบูรณ์เมื่อการเปลี่ยนแปลงนี้ถูกบันทึกลงดิสก์แล้ว
+     *         (หรือเสร็จแบบ {@link java.io.UncheckedIOException} หากบันทึกไม่สำเร็จ)
+     */
+    public CompletableFuture<Void> markDirty(boolean enrollments, boolean subjects) {
+        synchronized (lock) {
+            if (!running) {
+                // หลังจากปิดเธรดแล้ว ให้บันทึกแบบทันที (Synchronous) เพื่อไม่ให้ข้อมูลสูญหาย
+                try {
+                    flush(enrollments, subjects);
+                } catch (RuntimeException e) {
+                    return CompletableFuture.failedFuture(e);
+                }
+                return CompletableFuture.completedFuture(null);
+            }
+            enrollmentsDirty |= enrollments;
+            subjectsDirty |= subjects;
+            if (pendingCount++ == 0) {
+                firstPendingAt = System.currentTimeMillis();
+            }
+            lock.notifyAll();
+            return pendingFlush;
+        }
+    }
+
+    /**
+     * ลูปการทำงานของเธรดบันทึกข้อมูล: รอจนครบเวลาหรือครบขนาดกลุ่ม แล้วบันทึกการเปลี่ยนแปลงทั้งหมดในครั้งเดียว
+     */
+    private void run() {
+        while (true) {
+            boolean flushEnrollments;
+            boolean flushSubjects;
+            CompletableFuture<Void> batch;
+            synchronized (lock) {
+                try {
+                    while (running && pendingCount == 0) {
+                        lock.wait();
+                    }
+                    long remaining;
+                    while (running && pendingCount < maxBatchSize
+                            && (remaining = firstPendingAt + flushIntervalMillis - System.currentTimeMillis()) > 0) {
+                        lock.wait(remaining);
+                    }
+                } catch (InterruptedException e) {
+                    running = false;
+                }
+                if (pendingCount == 0) {
+                    if (!running) {
+                        return;
+                    }
+                    continue;
+                }
+                flushEnrollments = enrollmentsDirty;
+                flushSubjects = subjectsDirty;
+                batch = pendingFlush;
+                enrollmentsDirty = false;
+                subjectsDirty = false;
+                pendingCount = 0;
+                pendingFlush = new CompletableFuture<>();
+            }
+            try {
+                flush(flushEnrollments, flushSubjects);
+                batch.complete(null);
+            } catch (RuntimeException e) {
+                batch.completeExceptionally(e);
+            }
+        }
+    }
+
+    private void flush(boolean enrollments, boolean subjects) {
+        if (enrollments) {
+            dataAccess.flushEnrollments();
+        }
+        if (subjects) {
+            dataAccess.saveSubjects();
+        }
+    }
+
+    /**
+     * หยุดเธรดบันทึกข้อมูล โดยจะบันทึกการเปลี่ยนแปลงที่ยังค้างอยู่ให้เสร็จก่อน
+     */
+    public void shutdown() {
+        synchronized (lock) {
+            running = false;
+            lock.notifyAll();
+        }
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
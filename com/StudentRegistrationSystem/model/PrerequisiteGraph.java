@@ -0,0 +1,328 @@
+package com.StudentRegistrationSystem.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Predicate;
+
+/**
+ * กราฟวิชาบังคับก่อน (Prerequisite DAG) ที่ถูกคอมไพล์ครั้งเดียวจากรายวิชาทั้งหมด
+ *
+ * ค่า prerequisiteId ของรายวิชารองรับเงื่อนไขหลายวิชาในรูปแบบ "OR ของกลุ่ม AND":
+ * <ul>
+ *     <li>{@code 05501001} : ต้องเคยลงทะเบียนวิชา 05501001 (รูปแบบเดิม)</li>
+ *     <li>{@code 05501001+05501002} : ต้องเคยลงทะเบียนทั้งสองวิชา (AND)</li>
+ *     <li>{@code 05501002|05502103} : เคยลงทะเบียนวิชาใดวิชาหนึ่ง (OR)</li>
+ *     <li>{@code 05501001+05501002|05502103} : (05501001 และ 05501002) หรือ 05502103</li>
+ * </ul>
+ * วิชาที่ต่อกันเป็นทอดๆ (A ต้องผ่าน B และ B ต้องผ่าน C) ถูกรองรับโดยธรรมชาติ เพราะการลงทะเบียน B ได้แปลว่าผ่าน C แล้ว
+ *
+ * ทุกรายวิชาได้รับหมายเลขบิตของตัวเอง วิชาที่นักเรียนลงทะเบียนแล้วจึงแทนด้วยบิตเซ็ต ({@code long[]})
+ * และแต่ละกลุ่ม AND ถูกเก็บเป็นคู่ (ตำแหน่ง word, mask) เฉพาะ word ที่มีบิต ทำให้การตรวจสอบหนึ่งวิชา
+ * ใช้การ AND เพียงไม่กี่ครั้ง และตรวจสอบได้ทั้งแคตตาล็อกในการวนรอบเดียว
+ */
+public class PrerequisiteGraph {
+
+    private static final String OR = "\\|";
+    private static final String AND = "\\+";
+
+    /**
+     * หมายเลขบิตของแต่ละรหัสวิชา (รวมรหัสที่ถูกอ้างถึงเป็นวิชาบังคับก่อน แต่ไม่มีอยู่ในแคตตาล็อก)
+     */
+    private final Map<String, Integer> bitBySubjectId = new HashMap<>();
+    private final List<String> subjectIdByBit = new ArrayList<>();
+
+    /**
+     * จำนวนรายวิชาในแคตตาล็อก (บิต 0 ถึง catalogSize-1 เป็นรายวิชาในแคตตาล็อกตามลำดับเดิม)
+     */
+    private final int catalogSize;
+
+    /**
+     * เงื่อนไขที่คอมไพล์แล้วของแต่ละรายวิชาในแคตตาล็อก (null หมายถึงไม่มีวิชาบังคับก่อน)
+     */
+    private final Clause[][] requirements;
+
+    /**
+     * ค่า prerequisiteId ที่ใช้คอมไพล์ของแต่ละรายวิชาในแคตตาล็อก (ใช้ตรวจว่ากราฟยังตรงกับข้อมูลปัจจุบันหรือไม่)
+     */
+    private final String[] expressions;
+
+    /**
+     * กลุ่ม AND หนึ่งกลุ่ม: ผ่านเมื่อทุกบิตใน mask ถูกตั้งค่าในบิตเซ็ตของนักเรียน
+     */
+    private static final class Clause {
+        final int[] words;
+        final long[] masks;
+        final int[] bits;
+
+        Clause(int[] bits) {
+            this.bits = bits;
+            Map<Integer, Long> byWord = new HashMap<>();
+            for (int bit : bits) {
+                byWord.merge(bit >>> 6, 1L << bit, (x, y) -> x | y);
+            }
+            this.words = new int[byWord.size()];
+            this.masks = new long[byWord.size()];
+            int i = 0;
+            for (Map.Entry<Integer, Long> entry : byWord.entrySet()) {
+                words[i] = entry.getKey();
+                masks[i] = entry.getValue();
+                i++;
+            }
+        }
+
+        boolean isSatisfiedBy(long[] completed) {
+            for (int i = 0; i < words.length; i++) {
+                int word = words[i];
+                if (word >= completed.length || (completed[word] & masks[i]) != masks[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * สร้างกราฟจากรายวิชาทั้งหมดในแคตตาล็อก และตรวจหาวงจร (เช่น A ต้องผ่าน B และ B ต้องผ่าน A)
+     * หากพบวงจรจะแจ้งเตือนทาง System.err (รายวิชาในวงจรจะไม่มีทางผ่านเงื่อนไข เว้นแต่เคยลงทะเบียนไว้แล้ว)
+     *
+     * @param subjects รายวิชาทั้งหมดในแคตตาล็อก
+     */
+    public PrerequisiteGraph(List<Subject> subjects) {
+        for (Subject subject : subjects) {
+            bitFor(subject.getSubjectId());
+        }
+        this.catalogSize = subjectIdByBit.size();
+        this.requirements = new Clause[catalogSize][];
+        this.expressions = new String[catalogSize];
+        for (Subject subject : subjects) {
+            expressions[bitBySubjectId.get(subject.getSubjectId())] = subject.getPrerequisiteId();
+            String[][] parsed = parse(subject.getPrerequisiteId());
+            if (parsed.length == 0) {
+                continue;
+            }
+            Clause[] clauses = new Clause[parsed.length];
+            for (int c = 0; c < parsed.length; c++) {
+                int[] bits = new int[parsed[c].length];
+                for (int i = 0; i < bits.length; i++) {
+                    bits[i] = bitFor(parsed[c][i]);
+                }
+                clauses[c] = new Clause(bits);
+            }
+            requirements[bitBySubjectId.get(subject.getSubjectId())] = clauses;
+        }
+        List<String> cycle = findCycle();
+        if (!cycle.isEmpty()) {
+            System.err.println("Prerequisite cycle detected: " + String.join(" -> ", cycle));
+        }
+    }
+
+    /**
+     * แยกเงื่อนไขวิชาบังคับก่อนเป็นกลุ่ม OR ของกลุ่ม AND
+     *
+     * @return อาร์เรย์ของกลุ่ม AND (อาร์เรย์ว่างหากไม่มีเงื่อนไข)
+     */
+    static String[][] parse(String expression) {
+        if (expression == null || expression.trim().isEmpty()) {
+            return new String[0][];
+        }
+        List<String[]> clauses = new ArrayList<>();
+        for (String alternative : expression.split(OR)) {
+            List<String> ids = new ArrayList<>();
+            for (String id : alternative.split(AND)) {
+                if (!id.trim().isEmpty()) {
+                    ids.add(id.trim());
+                }
+            }
+            if (!ids.isEmpty()) {
+                clauses.add(ids.toArray(new String[0]));
+            }
+        }
+        return clauses.toArray(new String[0][]);
+    }
+
+    /**
+     * ตรวจสอบเงื่อนไขวิชาบังคับก่อนโดยตรงจากข้อความ โดยไม่ต้องใช้กราฟ (เช่น สำหรับรายวิชาที่เพิ่มหลังสร้างกราฟ)
+     *
+     * @param expression ค่า prerequisiteId ของรายวิชา
+     * @param isEnrolled ฟังก์ชันตรวจสอบว่านักเรียนลงทะเบียนรายวิชาที่ระบุแล้วหรือไม่
+     */
+    public static boolean isExpressionSatisfied(String expression, Predicate<String> isEnrolled) {
+        String[][] clauses = parse(expression);
+        if (clauses.length == 0) {
+            return true;
+        }
+        for (String[] clause : clauses) {
+            if (Arrays.stream(clause).allMatch(isEnrolled)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return true หากรายวิชานี้อยู่ในกราฟ และเงื่อนไขวิชาบังคับก่อนยังตรงกับที่ใช้คอมไพล์กราฟ
+     *         (false หมายถึงควรสร้างกราฟใหม่ เช่น รายวิชาใหม่ หรือเงื่อนไขถูกแก้ไขโดยโปรเซสอื่น)
+     */
+    public boolean isCurrent(Subject subject) {
+        Integer bit = bitBySubjectId.get(subject.getSubjectId());
+        return bit != null && bit < catalogSize && Objects.equals(expressions[bit], subject.getPrerequisiteId());
+    }
+
+    /**
+     * ตรวจสอบเงื่อนไขวิชาบังคับก่อนของรายวิชาในแคตตาล็อก ด้วยฟังก์ชันตรวจสอบการลงทะเบียนทีละวิชา
+     * (ใช้กับการลงทะเบียนทีละรายการ ซึ่งตรวจสอบผ่านดัชนีได้เร็วโดยไม่ต้องสร้างบิตเซ็ต)
+     */
+    public boolean isSatisfied(String subjectId, Predicate<String> isEnrolled) {
+        Integer bit = bitBySubjectId.get(subjectId);
+        if (bit == null || bit >= catalogSize) {
+            throw new IllegalArgumentException("Subject not in prerequisite graph: " + subjectId);
+        }
+        Clause[] clauses = requirements[bit];
+        if (clauses == null) {
+            return true;
+        }
+        for (Clause clause : clauses) {
+            boolean all = true;
+            for (int b : clause.bits) {
+                if (!isEnrolled.test(subjectIdByBit.get(b))) {
+                    all = false;
+                    break;
+                }
+            }
+            if (all) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * แปลงรหัสวิชาที่นักเรียนลงทะเบียนแล้วเป็นบิตเซ็ต (รหัสที่ไม่อยู่ในกราฟจะถูกข้าม)
+     */
+    public long[] toBitset(Collection<String> subjectIds) {
+        long[] bits = new long[wordCount()];
+        for (String subjectId : subjectIds) {
+            Integer bit = bitBySubjectId.get(subjectId);
+            if (bit != null) {
+                bits[bit >>> 6] |= 1L << bit;
+            }
+        }
+        return bits;
+    }
+
+    private boolean isSatisfied(int bit, long[] completed) {
+        Clause[] clauses = requirements[bit];
+        if (clauses == null) {
+            return true;
+        }
+        for (Clause clause : clauses) {
+            if (clause.isSatisfiedBy(completed)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * ตรวจสอบเงื่อนไขวิชาบังคับก่อนของทุกรายวิชาในแคตตาล็อกในการวนรอบเดียว
+     *
+     * @param completed บิตเซ็ตของวิชาที่นักเรียนลงทะเบียนแล้ว
+     * @return บิตเซ็ตของรายวิชาที่ผ่านเงื่อนไขวิชาบังคับก่อน (ใช้ {@link #includes(long[], String)} อ่านผลของแต่ละวิชา)
+     */
+    public long[] satisfiedSubjects(long[] completed) {
+        long[] result = new long[wordCount()];
+        for (int bit = 0; bit < catalogSize; bit++) {
+            if (isSatisfied(bit, completed)) {
+                result[bit >>> 6] |= 1L << bit;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return true หากรายวิชานี้อยู่ในกราฟ และบิตของรายวิชาถูกตั้งค่าในบิตเซ็ต (เช่น ผลจาก {@link #satisfiedSubjects(long[])})
+     */
+    public boolean includes(long[] subjectBits, String subjectId) {
+        Integer bit = bitBySubjectId.get(subjectId);
+        return bit != null && (bit >>> 6) < subjectBits.length && (subjectBits[bit >>> 6] & (1L << bit)) != 0;
+    }
+
+    // --- เมธอดช่วยภายในคลาส ---
+
+    private int bitFor(String subjectId) {
+        Integer bit = bitBySubjectId.get(subjectId);
+        if (bit == null) {
+            bit = subjectIdByBit.size();
+            bitBySubjectId.put(subjectId, bit);
+            subjectIdByBit.add(subjectId);
+        }
+        return bit;
+    }
+
+    private int wordCount() {
+        return (subjectIdByBit.size() + 63) >>> 6;
+    }
+
+    /**
+     * ค้นหาวงจรด้วย Depth-first Search แบบไม่ใช้ Recursion (ป้องกัน StackOverflow กับสายวิชาที่ยาวมาก)
+     * สถานะของแต่ละโหนด: 0 = ยังไม่เยี่ยม, 1 = อยู่ในเส้นทางปัจจุบัน, 2 = ตรวจสอบเสร็จแล้ว
+     */
+    private List<String> findCycle() {
+        int[][] edges = new int[catalogSize][];
+        for (int bit = 0; bit < catalogSize; bit++) {
+            edges[bit] = edgesOf(bit);
+        }
+        byte[] state = new byte[catalogSize];
+        int[] parent = new int[catalogSize];
+        for (int root = 0; root < catalogSize; root++) {
+            if (state[root] != 0) {
+                continue;
+            }
+            // สแต็กเก็บ (โหนด, ลำดับของขอบถัดไปที่จะตรวจ)
+            List<int[]> stack = new ArrayList<>();
+            stack.add(new int[]{root, 0});
+            state[root] = 1;
+            parent[root] = -1;
+            while (!stack.isEmpty()) {
+                int[] top = stack.get(stack.size() - 1);
+                if (top[1] == edges[top[0]].length) {
+                    state[top[0]] = 2;
+                    stack.remove(stack.size() - 1);
+                    continue;
+                }
+                int next = edges[top[0]][top[1]++];
+                if (next >= catalogSize || state[next] == 2) {
+                    continue;
+                }
+                if (state[next] == 1) {
+                    List<String> path = new ArrayList<>();
+                    path.add(subjectIdByBit.get(next));
+                    for (int node = top[0]; node != next; node = parent[node]) {
+                        path.add(subjectIdByBit.get(node));
+                    }
+                    path.add(subjectIdByBit.get(next));
+                    Collections.reverse(path);
+                    return path;
+                }
+                state[next] = 1;
+                parent[next] = top[0];
+                stack.add(new int[]{next, 0});
+            }
+        }
+        return Collections.emptyList();
+    }
+
+    private int[] edgesOf(int bit) {
+        Clause[] clauses = requirements[bit];
+        if (clauses == null) {
+            return new int[0];
+        }
+        return Arrays.stream(clauses).flatMapToInt(c -> Arrays.stream(c.bits)).distinct().toArray();
+    }
+}
@@ -0,0 +1,29 @@
+package com.StudentRegistrationSystem.model;
+
+/**
+ * คำขอลงทะเบียนหนึ่งรายการ (คู่ของรหัสนักเรียนและรหัสวิชา) สำหรับการลงทะเบียนแบบกลุ่ม
+ * ผ่าน {@link RegistrationService#registerStudents(java.util.List)}
+ */
+public class RegistrationRequest {
+
+    private final String studentId;
+    private final String subjectId;
+
+    public RegistrationRequest(String studentId, String subjectId) {
+        this.studentId = studentId;
+        this.subjectId = subjectId;
+    }
+
+    public String getStudentId() {
+        return studentId;
+    }
+
+    public String getSubjectId() {
+        return subjectId;
+    }
+
+    @Override
+    public String toString() {
+        return studentId + " -> " + subjectId;
+    }
+}
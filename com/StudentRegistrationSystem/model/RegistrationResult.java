@@ -0,0 +1,34 @@
+package com.StudentRegistrationSystem.model;
+
+/**
+ * ผลลัพธ์ของคำขอลงทะเบียนหนึ่งรายการในการลงทะเบียนแบบกลุ่ม
+ * ข้อความผลลัพธ์อยู่ในรูปแบบเดียวกับ {@link RegistrationService#registerStudent(Student, Subject)}
+ * ("Success: ..." หรือ "Error: ...")
+ */
+public class RegistrationResult {
+
+    private final RegistrationRequest request;
+    private final String message;
+
+    public RegistrationResult(RegistrationRequest request, String message) {
+        this.request = request;
+        this.message = message;
+    }
+
+    public RegistrationRequest getRequest() {
+        return request;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public boolean isSuccess() {
+        return message.startsWith("Success");
+    }
+
+    @Override
+    public String toString() {
+        return request + ": " + message;
+    }
+}
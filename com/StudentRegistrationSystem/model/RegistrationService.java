@@ -1,7 +1,20 @@
 package com.StudentRegistrationSystem.model;
 
+import com.StudentRegistrationSystem.metrics.Counter;
+import com.StudentRegistrationSystem.metrics.MetricsRegistry;
+import com.StudentRegistrationSystem.metrics.RegistrationEvent;
+import com.StudentRegistrationSystem.metrics.Timer;
+
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 /**
  * Service Class สำหรับจัดการตรรกะทางธุรกิจ (Business Logic) ที่เกี่ยวข้องกับการลงทะเบียนเรียนของนักเรียน
@@ -13,7 +26,34 @@ public class RegistrationService {
      * อ้างอิงไปยัง Service ที่จัดการการเข้าถึงข้อมูล
      * ใช้ final เพื่อให้แน่ใจว่าจะถูกกำหนดค่าเพียงครั้งเดียวใน Constructor
      */
-    private final DataAccessService dataAccess;
+    private final DataRepository dataAccess;
+
+    /**
+     * เธรดบันทึกข้อมูลแบบรวมกลุ่ม (Group Commit) หากเป็น null จะบันทึกลงไฟล์ทันทีในทุกการลงทะเบียน
+     */
+    private final PersistenceWriter persistenceWriter;
+
+    /**
+     * กลไกการจองที่นั่งที่ป้องกันการลงทะเบียนเกินความจุ เมื่อมีการลงทะเบียนจากหลายเธรดพร้อมกัน
+     */
+    private final SeatReservationEngine seatReservation = new SeatReservationEngine();
+
+    /**
+     * กลไกการลงทะเบียนแบบแบ่งส่วนตามรายวิชา หากไม่เป็น null การลงทะเบียนและการยกเลิกของแต่ละรายวิชา
+     * จะทำบนเธรดของ Shard ที่เป็นเจ้าของรายวิชานั้น โดยยังถือ Lock ของนักเรียนไว้ระหว่างนั้นด้วย
+     * เพราะกฎวิชาบังคับก่อนอ่านการลงทะเบียนของนักเรียนในรายวิชาอื่น ซึ่งอาจเป็นของ Shard อื่น
+     */
+    private final ShardedRegistrationEngine shardedEngine;
+
+    /**
+     * กราฟวิชาบังคับก่อนที่คอมไพล์จากรายวิชาทั้งหมดตอนสร้าง Service (สร้างใหม่ได้ด้วย {@link #rebuildPrerequisiteGraph()})
+     */
+    private volatile PrerequisiteGraph prerequisiteGraph;
+
+    /**
+     * รายชื่อรอของรายวิชาที่เต็ม หากเป็น null การลงทะเบียนในวิชาที่เต็มจะถูกปฏิเสธ (กำหนดโดย {@link WaitlistService})
+     */
+    private volatile WaitlistService waitlistService;
     
     /**
      * ตัวนับสำหรับสร้าง ID ของการลงทะเบียนรายการใหม่ (Enrollment ID)
@@ -22,13 +62,44 @@ public class RegistrationService {
      */
     private static final AtomicInteger lastEnrollmentId = new AtomicInteger(0);
 
+    private static final String COURSE_FULL = "Error: Course is full.";
+
+    // --- ตัววัดประสิทธิภาพ (ดูได้ผ่าน JMX) ---
+    private static final Timer REGISTER_TIMER = MetricsRegistry.getDefault().timer("registerStudent");
+    private static final Counter REGISTER_REJECTED = MetricsRegistry.getDefault().counter("registerStudent.rejected");
+
     /**
      * Constructor ของ RegistrationService
      *
      * @param dataAccess Service สำหรับการเข้าถึงข้อมูลที่จะถูกรับเข้ามา
      */
-    public RegistrationService(DataAccessService dataAccess) {
+    public RegistrationService(DataRepository dataAccess) {
+        this(dataAccess, null);
+    }
+
+    /**
+     * Constructor ของ RegistrationService ที่บันทึกข้อมูลผ่านเธรดบันทึกแบบรวมกลุ่ม
+     *
+     * @param dataAccess        Service สำหรับการเข้าถึงข้อมูลที่จะถูกรับเข้ามา
+     * @param persistenceWriter เธรดบันทึกข้อมูลแบบรวมกลุ่ม (หรือ null เพื่อบันทึกทันที)
+     */
+    public RegistrationService(DataRepository dataAccess, PersistenceWriter persistenceWriter) {
+        this(dataAccess, persistenceWriter, null);
+    }
+
+    /**
+     * Constructor ของ RegistrationService ที่ลงทะเบียนผ่านกลไกแบบแบ่งส่วนตามรายวิชา (Single Writer ต่อรายวิชา)
+     * เหมาะกับช่วงเปิดลงทะเบียนที่มีคำขอจำนวนมากพร้อมกันในไม่กี่วิชา เพราะคำขอไม่ต้องแย่ง Lock กัน
+     *
+     * @param dataAccess        Service สำหรับการเข้าถึงข้อมูลที่จะถูกรับเข้ามา
+     * @param persistenceWriter เธรดบันทึกข้อมูลแบบรวมกลุ่ม (หรือ null เพื่อบันทึกทันที)
+     * @param shardedEngine     กลไกการลงทะเบียนแบบแบ่งส่วน (หรือ null เพื่อใช้ Lock ของนักเรียน)
+     */
+    public RegistrationService(DataRepository dataAccess, PersistenceWriter persistenceWriter,
+                               ShardedRegistrationEngine shardedEngine) {
         this.dataAccess = dataAccess;
+        this.persistenceWriter = persistenceWriter;
+        this.shardedEngine = shardedEngine;
         
         // --- การกำหนดค่าเริ่มต้นให้กับตัวนับ ID ---
         // ค้นหาค่า enrollmentId สูงสุดที่มีอยู่เดิมในระบบ เพื่อให้ตัวนับเริ่มต้นจากค่าที่ถูกต้อง
@@ -37,6 +108,32 @@ public class RegistrationService {
                 .mapToInt(Enrollment::getEnrollmentId) // แปลง Stream ของ Enrollment เป็น Stream ของ int (ID)
                 .max() // ค้นหาค่าที่มากที่สุด
                 .ifPresent(lastEnrollmentId::set); // หากมีค่าสูงสุดอยู่ ให้กำหนดค่านั้นเป็นค่าเริ่มต้นของตัวนับ
+
+        rebuildPrerequisiteGraph();
+        // สร้างกราฟใหม่เมื่อมีรายวิชาใหม่ หรือเงื่อนไขวิชาบังคับก่อนถูกแก้ไข (เช่น รวมข้อมูลจากโปรเซสอื่นในโหมด SHARED)
+        dataAccess.addChangeListener(new DataChangeListener() {
+            @Override
+            public void subjectChanged(Subject subject) {
+                if (!prerequisiteGraph.isCurrent(subject)) {
+                    rebuildPrerequisiteGraph();
+                }
+            }
+        });
+    }
+
+    /**
+     * สร้างกราฟวิชาบังคับก่อนใหม่จากรายวิชาปัจจุบัน (เรียกเมื่อแคตตาล็อกรายวิชาหรือเงื่อนไขวิชาบังคับก่อนเปลี่ยนแปลง)
+     */
+    public void rebuildPrerequisiteGraph() {
+        prerequisiteGraph = new PrerequisiteGraph(dataAccess.getAllSubjects());
+    }
+
+    public PrerequisiteGraph getPrerequisiteGraph() {
+        return prerequisiteGraph;
+    }
+
+    void setWaitlistService(WaitlistService waitlistService) {
+        this.waitlistService = waitlistService;
     }
 
     /**
@@ -48,10 +145,403 @@ public class RegistrationService {
      * @return ข้อความ (String) ที่บ่งบอกผลลัพธ์การทำงาน: สำเร็จ หรือ ข้อผิดพลาดพร้อมเหตุผล
      */
     public String registerStudent(Student student, Subject subject) {
+        // รอจนกว่าข้อมูลจะถูกบันทึกลงดิสก์ก่อนแจ้งผลสำเร็จ
+        return registerStudentAsync(student, subject).join();
+    }
+
+    /**
+     * ดำเนินการลงทะเบียนเรียนเช่นเดียวกับ {@link #registerStudent(Student, Subject)}
+     * แต่ไม่รอการบันทึกข้อมูลลงดิสก์ ผู้เรียกสามารถเลือกรอ Future ที่ได้รับคืนไป
+     * เพื่อให้แน่ใจว่าข้อมูลถูกบันทึกแล้ว (Future จะเสร็จสมบูรณ์ทันทีหากการลงทะเบียนไม่ผ่านกฎ)
+     * หากรายวิชาเต็มและมี {@link WaitlistService} นักเรียนจะถูกนำเข้ารายชื่อรอแทนการปฏิเสธ
+     *
+     * @param student นักเรียนที่ต้องการลงทะเบียน
+     * @param subject รายวิชาที่ต้องการลงทะเบียน
+     * @return Future ของข้อความผลลัพธ์ ซึ่งจะเสร็จสมบูรณ์เมื่อการบันทึกข้อมูลเสร็จ
+     */
+    public CompletableFuture<String> registerStudentAsync(Student student, Subject subject) {
+        // วัดเวลาตั้งแต่เริ่มจนการบันทึกลงดิสก์เสร็จ (เวลาเดียวกับที่ผู้เรียกแบบ Synchronous ต้องรอ)
+        long start = System.nanoTime();
+        RegistrationEvent event = new RegistrationEvent();
+        event.begin();
+        return register(student, subject, true).whenComplete((result, failure) -> {
+            REGISTER_TIMER.recordSince(start);
+            if (failure != null) {
+                REGISTER_TIMER.recordError();
+            } else if (result.startsWith("Error")) {
+                REGISTER_REJECTED.increment();
+            }
+            event.end();
+            if (event.shouldCommit()) {
+                event.studentId = student.getStudentId();
+                event.subjectId = subject.getSubjectId();
+                if (failure != null) {
+                    event.outcome = "Failed";
+                } else if (result.startsWith("Error")) {
+                    event.outcome = "Rejected";
+                    event.rule = result;
+                } else {
+                    event.outcome = result.startsWith(WaitlistService.WAITLISTED) ? "Waitlisted" : "Registered";
+                }
+                event.commit();
+            }
+        });
+    }
+
+    /**
+     * ลงทะเบียนนักเรียนที่ถูกเลื่อนจากรายชื่อรอ (ไม่นำกลับเข้ารายชื่อรอหากรายวิชาเต็ม)
+     */
+    CompletableFuture<String> registerFromWaitlist(Student student, Subject subject) {
+        return register(student, subject, false);
+    }
+
+    private CompletableFuture<String> register(Student student, Subject subject, boolean useWaitlist) {
+        if (shardedEngine != null) {
+            // ตรวจสอบกฎและเพิ่มข้อมูลบนเธรดของ Shard ที่เป็นเจ้าของรายวิชา (การลงซ้ำในวิชาเดียวกันจึงไม่มีทางแทรกกันได้)
+            CompletableFuture<String> enrolled = shardedEngine.submit(subject.getSubjectId(),
+                    () -> withStudentLock(student.getStudentId(), () -> checkAndEnroll(student, subject)));
+            if (!useWaitlist) {
+                // การเลื่อนคิวต้องรู้ผลของกฎทันที (ดู WaitlistService#promote)
+                return afterEnroll(student, subject, false, enrolled.join());
+            }
+            return enrolled.thenCompose(error -> afterEnroll(student, subject, true, error));
+        }
+
+        // ล็อกเฉพาะช่องของนักเรียนคนนี้ระหว่างตรวจสอบกฎและเพิ่มข้อมูล (ไม่รวมการบันทึกลงดิสก์)
+        Lock studentLock = seatReservation.lockFor(student.getStudentId());
+        String error;
+        studentLock.lock();
+        try {
+            error = checkAndEnroll(student, subject);
+        } catch (RuntimeException e) {
+            // บันทึกไม่สำเร็จ: ส่งผลเป็น Future ที่ล้มเหลวเช่นเดียวกับการบันทึกลงดิสก์ที่ล้มเหลว
+            return CompletableFuture.failedFuture(e);
+        } finally {
+            studentLock.unlock();
+        }
+        return afterEnroll(student, subject, useWaitlist, error);
+    }
+
+    /**
+     * ขั้นตอนหลังตรวจสอบกฎ: เข้ารายชื่อรอหากวิชาเต็ม ส่งคืนข้อผิดพลาด หรือบันทึกการลงทะเบียนลงดิสก์
+     *
+     * @param error ผลของ {@link #checkAndEnroll(Student, Subject)}
+     */
+    private CompletableFuture<String> afterEnroll(Student student, Subject subject, boolean useWaitlist, String error) {
+        WaitlistService waitlist = waitlistService;
+        if (error != null && useWaitlist && waitlist != null && COURSE_FULL.equals(error)) {
+            if (shardedEngine != null) {
+                // การเข้าคิวเขียนไฟล์รายชื่อรอ จึงย้ายออกจากเธรดของ Shard เพื่อไม่ให้คำขออื่นของวิชาในส่วนนี้ต้องรอ
+                return CompletableFuture.supplyAsync(() -> waitlist.enqueue(student, subject));
+            }
+            // เข้าคิวหลังจากปล่อย Lock ของนักเรียนแล้ว เพราะการเลื่อนคิวต้องล็อกข้อมูลของนักเรียนคนอื่น
+            return CompletableFuture.completedFuture(waitlist.enqueue(student, subject));
+        }
+        if (error != null) {
+            return CompletableFuture.completedFuture(error);
+        }
+
+        // --- บันทึกการเปลี่ยนแปลงทั้งหมดลงไฟล์ (ข้อมูลการลงทะเบียนใหม่ และจำนวนคนที่อัปเดตแล้วของวิชา) ---
+        // ส่งคืนข้อความว่าทำรายการสำเร็จเมื่อบันทึกเสร็จ
+        return persistChanges().thenCompose(v -> {
+            if (isEnrolled(student, subject)) {
+                return CompletableFuture.completedFuture(
+                        "Success: Registered successfully in " + subject.getSubjectName() + "!");
+            }
+            // โปรเซสอื่นที่ใช้ไฟล์ข้อมูลร่วมกันให้ที่นั่งสุดท้ายไปก่อน การลงทะเบียนนี้จึงถูกยกเลิกระหว่างบันทึก
+            // (ดู DataAccessService#resolveOverbooking) เข้ารายชื่อรอนอกเธรดบันทึกข้อมูล เพราะการเข้าคิวอาจต้องรอการบันทึก
+            // นักเรียนที่ถูกเลื่อนจากคิวก็ถูกนำกลับเข้าคิวเช่นกัน เพื่อไม่ให้หลุดออกจากรายชื่อรอโดยไม่ได้ที่นั่ง
+            if (waitlist != null) {
+                return CompletableFuture.supplyAsync(() -> waitlist.enqueue(student, subject));
+            }
+            return CompletableFuture.completedFuture(COURSE_FULL);
+        });
+    }
+
+    private boolean isEnrolled(Student student, Subject subject) {
+        return dataAccess.findEnrollment(student.getStudentId(), subject.getSubjectId()).isPresent();
+    }
+
+    /**
+     * เปลี่ยนผลสำเร็จของการลงทะเบียนแบบกลุ่มที่ถูกยกเลิกระหว่างบันทึก (โปรเซสอื่นให้ที่นั่งสุดท้ายไปก่อน) เป็นรายวิชาเต็ม
+     * ต้องเรียกหลังการบันทึกเสร็จแล้ว
+     */
+    private void rejectRolledBack(List<RegistrationResult> results) {
+        for (int i = 0; i < results.size(); i++) {
+            RegistrationResult result = results.get(i);
+            RegistrationRequest request = result.getRequest();
+            if (result.isSuccess()
+                    && dataAccess.findEnrollment(request.getStudentId(), request.getSubjectId()).isEmpty()) {
+                results.set(i, new RegistrationResult(request, COURSE_FULL));
+            }
+        }
+    }
+
+    /**
+     * ยกเลิกการลงทะเบียน (Drop) ของนักเรียนในรายวิชาหนึ่ง คืนที่นั่ง และเลื่อนนักเรียนจากรายชื่อรอ (หากมี) เข้าแทน
+     *
+     * @param studentId รหัสนักเรียน
+     * @param subjectId รหัสวิชา
+     * @return ข้อความ (String) ที่บ่งบอกผลลัพธ์การทำงาน
+     */
+    public String dropEnrollment(String studentId, String subjectId) {
+        Subject subject = dataAccess.findSubjectById(subjectId).orElse(null);
+        Enrollment enrollment;
+        if (shardedEngine != null) {
+            // ที่นั่งและรายชื่อผู้ลงทะเบียนของรายวิชาถูกแก้ไขได้เฉพาะบนเธรดของ Shard ที่เป็นเจ้าของ
+            // และยังถือ Lock ของนักเรียน เพื่อไม่ให้การ Drop วิชาบังคับก่อนแทรกการลงวิชาต่อเนื่องบน Shard อื่น
+            enrollment = shardedEngine.submit(subjectId,
+                    () -> withStudentLock(studentId, () -> removeEnrollment(studentId, subjectId, subject))).join();
+        } else {
+            Lock studentLock = seatReservation.lockFor(studentId);
+            studentLock.lock();
+            try {
+                enrollment = removeEnrollment(studentId, subjectId, subject);
+            } finally {
+                studentLock.unlock();
+            }
+        }
+        if (enrollment == null) {
+            return "Error: Could not find the enrollment record.";
+        }
+        persistChanges().join();
+
+        WaitlistService waitlist = waitlistService;
+        if (waitlist != null && subject != null) {
+            waitlist.promote(subject);
+        }
+        return "Success: Enrollment has been dropped.";
+    }
+
+    /**
+     * ทำงานขณะถือ Lock ของนักเรียนคนนี้ ใช้บนเธรดของ Shard: Shard ป้องกันที่นั่งและรายชื่อของรายวิชา
+     * ส่วน Lock ของนักเรียนป้องกันกฎที่อ่านการลงทะเบียนของนักเรียนข้ามรายวิชา (เช่น การ Drop วิชา A บน Shard หนึ่ง
+     * พร้อมกับการลงวิชา B ที่ต้องผ่าน A ก่อนบนอีก Shard หนึ่ง)
+     * ไม่มีงานใดรอ Shard ขณะถือ Lock ของนักเรียน จึงไม่เกิด Deadlock ระหว่างสองส่วนนี้
+     */
+    private <T> T withStudentLock(String studentId, Supplier<T> task) {
+        Lock studentLock = seatReservation.lockFor(studentId);
+        studentLock.lock();
+        try {
+            return task.get();
+        } finally {
+            studentLock.unlock();
+        }
+    }
+
+    /**
+     * ลบข้อมูลการลงทะเบียนและคืนที่นั่ง ต้องถูกเรียกขณะถือ Lock ของนักเรียน (และบนเธรดของ Shard ที่เป็นเจ้าของรายวิชาในโหมดแบ่งส่วน)
+     *
+     * @return ข้อมูลการลงทะเบียนที่ถูกลบ หรือ null หากไม่พบ
+     */
+    private Enrollment removeEnrollment(String studentId, String subjectId, Subject subject) {
+        Enrollment enrollment = dataAccess.findEnrollment(studentId, subjectId).orElse(null);
+        if (enrollment != null) {
+            // คืนที่นั่งก่อนลบ เพื่อให้ตัวรับฟังการเปลี่ยนแปลงเห็นจำนวนที่นั่งล่าสุด
+            if (subject != null) {
+                seatReservation.releaseSeat(subject);
+            }
+            dataAccess.removeEnrollment(enrollment);
+            dataAccess.recordDroppedEnrollment(enrollment);
+        }
+        return enrollment;
+    }
+
+    /**
+     * ลงทะเบียนเรียนแบบกลุ่ม (เช่น แอดมินลงทะเบียนนักเรียนทั้งรุ่นในวิชาบังคับ)
+     *
+     * ทุกรายการถูกตรวจสอบตามกฎชุดเดียวกับ {@link #registerStudent(Student, Subject)} ตามลำดับใน List
+     * โดยรายการที่ผ่านก่อนหน้าในกลุ่มเดียวกันจะนับรวมด้วย (เช่น การลงทะเบียนซ้ำภายในกลุ่ม หรือวิชาบังคับก่อนที่เพิ่งลงในกลุ่มนี้)
+     * จากนั้นรายการที่ผ่านทั้งหมดจะถูกเพิ่มเข้าระบบในครั้งเดียว และบันทึกลงดิสก์เพียงครั้งเดียว
+     *
+     * @param requests List ของคำขอลงทะเบียน
+     * @return ผลลัพธ์ของแต่ละคำขอ ตามลำดับเดียวกับ requests
+     */
+    public List<RegistrationResult> registerStudents(List<RegistrationRequest> requests) {
+        if (shardedEngine != null) {
+            return registerStudentsOnShards(requests);
+        }
+        Set<String> studentIds = new HashSet<>();
+        for (RegistrationRequest request : requests) {
+            studentIds.add(request.getStudentId());
+        }
+
+        List<RegistrationResult> results = new ArrayList<>(requests.size());
+        List<Enrollment> accepted = new ArrayList<>();
+
+        // ล็อกทุกช่องของนักเรียนในกลุ่มตามลำดับ เพื่อให้ข้อมูลการลงทะเบียนของนักเรียนเหล่านี้ไม่เปลี่ยนระหว่างตรวจสอบ
+        List<Lock> locks = seatReservation.locksFor(studentIds);
+        locks.forEach(Lock::lock);
+        try {
+            // คู่ "นักเรียน|วิชา" ที่ผ่านแล้วในกลุ่มนี้ ใช้ร่วมกับดัชนีของที่เก็บข้อมูล
+            Set<String> acceptedKeys = new HashSet<>();
+            for (RegistrationRequest request : requests) {
+                Student student = dataAccess.findStudentById(request.getStudentId()).orElse(null);
+                Subject subject = dataAccess.findSubjectById(request.getSubjectId()).orElse(null);
+                if (student == null) {
+                    results.add(new RegistrationResult(request, "Error: Student ID not found."));
+                    continue;
+                }
+                if (subject == null) {
+                    results.add(new RegistrationResult(request, "Error: Subject not found."));
+                    continue;
+                }
+
+                Predicate<String> isEnrolled = subjectId -> acceptedKeys.contains(student.getStudentId() + "|" + subjectId)
+                        || dataAccess.findEnrollment(student.getStudentId(), subjectId).isPresent();
+                String error = checkRules(student, subject, isEnrolled);
+                if (error == null && !seatReservation.reserveSeat(subject)) {
+                    error = COURSE_FULL;
+                }
+                if (error != null) {
+                    results.add(new RegistrationResult(request, error));
+                    continue;
+                }
+
+                acceptedKeys.add(student.getStudentId() + "|" + subject.getSubjectId());
+                accepted.add(newEnrollment(student, subject));
+                results.add(new RegistrationResult(request,
+                        "Success: Registered successfully in " + subject.getSubjectName() + "!"));
+            }
+
+            // เพิ่มทุกรายการที่ผ่านเข้าระบบในครั้งเดียว (ยังถือ Lock ของนักเรียนทุกคนในกลุ่มอยู่)
+            dataAccess.addEnrollments(accepted);
+            recordNewEnrollments(accepted);
+        } finally {
+            for (int i = locks.size() - 1; i >= 0; i--) {
+                locks.get(i).unlock();
+            }
+        }
+
+        // บันทึกลงดิสก์ครั้งเดียวสำหรับทั้งกลุ่ม
+        if (!accepted.isEmpty()) {
+            persistChanges().join();
+            rejectRolledBack(results);
+        }
+        return results;
+    }
+
+    /**
+     * ลงทะเบียนแบบกลุ่มผ่านกลไกแบบแบ่งส่วน: แต่ละรายการถูกตรวจสอบและเพิ่มบนเธรดของ Shard ที่เป็นเจ้าของรายวิชาตามลำดับใน List
+     * (รายการที่ผ่านแล้วจึงถูกนับรวมในการตรวจสอบรายการถัดไป) และบันทึกลงดิสก์เพียงครั้งเดียวสำหรับทั้งกลุ่ม
+     */
+    private List<RegistrationResult> registerStudentsOnShards(List<RegistrationRequest> requests) {
+        List<RegistrationResult> results = new ArrayList<>(requests.size());
+        boolean changed = false;
+        for (RegistrationRequest request : requests) {
+            Student student = dataAccess.findStudentById(request.getStudentId()).orElse(null);
+            Subject subject = dataAccess.findSubjectById(request.getSubjectId()).orElse(null);
+            if (student == null) {
+                results.add(new RegistrationResult(request, "Error: Student ID not found."));
+                continue;
+            }
+            if (subject == null) {
+                results.add(new RegistrationResult(request, "Error: Subject not found."));
+                continue;
+            }
+            String error = shardedEngine.submit(subject.getSubjectId(),
+                    () -> withStudentLock(student.getStudentId(), () -> checkAndEnroll(student, subject))).join();
+            if (error != null) {
+                results.add(new RegistrationResult(request, error));
+                continue;
+            }
+            changed = true;
+            results.add(new RegistrationResult(request,
+                    "Success: Registered successfully in " + subject.getSubjectName() + "!"));
+        }
+        if (changed) {
+            persistChanges().join();
+            rejectRolledBack(results);
+        }
+        return results;
+    }
+
+    /**
+     * ตรวจสอบกฎการลงทะเบียนทุกข้อ และหากผ่านทั้งหมดจะจองที่นั่งและเพิ่มข้อมูลการลงทะเบียนลงหน่วยความจำ
+     * ต้องถูกเรียกขณะถือ Lock ของนักเรียนคนนี้อยู่ (และบนเธรดของ Shard ที่เป็นเจ้าของรายวิชาในโหมดแบ่งส่วน)
+     *
+     * @return ข้อความข้อผิดพลาด หรือ null หากลงทะเบียนสำเร็จ
+     */
+    private String checkAndEnroll(Student student, Subject subject) {
+        String error = checkRules(student, subject,
+                subjectId -> dataAccess.findEnrollment(student.getStudentId(), subjectId).isPresent());
+        if (error != null) {
+            return error;
+        }
+
+        // --- จองที่นั่งแบบ Atomic: หากมีผู้อื่นจองที่นั่งสุดท้ายไปก่อน จะถือว่ารายวิชาเต็ม ---
+        if (!seatReservation.reserveSeat(subject)) {
+            return COURSE_FULL;
+        }
+        
+        // --- หากผ่านการตรวจสอบทุกข้อ: ดำเนินการลงทะเบียน ---
+        Enrollment newEnrollment = newEnrollment(student, subject);
+        
+        // เพิ่มข้อมูลการลงทะเบียนใหม่เข้าไปใน List ที่อยู่ในหน่วยความจำ
+        dataAccess.addEnrollment(newEnrollment);
+        recordNewEnrollments(List.of(newEnrollment));
+        return null;
+    }
+
+    /**
+     * แจ้งที่เก็บข้อมูลให้บันทึกการลงทะเบียนใหม่ที่เพิ่มเข้าหน่วยความจำแล้ว
+     * หากบันทึกไม่สำเร็จ (เช่น ไฟล์เต็ม) จะนำรายการออกจากหน่วยความจำและคืนที่นั่ง แล้วโยนข้อผิดพลาดต่อ
+     * ผู้ลงทะเบียนจึงไม่ได้รับผลสำเร็จของรายการที่ไม่ได้ถูกบันทึก
+     */
+    private void recordNewEnrollments(List<Enrollment> enrollments) {
+        try {
+            enrollments.forEach(dataAccess::recordNewEnrollment);
+        } catch (RuntimeException e) {
+            for (Enrollment enrollment : enrollments) {
+                if (dataAccess.removeEnrollment(enrollment)) {
+                    dataAccess.recordDroppedEnrollment(enrollment);
+                    dataAccess.findSubjectById(enrollment.getSubjectId()).ifPresent(seatReservation::releaseSeat);
+                }
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * ตรวจสอบว่านักเรียนสามารถลงทะเบียนรายวิชานี้ได้หรือไม่ ตามกฎชุดเดียวกับ {@link #registerStudent(Student, Subject)}
+     * โดยไม่จองที่นั่งและไม่เปลี่ยนแปลงข้อมูลใดๆ
+     *
+     * @param enrolledSubjectIds รหัสวิชาทั้งหมดที่นักเรียนคนนี้ลงทะเบียนแล้ว
+     * @return ข้อความข้อผิดพลาดของกฎข้อแรกที่ไม่ผ่าน หรือ null หากลงทะเบียนได้
+     */
+    public String checkEligibility(Student student, Subject subject, Set<String> enrolledSubjectIds) {
+        return checkRules(student, subject, enrolledSubjectIds::contains);
+    }
+
+    /**
+     * ตรวจสอบเช่นเดียวกับ {@link #checkEligibility(Student, Subject, Set)} แต่ใช้ผลการตรวจวิชาบังคับก่อนของทั้งแคตตาล็อก
+     * ที่คำนวณไว้แล้วในรอบเดียวด้วย {@link PrerequisiteGraph#satisfiedSubjects(long[])}
+     *
+     * @param graph             กราฟที่ใช้คำนวณ satisfiedSubjects
+     * @param satisfiedSubjects บิตเซ็ตของรายวิชาที่นักเรียนผ่านเงื่อนไขวิชาบังคับก่อน
+     */
+    String checkEligibility(Student student, Subject subject, Set<String> enrolledSubjectIds,
+                            PrerequisiteGraph graph, long[] satisfiedSubjects) {
+        return checkRules(student, subject, enrolledSubjectIds::contains, graph, satisfiedSubjects);
+    }
+
+    private String checkRules(Student student, Subject subject, Predicate<String> isEnrolled) {
+        return checkRules(student, subject, isEnrolled, null, null);
+    }
+
+    /**
+     * ตรวจสอบกฎการลงทะเบียน (ลงซ้ำ, อายุ, วิชาเต็ม, วิชาบังคับก่อน) โดยไม่เปลี่ยนแปลงข้อมูลใดๆ
+     *
+     * @param isEnrolled        ฟังก์ชันตรวจสอบว่านักเรียนคนนี้ลงทะเบียนรายวิชาที่ระบุแล้วหรือไม่
+     * @param graph             กราฟที่ใช้คำนวณ satisfiedSubjects (หรือ null เพื่อใช้กราฟปัจจุบัน)
+     * @param satisfiedSubjects ผลการตรวจวิชาบังคับก่อนของทั้งแคตตาล็อก (หรือ null เพื่อตรวจทีละวิชาผ่าน isEnrolled)
+     * @return ข้อความข้อผิดพลาดของกฎข้อแรกที่ไม่ผ่าน หรือ null หากผ่านทุกข้อ
+     */
+    private String checkRules(Student student, Subject subject, Predicate<String> isEnrolled,
+                              PrerequisiteGraph graph, long[] satisfiedSubjects) {
         
         // --- กฎข้อที่ 1: ตรวจสอบว่านักเรียนเคยลงทะเบียนวิชานี้แล้วหรือไม่ ---
-        boolean isAlreadyEnrolled = dataAccess.getEnrollmentsByStudentId(student.getStudentId())
-            .stream().anyMatch(e -> e.getSubjectId().equals(subject.getSubjectId()));
+        boolean isAlreadyEnrolled = isEnrolled.test(subject.getSubjectId());
         if (isAlreadyEnrolled) {
             return "Error: You are already enrolled in this subject.";
         }
@@ -63,38 +553,54 @@ public class RegistrationService {
 
         // --- กฎข้อที่ 3: ตรวจสอบว่ารายวิชาเต็มแล้วหรือไม่ ---
         // เงื่อนไขนี้จะทำงานก็ต่อเมื่อวิชามีการจำกัดจำนวนคน (maxCapacity != -1)
-        if (subject.getMaxCapacity() != -1 && subject.getCurrentEnrollment() >= subject.getMaxCapacity()) {
-            return "Error: Course is full.";
+        // (เป็นการตรวจสอบเบื้องต้น การจองที่นั่งจริงจะทำแบบ Atomic หลังผ่านกฎทุกข้อ)
+        if (subject.isFull()) {
+            return COURSE_FULL;
         }
 
         // --- กฎข้อที่ 4: ตรวจสอบว่านักเรียนผ่านวิชาบังคับก่อน (Prerequisite) แล้วหรือยัง ---
         if (subject.getPrerequisiteId() != null && !subject.getPrerequisiteId().trim().isEmpty()) {
-            // ค้นหาในรายการลงทะเบียนของนักเรียน ว่ามีรหัสวิชาที่ตรงกับวิชาบังคับก่อนหรือไม่
-            boolean hasPrerequisite = dataAccess.getEnrollmentsByStudentId(student.getStudentId())
-                    .stream()
-                    .anyMatch(e -> e.getSubjectId().equals(subject.getPrerequisiteId()));
+            // ตรวจสอบเงื่อนไข (AND/OR) ผ่านกราฟวิชาบังคับก่อน: อ่านจากบิตเซ็ตที่คำนวณไว้แล้วหากมี
+            // หรือค้นหาแต่ละวิชาในดัชนีการลงทะเบียน รายวิชาที่กราฟยังไม่ทันสร้างใหม่จะถูกตรวจสอบจากข้อความเงื่อนไขโดยตรง
+            if (graph == null) {
+                graph = prerequisiteGraph;
+            }
+            boolean hasPrerequisite;
+            if (!graph.isCurrent(subject)) {
+                hasPrerequisite = PrerequisiteGraph.isExpressionSatisfied(subject.getPrerequisiteId(), isEnrolled);
+            } else if (satisfiedSubjects != null) {
+                hasPrerequisite = graph.includes(satisfiedSubjects, subject.getSubjectId());
+            } else {
+                hasPrerequisite = graph.isSatisfied(subject.getSubjectId(), isEnrolled);
+            }
             if (!hasPrerequisite) {
                  return "Error: Prerequisite '" + subject.getPrerequisiteId() + "' not met.";
             }
         }
-        
-        // --- หากผ่านการตรวจสอบทุกข้อ: ดำเนินการลงทะเบียน ---
+        return null;
+    }
+
+    /**
+     * สร้างข้อมูลการลงทะเบียนรายการใหม่ พร้อม ID ถัดไปและเวลาปัจจุบัน
+     */
+    private Enrollment newEnrollment(Student student, Subject subject) {
         Enrollment newEnrollment = new Enrollment();
         newEnrollment.setEnrollmentId(lastEnrollmentId.incrementAndGet()); // เพิ่มค่า ID อย่างปลอดภัยและนำค่าใหม่มาใช้
         newEnrollment.setStudentId(student.getStudentId());
         newEnrollment.setSubjectId(subject.getSubjectId());
         newEnrollment.setEnrollmentDate(LocalDateTime.now()); // กำหนดวันที่และเวลาที่ลงทะเบียนเป็นปัจจุบัน
-        
-        // เพิ่มข้อมูลการลงทะเบียนใหม่เข้าไปใน List ที่อยู่ในหน่วยความจำ
-        dataAccess.addEnrollment(newEnrollment);
-        // อัปเดตจำนวนคนลงทะเบียนปัจจุบันใน Object ของวิชานั้นๆ
-        subject.setCurrentEnrollment(subject.getCurrentEnrollment() + 1);
+        return newEnrollment;
+    }
 
-        // --- บันทึกการเปลี่ยนแปลงทั้งหมดลงไฟล์ CSV ---
-        dataAccess.saveEnrollments(); // บันทึกข้อมูลการลงทะเบียนใหม่
-        dataAccess.saveSubjects();    // บันทึกจำนวนคนที่อัปเดตแล้วของวิชา
-        
-        // ส่งคืนข้อความว่าทำรายการสำเร็จ
-        return "Success: Registered successfully in " + subject.getSubjectName() + "!";
+    /**
+     * บันทึกข้อมูลการลงทะเบียนและรายวิชาลงดิสก์ ผ่านเธรดบันทึกแบบรวมกลุ่มหากมี หรือบันทึกทันทีหากไม่มี
+     */
+    private CompletableFuture<Void> persistChanges() {
+        if (persistenceWriter != null) {
+            return persistenceWriter.markDirty(true, true);
+        }
+        dataAccess.flushEnrollments();
+        dataAccess.saveSubjects();
+        return CompletableFuture.completedFuture(null);
     }
 }
\ No newline at end of file
@@ -0,0 +1,86 @@
+package com.StudentRegistrationSystem.model;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * กลไกการจองที่นั่ง (Seat Reservation Engine) สำหรับการลงทะเบียนจากหลายเธรดพร้อมกัน
+ *
+ * แบ่งการป้องกันออกเป็น 2 ส่วน เพื่อไม่ให้ต้องใช้ Lock เดียวทั้งระบบ:
+ * <ul>
+ *     <li>จำนวนที่นั่งของแต่ละวิชาถูกจองด้วย CAS ผ่าน {@link Subject#tryReserveSeat()} จึงไม่มีทางเกินความจุ</li>
+ *     <li>การตรวจสอบการลงทะเบียนซ้ำและวิชาบังคับก่อน ซึ่งขึ้นกับข้อมูลการลงทะเบียนของนักเรียนคนนั้น
+ *         ถูกป้องกันด้วย Lock แบบแบ่งช่อง (Striped Lock) ตามรหัสนักเรียน</li>
+ * </ul>
+ * ดังนั้นการลงทะเบียนของนักเรียนต่างคนกันจะทำงานขนานกันได้เต็มที่ แม้จะเป็นวิชาเดียวกันก็ตาม
+ */
+public class SeatReservationEngine {
+
+    public static final int DEFAULT_STRIPES = 64;
+
+    private final Lock[] stripes;
+
+    public SeatReservationEngine() {
+        this(DEFAULT_STRIPES);
+    }
+
+    /**
+     * @param stripeCount จำนวนช่องของ Lock (ยิ่งมากยิ่งลดโอกาสที่นักเรียนต่างคนจะแย่ง Lock เดียวกัน)
+     */
+    public SeatReservationEngine(int stripeCount) {
+        this.stripes = new Lock[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * คืนค่า Lock ที่ครอบคลุมข้อมูลการลงทะเบียนของนักเรียนคนนี้
+     *
+     * @param studentId รหัสนักเรียน
+     * @return Lock ของช่องที่รหัสนักเรียนนี้ถูกจัดอยู่
+     */
+    public Lock lockFor(String studentId) {
+        return stripes[Math.floorMod(studentId.hashCode(), stripes.length)];
+    }
+
+    /**
+     * คืนค่า Lock ทุกช่องที่ครอบคลุมนักเรียนกลุ่มนี้ (ไม่ซ้ำกัน) เรียงตามลำดับของช่อง
+     * การล็อกตามลำดับที่แน่นอนนี้ป้องกัน Deadlock ระหว่างการลงทะเบียนแบบกลุ่มหลายชุดที่ทำงานพร้อมกัน
+     *
+     * @param studentIds รหัสนักเรียนทั้งหมดในกลุ่ม
+     * @return List ของ Lock ที่ต้องล็อกตามลำดับ (และปลดล็อกในลำดับย้อนกลับ)
+     */
+    public List<Lock> locksFor(Collection<String> studentIds) {
+        boolean[] needed = new boolean[stripes.length];
+        for (String studentId : studentIds) {
+            needed[Math.floorMod(studentId.hashCode(), stripes.length)] = true;
+        }
+        List<Lock> locks = new ArrayList<>();
+        for (int i = 0; i < stripes.length; i++) {
+            if (needed[i]) {
+                locks.add(stripes[i]);
+            }
+        }
+        return locks;
+    }
+
+    /**
+     * จองที่นั่งในรายวิชาแบบ Atomic
+     *
+     * @return true หากจองสำเร็จ, false หากรายวิชาเต็มแล้ว
+     */
+    public boolean reserveSeat(Subject subject) {
+        return subject.tryReserveSeat();
+    }
+
+    /**
+     * คืนที่นั่งที่จองไว้
+     */
+    public void releaseSeat(Subject subject) {
+        subject.releaseSeat();
+    }
+}
@@ -0,0 +1,166 @@
+package com.StudentRegistrationSystem.model;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * กลไกการลงทะเบียนแบบแบ่งส่วน (Sharded) ที่มีผู้เขียนเพียงเธรดเดียวต่อรายวิชา (Single Writer)
+ *
+ * รายวิชาถูกแบ่งไปยังเธรด Shard จำนวน N เธรดตามรหัสวิชา แต่ละ Shard เป็นเจ้าของจำนวนที่นั่ง
+ * และรายชื่อผู้ลงทะเบียนของรายวิชาในส่วนของตนแต่เพียงผู้เดียว และรับงานจากคิวแบบจำกัดขนาด (Bounded Queue) ของตัวเอง
+ * งานของรายวิชาเดียวกันจึงทำงานตามลำดับบนเธรดเดียวโดยไม่ต้องใช้ Lock
+ * ส่วนงานของรายวิชาต่าง Shard กันทำงานขนานกันได้ตามจำนวนคอร์
+ *
+ * เมื่อคิวของ Shard เต็ม ผู้ส่งงานจะถูกหน่วงไว้จนกว่าจะมีที่ว่าง (Backpressure)
+ * งานที่ส่งเข้ามาหลังจากหรือระหว่างการปิดจะถูกทำให้เสร็จหรือถูกปฏิเสธเสมอ ไม่มี Future ใดค้างอยู่
+ * ผู้ส่งงานได้รับผลลัพธ์เป็น {@link CompletableFuture} ซึ่งจะเสร็จสมบูรณ์บนเธรดของ Shard
+ */
+public class ShardedRegistrationEngine {
+
+    public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+    private static final long OFFER_RETRY_MILLIS = 100;
+
+    private final Shard[] shards;
+    private volatile boolean running = true;
+
+    /**
+     * Constructor ของ ShardedRegistrationEngine โดยใช้ขนาดคิวเริ่มต้น
+     *
+     * @param shardCount จำนวนเธรด Shard (โดยทั่วไปเท่ากับจำนวนคอร์)
+     */
+    public ShardedRegistrationEngine(int shardCount) {
+        this(shardCount, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * @param shardCount    จำนวนเธรด Shard (โดยทั่วไปเท่ากับจำนวนคอร์)
+     * @param queueCapacity จำนวนงานสูงสุดที่รออยู่ในคิวของแต่ละ Shard
+     */
+    public ShardedRegistrationEngine(int shardCount, int queueCapacity) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("shardCount must be at least 1: " + shardCount);
+        }
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(i, queueCapacity);
+        }
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    /**
+     * @return หมายเลขของ Shard ที่เป็นเจ้าของรายวิชานี้
+     */
+    public int shardOf(String subjectId) {
+        return Math.floorMod(subjectId.hashCode(), shards.length);
+    }
+
+    /**
+     * ส่งงานไปทำบนเธรดของ Shard ที่เป็นเจ้าของรายวิชา
+     * หากผู้เรียกเป็นเธรดของ Shard นั้นอยู่แล้ว (เช่น การเลื่อนคิวรายชื่อรอที่เกิดจากงานบน Shard) งานจะทำทันที
+     * เพื่อไม่ให้เธรดรอคิวของตัวเอง
+     *
+     * @param subjectId รหัสวิชาที่งานนี้อ่านหรือแก้ไข
+     * @param task      งานที่จะทำ
+     * @return Future ของผลลัพธ์ของงาน (เสร็จแบบ Exception หากงานโยน Exception หรือกลไกถูกปิดแล้ว)
+     */
+    public <T> CompletableFuture<T> submit(String subjectId, Supplier<T> task) {
+        Shard shard = shards[shardOf(subjectId)];
+        CompletableFuture<T> result = new CompletableFuture<>();
+        if (Thread.currentThread() == shard.thread) {
+            complete(result, task);
+            return result;
+        }
+        Runnable work = () -> complete(result, task);
+        try {
+            // รอที่ว่างในคิวเป็นช่วงๆ แทน put() เพื่อไม่ให้ค้างตลอดไปหากกลไกถูกปิดระหว่างที่คิวเต็ม
+            boolean queued = false;
+            while (running && !queued) {
+                queued = shard.queue.offer(work, OFFER_RETRY_MILLIS, TimeUnit.MILLISECONDS);
+            }
+            // ตรวจ running อีกครั้งหลังเข้าคิว: หากกลไกถูกปิดระหว่างนั้น เธรดของ Shard อาจระบายคิวและหยุดไปแล้ว
+            // งานที่ยังนำออกจากคิวได้คืองานที่ไม่มีเธรดใดรับไป ส่วนงานที่นำออกไม่ได้ถูกเธรดของ Shard รับไปทำแล้ว
+            if (!queued || !running && shard.queue.remove(work)) {
+                result.completeExceptionally(new RejectedExecutionException("Registration engine is shut down"));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
+    private static <T> void complete(CompletableFuture<T> result, Supplier<T> task) {
+        try {
+            result.complete(task.get());
+        } catch (RuntimeException e) {
+            result.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * หยุดรับงานใหม่ และรอจนงานที่อยู่ในคิวของทุก Shard ทำเสร็จ
+     */
+    public void shutdown() {
+        running = false;
+        for (Shard shard : shards) {
+            try {
+                // งานว่างที่ต่อท้ายคิวบอกให้เธรดหยุดหลังจากทำงานที่ค้างอยู่ก่อนหน้าเสร็จ
+                shard.queue.put(Shard.STOP);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        for (Shard shard : shards) {
+            try {
+                shard.thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * เธรดหนึ่งเธรดพร้อมคิวงานของตัวเอง
+     */
+    private static final class Shard {
+        static final Runnable STOP = () -> { };
+
+        final BlockingQueue<Runnable> queue;
+        final Thread thread;
+
+        Shard(int index, int queueCapacity) {
+            this.queue = new ArrayBlockingQueue<>(queueCapacity);
+            this.thread = new Thread(this::run, "registration-shard-" + index);
+            this.thread.setDaemon(true);
+            this.thread.start();
+        }
+
+        private void run() {
+            while (true) {
+                Runnable task;
+                try {
+                    task = queue.take();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                if (task == STOP) {
+                    // ทำงานที่ถูกส่งเข้ามาพร้อมกับการปิดให้เสร็จ เพื่อไม่ให้ผู้รอ Future ค้างอยู่
+                    while ((task = queue.poll()) != null) {
+                        task.run();
+                    }
+                    return;
+                }
+                task.run();
+            }
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.StudentRegistrationSystem.model;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * ไฟล์ CSV ที่หลายโปรเซสใช้ร่วมกัน พร้อมหมายเลขเวอร์ชัน (Version Stamp) ในไฟล์ข้างเคียง {@code <ไฟล์>.version}
+ * ทุกครั้งที่ไฟล์ถูกเขียนใหม่ เวอร์ชันจะเพิ่มขึ้น 1 (ภายใต้ {@link DataFileLock}) โปรเซสอื่นจึงรู้ได้ว่าไฟล์เปลี่ยน
+ * เพียงอ่านไฟล์เวอร์ชันขนาดเล็กโดยไม่ต้องอ่านไฟล์ CSV
+ *
+ * เมื่อเปิดการติดตามแถว ({@link #track()}) จะเก็บแถวของไฟล์ ณ ครั้งล่าสุดที่อ่านหรือเขียนไว้เป็นฐาน (Base)
+ * เมื่อไฟล์ถูกโปรเซสอื่นเขียน {@link #reload()} จะเทียบแถวบนดิสก์กับฐานตามคีย์ และส่งเฉพาะแถวที่ต่างกันให้ {@link RowHandler}
+ * ผู้ใช้ต้องถือ {@link DataFileLock} ของโฟลเดอร์ข้อมูลระหว่างเรียก {@link #track()}, {@link #reload()} และ {@link #committed()}
+ */
+class SharedCsvFile {
+
+    static final String VERSION_SUFFIX = ".version";
+
+    /**
+     * ผู้รับแถวที่ถูกโปรเซสอื่นเปลี่ยนแปลง (ฟิลด์เป็นค่าตามที่อ่านได้จากไฟล์ ยังไม่ตัดช่องว่าง)
+     */
+    interface RowHandler {
+        /**
+         * @param base ฟิลด์ของแถวตามฐานเดิม หรือ null หากเป็นแถวที่ถูกเพิ่มใหม่
+         * @param disk ฟิลด์ของแถวบนดิสก์ หรือ null หากแถวถูกลบ
+         */
+        void rowChanged(String key, String[] base, String[] disk);
+    }
+
+    private final String filePath;
+    private final File versionFile;
+    private final Function<String[], String> keyOf;
+    private final RowHandler handler;
+    private volatile long knownVersion;
+    // แถวของไฟล์ ณ ครั้งล่าสุดที่ซิงก์กับดิสก์ (คีย์ -> บรรทัดในรูปแบบมาตรฐาน) หรือ null หากไม่ได้ติดตามแถว
+    private Map<String, String> baseRows;
+
+    /**
+     * @param filePath ที่อยู่ของไฟล์ CSV
+     * @param keyOf    ฟังก์ชันคำนวณคีย์หลักของแถวจากฟิลด์ (คืนค่า null สำหรับแถวที่ไม่สมบูรณ์เพื่อข้ามแถวนั้น)
+     * @param handler  ผู้รับแถวที่เปลี่ยนแปลงระหว่าง {@link #reload()}
+     */
+    SharedCsvFile(String filePath, Function<String[], String> keyOf, RowHandler handler) {
+        this.filePath = filePath;
+        this.versionFile = new File(filePath + VERSION_SUFFIX);
+        this.keyOf = keyOf;
+        this.handler = handler;
+    }
+
+    String getFilePath() {
+        return filePath;
+    }
+
+    /**
+     * อ่านเวอร์ชันปัจจุบันบนดิสก์ (0 หากยังไม่เคยมีการเขียนไฟล์ที่มีเวอร์ชัน)
+     */
+    long readVersion() {
+        if (!versionFile.exists()) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(new String(Files.readAllBytes(versionFile.toPath()), StandardCharsets.UTF_8).trim());
+        } catch (IOException | NumberFormatException e) {
+            // ไฟล์อาจกำลังถูกเขียนอยู่: ถือว่าเปลี่ยนแปลง แล้วอ่านใหม่อีกครั้งภายใต้ Lock
+            return -1;
+        }
+    }
+
+    /**
+     * @return true หากไฟล์ถูกเขียนโดยผู้อื่นหลังจากที่โปรเซสนี้อ่านหรือเขียนครั้งล่าสุด
+     */
+    boolean isChangedOnDisk() {
+        return readVersion() != knownVersion;
+    }
+
+    boolean isTracking() {
+        return baseRows != null;
+    }
+
+    /**
+     * เริ่มติดตามแถว โดยใช้ไฟล์บนดิสก์ปัจจุบันเป็นฐาน (ต้องตรงกับข้อมูลที่เพิ่งโหลดเข้าหน่วยความจำ)
+     */
+    void track() throws IOException {
+        knownVersion = readVersion();
+        baseRows = readRows();
+    }
+
+    /**
+     * อ่านไฟล์บนดิสก์แล้วส่งเฉพาะแถวที่ต่างจากฐานให้ {@link RowHandler} จากนั้นใช้ไฟล์บนดิสก์เป็นฐานใหม่
+     *
+     * @return จำนวนแถวที่เปลี่ยนแปลง
+     */
+    int reload() throws IOException {
+        long version = readVersion();
+        Map<String, String> diskRows = readRows();
+        Set<String> keys = new HashSet<>(baseRows.keySet());
+        keys.addAll(diskRows.keySet());
+        int changed = 0;
+        for (String key : keys) {
+            String base = baseRows.get(key);
+            String disk = diskRows.get(key);
+            if (Objects.equals(base, disk)) {
+                continue;
+            }
+            handler.rowChanged(key, base == null ? null : CsvLoader.parseLine(base),
+                    disk == null ? null : CsvLoader.parseLine(disk));
+            changed++;
+        }
+        baseRows = diskRows;
+        knownVersion = version;
+        return changed;
+    }
+
+    /**
+     * ถูกเรียกหลังจากโปรเซสนี้เขียนไฟล์ CSV ใหม่แล้ว: เพิ่มเวอร์ชันบนดิสก์ และใช้ไฟล์ที่เพิ่งเขียนเป็นฐานใหม่
+     */
+    void committed() throws IOException {
+        long version = Math.max(readVersion(), knownVersion) + 1;
+        Files.write(versionFile.toPath(), Long.toString(version).getBytes(StandardCharsets.UTF_8));
+        knownVersion = version;
+        if (baseRows != null) {
+            baseRows = readRows();
+        }
+    }
+
+    /**
+     * อ่านแถวทั้งหมดของไฟล์เป็นคีย์ -> บรรทัดในรูปแบบมาตรฐาน (ฟิลด์ที่ Escape แล้วคั่นด้วยจุลภาค)
+     * เพื่อให้การเปรียบเทียบไม่ขึ้นกับรูปแบบการเขียนของแต่ละโปรเซส
+     */
+    private Map<String, String> readRows() throws IOException {
+        Map<String, String> rows = new HashMap<>();
+        if (!new File(filePath).exists()) {
+            return rows;
+        }
+        for (String[] fields : CsvLoader.load(filePath, fields -> fields)) {
+            String key = keyOf.apply(fields);
+            if (key == null) {
+                continue;
+            }
+            StringBuilder line = new StringBuilder();
+            for (int i = 0; i < fields.length; i++) {
+                if (i > 0) {
+                    line.append(',');
+                }
+                line.append(CsvLoader.escape(fields[i]));
+            }
+            rows.put(key, line.toString());
+        }
+        return rows;
+    }
+}
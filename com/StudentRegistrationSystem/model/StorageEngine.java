@@ -0,0 +1,31 @@
+package com.StudentRegistrationSystem.model;
+
+/**
+ * รูปแบบการจัดเก็บข้อมูล ({@link DataRepository}) ที่เลือกได้ตอนเริ่มโปรแกรม
+ */
+public enum StorageEngine {
+    /** ไฟล์ CSV พร้อม Journal สำหรับการเปลี่ยนแปลงทีละรายการ ({@link DataAccessService}) */
+    CSV,
+    /** โหลดจากไฟล์ CSV ครั้งเดียว แล้วทำงานในหน่วยความจำอย่างเดียว การเปลี่ยนแปลงไม่ถูกบันทึก ({@link InMemoryRepository}) */
+    MEMORY,
+    /** ไฟล์ไบนารีที่ Map เข้าหน่วยความจำ แก้ไขแต่ละระเบียนในที่เดิม ({@link MappedBinaryRepository}) */
+    MAPPED,
+    /** ไฟล์ CSV ที่หลายโปรเซสใช้ร่วมกันได้ ({@link DataAccessService.PersistenceMode#SHARED}) */
+    SHARED;
+
+    /**
+     * สร้างที่เก็บข้อมูลตามรูปแบบนี้ จากไฟล์ข้อมูลในโฟลเดอร์ที่กำหนด
+     */
+    public DataRepository open(String dataDirectory) {
+        switch (this) {
+            case MEMORY:
+                return InMemoryRepository.copyOf(new DataAccessService(dataDirectory, DataAccessService.PersistenceMode.CSV));
+            case MAPPED:
+                return new MappedBinaryRepository(dataDirectory);
+            case SHARED:
+                return new DataAccessService(dataDirectory, DataAccessService.PersistenceMode.SHARED);
+            default:
+                return new DataAccessService(dataDirectory, DataAccessService.PersistenceMode.JOURNAL);
+        }
+    }
+}
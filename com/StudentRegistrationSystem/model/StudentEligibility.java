@@ -0,0 +1,79 @@
+package com.StudentRegistrationSystem.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * ผลการตรวจสอบสิทธิ์การลงทะเบียนของนักเรียนหนึ่งคนเทียบกับรายวิชาทั้งหมด (Eligibility Matrix หนึ่งแถว)
+ * เก็บเหตุผลของแต่ละรายวิชาที่ลงทะเบียนไม่ได้ ตามกฎชุดเดียวกับ {@link RegistrationService}
+ *
+ * Object นี้ถูกอัปเดตทีละรายวิชาโดย {@link EligibilityService} เมื่อข้อมูลเปลี่ยน
+ * จึงอ่านได้อย่างปลอดภัยจากหลายเธรด และผู้ที่ถือ Object ไว้ (เช่น หน้าจอ) จะเห็นค่าล่าสุดเสมอ
+ */
+public class StudentEligibility {
+
+    /**
+     * ค่าแทน "ลงทะเบียนได้" ใน Map (ConcurrentHashMap ไม่รองรับค่า null)
+     */
+    private static final String ELIGIBLE = "";
+
+    private final Student student;
+    private final Set<String> enrolledSubjectIds;
+
+    // รหัสวิชา -> เหตุผลที่ลงทะเบียนไม่ได้ (หรือ ELIGIBLE)
+    private final Map<String, String> reasonsBySubjectId = new ConcurrentHashMap<>();
+
+    StudentEligibility(Student student, Set<String> enrolledSubjectIds) {
+        this.student = student;
+        this.enrolledSubjectIds = Collections.unmodifiableSet(enrolledSubjectIds);
+    }
+
+    public Student getStudent() {
+        return student;
+    }
+
+    /**
+     * @return รหัสวิชาที่นักเรียนลงทะเบียนแล้ว ณ เวลาที่คำนวณ
+     */
+    public Set<String> getEnrolledSubjectIds() {
+        return enrolledSubjectIds;
+    }
+
+    public boolean isEligible(String subjectId) {
+        return ELIGIBLE.equals(reasonsBySubjectId.get(subjectId));
+    }
+
+    /**
+     * @return ข้อความข้อผิดพลาดของกฎข้อแรกที่ไม่ผ่าน (รูปแบบ "Error: ...") หรือ null หากลงทะเบียนได้หรือไม่รู้จักรายวิชานี้
+     */
+    public String getReason(String subjectId) {
+        String reason = reasonsBySubjectId.get(subjectId);
+        return reason == null || reason.equals(ELIGIBLE) ? null : reason;
+    }
+
+    /**
+     * @return รหัสวิชาทั้งหมดที่นักเรียนลงทะเบียนได้ในขณะนี้ (ไม่เรียงตามลำดับ)
+     */
+    public List<String> getEligibleSubjectIds() {
+        List<String> eligible = new ArrayList<>();
+        reasonsBySubjectId.forEach((subjectId, reason) -> {
+            if (reason.equals(ELIGIBLE)) {
+                eligible.add(subjectId);
+            }
+        });
+        return eligible;
+    }
+
+    /**
+     * บันทึกผลการตรวจสอบของรายวิชาหนึ่ง
+     *
+     * @param reason ผลจาก {@link RegistrationService#checkEligibility} (null คือลงทะเบียนได้)
+     */
+    void update(String subjectId, String reason) {
+        reasonsBySubjectId.put(subjectId, reason == null ? ELIGIBLE : reason);
+    }
+}
@@ -0,0 +1,20 @@
+package com.StudentRegistrationSystem.model;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * ที่เก็บข้อมูลนักเรียน (Repository) ซึ่งไม่ผูกกับรูปแบบการจัดเก็บ
+ * ผู้ใช้งานเรียกผ่าน Interface นี้ จึงสลับไปใช้ที่เก็บข้อมูลแบบอื่นได้โดยไม่ต้องแก้ไขโค้ด
+ */
+public interface StudentRepository {
+
+    Optional<Student> findStudentById(String id);
+
+    List<Student> getAllStudents();
+
+    /**
+     * เพิ่มนักเรียนใหม่ หากมีรหัสนักเรียนซ้ำ ข้อมูลเดิมจะถูกแทนที่
+     */
+    void addStudent(Student student);
+}
@@ -1,5 +1,7 @@
 package com.StudentRegistrationSystem.model;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * คลาส Model สำหรับจัดเก็บข้อมูลของรายวิชา (Subject)
  * แต่ละ Object ของคลาสนี้จะแทนข้อมูลของรายวิชาหนึ่งวิชา
@@ -37,13 +39,57 @@ public class Subject {
     /**
      * จำนวนนักเรียนสูงสุดที่สามารถลงทะเบียนได้
      * ค่า -1 หมายถึง "ไม่จำกัดจำนวน"
+     * ใช้ `volatile` เพราะแอดมินอาจแก้ไขค่านี้ระหว่างที่เธรดอื่นกำลังจองที่นั่ง
      */
-    private int maxCapacity;
+    private volatile int maxCapacity;
 
     /**
      * จำนวนนักเรียนที่ลงทะเบียนแล้วในปัจจุบัน
+     * ใช้ `AtomicInteger` เพื่อให้การจองที่นั่งจากหลายเธรดพร้อมกันทำได้ด้วย CAS (Compare-And-Set) โดยไม่ต้องใช้ Lock
      */
-    private int currentEnrollment;
+    private final AtomicInteger currentEnrollment = new AtomicInteger();
+
+    /**
+     * ตรวจสอบว่ารายวิชาเต็มแล้วหรือไม่ (รายวิชาที่ไม่จำกัดจำนวนจะไม่มีวันเต็ม)
+     */
+    public boolean isFull() {
+        return maxCapacity != -1 && currentEnrollment.get() >= maxCapacity;
+    }
+
+    /**
+     * จองที่นั่ง 1 ที่แบบ Atomic: เพิ่มจำนวนผู้ลงทะเบียนก็ต่อเมื่อยังไม่เกินจำนวนสูงสุด
+     * หากมีเธรดอื่นแก้ไขค่าไปก่อน จะอ่านค่าใหม่และลองอีกครั้ง (CAS Loop)
+     *
+     * @return true หากจองสำเร็จ, false หากรายวิชาเต็มแล้ว
+     */
+    public boolean tryReserveSeat() {
+        while (true) {
+            int current = currentEnrollment.get();
+            if (maxCapacity != -1 && current >= maxCapacity) {
+                return false;
+            }
+            if (currentEnrollment.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * คืนที่นั่ง 1 ที่ (เช่น เมื่อการลงทะเบียนที่จองไว้ถูกยกเลิก)
+     */
+    public void releaseSeat() {
+        currentEnrollment.updateAndGet(current -> Math.max(0, current - 1));
+    }
+
+    /**
+     * ปรับจำนวนผู้ลงทะเบียนตามผลต่างที่เกิดจากโปรเซสอื่นที่ใช้ไฟล์ข้อมูลร่วมกัน
+     * ใช้การบวกแบบ Atomic เพื่อไม่ให้ทับการจองที่นั่งที่เกิดขึ้นพร้อมกันในโปรเซสนี้
+     *
+     * @param delta จำนวนที่เพิ่มขึ้น (หรือลดลงหากติดลบ)
+     */
+    public void adjustCurrentEnrollment(int delta) {
+        currentEnrollment.updateAndGet(current -> Math.max(0, current + delta));
+    }
 
 
     // --- Getters and Setters: เมธอดสำหรับการเข้าถึงและแก้ไขข้อมูลใน Fields ---
@@ -97,10 +143,10 @@ public class Subject {
     }
 
     public int getCurrentEnrollment() {
-        return currentEnrollment;
+        return currentEnrollment.get();
     }
 
     public void setCurrentEnrollment(int currentEnrollment) {
-        this.currentEnrollment = currentEnrollment;
+        this.currentEnrollment.set(currentEnrollment);
     }
 }
\ No newline at end of file
@@ -0,0 +1,29 @@
+package com.StudentRegistrationSystem.model;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * ที่เก็บข้อมูลรายวิชา (Repository) ซึ่งไม่ผูกกับรูปแบบการจัดเก็บ
+ */
+public interface SubjectRepository {
+
+    Optional<Subject> findSubjectById(String id);
+
+    List<Subject> getAllSubjects();
+
+    /**
+     * เพิ่มรายวิชาใหม่ หากมีรหัสวิชาซ้ำ ข้อมูลเดิมจะถูกแทนที่
+     */
+    void addSubject(Subject subject);
+
+    /**
+     * แจ้งว่ามีการแก้ไขจำนวนที่นั่งสูงสุดของรายวิชาที่ต้องบันทึก
+     */
+    void recordCapacityChange(Subject subject);
+
+    /**
+     * บันทึกข้อมูลรายวิชาทั้งหมด (รวมถึงจำนวนผู้ลงทะเบียน) ลงที่เก็บข้อมูลถาวร
+     */
+    void saveSubjects();
+}
@@ -0,0 +1,51 @@
+package com.StudentRegistrationSystem.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * คลาส Model สำหรับจัดเก็บข้อมูลของนักเรียนหนึ่งคนในรายชื่อรอ (Waitlist) ของรายวิชา
+ * เรียงลำดับตามลำดับการเข้าคิวของรายวิชา (มาก่อนได้ก่อน) ซึ่งกำหนดขณะถือ Lock ของคิวจึงตรงกับเวลาที่ขอลงทะเบียน
+ */
+public class WaitlistEntry implements Comparable<WaitlistEntry> {
+
+    private final String studentId;
+    private final String subjectId;
+    private final LocalDateTime requestedAt;
+    private final long sequence;
+
+    public WaitlistEntry(String studentId, String subjectId, LocalDateTime requestedAt, long sequence) {
+        this.studentId = studentId;
+        this.subjectId = subjectId;
+        this.requestedAt = requestedAt;
+        this.sequence = sequence;
+    }
+
+    public String getStudentId() {
+        return studentId;
+    }
+
+    public String getSubjectId() {
+        return subjectId;
+    }
+
+    public LocalDateTime getRequestedAt() {
+        return requestedAt;
+    }
+
+    /**
+     * ลำดับการเข้าคิวภายในรายวิชา (เพิ่มขึ้นเรื่อยๆ ตามลำดับที่นักเรียนเข้าคิว)
+     */
+    long getSequence() {
+        return sequence;
+    }
+
+    @Override
+    public int compareTo(WaitlistEntry other) {
+        return Long.compare(sequence, other.sequence);
+    }
+
+    @Override
+    public String toString() {
+        return studentId + " -> " + subjectId + " (" + requestedAt + ")";
+    }
+}
@@ -0,0 +1,543 @@
+package com.StudentRegistrationSystem.model;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Service Class สำหรับจัดการรายชื่อรอ (Waitlist) ของรายวิชาที่เต็มแล้ว
+ *
+ * เมื่อ {@link RegistrationService} พบว่ารายวิชาเต็ม จะนำคำขอเข้าคิวของรายวิชานั้นแทนการปฏิเสธ
+ * (นักเรียนจึงไม่ต้องกดลงทะเบียนซ้ำไปเรื่อยๆ) และเมื่อมีที่นั่งว่าง (มีการยกเลิกการลงทะเบียน หรือแอดมินเพิ่มจำนวนที่นั่ง)
+ * นักเรียนที่อยู่หัวคิวจะถูกลงทะเบียนให้อัตโนมัติตามกฎเดิมทุกข้อ
+ *
+ * แต่ละรายวิชามีคิวและ Lock ของตัวเอง การเข้าคิวและการเลื่อนคิวของรายวิชาต่างกันจึงทำงานขนานกันได้
+ * การเปลี่ยนแปลงแต่ละครั้งถูกต่อท้ายเป็นระเบียน 1 บรรทัดในไฟล์ waitlists.journal และบังคับลงดิสก์ก่อนแจ้งผล
+ * ({@code A,subject_id,student_id,requested_at} เมื่อเข้าคิว และ {@code R,subject_id,student_id} เมื่อออกจากคิว)
+ * เมื่อ Journal ยาวเกินเกณฑ์ รายชื่อรอทั้งหมดจะถูกเขียนรวมลงไฟล์ waitlists.csv แล้วเริ่ม Journal ใหม่
+ * ทั้งสองไฟล์อยู่ในโฟลเดอร์เดียวกับไฟล์ข้อมูลอื่นๆ
+ */
+public class WaitlistService implements DataChangeListener {
+
+    private static final String WAITLISTS_CSV = "waitlists.csv";
+    private static final String WAITLISTS_JOURNAL = "waitlists.journal";
+    private static final int COMPACTION_THRESHOLD = 1000;
+    private static final String HEADER = "subject_id,student_id,requested_at";
+    private static final String COURSE_FULL = "Error: Course is full.";
+
+    /**
+     * คำขึ้นต้นของข้อความผลลัพธ์เมื่อนักเรียนถูกนำเข้ารายชื่อรอ
+     */
+    static final String WAITLISTED = "Success: Course is full. You have been added to the waitlist";
+
+    private final DataRepository dataAccess;
+    private final RegistrationService registrationService;
+    private final String waitlistsFile;
+    private final String journalFile;
+
+    // รหัสวิชา -> คิวของรายวิชานั้น
+    private final Map<String, SubjectWaitlist> waitlists = new ConcurrentHashMap<>();
+
+    // --- การบันทึกแบบรวมกลุ่ม: ระเบียนที่รอเขียนอยู่จะถูกเขียนและบังคับลงดิสก์ไปพร้อมกันในครั้งเดียว ---
+    // ระเบียนถูกเพิ่มขณะถือ Lock ของคิว จึงเรียงตามลำดับการเปลี่ยนแปลงของแต่ละรายวิชา
+    private final Queue<String> pendingRecords = new ConcurrentLinkedQueue<>();
+    private final Object saveLock = new Object();
+    private FileOutputStream journalOut; // ถูกป้องกันด้วย saveLock
+    private int journalRecords;          // ถูกป้องกันด้วย saveLock
+
+    /**
+     * Constructor ของ WaitlistService: โหลดรายชื่อรอจากไฟล์ และเชื่อมกับ RegistrationService
+     * เพื่อให้การลงทะเบียนในวิชาที่เต็มถูกนำเข้าคิวแทนการปฏิเสธ
+     */
+    public WaitlistService(DataRepository dataAccess, RegistrationService registrationService) {
+        this.dataAccess = dataAccess;
+        this.registrationService = registrationService;
+        // ที่เก็บข้อมูลที่ไม่บันทึกลงดิสก์จะไม่มีโฟลเดอร์ข้อมูล รายชื่อรอจึงอยู่ในหน่วยความจำอย่างเดียวเช่นกัน
+        this.waitlistsFile = dataAccess.getDataDirectory() == null ? null
+                : new File(dataAccess.getDataDirectory(), WAITLISTS_CSV).getPath();
+        this.journalFile = dataAccess.getDataDirectory() == null ? null
+                : new File(dataAccess.getDataDirectory(), WAITLISTS_JOURNAL).getPath();
+        load();
+        dataAccess.addChangeListener(this);
+        registrationService.setWaitlistService(this);
+    }
+
+    /**
+     * นำนักเรียนเข้าคิวของรายวิชาที่เต็ม (ถูกเรียกโดย {@link RegistrationService} หลังปล่อย Lock ของนักเรียนแล้ว)
+     * ลำดับในคิวถูกแจ้งกลับหลังจากบันทึกลงดิสก์แล้วเท่านั้น
+     *
+     * @return ข้อความผลลัพธ์พร้อมลำดับในคิว
+     * @throws UncheckedIOException หากบันทึกไม่สำเร็จ (นักเรียนจะถูกนำออกจากคิว)
+     */
+    String enqueue(Student student, Subject subject) {
+        SubjectWaitlist waitlist = waitlists.computeIfAbsent(subject.getSubjectId(), id -> new SubjectWaitlist());
+        int position;
+        waitlist.lock.lock();
+        try {
+            position = waitlist.positionOf(student.getStudentId());
+            if (position > 0) {
+                return "Error: You are already on the waitlist for this subject (position " + position + ").";
+            }
+            recordAdded(waitlist.add(student.getStudentId(), subject.getSubjectId(), LocalDateTime.now()));
+            position = waitlist.size();
+        } finally {
+            waitlist.lock.unlock();
+        }
+        try {
+            persist();
+        } catch (UncheckedIOException e) {
+            // ไม่แจ้งลำดับที่ไม่ได้ถูกบันทึก: นำออกจากคิวเพื่อให้ข้อมูลในหน่วยความจำตรงกับที่บันทึกไว้
+            removeFromQueue(waitlist, student.getStudentId(), subject.getSubjectId());
+            throw e;
+        }
+
+        // อาจมีที่นั่งว่างเกิดขึ้นระหว่างตรวจสอบกฎกับการเข้าคิว จึงลองเลื่อนคิวอีกครั้งเพื่อไม่ให้ค้างอยู่ในคิวทั้งที่มีที่ว่าง
+        promote(subject);
+        if (dataAccess.findEnrollment(student.getStudentId(), subject.getSubjectId()).isPresent()) {
+            return "Success: Registered successfully in " + subject.getSubjectName() + "!";
+        }
+        return WAITLISTED + " (position " + position + ").";
+    }
+
+    /**
+     * ลงทะเบียนนักเรียนจากหัวคิวเข้ารายวิชาจนกว่ารายวิชาจะเต็มหรือคิวหมด
+     * นักเรียนที่ไม่ผ่านกฎข้ออื่น (เช่น ลงทะเบียนเองไปแล้ว) จะถูกนำออกจากคิว
+     * ห้ามเรียกขณะถือ Lock ของนักเรียน เพราะการลงทะเบียนต้องล็อกข้อมูลของนักเรียนที่อยู่ในคิว
+     *
+     * @param subject รายวิชาที่อาจมีที่นั่งว่าง
+     * @return จำนวนนักเรียนที่ถูกลงทะเบียนจากคิว
+     */
+    public int promote(Subject subject) {
+        List<CompletableFuture<String>> promoted = promoteFromQueue(subject);
+        // รอการบันทึกการลงทะเบียนลงดิสก์นอก Lock ของคิว
+        promoted.forEach(CompletableFuture::join);
+        return promoted.size();
+    }
+
+    /**
+     * เลื่อนคิวเช่นเดียวกับ {@link #promote(Subject)} แต่ไม่รอการบันทึกลงดิสก์
+     *
+     * @return ผลการลงทะเบียนของนักเรียนแต่ละคนที่ถูกเลื่อนจากคิว (เสร็จเมื่อบันทึกลงดิสก์แล้ว)
+     */
+    private List<CompletableFuture<String>> promoteFromQueue(Subject subject) {
+        List<CompletableFuture<String>> promoted = new ArrayList<>();
+        SubjectWaitlist waitlist = waitlists.get(subject.getSubjectId());
+        if (waitlist == null) {
+            return promoted;
+        }
+        boolean changed = false;
+        waitlist.lock.lock();
+        try {
+            while (!subject.isFull()) {
+                WaitlistEntry head = waitlist.peek();
+                if (head == null) {
+                    break;
+                }
+                Student student = dataAccess.findStudentById(head.getStudentId()).orElse(null);
+                if (student == null) {
+                    recordRemoved(waitlist, head);
+                    changed = true;
+                    continue;
+                }
+                CompletableFuture<String> result = registrationService.registerFromWaitlist(student, subject);
+                // ผลที่ไม่ผ่านกฎจะเสร็จทันที ส่วนผลที่สำเร็จจะเสร็จเมื่อบันทึกลงดิสก์แล้ว
+                String error = result.getNow(null);
+                if (COURSE_FULL.equals(error)) {
+                    // มีผู้อื่นจองที่นั่งสุดท้ายไปก่อน: นักเรียนยังอยู่หัวคิวตามเดิม
+                    break;
+                }
+                recordRemoved(waitlist, head);
+                changed = true;
+                if (error != null && error.startsWith("Error")) {
+                    System.err.println("Removed from waitlist " + head + ": " + error);
+                    continue;
+                }
+                promoted.add(result);
+            }
+        } finally {
+            waitlist.lock.unlock();
+        }
+        if (changed) {
+            try {
+                persist();
+            } catch (UncheckedIOException e) {
+                // การลงทะเบียนจากคิวเกิดขึ้นแล้ว หากรายชื่อรอที่บันทึกไว้ยังมีนักเรียนเหล่านี้อยู่
+                // การเลื่อนคิวครั้งถัดไปหลังเปิดโปรแกรมจะนำออกเองเพราะลงทะเบียนไปแล้ว
+                System.err.println("Error saving waitlist of: " + subject.getSubjectId());
+                e.printStackTrace();
+            }
+        }
+        return promoted;
+    }
+
+    /**
+     * นำนักเรียนออกจากคิวของรายวิชา
+     *
+     * @return true หากนักเรียนอยู่ในคิวและถูกนำออกแล้ว
+     */
+    public boolean cancel(String studentId, String subjectId) {
+        SubjectWaitlist waitlist = waitlists.get(subjectId);
+        if (waitlist == null) {
+            return false;
+        }
+        boolean removed = removeFromQueue(waitlist, studentId, subjectId);
+        if (removed) {
+            persist();
+        }
+        return removed;
+    }
+
+    private boolean removeFromQueue(SubjectWaitlist waitlist, String studentId, String subjectId) {
+        waitlist.lock.lock();
+        try {
+            if (!waitlist.remove(studentId)) {
+                return false;
+            }
+            if (journalFile != null) {
+                pendingRecords.add(String.join(",", "R", subjectId, studentId));
+            }
+            return true;
+        } finally {
+            waitlist.lock.unlock();
+        }
+    }
+
+    /**
+     * นำรายการออกจากคิวและเตรียมระเบียนสำหรับ Journal ต้องถูกเรียกขณะถือ Lock ของคิว
+     */
+    private void recordRemoved(SubjectWaitlist waitlist, WaitlistEntry entry) {
+        if (waitlist.remove(entry.getStudentId()) && journalFile != null) {
+            pendingRecords.add(String.join(",", "R", entry.getSubjectId(), entry.getStudentId()));
+        }
+    }
+
+    /**
+     * เตรียมระเบียนการเข้าคิวสำหรับ Journal ต้องถูกเรียกขณะถือ Lock ของคิว
+     */
+    private void recordAdded(WaitlistEntry entry) {
+        if (entry != null && journalFile != null) {
+            pendingRecords.add(String.join(",", "A", entry.getSubjectId(), entry.getStudentId(),
+                    entry.getRequestedAt().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME)));
+        }
+    }
+
+    /**
+     * @return ลำดับของนักเรียนในคิว (เริ่มจาก 1) หรือ 0 หากไม่ได้อยู่ในคิว
+     */
+    public int getPosition(String studentId, String subjectId) {
+        SubjectWaitlist waitlist = waitlists.get(subjectId);
+        if (waitlist == null) {
+            return 0;
+        }
+        waitlist.lock.lock();
+        try {
+            return waitlist.positionOf(studentId);
+        } finally {
+            waitlist.lock.unlock();
+        }
+    }
+
+    /**
+     * @return รายชื่อรอของรายวิชาเรียงตามลำดับคิว
+     */
+    public List<WaitlistEntry> getWaitlist(String subjectId) {
+        SubjectWaitlist waitlist = waitlists.get(subjectId);
+        if (waitlist == null) {
+            return new ArrayList<>();
+        }
+        waitlist.lock.lock();
+        try {
+            return waitlist.sortedEntries();
+        } finally {
+            waitlist.lock.unlock();
+        }
+    }
+
+    /**
+     * เมื่อข้อมูลรายวิชาเปลี่ยน (เช่น แอดมินเพิ่มจำนวนที่นั่ง) ให้ลองเลื่อนคิวของรายวิชานั้น
+     * โดยไม่รอการบันทึกลงดิสก์ เพราะตัวรับฟังอาจถูกเรียกจากเธรดที่เขียนไฟล์เอง (รอไปก็จะค้างตลอด)
+     * การบันทึกที่ล้มเหลวจึงถูกรายงานเมื่อเสร็จแทน
+     */
+    @Override
+    public void subjectChanged(Subject subject) {
+        for (CompletableFuture<String> result : promoteFromQueue(subject)) {
+            result.whenComplete((message, e) -> {
+                if (e != null) {
+                    System.err.println("Error saving promotion from waitlist of: " + subject.getSubjectId());
+                    e.printStackTrace();
+                }
+            });
+        }
+    }
+
+    // --- การอ่าน/เขียนไฟล์ waitlists.csv และ waitlists.journal ---
+
+    private void load() {
+        if (waitlistsFile == null) {
+            return;
+        }
+        if (new File(waitlistsFile).exists()) {
+            try {
+                // ไฟล์ถูกเขียนตามลำดับคิว ลำดับการเข้าคิวที่กำหนดให้ตอนอ่านจึงตรงกับลำดับเดิม
+                for (String[] data : CsvLoader.load(waitlistsFile, data -> data)) {
+                    waitlists.computeIfAbsent(data[0], id -> new SubjectWaitlist())
+                            .add(data[1], data[0], LocalDateTime.parse(data[2]));
+                }
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Error loading file: " + waitlistsFile);
+                e.printStackTrace();
+            }
+        }
+        journalRecords = replayJournal();
+    }
+
+    /**
+     * เล่นซ้ำ Journal ทับรายชื่อรอที่อ่านจาก CSV (การเข้าคิวซ้ำและการนำออกที่ไม่มีในคิวถูกข้าม จึงเล่นซ้ำได้หลายครั้ง)
+     * บรรทัดที่อ่านไม่ได้ (เช่น บรรทัดสุดท้ายที่เขียนไม่สมบูรณ์) จะถูกข้ามไป
+     *
+     * @return จำนวนระเบียนใน Journal
+     */
+    private int replayJournal() {
+        File file = new File(journalFile);
+        if (!file.exists()) {
+            return 0;
+        }
+        int records = 0;
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] data = line.split(",", -1);
+                try {
+                    if (data[0].equals("A") && data.length == 4) {
+                        waitlists.computeIfAbsent(data[1], id -> new SubjectWaitlist())
+                                .add(data[2], data[1], LocalDateTime.parse(data[3]));
+                    } else if (data[0].equals("R") && data.length == 3) {
+                        SubjectWaitlist waitlist = waitlists.get(data[1]);
+                        if (waitlist != null) {
+                            waitlist.remove(data[2]);
+                        }
+                    } else {
+                        System.err.println("Skipping malformed waitlist journal record: " + line);
+                        continue;
+                    }
+                    records++;
+                } catch (RuntimeException ex) {
+                    System.err.println("Skipping malformed waitlist journal record: " + line);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Error replaying journal: " + journalFile);
+            e.printStackTrace();
+        }
+        return records;
+    }
+
+    /**
+     * เขียนระเบียนที่รออยู่ทั้งหมดต่อท้าย Journal และบังคับลงดิสก์ก่อนกลับ
+     * หากมีเธรดอื่นกำลังเขียนอยู่ จะรอแล้วเขียนครั้งเดียวรวมระเบียนที่ค้างทั้งหมด (ระเบียนของผู้รอที่ถูกเขียนไปแล้ว
+     * โดยเธรดก่อนหน้าได้ลงดิสก์แล้วก่อนที่เธรดนั้นจะปล่อย Lock จึงกลับได้ทันที)
+     *
+     * @throws UncheckedIOException หากเขียน Journal ไม่สำเร็จ
+     */
+    private void persist() {
+        if (journalFile == null) {
+            return;
+        }
+        synchronized (saveLock) {
+            if (pendingRecords.isEmpty()) {
+                return;
+            }
+            StringBuilder batch = new StringBuilder();
+            String record;
+            while ((record = pendingRecords.poll()) != null) {
+                batch.append(record).append(System.lineSeparator());
+                journalRecords++;
+            }
+            try {
+                if (journalOut == null) {
+                    journalOut = new FileOutputStream(journalFile, true);
+                }
+                journalOut.write(batch.toString().getBytes(StandardCharsets.UTF_8));
+                journalOut.getChannel().force(false);
+            } catch (IOException e) {
+                // ระเบียนชุดนี้อาจไม่อยู่ใน Journal: ให้การบันทึกครั้งถัดไปเขียนรายชื่อรอทั้งหมดลง CSV แทน
+                journalRecords = COMPACTION_THRESHOLD;
+                throw new UncheckedIOException("Error writing journal: " + journalFile, e);
+            }
+            if (journalRecords >= COMPACTION_THRESHOLD) {
+                compact();
+            }
+        }
+    }
+
+    /**
+     * เขียนรายชื่อรอทั้งหมดลงไฟล์ CSV แล้วล้าง Journal ต้องถูกเรียกขณะถือ saveLock
+     * การเปลี่ยนแปลงที่เกิดระหว่างนี้ยังรออยู่ใน pendingRecords จึงถูกเขียนลง Journal ใหม่ในครั้งถัดไป
+     * (หากอยู่ในสำเนาด้วย การเล่นซ้ำก็ให้ผลเหมือนเดิม) หากล้มเหลว Journal เดิมยังอยู่ครบและถูกใช้ต่อไป
+     */
+    private void compact() {
+        try {
+            save();
+            journalOut.getChannel().truncate(0);
+            journalOut.getChannel().force(false);
+            journalRecords = 0;
+        } catch (IOException e) {
+            System.err.println("Error compacting journal into: " + waitlistsFile);
+            e.printStackTrace();
+        }
+    }
+
+    private void save() throws IOException {
+        List<WaitlistEntry> entries = new ArrayList<>();
+        for (SubjectWaitlist waitlist : waitlists.values()) {
+            waitlist.lock.lock();
+            try {
+                entries.addAll(waitlist.sortedEntries());
+            } finally {
+                waitlist.lock.unlock();
+            }
+        }
+        String tempFile = waitlistsFile + ".tmp";
+        try (FileOutputStream out = new FileOutputStream(tempFile);
+             PrintWriter writer = new PrintWriter(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)))) {
+            writer.println(HEADER);
+            for (WaitlistEntry e : entries) {
+                writer.println(String.join(",", e.getSubjectId(), e.getStudentId(),
+                        e.getRequestedAt().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME)));
+            }
+            writer.flush();
+            if (writer.checkError()) {
+                throw new IOException("Error writing file: " + tempFile);
+            }
+            out.getChannel().force(false);
+        }
+        Files.move(new File(tempFile).toPath(), new File(waitlistsFile).toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * คิวของรายวิชาหนึ่งวิชา ทุกเมธอดต้องถูกเรียกขณะถือ {@link #lock}
+     *
+     * แต่ละรายการได้รับลำดับการเข้าคิว (Sequence) ที่เพิ่มขึ้นเรื่อยๆ ภายในรายวิชา และคิวเรียงตามลำดับนี้
+     * ลำดับของนักเรียนในคิวคือจำนวนรายการที่ยังอยู่ในคิวซึ่งมีลำดับการเข้าคิวไม่เกินของตน นับด้วย Fenwick Tree
+     * (Binary Indexed Tree) ที่ช่องของแต่ละลำดับการเข้าคิวเก็บ 1 หากรายการนั้นยังอยู่ในคิว
+     * การเข้าคิว การนำออก และการหาลำดับจึงใช้เวลา O(log n) โดยไม่ต้องคัดลอกหรือเรียงคิวใหม่
+     */
+    private static final class SubjectWaitlist {
+        private static final int INITIAL_SLOTS = 64;
+
+        final Lock lock = new ReentrantLock();
+        private final TreeMap<Long, WaitlistEntry> queue = new TreeMap<>();
+        private final Map<String, WaitlistEntry> entriesByStudentId = new HashMap<>();
+        private long nextSequence;
+
+        // Fenwick Tree ของช่วงลำดับการเข้าคิว [firstSlotSequence, firstSlotSequence + slots) (ดัชนีเริ่มจาก 1)
+        private int[] tree = new int[INITIAL_SLOTS + 1];
+        private long firstSlotSequence;
+
+        /**
+         * ต่อท้ายนักเรียนเข้าคิว
+         *
+         * @return รายการที่เพิ่ม หรือ null หากนักเรียนอยู่ในคิวแล้ว
+         */
+        WaitlistEntry add(String studentId, String subjectId, LocalDateTime requestedAt) {
+            if (entriesByStudentId.containsKey(studentId)) {
+                return null;
+            }
+            WaitlistEntry entry = new WaitlistEntry(studentId, subjectId, requestedAt, nextSequence++);
+            ensureSlot(entry.getSequence());
+            queue.put(entry.getSequence(), entry);
+            entriesByStudentId.put(studentId, entry);
+            updateSlot(entry.getSequence(), 1);
+            return entry;
+        }
+
+        WaitlistEntry peek() {
+            Map.Entry<Long, WaitlistEntry> head = queue.firstEntry();
+            return head == null ? null : head.getValue();
+        }
+
+        boolean remove(String studentId) {
+            WaitlistEntry entry = entriesByStudentId.remove(studentId);
+            if (entry == null) {
+                return false;
+            }
+            queue.remove(entry.getSequence());
+            updateSlot(entry.getSequence(), -1);
+            if (queue.isEmpty()) {
+                // คิวว่าง: เริ่มช่วงของ Fenwick Tree ใหม่ เพื่อไม่ให้ขยายตามจำนวนการเข้าคิวสะสม
+                tree = new int[INITIAL_SLOTS + 1];
+                firstSlotSequence = nextSequence;
+            }
+            return true;
+        }
+
+        int size() {
+            return queue.size();
+        }
+
+        int positionOf(String studentId) {
+            WaitlistEntry entry = entriesByStudentId.get(studentId);
+            if (entry == null) {
+                return 0;
+            }
+            int position = 0;
+            for (int i = slotOf(entry.getSequence()); i > 0; i -= i & -i) {
+                position += tree[i];
+            }
+            return position;
+        }
+
+        List<WaitlistEntry> sortedEntries() {
+            return new ArrayList<>(queue.values());
+        }
+
+        private int slotOf(long sequence) {
+            return (int) (sequence - firstSlotSequence) + 1;
+        }
+
+        private void updateSlot(long sequence, int delta) {
+            for (int i = slotOf(sequence); i < tree.length; i += i & -i) {
+                tree[i] += delta;
+            }
+        }
+
+        /**
+         * ขยาย Fenwick Tree ให้ครอบคลุมลำดับการเข้าคิวนี้ โดยเริ่มช่วงใหม่จากหัวคิวปัจจุบัน
+         * และสร้างใหม่จากรายการที่อยู่ในคิว (O(n log n) แต่เกิดเมื่อช่วงเต็มเท่านั้น จึงเฉลี่ยแล้วคงที่ต่อการเข้าคิว)
+         */
+        private void ensureSlot(long sequence) {
+            if (slotOf(sequence) < tree.length) {
+                return;
+            }
+            firstSlotSequence = queue.isEmpty() ? sequence : queue.firstKey();
+            int needed = (int) (sequence - firstSlotSequence) + 1;
+            tree = new int[Math.max(INITIAL_SLOTS, needed * 2) + 1];
+            for (long live : queue.keySet()) {
+                updateSlot(live, 1);
+            }
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package com.StudentRegistrationSystem.server;
+
+import com.StudentRegistrationSystem.metrics.MetricsRegistry;
+import com.StudentRegistrationSystem.model.AdminService;
+import com.StudentRegistrationSystem.model.DataAccessService;
+import com.StudentRegistrationSystem.model.GradeAnalyticsService;
+import com.StudentRegistrationSystem.model.PersistenceWriter;
+import com.StudentRegistrationSystem.model.RegistrationService;
+import com.StudentRegistrationSystem.model.ShardedRegistrationEngine;
+import com.StudentRegistrationSystem.model.Student;
+import com.StudentRegistrationSystem.model.WaitlistService;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * ตัวทดสอบภาระงาน (Load Test) ของ {@link RegistrationServer}
+ * จำลองผู้ใช้พร้อมกันหลายคน แต่ละคนทำงานวนซ้ำตามลำดับเหมือนนักเรียนจริง:
+ * เข้าสู่ระบบ, ดูรายวิชาที่ลงทะเบียนได้, ลงทะเบียนหนึ่งวิชา และบางครั้งแอดมินแก้ไขเกรดของวิชานั้น
+ * เมื่อครบเวลาจะแสดงจำนวนคำขอต่อวินาที (Requests/sec) และค่า Latency ที่เปอร์เซ็นไทล์ต่างๆ
+ *
+ * วิธีใช้งาน:
+ * <pre>
+ *     java com.StudentRegistrationSystem.server.LoadTest [embedded|http://host:port] [จำนวนผู้ใช้] [วินาที] [โฟลเดอร์ข้อมูล] [จำนวน Shard]
+ *     java com.StudentRegistrationSystem.server.LoadTest embedded 500 30 .
+ * </pre>
+ * โหมด embedded จะคัดลอกไฟล์ CSV จากโฟลเดอร์ข้อมูลไปยังโฟลเดอร์ชั่วคราว แล้วเริ่มเซิร์ฟเวอร์ภายในโปรเซสเดียวกัน
+ * เพื่อไม่ให้การทดสอบแก้ไขข้อมูลจริง ผู้ใช้จำลองลงทะเบียนด้วยโทเคนที่ได้จากการเข้าสู่ระบบ ส่วนการแก้ไขเกรด
+ * ใช้โทเคนผู้ดูแลระบบ (การทดสอบเซิร์ฟเวอร์ที่ทำงานอยู่แล้วอ่านจากตัวแปรสภาพแวดล้อม {@code REGISTRATION_ADMIN_TOKEN}
+ * หากไม่กำหนดจะข้ามการแก้ไขเกรด) หากระบุจำนวน Shard (มากกว่า 0) เซิร์ฟเวอร์จะลงทะเบียนผ่าน {@link ShardedRegistrationEngine}
+ */
+public class LoadTest {
+
+    private static final String[] GRADES = {"A", "B+", "B", "C+", "C", "D+", "D", "F"};
+    private static final Pattern SUBJECT_ID = Pattern.compile("\"subjectId\":\"([^\"]*)\"");
+    private static final Pattern TOKEN = Pattern.compile("\"token\":\"([^\"]*)\"");
+
+    /**
+     * ขอบเขตบนของ Latency ในแต่ละช่อง (ไมโครวินาที) เพิ่มขึ้นทีละเท่าตัว ใช้คำนวณเปอร์เซ็นไทล์โดยไม่ต้องเก็บทุกค่า
+     */
+    private static final int LATENCY_BUCKETS = 32;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private final String baseUrl;
+    private final String adminToken;
+    private final List<String> studentIds;
+    private final AtomicLongArray latencyHistogram = new AtomicLongArray(LATENCY_BUCKETS);
+    private final AtomicLongArray statusCounts = new AtomicLongArray(6);
+
+    private LoadTest(String baseUrl, String adminToken, List<String> studentIds) {
+        this.baseUrl = baseUrl;
+        this.adminToken = adminToken;
+        this.studentIds = studentIds;
+    }
+
+    public static void main(String[] args) throws Exception {
+        String target = args.length > 0 ? args[0] : "embedded";
+        int users = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        String dataDirectory = args.length > 3 ? args[3] : ".";
+        int shardCount = args.length > 4 ? Integer.parseInt(args[4]) : 0;
+
+        // อ่านรายชื่อนักเรียนเพื่อใช้สุ่มผู้ใช้ (โหมด CSV และไม่เรียก close() จึงไม่มีการเขียนไฟล์ใดๆ)
+        List<String> studentIds = new ArrayList<>();
+        for (Student s : new DataAccessService(dataDirectory, DataAccessService.PersistenceMode.CSV).getAllStudents()) {
+            studentIds.add(s.getStudentId());
+        }
+        if (studentIds.isEmpty()) {
+            System.err.println("No students found in " + dataDirectory);
+            return;
+        }
+
+        RegistrationServer embedded = null;
+        PersistenceWriter writer = null;
+        ShardedRegistrationEngine shardedEngine = null;
+        DataAccessService dataAccess = null;
+        String baseUrl = target;
+        String adminToken = System.getenv("REGISTRATION_ADMIN_TOKEN");
+        if (target.equals("embedded")) {
+            Path copy = copyDataFiles(dataDirectory);
+            dataAccess = new DataAccessService(copy.toString(), DataAccessService.PersistenceMode.JOURNAL);
+            writer = new PersistenceWriter(dataAccess);
+            shardedEngine = shardCount > 0 ? new ShardedRegistrationEngine(shardCount) : null;
+            RegistrationService registrationService = new RegistrationService(dataAccess, writer, shardedEngine);
+            new WaitlistService(dataAccess, registrationService);
+            adminToken = RegistrationServer.newAccessToken();
+            embedded = new RegistrationServer(dataAccess, registrationService, new AdminService(dataAccess, writer),
+                    new GradeAnalyticsService(dataAccess), 0, adminToken);
+            embedded.start();
+            baseUrl = "http://localhost:" + embedded.getPort();
+            System.out.println("Embedded server on " + baseUrl + " (data copied to " + copy + ")");
+        }
+
+        new LoadTest(baseUrl, adminToken, studentIds).run(users, seconds);
+
+        if (embedded != null) {
+            embedded.stop(1);
+            if (shardedEngine != null) {
+                shardedEngine.shutdown();
+            }
+            writer.shutdown();
+            dataAccess.close();
+            // เวลาที่ใช้ภายในเซิร์ฟเวอร์ (ไม่รวมเครือข่าย) เพื่อเทียบกับ Latency ที่ฝั่งผู้ใช้วัดได้
+            System.out.print(MetricsRegistry.getDefault().summary());
+        }
+    }
+
+    /**
+     * เริ่มผู้ใช้จำลองทั้งหมดพร้อมกันบน Executor แบบเดียวกับเซิร์ฟเวอร์ แล้วรอจนครบเวลา
+     */
+    private void run(int users, int seconds) throws InterruptedException {
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.SECONDS.toNanos(seconds);
+        ExecutorService executor = RegistrationServer.newRequestExecutor();
+        for (int i = 0; i < users; i++) {
+            executor.execute(() -> simulateUser(deadline));
+        }
+        executor.shutdown();
+        executor.awaitTermination(seconds + 60L, TimeUnit.SECONDS);
+        report(users, (System.nanoTime() - start) / 1e9);
+    }
+
+    private void simulateUser(long deadline) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (System.nanoTime() < deadline) {
+            String studentId = studentIds.get(random.nextInt(studentIds.size()));
+            try {
+                Matcher token = TOKEN.matcher(send(get("/api/login?id=" + encode(studentId))).body());
+                if (!token.find()) {
+                    continue;
+                }
+                String sessionToken = token.group(1);
+                HttpResponse<String> available = send(get("/api/subjects/available?studentId=" + encode(studentId)));
+
+                List<String> subjectIds = new ArrayList<>();
+                Matcher m = SUBJECT_ID.matcher(available.body());
+                while (m.find()) {
+                    subjectIds.add(m.group(1));
+                }
+                if (subjectIds.isEmpty()) {
+                    continue;
+                }
+                String subjectId = subjectIds.get(random.nextInt(subjectIds.size()));
+                HttpResponse<String> registered = send(post("/api/register",
+                        "studentId=" + encode(studentId) + "&subjectId=" + encode(subjectId), sessionToken));
+
+                if (registered.statusCode() == 200 && adminToken != null && random.nextInt(10) == 0) {
+                    send(post("/api/admin/grades", "studentId=" + encode(studentId) + "&subjectId="
+                            + encode(subjectId) + "&grade=" + encode(GRADES[random.nextInt(GRADES.length)]), adminToken));
+                }
+            } catch (IOException e) {
+                statusCounts.incrementAndGet(0);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private HttpResponse<String> send(HttpRequest request) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        long micros = (System.nanoTime() - start) / 1_000;
+        latencyHistogram.incrementAndGet(Math.min(LATENCY_BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros)));
+        statusCounts.incrementAndGet(Math.min(5, response.statusCode() / 100));
+        return response;
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).GET().build();
+    }
+
+    private HttpRequest post(String path, String form, String token) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .header("Authorization", "Bearer " + token)
+                .POST(HttpRequest.BodyPublishers.ofString(form))
+                .build();
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    private void report(int users, double seconds) {
+        long total = 0;
+        for (int i = 0; i < LATENCY_BUCKETS; i++) {
+            total += latencyHistogram.get(i);
+        }
+        System.out.printf(Locale.ROOT, "users=%d duration=%.1fs requests=%d throughput=%.1f req/s%n",
+                users, seconds, total, total / seconds);
+        System.out.printf(Locale.ROOT, "status 2xx=%d 4xx=%d 5xx=%d io-errors=%d%n",
+                statusCounts.get(2), statusCounts.get(4), statusCounts.get(5), statusCounts.get(0));
+        for (double p : new double[]{0.50, 0.90, 0.99, 0.999}) {
+            System.out.printf(Locale.ROOT, "p%-5s <= %d us%n",
+                    Double.toString(p * 100).replaceAll("\\.0$", ""), percentileUpperBound(total, p));
+        }
+    }
+
+    /**
+     * @return ขอบเขตบนของช่อง Histogram ที่ครอบคลุมเปอร์เซ็นไทล์ที่ต้องการ (ไมโครวินาที)
+     */
+    private long percentileUpperBound(long total, double percentile) {
+        long threshold = (long) Math.ceil(total * percentile);
+        long seen = 0;
+        for (int i = 0; i < LATENCY_BUCKETS; i++) {
+            seen += latencyHistogram.get(i);
+            if (seen >= threshold) {
+                return (1L << i) - 1;
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+    private static Path copyDataFiles(String dataDirectory) throws IOException {
+        Path copy = Files.createTempDirectory("srs-loadtest-");
+        for (String name : Arrays.asList("students.csv", "subjects.csv", "enrollments.csv", "waitlists.csv",
+                "waitlists.journal")) {
+            File source = new File(dataDirectory, name);
+            if (source.exists()) {
+                Files.copy(source.toPath(), copy.resolve(name), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        return copy;
+    }
+}
@@ -0,0 +1,459 @@
+package com.StudentRegistrationSystem.server;
+
+import com.StudentRegistrationSystem.model.*;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.OptionalDouble;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * เซิร์ฟเวอร์ HTTP แบบไม่มีหน้าจอ (Headless) สำหรับรองรับการลงทะเบียนจากผู้ใช้จำนวนมากพร้อมกัน
+ * ใช้ {@link HttpServer} ที่มากับ JDK และเรียกใช้ Service เดิมทั้งหมดของส่วน Model
+ *
+ * Endpoint ที่รองรับ (ผลลัพธ์เป็น JSON):
+ * <ul>
+ *     <li>{@code GET  /api/login?id=...} : เข้าสู่ระบบด้วยรหัสนักเรียน (ได้รับโทเคนของนักเรียน) หรือ "admin" (ต้องส่งโทเคนผู้ดูแลระบบ)</li>
+ *     <li>{@code GET  /api/subjects/available?studentId=...} : รายวิชาที่นักเรียนยังไม่ได้ลงทะเบียน</li>
+ *     <li>{@code POST /api/register} (ฟอร์ม studentId, subjectId) : ลงทะเบียนเรียน (หรือเข้ารายชื่อรอหากวิชาเต็ม)</li>
+ *     <li>{@code POST /api/drop} (ฟอร์ม studentId, subjectId) : ยกเลิกการลงทะเบียน</li>
+ *     <li>{@code POST /api/admin/grades} (ฟอร์ม studentId, subjectId, grade) : แก้ไขเกรด</li>
+ *     <li>{@code POST /api/admin/capacity} (ฟอร์ม subjectId, maxCapacity) : แก้ไขจำนวนที่นั่ง</li>
+ *     <li>{@code GET  /api/admin/analytics?subjectId=...} หรือ {@code ?studentId=...} : การกระจายเกรดของรายวิชา
+ *         หรือเกรดเฉลี่ยของนักเรียน (อ่านจากค่าสะสมของ {@link GradeAnalyticsService})</li>
+ * </ul>
+ * การยืนยันตัวตนใช้ Header {@code Authorization: Bearer <โทเคน>} สองระดับ:
+ * <ul>
+ *     <li>โทเคนของนักเรียน (Session) ที่ได้จากการเข้าสู่ระบบ : ลงทะเบียนและยกเลิกได้เฉพาะรายการของนักเรียนคนนั้น</li>
+ *     <li>โทเคนผู้ดูแลระบบที่กำหนดให้เซิร์ฟเวอร์ : ใช้ได้ทุก Endpoint รวมถึง {@code /api/admin/*} (และทำรายการแทนนักเรียนได้)</li>
+ * </ul>
+ * ส่วนการดูรายวิชาเปิดให้อ่านได้ เซิร์ฟเวอร์รับคำขอเฉพาะจากเครื่องเดียวกัน
+ * (Loopback) เป็นค่าเริ่มต้น การรับคำขอจากเครือข่ายต้องระบุที่อยู่ที่จะผูก (Bind) เอง เช่น หลัง Reverse Proxy ที่ใช้ HTTPS
+ *
+ * แต่ละคำขอทำงานบน Virtual Thread หนึ่งตัว (เมื่อ JVM รองรับ) ซึ่งทำให้การรอการบันทึกข้อมูลลงดิสก์
+ * ไม่กินเธรดของระบบปฏิบัติการ หาก JVM ไม่รองรับจะใช้ Thread Pool ขนาดคงที่แทน
+ */
+public class RegistrationServer {
+
+    public static final int DEFAULT_PORT = 8080;
+
+    /**
+     * จำนวนเธรดของ Thread Pool สำรอง ในกรณีที่ JVM ไม่รองรับ Virtual Thread
+     */
+    private static final int FALLBACK_POOL_SIZE = 200;
+
+    /**
+     * จำนวนไบต์สุ่มของโทเคนที่สร้างให้อัตโนมัติ
+     */
+    private static final int TOKEN_BYTES = 32;
+
+    /**
+     * ผู้เรียกที่ส่งโทเคนผู้ดูแลระบบ (รหัสเดียวกับที่ใช้เข้าสู่ระบบในฐานะผู้ดูแลระบบ)
+     */
+    private static final String ADMIN = "admin";
+
+    /**
+     * ระดับสิทธิ์ที่ Endpoint ต้องการ
+     */
+    private enum Access {
+        PUBLIC, STUDENT, ADMIN
+    }
+
+    private final DataRepository dataAccess;
+    private final RegistrationService registrationService;
+    private final AdminService adminService;
+    private final GradeAnalyticsService gradeAnalyticsService;
+    private final byte[] adminToken;
+    // โทเคนของนักเรียน -> รหัสนักเรียน และรหัสนักเรียน -> โทเคน (หนึ่งโทเคนต่อนักเรียน จำนวนจึงไม่เกินจำนวนนักเรียน)
+    private final Map<String, String> studentIdBySession = new ConcurrentHashMap<>();
+    private final Map<String, String> sessionByStudentId = new ConcurrentHashMap<>();
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    /**
+     * Constructor ของ RegistrationServer ที่รับคำขอเฉพาะจากเครื่องเดียวกัน (ยังไม่เริ่มรับคำขอจนกว่าจะเรียก {@link #start()})
+     *
+     * @param port       พอร์ตที่ใช้รับคำขอ (0 คือให้ระบบเลือกพอร์ตว่างให้)
+     * @param adminToken โทเคนของผู้ดูแลระบบ (ดู {@link #newAccessToken()})
+     */
+    public RegistrationServer(DataRepository dataAccess, RegistrationService registrationService,
+                              AdminService adminService, GradeAnalyticsService gradeAnalyticsService,
+                              int port, String adminToken) throws IOException {
+        this(dataAccess, registrationService, adminService, gradeAnalyticsService,
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), port), adminToken);
+    }
+
+    /**
+     * @param address    ที่อยู่และพอร์ตที่ใช้รับคำขอ (ผูกกับที่อยู่อื่นนอกจาก Loopback เมื่อต้องการรับคำขอจากเครือข่ายเท่านั้น)
+     * @param adminToken โทเคนของผู้ดูแลระบบ (ดู {@link #newAccessToken()})
+     */
+    public RegistrationServer(DataRepository dataAccess, RegistrationService registrationService,
+                              AdminService adminService, GradeAnalyticsService gradeAnalyticsService,
+                              InetSocketAddress address, String adminToken) throws IOException {
+        if (adminToken == null || adminToken.isEmpty()) {
+            throw new IllegalArgumentException("adminToken is required");
+        }
+        this.dataAccess = dataAccess;
+        this.registrationService = registrationService;
+        this.adminService = adminService;
+        this.gradeAnalyticsService = gradeAnalyticsService;
+        this.adminToken = adminToken.getBytes(StandardCharsets.UTF_8);
+        this.server = HttpServer.create(address, 0);
+        this.executor = newRequestExecutor();
+        server.setExecutor(executor);
+        server.createContext("/api/login", handler("GET", Access.PUBLIC, this::login));
+        server.createContext("/api/subjects/available", handler("GET", Access.PUBLIC, this::availableSubjects));
+        server.createContext("/api/register", handler("POST", Access.STUDENT, this::register));
+        server.createContext("/api/drop", handler("POST", Access.STUDENT, this::drop));
+        server.createContext("/api/admin/grades", handler("POST", Access.ADMIN, this::updateGrade));
+        server.createContext("/api/admin/capacity", handler("POST", Access.ADMIN, this::updateCapacity));
+        server.createContext("/api/admin/analytics", handler("GET", Access.ADMIN, this::gradeAnalytics));
+    }
+
+    /**
+     * สร้างโทเคนแบบสุ่ม (โทเคนของนักเรียนแต่ละคน และโทเคนผู้ดูแลระบบในกรณีที่ไม่ได้กำหนดเอง)
+     */
+    public static String newAccessToken() {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        new SecureRandom().nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * หยุดรับคำขอใหม่ และรอให้คำขอที่กำลังทำงานอยู่เสร็จ (สูงสุดตามเวลาที่กำหนด)
+     */
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(delaySeconds, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * สร้าง Executor ที่ใช้ Virtual Thread หนึ่งตัวต่อคำขอ
+     * เรียกผ่าน Reflection เพื่อให้โค้ดยังคอมไพล์และทำงานได้บน JDK ที่ยังไม่มี Virtual Thread
+     */
+    static ExecutorService newRequestExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            System.err.println("Virtual threads are not available, using a pool of "
+                    + FALLBACK_POOL_SIZE + " platform threads.");
+            return Executors.newFixedThreadPool(FALLBACK_POOL_SIZE);
+        }
+    }
+
+    // --- ตัวจัดการของแต่ละ Endpoint ---
+
+    private Response login(Map<String, String> params, String caller) {
+        String id = params.get("id");
+        if (id == null || id.isEmpty()) {
+            return Response.error(400, "Please enter an ID.");
+        }
+        if (id.equalsIgnoreCase(ADMIN)) {
+            if (!ADMIN.equals(caller)) {
+                return Response.error(401, "A valid admin token is required.");
+            }
+            return new Response(200, "{\"role\":\"admin\"}");
+        }
+        return dataAccess.findStudentById(id)
+                .map(s -> new Response(200, "{\"role\":\"student\",\"studentId\":" + json(s.getStudentId())
+                        + ",\"token\":" + json(sessionFor(s.getStudentId()))
+                        + ",\"name\":" + json(s.getPrefix() + " " + s.getFirstName() + " " + s.getLastName())
+                        + ",\"school\":" + json(s.getSchool())
+                        + ",\"email\":" + json(s.getEmail())
+                        + ",\"age\":" + s.getAge() + "}"))
+                .orElseGet(() -> Response.error(404, "Student ID not found."));
+    }
+
+    /**
+     * @return โทเคนของนักเรียน (สร้างใหม่เมื่อเข้าสู่ระบบครั้งแรก และใช้โทเคนเดิมในครั้งต่อไป)
+     */
+    private String sessionFor(String studentId) {
+        return sessionByStudentId.computeIfAbsent(studentId, id -> {
+            String token = newAccessToken();
+            studentIdBySession.put(token, id);
+            return token;
+        });
+    }
+
+    private Response availableSubjects(Map<String, String> params, String caller) {
+        String studentId = params.get("studentId");
+        if (studentId == null || dataAccess.findStudentById(studentId).isEmpty()) {
+            return Response.error(404, "Student ID not found.");
+        }
+        Set<String> enrolledSubjectIds = dataAccess.getEnrollmentsByStudentId(studentId).stream()
+                .map(Enrollment::getSubjectId)
+                .collect(Collectors.toSet());
+        List<Subject> available = dataAccess.getAllSubjects().stream()
+                .filter(subject -> !enrolledSubjectIds.contains(subject.getSubjectId()))
+                .collect(Collectors.toList());
+
+        StringBuilder body = new StringBuilder("[");
+        for (Subject s : available) {
+            if (body.length() > 1) {
+                body.append(',');
+            }
+            body.append("{\"subjectId\":").append(json(s.getSubjectId()))
+                    .append(",\"subjectName\":").append(json(s.getSubjectName()))
+                    .append(",\"credits\":").append(s.getCredits())
+                    .append(",\"instructorName\":").append(json(s.getInstructorName()))
+                    .append(",\"prerequisiteId\":").append(json(s.getPrerequisiteId()))
+                    .append(",\"maxCapacity\":").append(s.getMaxCapacity())
+                    .append(",\"currentEnrollment\":").append(s.getCurrentEnrollment())
+                    .append('}');
+        }
+        return new Response(200, body.append(']').toString());
+    }
+
+    private Response register(Map<String, String> params, String caller) {
+        String studentId = params.getOrDefault("studentId", "");
+        if (!mayActFor(caller, studentId)) {
+            return Response.error(403, "You can only register yourself.");
+        }
+        Student student = dataAccess.findStudentById(studentId).orElse(null);
+        Subject subject = dataAccess.findSubjectById(params.getOrDefault("subjectId", "")).orElse(null);
+        if (student == null || subject == null) {
+            return Response.error(404, "Student or subject not found.");
+        }
+        return Response.fromResult(registrationService.registerStudent(student, subject));
+    }
+
+    private Response drop(Map<String, String> params, String caller) {
+        String studentId = params.get("studentId");
+        String subjectId = params.get("subjectId");
+        if (studentId == null || subjectId == null) {
+            return Response.error(400, "studentId and subjectId are required.");
+        }
+        if (!mayActFor(caller, studentId)) {
+            return Response.error(403, "You can only drop your own enrollments.");
+        }
+        return Response.fromResult(registrationService.dropEnrollment(studentId, subjectId));
+    }
+
+    /**
+     * @return true หากผู้เรียกเป็นนักเรียนคนนั้นเอง หรือเป็นผู้ดูแลระบบ
+     */
+    private static boolean mayActFor(String caller, String studentId) {
+        return ADMIN.equals(caller) || studentId.equals(caller);
+    }
+
+    private Response updateGrade(Map<String, String> params, String caller) {
+        String studentId = params.get("studentId");
+        String subjectId = params.get("subjectId");
+        String grade = params.get("grade");
+        if (studentId == null || subjectId == null || grade == null) {
+            return Response.error(400, "studentId, subjectId and grade are required.");
+        }
+        return Response.fromResult(adminService.updateGrade(studentId, subjectId, grade));
+    }
+
+    private Response updateCapacity(Map<String, String> params, String caller) {
+        String subjectId = params.get("subjectId");
+        String maxCapacity = params.get("maxCapacity");
+        if (subjectId == null || maxCapacity == null) {
+            return Response.error(400, "subjectId and maxCapacity are required.");
+        }
+        try {
+            return Response.fromResult(adminService.updateCapacity(subjectId, Integer.parseInt(maxCapacity)));
+        } catch (NumberFormatException e) {
+            return Response.error(400, "maxCapacity must be a number.");
+        }
+    }
+
+    private Response gradeAnalytics(Map<String, String> params, String caller) {
+        String subjectId = params.get("subjectId");
+        String studentId = params.get("studentId");
+        if (subjectId != null) {
+            if (dataAccess.findSubjectById(subjectId).isEmpty()) {
+                return Response.error(404, "Subject not found.");
+            }
+            int[] histogram = gradeAnalyticsService.getGradeHistogram(subjectId);
+            StringBuilder body = new StringBuilder("{\"subjectId\":").append(json(subjectId)).append(",\"grades\":{");
+            for (int i = 0; i < histogram.length; i++) {
+                if (i > 0) {
+                    body.append(',');
+                }
+                String grade = GradeAnalyticsService.GRADES.get(i);
+                body.append(json(grade.isEmpty() ? "ungraded" : grade)).append(':').append(histogram[i]);
+            }
+            return new Response(200, body.append("}}").toString());
+        }
+        if (studentId != null) {
+            if (dataAccess.findStudentById(studentId).isEmpty()) {
+                return Response.error(404, "Student ID not found.");
+            }
+            OptionalDouble gpa = gradeAnalyticsService.getGpa(studentId);
+            return new Response(200, "{\"studentId\":" + json(studentId)
+                    + ",\"gpa\":" + (gpa.isPresent() ? String.format(Locale.ROOT, "%.2f", gpa.getAsDouble()) : "null")
+                    + ",\"gradedCredits\":" + gradeAnalyticsService.getGradedCredits(studentId) + "}");
+        }
+        return Response.error(400, "subjectId or studentId is required.");
+    }
+
+    // --- เมธอดช่วยสำหรับ HTTP และ JSON ---
+
+    @FunctionalInterface
+    private interface Endpoint {
+        /**
+         * @param caller {@link #ADMIN} สำหรับผู้ดูแลระบบ, รหัสนักเรียนเจ้าของโทเคน หรือ null หากไม่ได้ส่งโทเคนที่ถูกต้อง
+         */
+        Response handle(Map<String, String> params, String caller);
+    }
+
+    /**
+     * ห่อ Endpoint ด้วยการตรวจสอบ HTTP Method, สิทธิ์ตามโทเคน, อ่านพารามิเตอร์ (Query String และฟอร์มใน Body) และเขียนผลลัพธ์
+     */
+    private HttpHandler handler(String method, Access access, Endpoint endpoint) {
+        return exchange -> {
+            try (exchange) {
+                Response response;
+                String caller = callerOf(exchange);
+                if (!exchange.getRequestMethod().equalsIgnoreCase(method)) {
+                    response = Response.error(405, "Method not allowed.");
+                } else if (access != Access.PUBLIC && caller == null) {
+                    exchange.getResponseHeaders().set("WWW-Authenticate", "Bearer");
+                    response = Response.error(401, "A valid access token is required.");
+                } else if (access == Access.ADMIN && !ADMIN.equals(caller)) {
+                    response = Response.error(403, "Administrator access is required.");
+                } else {
+                    try {
+                        response = endpoint.handle(readParams(exchange), caller);
+                    } catch (RuntimeException e) {
+                        System.err.println("Error handling " + exchange.getRequestURI());
+                        e.printStackTrace();
+                        response = Response.error(500, "Internal server error.");
+                    }
+                }
+                byte[] body = response.body.getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+                exchange.sendResponseHeaders(response.status, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            }
+        };
+    }
+
+    /**
+     * ระบุผู้เรียกจาก Header {@code Authorization: Bearer <โทเคน>}
+     * โทเคนผู้ดูแลระบบถูกเปรียบเทียบในเวลาคงที่ เพื่อไม่ให้เดาโทเคนจากเวลาตอบกลับได้
+     *
+     * @return {@link #ADMIN}, รหัสนักเรียนเจ้าของโทเคน หรือ null หากไม่มีโทเคนหรือโทเคนไม่ถูกต้อง
+     */
+    private String callerOf(HttpExchange exchange) {
+        String header = exchange.getRequestHeaders().getFirst("Authorization");
+        if (header == null || !header.regionMatches(true, 0, "Bearer ", 0, 7)) {
+            return null;
+        }
+        String token = header.substring(7).trim();
+        if (MessageDigest.isEqual(adminToken, token.getBytes(StandardCharsets.UTF_8))) {
+            return ADMIN;
+        }
+        return studentIdBySession.get(token);
+    }
+
+    private static Map<String, String> readParams(HttpExchange exchange) throws IOException {
+        Map<String, String> params = new HashMap<>();
+        parseForm(exchange.getRequestURI().getRawQuery(), params);
+        try (InputStream in = exchange.getRequestBody()) {
+            parseForm(new String(in.readAllBytes(), StandardCharsets.UTF_8), params);
+        }
+        return params;
+    }
+
+    private static void parseForm(String form, Map<String, String> params) {
+        if (form == null || form.isEmpty()) {
+            return;
+        }
+        for (String pair : form.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            params.put(URLDecoder.decode(key, StandardCharsets.UTF_8).trim(),
+                    URLDecoder.decode(value, StandardCharsets.UTF_8).trim());
+        }
+    }
+
+    static String json(String value) {
+        if (value == null) {
+            return "null";
+        }
+        StringBuilder sb = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    /**
+     * ผลลัพธ์ของหนึ่งคำขอ: รหัสสถานะ HTTP และ Body แบบ JSON
+     */
+    private static final class Response {
+        final int status;
+        final String body;
+
+        Response(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+
+        static Response error(int status, String message) {
+            return new Response(status, "{\"success\":false,\"message\":" + json(message) + "}");
+        }
+
+        /**
+         * แปลงข้อความผลลัพธ์ของ Service ("Success: ..." หรือ "Error: ...") เป็น Response
+         * ข้อผิดพลาดทางธุรกิจ (เช่น วิชาเต็ม หรือเกรดไม่ถูกต้อง) จะใช้รหัสสถานะ 409
+         */
+        static Response fromResult(String result) {
+            boolean success = result.startsWith("Success");
+            return new Response(success ? 200 : 409,
+                    "{\"success\":" + success + ",\"message\":" + json(result) + "}");
+        }
+    }
+}
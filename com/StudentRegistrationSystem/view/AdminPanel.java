@@ -1,10 +1,10 @@
 package com.StudentRegistrationSystem.view;
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 
-import com.StudentRegistrationSystem.model.DataAccessService;
 import com.StudentRegistrationSystem.model.Enrollment;
+import com.StudentRegistrationSystem.model.GradeAnalyticsService;
+import com.StudentRegistrationSystem.model.StudentRepository;
 import com.StudentRegistrationSystem.model.Subject;
 
 import java.awt.*;
@@ -20,10 +20,11 @@ public class AdminPanel extends JPanel {
 
     private JComboBox<String> subjectComboBox;    // Dropdown สำหรับเลือกรายวิชา
     private JTable studentsTable;                 // ตารางสำหรับแสดงรายชื่อนักเรียนในวิชาที่เลือก
-    private DefaultTableModel tableModel;         // โมเดลสำหรับจัดการข้อมูลในตาราง
+    private SubjectRosterTableModel tableModel;   // โมเดลสำหรับจัดการข้อมูลในตาราง
     private JComboBox<String> gradeComboBox;      // Dropdown สำหรับเลือกเกรดที่จะบันทึก
     private JButton saveGradeButton;              // ปุ่มสำหรับบันทึกเกรด
     private JButton logoutButton;                 // ปุ่มสำหรับออกจากระบบ
+    private JLabel gradeSummaryLabel;             // ข้อความสรุปการกระจายเกรดของวิชาที่เลือก
 
     /**
      * Constructor ของ AdminPanel
@@ -39,16 +40,12 @@ public class AdminPanel extends JPanel {
         topPanel.add(new JLabel("Select Subject:"));
         subjectComboBox = new JComboBox<>();
         topPanel.add(subjectComboBox);
+        gradeSummaryLabel = new JLabel();
+        topPanel.add(gradeSummaryLabel);
 
         // --- 2. ส่วนกลาง (Center): สำหรับตารางแสดงข้อมูลนักเรียน ---
-        String[] columnNames = {"Student ID", "Student Name", "Current Grade"};
-        // สร้าง Table Model โดยป้องกันการแก้ไขข้อมูลในเซลล์โดยตรง
-        tableModel = new DefaultTableModel(columnNames, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        // สร้าง Table Model ที่อ่านข้อมูลจาก Model โดยตรง (เซลล์ไม่สามารถแก้ไขได้)
+        tableModel = new SubjectRosterTableModel();
         studentsTable = new JTable(tableModel);
         studentsTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
         JScrollPane scrollPane = new JScrollPane(studentsTable);
@@ -83,7 +80,7 @@ public class AdminPanel extends JPanel {
         return studentsTable;
     }
 
-    public DefaultTableModel getTableModel() {
+    public SubjectRosterTableModel getTableModel() {
         return tableModel;
     }
 
@@ -116,17 +113,23 @@ public class AdminPanel extends JPanel {
      * @param enrollments List ของการลงทะเบียนทั้งหมดของวิชานั้น
      * @param dataAccess  Service สำหรับใช้ค้นหาชื่อนักเรียนจากรหัสนักเรียน
      */
-    public void updateStudentsTable(List<Enrollment> enrollments, DataAccessService dataAccess) {
-        tableModel.setRowCount(0);
-        
-        for (Enrollment e : enrollments) {
-            // ค้นหาชื่อนักเรียนจากรหัสนักเรียน เพื่อการแสดงผลที่เป็นมิตรต่อผู้ใช้
-            String studentName = dataAccess.findStudentById(e.getStudentId())
-                                           .map(s -> s.getFirstName() + " " + s.getLastName())
-                                           .orElse("Unknown Student");
-            
-            Object[] row = {e.getStudentId(), studentName, e.getGrade()};
-            tableModel.addRow(row);
+    public void updateStudentsTable(List<Enrollment> enrollments, StudentRepository dataAccess) {
+        tableModel.setEnrollments(enrollments, dataAccess);
+    }
+
+    /**
+     * แสดงการกระจายเกรดของวิชาที่เลือก เช่น "A: 3  B+: 1  ...  Ungraded: 5"
+     * @param histogram จำนวนผู้ลงทะเบียนในแต่ละเกรด เรียงตาม {@link GradeAnalyticsService#GRADES} หรือ null เพื่อล้างข้อความ
+     */
+    public void showGradeDistribution(int[] histogram) {
+        if (histogram == null) {
+            gradeSummaryLabel.setText("");
+            return;
+        }
+        StringBuilder text = new StringBuilder();
+        for (int i = 1; i < histogram.length; i++) {
+            text.append(GradeAnalyticsService.GRADES.get(i)).append(": ").append(histogram[i]).append("  ");
         }
+        gradeSummaryLabel.setText(text.append("Ungraded: ").append(histogram[0]).toString());
     }
 }
\ No newline at end of file
@@ -0,0 +1,126 @@
+package com.StudentRegistrationSystem.view;
+
+import javax.swing.table.AbstractTableModel;
+
+import com.StudentRegistrationSystem.model.StudentEligibility;
+import com.StudentRegistrationSystem.model.Subject;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Table Model ของตาราง "Available Subjects" ในหน้าจอนักเรียน
+ * อ่านค่าจาก Object ของ {@link Subject} โดยตรงตอนวาดเซลล์ (เช่น จำนวนผู้ลงทะเบียนล่าสุด)
+ * และแจ้งตารางเฉพาะแถวที่เปลี่ยน เมื่อรายวิชาถูกลบออกหรือจำนวนผู้ลงทะเบียนเปลี่ยน
+ * คอลัมน์ "Status" แสดงว่านักเรียนลงทะเบียนวิชานั้นได้หรือไม่ (พร้อมเหตุผล) จาก {@link StudentEligibility}
+ * เมธอดทั้งหมดต้องถูกเรียกบน EDT (Controller ส่งการเปลี่ยนแปลงจาก {@link com.StudentRegistrationSystem.model.DataChangeListener} มาให้)
+ */
+public class AvailableSubjectsTableModel extends AbstractTableModel {
+
+    private static final String[] COLUMN_NAMES = {"ID", "Name", "Credits", "Instructor", "Capacity", "Enrolled", "Status"};
+
+    private List<Subject> subjects = new ArrayList<>();
+    private StudentEligibility eligibility;
+
+    /**
+     * กำหนดรายวิชาทั้งหมดที่จะแสดง (แทนที่ข้อมูลเดิมทั้งหมด)
+     */
+    public void setSubjects(List<Subject> subjects) {
+        this.subjects = new ArrayList<>(subjects);
+        fireTableDataChanged();
+    }
+
+    /**
+     * กำหนดผลการตรวจสอบสิทธิ์การลงทะเบียนที่ใช้แสดงในคอลัมน์ "Status" แล้ววาดใหม่เฉพาะแถวที่สถานะเปลี่ยน
+     *
+     * @param eligibility ผลการตรวจสอบของนักเรียนที่ล็อกอินอยู่ หรือ null หากไม่ต้องการแสดง
+     */
+    public void setEligibility(StudentEligibility eligibility) {
+        StudentEligibility previous = this.eligibility;
+        this.eligibility = eligibility;
+        for (int row = 0; row < subjects.size(); row++) {
+            Subject s = subjects.get(row);
+            if (!statusOf(previous, s).equals(statusOf(eligibility, s))) {
+                fireTableRowsUpdated(row, row);
+            }
+        }
+    }
+
+    /**
+     * ลบรายวิชาออกจากตาราง (เช่น หลังจากนักเรียนลงทะเบียนวิชานั้นแล้ว)
+     */
+    public void removeSubject(String subjectId) {
+        int row = indexOf(subjectId);
+        if (row >= 0) {
+            subjects.remove(row);
+            fireTableRowsDeleted(row, row);
+        }
+    }
+
+    /**
+     * แจ้งว่าข้อมูลของรายวิชานี้เปลี่ยนแปลง (เช่น จำนวนผู้ลงทะเบียน) ให้ตารางวาดใหม่เฉพาะแถวนั้น
+     */
+    public void subjectUpdated(String subjectId) {
+        int row = indexOf(subjectId);
+        if (row >= 0) {
+            fireTableRowsUpdated(row, row);
+        }
+    }
+
+    public Subject getSubjectAt(int row) {
+        return subjects.get(row);
+    }
+
+    private int indexOf(String subjectId) {
+        for (int row = 0; row < subjects.size(); row++) {
+            if (subjects.get(row).getSubjectId().equals(subjectId)) {
+                return row;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public int getRowCount() {
+        return subjects.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMN_NAMES.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMN_NAMES[column];
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        Subject s = subjects.get(row);
+        switch (column) {
+            case 0: return s.getSubjectId();
+            case 1: return s.getSubjectName();
+            case 2: return s.getCredits();
+            case 3: return s.getInstructorName();
+            // แปลงค่า maxCapacity ที่เป็น -1 ให้แสดงเป็น "Unlimited" เพื่อให้ผู้ใช้เข้าใจง่าย
+            case 4: return s.getMaxCapacity() == -1 ? "Unlimited" : String.valueOf(s.getMaxCapacity());
+            case 5: return s.getCurrentEnrollment();
+            default: return statusOf(eligibility, s);
+        }
+    }
+
+    /**
+     * แปลงผลการตรวจสอบสิทธิ์เป็นข้อความสั้นๆ (ตัดคำนำหน้า "Error: " ออก)
+     */
+    private static String statusOf(StudentEligibility eligibility, Subject s) {
+        if (eligibility == null) {
+            return "";
+        }
+        String reason = eligibility.getReason(s.getSubjectId());
+        if (reason == null) {
+            return "Eligible";
+        }
+        return reason.startsWith("Error: ") ? reason.substring("Error: ".length()) : reason;
+    }
+}
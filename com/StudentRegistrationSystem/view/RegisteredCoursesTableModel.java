@@ -0,0 +1,82 @@
+package com.StudentRegistrationSystem.view;
+
+import javax.swing.table.AbstractTableModel;
+
+import com.StudentRegistrationSystem.model.Enrollment;
+import com.StudentRegistrationSystem.model.Subject;
+import com.StudentRegistrationSystem.model.SubjectRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Table Model ของตาราง "My Registered Courses" ในหน้าจอนักเรียน
+ * เก็บอ้างอิงไปยัง {@link Enrollment} ของแต่ละแถว และค้นหาข้อมูลรายวิชาตอนวาดเซลล์
+ */
+public class RegisteredCoursesTableModel extends AbstractTableModel {
+
+    private static final String[] COLUMN_NAMES = {"Subject ID", "Subject Name", "Credits", "Grade"};
+
+    private List<Enrollment> enrollments = new ArrayList<>();
+    private SubjectRepository dataAccess;
+
+    /**
+     * กำหนดรายการลงทะเบียนทั้งหมดของนักเรียนที่จะแสดง (แทนที่ข้อมูลเดิมทั้งหมด)
+     * รายการที่ไม่พบข้อมูลรายวิชาจะไม่ถูกแสดง
+     *
+     * @param enrollments List ของการลงทะเบียนทั้งหมดของนักเรียนคนนั้น
+     * @param dataAccess  Service สำหรับใช้ค้นหาข้อมูลเพิ่มเติม เช่น ชื่อวิชา
+     */
+    public void setEnrollments(List<Enrollment> enrollments, SubjectRepository dataAccess) {
+        this.dataAccess = dataAccess;
+        this.enrollments = new ArrayList<>(enrollments.size());
+        for (Enrollment e : enrollments) {
+            if (dataAccess.findSubjectById(e.getSubjectId()).isPresent()) {
+                this.enrollments.add(e);
+            }
+        }
+        fireTableDataChanged();
+    }
+
+    /**
+     * เพิ่มรายวิชาที่เพิ่งลงทะเบียนต่อท้ายตาราง
+     */
+    public void addEnrollment(Enrollment enrollment) {
+        int row = enrollments.size();
+        enrollments.add(enrollment);
+        fireTableRowsInserted(row, row);
+    }
+
+    @Override
+    public int getRowCount() {
+        return enrollments.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMN_NAMES.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMN_NAMES[column];
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        Enrollment e = enrollments.get(row);
+        if (column == 3) {
+            // ตรวจสอบค่าเกรด ถ้าเป็น null หรือค่าว่าง ให้แสดงว่า "Not Graded"
+            return e.getGrade() == null || e.getGrade().isEmpty() ? "Not Graded" : e.getGrade();
+        }
+        Subject subject = dataAccess.findSubjectById(e.getSubjectId()).orElse(null);
+        if (subject == null) {
+            return column == 0 ? e.getSubjectId() : null;
+        }
+        switch (column) {
+            case 0: return subject.getSubjectId();
+            case 1: return subject.getSubjectName();
+            default: return subject.getCredits();
+        }
+    }
+}
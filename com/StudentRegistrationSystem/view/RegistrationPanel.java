@@ -2,12 +2,11 @@ package com.StudentRegistrationSystem.view;
 
 import javax.swing.*;
 import javax.swing.border.Border;
-import javax.swing.table.DefaultTableModel;
 
-import com.StudentRegistrationSystem.model.DataAccessService;
 import com.StudentRegistrationSystem.model.Enrollment;
 import com.StudentRegistrationSystem.model.Student;
 import com.StudentRegistrationSystem.model.Subject;
+import com.StudentRegistrationSystem.model.SubjectRepository;
 
 import java.awt.*;
 import java.util.List;
@@ -33,12 +32,12 @@ public class RegistrationPanel extends JPanel {
 
     // ส่วนประกอบของ Tab "วิชาที่ลงทะเบียนได้"
     private JTable availableSubjectsTable;
-    private DefaultTableModel availableSubjectsTableModel;
+    private AvailableSubjectsTableModel availableSubjectsTableModel;
     private JButton registerButton;
     
     // ส่วนประกอบของ Tab "วิชาของฉัน"
     private JTable registeredCoursesTable;
-    private DefaultTableModel registeredCoursesTableModel;
+    private RegisteredCoursesTableModel registeredCoursesTableModel;
 
     // ปุ่ม Logout (ใช้ร่วมกัน)
     private JButton logoutButton;
@@ -109,11 +108,8 @@ public class RegistrationPanel extends JPanel {
         JPanel panel = new JPanel(new BorderLayout(5, 5));
         
         // สร้างตาราง
-        String[] columnNames = {"ID", "Name", "Credits", "Instructor", "Capacity", "Enrolled"};
-        availableSubjectsTableModel = new DefaultTableModel(columnNames, 0) {
-            // Override เมธอดนี้เพื่อป้องกันไม่ให้ผู้ใช้แก้ไขข้อมูลในตารางโดยตรง
-            @Override public boolean isCellEditable(int row, int column) { return false; }
-        };
+        // Table Model ที่อ่านข้อมูลจาก Object ของรายวิชาโดยตรง (เซลล์ไม่สามารถแก้ไขได้)
+        availableSubjectsTableModel = new AvailableSubjectsTableModel();
         availableSubjectsTable = new JTable(availableSubjectsTableModel);
         availableSubjectsTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION); // เลือกได้ทีละแถว
         panel.add(new JScrollPane(availableSubjectsTable), BorderLayout.CENTER);
@@ -135,10 +131,7 @@ public class RegistrationPanel extends JPanel {
         JPanel panel = new JPanel(new BorderLayout(5, 5));
         
         // สร้างตาราง
-        String[] columnNames = {"Subject ID", "Subject Name", "Credits", "Grade"};
-        registeredCoursesTableModel = new DefaultTableModel(columnNames, 0) {
-            @Override public boolean isCellEditable(int row, int column) { return false; }
-        };
+        registeredCoursesTableModel = new RegisteredCoursesTableModel();
         registeredCoursesTable = new JTable(registeredCoursesTableModel);
         panel.add(new JScrollPane(registeredCoursesTable), BorderLayout.CENTER);
         
@@ -150,7 +143,8 @@ public class RegistrationPanel extends JPanel {
     public JButton getRegisterButton() { return registerButton; }
     public JButton getLogoutButton() { return logoutButton; }
     public int getSelectedAvailableSubjectRow() { return availableSubjectsTable.getSelectedRow(); }
-    public DefaultTableModel getAvailableSubjectsTableModel() { return availableSubjectsTableModel; }
+    public AvailableSubjectsTableModel getAvailableSubjectsTableModel() { return availableSubjectsTableModel; }
+    public RegisteredCoursesTableModel getRegisteredCoursesTableModel() { return registeredCoursesTableModel; }
 
     /**
      * อัปเดตข้อมูลที่แสดงในส่วน Student Information Panel
@@ -169,18 +163,7 @@ public class RegistrationPanel extends JPanel {
      * @param subjects List ของรายวิชาที่นักเรียนยังไม่ได้ลงทะเบียน
      */
     public void updateAvailableSubjectsTable(List<Subject> subjects) {
-        availableSubjectsTableModel.setRowCount(0); // ล้างข้อมูลเก่าในตาราง
-        
-        // วนลูปเพื่อเพิ่มข้อมูลแต่ละวิชาลงในตาราง
-        for (Subject s : subjects) {
-            // แปลงค่า maxCapacity ที่เป็น -1 ให้แสดงเป็น "Unlimited" เพื่อให้ผู้ใช้เข้าใจง่าย
-            String capacity = s.getMaxCapacity() == -1 ? "Unlimited" : String.valueOf(s.getMaxCapacity());
-            Object[] row = {
-                s.getSubjectId(), s.getSubjectName(), s.getCredits(), 
-                s.getInstructorName(), capacity, s.getCurrentEnrollment()
-            };
-            availableSubjectsTableModel.addRow(row);
-        }
+        availableSubjectsTableModel.setSubjects(subjects);
     }
 
     /**
@@ -188,24 +171,7 @@ public class RegistrationPanel extends JPanel {
      * @param enrollments List ของการลงทะเบียนทั้งหมดของนักเรียนคนนั้น
      * @param dataAccess  Service สำหรับใช้ค้นหาข้อมูลเพิ่มเติม เช่น ชื่อวิชา
      */
-    public void updateRegisteredCoursesTable(List<Enrollment> enrollments, DataAccessService dataAccess) {
-        registeredCoursesTableModel.setRowCount(0); // ล้างข้อมูลเก่าในตาราง
-        
-        // วนลูปเพื่อเพิ่มข้อมูลการลงทะเบียนแต่ละรายการลงในตาราง
-        for (Enrollment e : enrollments) {
-            // ค้นหา Object ของ Subject เพื่อดึงข้อมูลชื่อวิชาและหน่วยกิตมาแสดง
-            Subject subject = dataAccess.findSubjectById(e.getSubjectId()).orElse(null);
-            
-            if (subject != null) {
-                Object[] row = {
-                    subject.getSubjectId(),
-                    subject.getSubjectName(),
-                    subject.getCredits(),
-                    // ตรวจสอบค่าเกรด ถ้าเป็น null หรือค่าว่าง ให้แสดงว่า "Not Graded"
-                    e.getGrade() == null || e.getGrade().isEmpty() ? "Not Graded" : e.getGrade()
-                };
-                registeredCoursesTableModel.addRow(row);
-            }
-        }
+    public void updateRegisteredCoursesTable(List<Enrollment> enrollments, SubjectRepository dataAccess) {
+        registeredCoursesTableModel.setEnrollments(enrollments, dataAccess);
     }
 }
\ No newline at end of file
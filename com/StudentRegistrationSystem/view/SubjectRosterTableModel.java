@@ -0,0 +1,124 @@
+package com.StudentRegistrationSystem.view;
+
+import javax.swing.table.AbstractTableModel;
+
+import com.StudentRegistrationSystem.model.Enrollment;
+import com.StudentRegistrationSystem.model.StudentRepository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Table Model ของตารางรายชื่อนักเรียนในรายวิชา (หน้าจอแอดมิน)
+ *
+ * ต่างจาก DefaultTableModel ตรงที่ไม่คัดลอกค่าของทุกเซลล์ลงใน Object[] ล่วงหน้า
+ * แต่เก็บเพียงอ้างอิงไปยัง {@link Enrollment} ของแต่ละแถว และอ่านค่า (เช่น ชื่อนักเรียน, เกรด) ตอนที่ตารางวาดเซลล์นั้นจริง
+ * ซึ่งจะเกิดเฉพาะแถวที่มองเห็นบนหน้าจอ เมื่อเกรดของนักเรียนคนหนึ่งเปลี่ยน จะแจ้งตารางให้วาดใหม่เฉพาะแถวนั้น
+ * เมธอดทั้งหมดต้องถูกเรียกบน EDT (Controller ส่งการเปลี่ยนแปลงจาก {@link com.StudentRegistrationSystem.model.DataChangeListener} มาให้)
+ */
+public class SubjectRosterTableModel extends AbstractTableModel {
+
+    private static final String[] COLUMN_NAMES = {"Student ID", "Student Name", "Current Grade"};
+
+    private List<Enrollment> enrollments = new ArrayList<>();
+    private final Map<String, Integer> rowByStudentId = new HashMap<>();
+    private StudentRepository dataAccess;
+
+    /**
+     * กำหนดรายการลงทะเบียนทั้งหมดของรายวิชาที่จะแสดง (แทนที่ข้อมูลเดิมทั้งหมด)
+     *
+     * @param enrollments List ของการลงทะเบียนในวิชานั้น
+     * @param dataAccess  Service สำหรับใช้ค้นหาชื่อนักเรียนจากรหัสนักเรียน
+     */
+    public void setEnrollments(List<Enrollment> enrollments, StudentRepository dataAccess) {
+        this.enrollments = new ArrayList<>(enrollments);
+        this.dataAccess = dataAccess;
+        rowByStudentId.clear();
+        for (int row = 0; row < enrollments.size(); row++) {
+            rowByStudentId.put(enrollments.get(row).getStudentId(), row);
+        }
+        fireTableDataChanged();
+    }
+
+    public void clear() {
+        enrollments = new ArrayList<>();
+        rowByStudentId.clear();
+        fireTableDataChanged();
+    }
+
+    /**
+     * แจ้งว่าข้อมูลการลงทะเบียนของนักเรียนคนนี้เปลี่ยนแปลง (เช่น แก้ไขเกรด) ให้ตารางวาดใหม่เฉพาะแถวนั้น
+     */
+    public void enrollmentUpdated(String studentId) {
+        Integer row = rowByStudentId.get(studentId);
+        if (row != null) {
+            fireTableRowsUpdated(row, row);
+        }
+    }
+
+    /**
+     * เพิ่มนักเรียนที่เพิ่งลงทะเบียนในรายวิชานี้ต่อท้ายตาราง
+     */
+    public void enrollmentAdded(Enrollment enrollment) {
+        if (rowByStudentId.containsKey(enrollment.getStudentId())) {
+            enrollmentUpdated(enrollment.getStudentId());
+            return;
+        }
+        int row = enrollments.size();
+        enrollments.add(enrollment);
+        rowByStudentId.put(enrollment.getStudentId(), row);
+        fireTableRowsInserted(row, row);
+    }
+
+    /**
+     * นำนักเรียนที่ยกเลิกการลงทะเบียนในรายวิชานี้ออกจากตาราง และเลื่อนเลขแถวของนักเรียนที่อยู่ถัดไป
+     */
+    public void enrollmentRemoved(String studentId) {
+        Integer row = rowByStudentId.remove(studentId);
+        if (row == null) {
+            return;
+        }
+        enrollments.remove((int) row);
+        for (int next = row; next < enrollments.size(); next++) {
+            rowByStudentId.put(enrollments.get(next).getStudentId(), next);
+        }
+        fireTableRowsDeleted(row, row);
+    }
+
+    public Enrollment getEnrollmentAt(int row) {
+        return enrollments.get(row);
+    }
+
+    @Override
+    public int getRowCount() {
+        return enrollments.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMN_NAMES.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMN_NAMES[column];
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        Enrollment e = enrollments.get(row);
+        switch (column) {
+            case 0:
+                return e.getStudentId();
+            case 1:
+                // ค้นหาชื่อนักเรียนจากรหัสนักเรียน เพื่อการแสดงผลที่เป็นมิตรต่อผู้ใช้
+                return dataAccess.findStudentById(e.getStudentId())
+                        .map(s -> s.getFirstName() + " " + s.getLastName())
+                        .orElse("Unknown Student");
+            default:
+                return e.getGrade();
+        }
+    }
+}